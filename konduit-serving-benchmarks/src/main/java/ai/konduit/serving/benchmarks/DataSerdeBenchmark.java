@@ -0,0 +1,105 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.benchmarks;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Data} JSON and protobuf serialization and deserialization, for a Data instance with a single
+ * float NDArray of the specified size plus a few scalar values
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataSerdeBenchmark {
+
+    @Param({"1000", "150528"})
+    public int arrayLength;
+
+    private Data data;
+    private String json;
+    private String numericJson;
+    private byte[] bytes;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup(){
+        float[] f = new float[arrayLength];
+        Random r = new Random(12345);
+        for( int i=0; i<f.length; i++ ){
+            f[i] = r.nextFloat();
+        }
+
+        data = Data.singleton("array", NDArray.create(f));
+        data.put("name", "benchmark");
+        data.put("count", 10L);
+        data.put("flag", true);
+
+        json = data.toJson();
+        numericJson = data.toJson(true);
+        bytes = data.asBytes();
+        buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+    }
+
+    @Benchmark
+    public String toJson(){
+        return data.toJson();
+    }
+
+    @Benchmark
+    public String toJsonNumeric(){
+        return data.toJson(true);
+    }
+
+    @Benchmark
+    public Data fromJson(){
+        return Data.fromJson(json);
+    }
+
+    @Benchmark
+    public Data fromJsonNumeric(){
+        return Data.fromJson(numericJson);
+    }
+
+    @Benchmark
+    public byte[] toBytes(){
+        return data.asBytes();
+    }
+
+    @Benchmark
+    public Data fromBytes(){
+        return Data.fromBytes(bytes);
+    }
+
+    @Benchmark
+    public Data fromBuffer(){
+        return Data.fromBuffer(buffer.duplicate());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.benchmarks;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.event.Level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput benchmark for the HTTP inference verticle: a local server is started with a pass-through
+ * pipeline, and requests are sent to the /predict endpoint. Use the JMH "-t" option to control the number of
+ * concurrent clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HttpInferenceBenchmark {
+
+    public static final String JSON = "application/json";
+    public static final String BINARY = "application/octet-stream";
+
+    @Param({BINARY, JSON})
+    public String contentType;
+
+    @Param({"1000"})
+    public int arrayLength;
+
+    private Vertx vertx;
+    private URL url;
+    private byte[] body;
+
+    @Setup
+    public void setup() throws Exception {
+        InferenceConfiguration configuration = InferenceConfiguration.builder()
+                .protocol(ServerProtocol.HTTP)
+                .pipeline(SequencePipeline.builder()
+                        .add(LoggingPipelineStep.builder().log(LoggingPipelineStep.Log.KEYS).logLevel(Level.TRACE).build())
+                        .build())
+                .workers(Runtime.getRuntime().availableProcessors())
+                .build();
+
+        CompletableFuture<Integer> port = new CompletableFuture<>();
+        vertx = DeployKonduitServing.deploy(new VertxOptions(), new DeploymentOptions(), configuration, handler -> {
+            if(handler.succeeded()){
+                port.complete(handler.result().getActualPort());
+            } else {
+                port.completeExceptionally(handler.cause());
+            }
+        });
+        url = new URL("http://localhost:" + port.get(60, TimeUnit.SECONDS) + "/predict");
+
+        float[] f = new float[arrayLength];
+        for( int i=0; i<f.length; i++ ){
+            f[i] = i;
+        }
+        Data d = Data.singleton("array", NDArray.create(f));
+        body = BINARY.equals(contentType) ? d.asBytes() : d.toJson().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        vertx.close(r -> closed.complete(null));
+        closed.get(60, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public byte[] predict() throws IOException {
+        HttpURLConnection c = (HttpURLConnection) url.openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", contentType);
+        c.setRequestProperty("Accept", contentType);
+        c.setFixedLengthStreamingMode(body.length);
+        try(OutputStream os = c.getOutputStream()){
+            os.write(body);
+        }
+
+        if(c.getResponseCode() != 200)
+            throw new IllegalStateException("Request failed with status code " + c.getResponseCode());
+
+        //Read the full response so that the (keep-alive) connection can be reused
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try(InputStream is = c.getInputStream()){
+            int read;
+            while((read = is.read(buffer)) != -1){
+                baos.write(buffer, 0, read);
+            }
+        }
+        return baos.toByteArray();
+    }
+}
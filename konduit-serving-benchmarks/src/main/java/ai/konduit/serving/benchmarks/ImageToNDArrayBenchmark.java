@@ -0,0 +1,78 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.benchmarks;
+
+import ai.konduit.serving.data.image.convert.ImageToNDArray;
+import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
+import ai.konduit.serving.data.image.convert.config.NDFormat;
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for {@link ImageToNDArray#convert(Image, ImageToNDArrayConfig)}: converting a 640x480 image (stored as an
+ * OpenCV Mat) to a 224x224 float NDArray
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageToNDArrayBenchmark {
+
+    @Param({"CHANNELS_FIRST", "CHANNELS_LAST"})
+    public NDFormat format;
+
+    @Param({"CENTER_CROP", "STRETCH"})
+    public AspectRatioHandling aspectRatioHandling;
+
+    private Image image;
+    private ImageToNDArrayConfig config;
+
+    @Setup
+    public void setup(){
+        BufferedImage bi = new BufferedImage(640, 480, BufferedImage.TYPE_3BYTE_BGR);
+        Random r = new Random(12345);
+        for( int y=0; y<bi.getHeight(); y++ ){
+            for( int x=0; x<bi.getWidth(); x++ ){
+                bi.setRGB(x, y, r.nextInt(0xFFFFFF));
+            }
+        }
+        image = Image.create(Image.create(bi).getAs(Mat.class));
+
+        config = ImageToNDArrayConfig.builder()
+                .height(224)
+                .width(224)
+                .format(format)
+                .aspectRatioHandling(aspectRatioHandling)
+                .build();
+    }
+
+    @Benchmark
+    public NDArray convert(){
+        return ImageToNDArray.convert(image, config);
+    }
+}
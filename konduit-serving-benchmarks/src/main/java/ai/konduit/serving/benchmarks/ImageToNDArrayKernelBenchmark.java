@@ -0,0 +1,110 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.benchmarks;
+
+import ai.konduit.serving.data.image.convert.ImageToNDArray;
+import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.ImageToNDArrayKernel;
+import ai.konduit.serving.data.image.convert.config.ImageNormalization;
+import ai.konduit.serving.data.image.convert.config.NDFormat;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+
+/**
+ * Benchmark for the pixel conversion part of {@link ImageToNDArray} (BGR to RGB, HWC to CHW and normalization, after
+ * resizing): {@link ImageToNDArrayKernel} compared to the previous per-pixel implementation (indexer access and
+ * a normalization function call per value), which is reproduced here as the baseline
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageToNDArrayKernelBenchmark {
+
+    @Param({"224", "1024"})
+    public int size;
+
+    @Param({"CHANNELS_FIRST", "CHANNELS_LAST"})
+    public NDFormat format;
+
+    private Mat mat;
+    private ImageToNDArrayConfig config;
+
+    @Setup
+    public void setup(){
+        byte[] pixels = new byte[size * size * 3];
+        new Random(12345).nextBytes(pixels);
+        mat = new Mat(size, size, CV_8UC3);
+        mat.data().put(pixels);
+
+        config = ImageToNDArrayConfig.builder()
+                .height(size)
+                .width(size)
+                .format(format)
+                .normalization(ImageNormalization.builder().type(ImageNormalization.Type.SCALE).build())
+                .build();
+    }
+
+    @Benchmark
+    public ByteBuffer fused(){
+        return ImageToNDArrayKernel.convert(mat, config, true);
+    }
+
+    @Benchmark
+    public ByteBuffer perPixel(){
+        int h = mat.rows();
+        int w = mat.cols();
+        int ch = mat.channels();
+        ByteBuffer bb = ByteBuffer.allocateDirect(h * w * ch * 4).order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer fb = bb.asFloatBuffer();
+        ImageToNDArray.FloatNormalizer f = (x, c) -> (x / 255.0f);
+        UByteIndexer idx = mat.createIndexer(true);
+        if(format == NDFormat.CHANNELS_FIRST){
+            int[] rgbToBgr = {2, 1, 0};
+            for (int c = 0; c < 3; c++) {
+                for (int y = 0; y < h; y++) {
+                    for (int x = 0; x < w; x++) {
+                        fb.put(f.normalize(idx.get((ch * w * y) + (ch * x) + rgbToBgr[c]), c));
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < h * w * ch; i += 3) {
+                int b = idx.get(i);
+                int g = idx.get(i + 1);
+                int r = idx.get(i + 2);
+                fb.put(f.normalize(r, 0));
+                fb.put(f.normalize(g, 1));
+                fb.put(f.normalize(b, 2));
+            }
+        }
+        return bb;
+    }
+}
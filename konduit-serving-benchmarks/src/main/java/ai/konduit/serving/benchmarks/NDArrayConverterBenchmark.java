@@ -0,0 +1,94 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.benchmarks;
+
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.format.NDArrayConverter;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.registry.NDArrayConverterRegistry;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for NDArray conversion between Java arrays, {@link SerializedNDArray} and ND4J INDArrays (i.e.,
+ * JavaNDArrayConverters and ND4JConverters), including converter lookup via {@link NDArrayConverterRegistry}.<br>
+ * Converters are called directly rather than via {@link NDArray#getAs(Class)}, as NDArray instances cache their
+ * converted representations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NDArrayConverterBenchmark {
+
+    @Param({"32", "224"})
+    public int size;
+
+    private NDArray floatArray;
+    private NDArray serialized;
+    private NDArray nd4j;
+
+    @Setup
+    public void setup(){
+        INDArray arr = Nd4j.rand(size, size);
+        floatArray = NDArray.create(arr.toFloatMatrix());
+        serialized = NDArray.create(floatArray.getAs(SerializedNDArray.class));
+        nd4j = NDArray.create(arr);
+    }
+
+    @Benchmark
+    public Object floatToSerialized(){
+        return convert(floatArray, SerializedNDArray.class);
+    }
+
+    @Benchmark
+    public Object serializedToFloat(){
+        return convert(serialized, float[][].class);
+    }
+
+    @Benchmark
+    public Object serializedToNd4j(){
+        return convert(serialized, INDArray.class);
+    }
+
+    @Benchmark
+    public Object nd4jToSerialized(){
+        return convert(nd4j, SerializedNDArray.class);
+    }
+
+    @Benchmark
+    public Object floatToNd4j(){
+        return convert(floatArray, INDArray.class);
+    }
+
+    @Benchmark
+    public Object converterLookup(){
+        return NDArrayConverterRegistry.getConverterFor(serialized, float[][].class);
+    }
+
+    private static <T> T convert(NDArray arr, Class<T> type){
+        NDArrayConverter c = NDArrayConverterRegistry.getConverterFor(arr, type);
+        return c.convert(arr, type);
+    }
+}
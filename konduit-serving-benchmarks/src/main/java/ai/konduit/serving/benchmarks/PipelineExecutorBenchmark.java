@@ -0,0 +1,92 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.benchmarks;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.pipeline.graph.GraphBuilder;
+import ai.konduit.serving.pipeline.impl.pipeline.graph.GraphStep;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the per-step overhead of {@link SequencePipeline} and graph pipeline execution.<br>
+ * Each pipeline consists of the specified number of pass-through steps: logging steps at TRACE level, which is
+ * disabled in the benchmark logging configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineExecutorBenchmark {
+
+    @Param({"1", "10"})
+    public int numSteps;
+
+    private PipelineExecutor sequence;
+    private PipelineExecutor graph;
+    private Data input;
+
+    @Setup
+    public void setup(){
+        SequencePipeline.Builder sb = SequencePipeline.builder();
+        for( int i=0; i<numSteps; i++ ){
+            sb.add(step());
+        }
+        sequence = sb.build().executor();
+
+        GraphBuilder gb = new GraphBuilder();
+        GraphStep s = gb.input();
+        for( int i=0; i<numSteps; i++ ){
+            s = s.then("step" + i, step());
+        }
+        Pipeline p = gb.build(s);
+        graph = p.executor();
+
+        input = Data.singleton("array", NDArray.create(new float[]{1,2,3,4}));
+    }
+
+    @TearDown
+    public void tearDown(){
+        sequence.close();
+        graph.close();
+    }
+
+    @Benchmark
+    public Data sequencePipeline(){
+        return sequence.exec(input);
+    }
+
+    @Benchmark
+    public Data graphPipeline(){
+        return graph.exec(input);
+    }
+
+    private static LoggingPipelineStep step(){
+        return LoggingPipelineStep.builder().log(LoggingPipelineStep.Log.KEYS).logLevel(Level.TRACE).build();
+    }
+}
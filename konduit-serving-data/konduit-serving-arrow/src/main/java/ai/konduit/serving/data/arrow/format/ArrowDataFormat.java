@@ -0,0 +1,154 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.arrow.format;
+
+import ai.konduit.serving.data.arrow.util.ArrowDataUtils;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.ValueType;
+import ai.konduit.serving.pipeline.api.serde.DataFormat;
+import ai.konduit.serving.pipeline.util.BatchUtils;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link DataFormat} for the Arrow IPC streaming format ("application/vnd.apache.arrow.stream").<br>
+ * See {@link ArrowDataUtils} for how Data instances are mapped to Arrow record batches. A Data instance is written
+ * as a single record batch; when reading, all record batches in the stream are combined into a single Data instance
+ * by concatenating the columns.
+ */
+public class ArrowDataFormat implements DataFormat {
+
+    public static final String CONTENT_TYPE = "application/vnd.apache.arrow.stream";
+
+    private static final BufferAllocator ALLOCATOR = new RootAllocator(Long.MAX_VALUE);
+
+    @Override
+    public List<String> contentTypes() {
+        return Collections.singletonList(CONTENT_TYPE);
+    }
+
+    @Override
+    public Data read(ByteBuffer buffer) throws IOException {
+        try(BufferAllocator allocator = ALLOCATOR.newChildAllocator("konduit-arrow-read", 0, Long.MAX_VALUE);
+            ArrowStreamReader reader = new ArrowStreamReader(new ByteBufferChannel(buffer.duplicate()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<Data> batches = new ArrayList<>();
+            while(reader.loadNextBatch()){
+                batches.add(ArrowDataUtils.fromArrow(root));
+            }
+
+            if(batches.isEmpty()){
+                //Schema only: still return any non-column values
+                root.setRowCount(0);
+                return ArrowDataUtils.fromArrow(root);
+            }
+            return combine(batches);
+        }
+    }
+
+    @Override
+    public void write(Data data, OutputStream os) throws IOException {
+        try(BufferAllocator allocator = ALLOCATOR.newChildAllocator("konduit-arrow-write", 0, Long.MAX_VALUE);
+            VectorSchemaRoot root = ArrowDataUtils.toArrow(data, allocator)) {
+            //Note: the writer is not closed, as that would close the output stream
+            ArrowStreamWriter writer = new ArrowStreamWriter(root, new DictionaryProvider.MapDictionaryProvider(), os);
+            writer.start();
+            writer.writeBatch();
+            writer.end();
+        }
+    }
+
+    protected static Data combine(List<Data> batches){
+        if(batches.size() == 1)
+            return batches.get(0);
+
+        Data first = batches.get(0);
+        Data out = Data.empty();
+        for(String s : first.keys()){
+            ValueType vt = first.type(s);
+            if(vt == ValueType.NDARRAY){
+                List<NDArray> arrays = new ArrayList<>(batches.size());
+                for(Data d : batches){
+                    arrays.add(d.getNDArray(s));
+                }
+                out.put(s, BatchUtils.concat(arrays));
+            } else if(vt == ValueType.LIST && first.listType(s) == ValueType.STRING){
+                List<String> l = new ArrayList<>();
+                for(Data d : batches){
+                    l.addAll(d.getListString(s));
+                }
+                out.putListString(s, l);
+            } else if(vt == ValueType.LIST && first.listType(s) == ValueType.BYTES){
+                List<byte[]> l = new ArrayList<>();
+                for(Data d : batches){
+                    l.addAll(d.getListBytes(s));
+                }
+                out.putListBytes(s, l);
+            } else {
+                //Values from the schema metadata: the same for all batches
+                out.copyFrom(s, first);
+            }
+        }
+        return out;
+    }
+
+    private static class ByteBufferChannel implements ReadableByteChannel {
+        private final ByteBuffer buffer;
+        private boolean open = true;
+
+        private ByteBufferChannel(ByteBuffer buffer){
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if(!buffer.hasRemaining())
+                return -1;
+            int n = Math.min(dst.remaining(), buffer.remaining());
+            ByteBuffer src = buffer.duplicate();
+            src.limit(src.position() + n);
+            dst.put(src);
+            buffer.position(buffer.position() + n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
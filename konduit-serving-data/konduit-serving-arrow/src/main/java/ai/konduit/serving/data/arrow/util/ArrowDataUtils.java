@@ -0,0 +1,332 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.arrow.util;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
+import ai.konduit.serving.pipeline.api.data.ValueType;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import lombok.NonNull;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.nd4j.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Utilities for converting between {@link Data} instances and Arrow record batches ({@link VectorSchemaRoot}).<br>
+ * Each NDArray value becomes one column, with dimension 0 of the NDArray as the row dimension. Rank 1 NDArrays are
+ * stored as primitive vectors, and higher rank NDArrays as fixed size list vectors with one list (the flattened
+ * remaining dimensions) per row; the full shape is stored in the field metadata under {@link #SHAPE_METADATA_KEY}.
+ * Both are copied with a single bulk copy of the underlying buffer (other than boolean NDArrays, which Arrow stores
+ * as bits).<br>
+ * All other values (and rank 0 NDArrays) are stored as JSON in the schema metadata under {@link #DATA_METADATA_KEY}.<br>
+ * When converting from Arrow, UTF8 and binary columns are also supported, and are returned as lists of Strings
+ * and byte[]s respectively.
+ */
+public class ArrowDataUtils {
+
+    public static final String SHAPE_METADATA_KEY = "konduit.shape";
+    public static final String DATA_METADATA_KEY = "konduit.data";
+
+    private ArrowDataUtils(){ }
+
+    /**
+     * Convert the specified Data instance to an Arrow record batch. All NDArray values (other than rank 0 NDArrays)
+     * must have the same size for dimension 0. The returned VectorSchemaRoot must be closed by the caller.
+     *
+     * @param data      Data instance to convert
+     * @param allocator Allocator to use for the vectors
+     * @return The record batch
+     */
+    public static VectorSchemaRoot toArrow(@NonNull Data data, @NonNull BufferAllocator allocator){
+        Map<String,SerializedNDArray> columns = new LinkedHashMap<>();
+        Data other = Data.empty();
+        long rows = -1;
+        for(String s : data.keys()){
+            if(data.type(s) == ValueType.NDARRAY && data.getNDArray(s).shape().length > 0){
+                SerializedNDArray sa = data.getNDArray(s).getAs(SerializedNDArray.class);
+                long[] shape = sa.getShape();
+                if(rows < 0)
+                    rows = shape[0];
+                Preconditions.checkState(shape[0] == rows, "Unable to convert Data to Arrow: all NDArray values must have" +
+                        " the same size for dimension 0 (the row dimension). Got shape %s for key \"%s\", expected %s rows", shape, s, rows);
+                Preconditions.checkState(rows <= Integer.MAX_VALUE, "Unable to convert Data to Arrow: more than 2 billion rows");
+                columns.put(s, sa);
+            } else {
+                other.copyFrom(s, data);
+            }
+        }
+
+        List<Field> fields = new ArrayList<>(columns.size());
+        for(Map.Entry<String,SerializedNDArray> e : columns.entrySet()){
+            fields.add(field(e.getKey(), e.getValue()));
+        }
+        Map<String,String> metadata = other.size() == 0 ? null : Collections.singletonMap(DATA_METADATA_KEY, other.toJson());
+
+        VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields, metadata), allocator);
+        int numRows = (int) Math.max(rows, 0);
+        try {
+            for (Map.Entry<String, SerializedNDArray> e : columns.entrySet()) {
+                write(root.getVector(e.getKey()), e.getValue(), numRows);
+            }
+            root.setRowCount(numRows);
+        } catch (Throwable t){
+            root.close();
+            throw t;
+        }
+        return root;
+    }
+
+    /**
+     * Convert the specified Arrow record batch to a Data instance. Values are copied out of the Arrow vectors, hence
+     * the record batch may be closed or reused after calling this method.
+     *
+     * @param root Record batch to convert
+     * @return The Data instance
+     */
+    public static Data fromArrow(@NonNull VectorSchemaRoot root){
+        Data out = Data.empty();
+        int rows = root.getRowCount();
+        for(FieldVector v : root.getFieldVectors()){
+            String name = v.getField().getName();
+            Preconditions.checkState(v.getNullCount() == 0, "Unable to convert Arrow column \"%s\": null values are not supported", name);
+            if(v instanceof FixedSizeListVector || v instanceof BaseFixedWidthVector){
+                out.put(name, NDArray.create(toNDArray(v, rows)));
+            } else if(v instanceof VarCharVector){
+                VarCharVector vcv = (VarCharVector)v;
+                List<String> l = new ArrayList<>(rows);
+                for( int i=0; i<rows; i++ ){
+                    l.add(new String(vcv.get(i), StandardCharsets.UTF_8));
+                }
+                out.putListString(name, l);
+            } else if(v instanceof VarBinaryVector){
+                VarBinaryVector vbv = (VarBinaryVector)v;
+                List<byte[]> l = new ArrayList<>(rows);
+                for( int i=0; i<rows; i++ ){
+                    l.add(vbv.get(i));
+                }
+                out.putListBytes(name, l);
+            } else {
+                throw new UnsupportedOperationException("Unable to convert Arrow column \"" + name + "\" of type " +
+                        v.getField().getType() + " to a Data value: type is not supported");
+            }
+        }
+
+        Map<String,String> metadata = root.getSchema().getCustomMetadata();
+        if(metadata != null && metadata.containsKey(DATA_METADATA_KEY)){
+            out.merge(true, Data.fromJson(metadata.get(DATA_METADATA_KEY)));
+        }
+        return out;
+    }
+
+    /**
+     * Get the Arrow type used for NDArrays of the specified type
+     */
+    public static ArrowType arrowType(@NonNull NDArrayType type){
+        switch (type){
+            case DOUBLE:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case FLOAT:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+            case INT64:
+                return new ArrowType.Int(64, true);
+            case INT32:
+                return new ArrowType.Int(32, true);
+            case INT16:
+                return new ArrowType.Int(16, true);
+            case INT8:
+                return new ArrowType.Int(8, true);
+            case UINT64:
+                return new ArrowType.Int(64, false);
+            case UINT32:
+                return new ArrowType.Int(32, false);
+            case UINT16:
+                return new ArrowType.Int(16, false);
+            case UINT8:
+                return new ArrowType.Int(8, false);
+            case BOOL:
+                return ArrowType.Bool.INSTANCE;
+            default:
+                throw new UnsupportedOperationException("Unable to convert NDArray of type " + type + " to Arrow: type is not supported");
+        }
+    }
+
+    /**
+     * Get the NDArray type for the specified Arrow type
+     */
+    public static NDArrayType ndArrayType(@NonNull ArrowType type){
+        if(type instanceof ArrowType.FloatingPoint){
+            switch (((ArrowType.FloatingPoint) type).getPrecision()){
+                case DOUBLE:
+                    return NDArrayType.DOUBLE;
+                case SINGLE:
+                    return NDArrayType.FLOAT;
+            }
+        } else if(type instanceof ArrowType.Int){
+            ArrowType.Int t = (ArrowType.Int)type;
+            switch (t.getBitWidth()){
+                case 64:
+                    return t.getIsSigned() ? NDArrayType.INT64 : NDArrayType.UINT64;
+                case 32:
+                    return t.getIsSigned() ? NDArrayType.INT32 : NDArrayType.UINT32;
+                case 16:
+                    return t.getIsSigned() ? NDArrayType.INT16 : NDArrayType.UINT16;
+                case 8:
+                    return t.getIsSigned() ? NDArrayType.INT8 : NDArrayType.UINT8;
+            }
+        } else if(type instanceof ArrowType.Bool){
+            return NDArrayType.BOOL;
+        }
+        throw new UnsupportedOperationException("Unable to convert Arrow type " + type + " to an NDArray type: type is not supported");
+    }
+
+    private static Field field(String name, SerializedNDArray sa){
+        ArrowType type = arrowType(sa.getType());
+        long[] shape = sa.getShape();
+        Map<String,String> metadata = Collections.singletonMap(SHAPE_METADATA_KEY, shapeToString(shape));
+        if(shape.length == 1)
+            return new Field(name, new FieldType(false, type, null, metadata), null);
+
+        long listSize = 1;
+        for( int i=1; i<shape.length; i++ )
+            listSize *= shape[i];
+        Preconditions.checkState(listSize <= Integer.MAX_VALUE, "Unable to convert NDArray \"%s\" with shape %s to Arrow:" +
+                " more than 2 billion values per row", name, shape);
+
+        Field values = new Field("item", new FieldType(false, type, null), null);
+        return new Field(name, new FieldType(false, new ArrowType.FixedSizeList((int) listSize), null, metadata),
+                Collections.singletonList(values));
+    }
+
+    private static void write(FieldVector v, SerializedNDArray sa, int rows){
+        v.setInitialCapacity(rows);
+        v.allocateNew();
+
+        BaseFixedWidthVector values;
+        if(v instanceof FixedSizeListVector){
+            FixedSizeListVector l = (FixedSizeListVector)v;
+            for( int i=0; i<rows; i++ ){
+                l.setNotNull(i);
+            }
+            values = (BaseFixedWidthVector) l.getDataVector();
+        } else {
+            values = (BaseFixedWidthVector) v;
+        }
+
+        int length = (int) length(sa.getShape());
+        ByteBuffer src = sa.getBuffer().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        src.clear();
+        if(values instanceof BitVector){
+            //Arrow booleans are bit packed, NDArray booleans are one byte per value
+            BitVector bv = (BitVector) values;
+            for( int i=0; i<length; i++ ){
+                bv.set(i, src.get(i) != 0 ? 1 : 0);
+            }
+        } else {
+            src.limit(length * sa.getType().width());
+            values.getDataBuffer().setBytes(0, src);
+            for( int i=0; i<length; i++ ){
+                values.setIndexDefined(i);
+            }
+        }
+        v.setValueCount(rows);
+    }
+
+    private static SerializedNDArray toNDArray(FieldVector v, int rows){
+        BaseFixedWidthVector values;
+        long[] shape;
+        if(v instanceof FixedSizeListVector){
+            FixedSizeListVector l = (FixedSizeListVector)v;
+            Preconditions.checkState(l.getDataVector() instanceof BaseFixedWidthVector, "Unable to convert Arrow column \"%s\":" +
+                    " only fixed size lists of numerical or boolean values are supported", v.getField().getName());
+            values = (BaseFixedWidthVector) l.getDataVector();
+            shape = new long[]{rows, l.getListSize()};
+        } else {
+            values = (BaseFixedWidthVector) v;
+            shape = new long[]{rows};
+        }
+
+        //Restore the original shape, if the column was written by toArrow
+        Map<String,String> metadata = v.getField().getMetadata();
+        if(metadata != null && metadata.containsKey(SHAPE_METADATA_KEY)){
+            long[] s = shapeFromString(metadata.get(SHAPE_METADATA_KEY));
+            if(s.length > 0 && length(s) == length(shape)) {
+                shape = s;
+            }
+        }
+
+        NDArrayType type = ndArrayType(values.getField().getType());
+        int length = (int) length(shape);
+        ByteBuffer bb = ByteBuffer.allocateDirect(length * type.width()).order(ByteOrder.LITTLE_ENDIAN);
+        if(values instanceof BitVector){
+            BitVector bv = (BitVector) values;
+            for( int i=0; i<length; i++ ){
+                bb.put(i, (byte) bv.get(i));
+            }
+        } else {
+            values.getDataBuffer().getBytes(0, bb);
+            bb.clear();
+        }
+        return new SerializedNDArray(type, shape, bb);
+    }
+
+    private static long length(long[] shape){
+        long l = 1;
+        for(long s : shape)
+            l *= s;
+        return l;
+    }
+
+    private static String shapeToString(long[] shape){
+        StringBuilder sb = new StringBuilder();
+        for( int i=0; i<shape.length; i++ ){
+            if(i > 0)
+                sb.append(",");
+            sb.append(shape[i]);
+        }
+        return sb.toString();
+    }
+
+    private static long[] shapeFromString(String s){
+        if(s.isEmpty())
+            return new long[0];
+        String[] split = s.split(",");
+        long[] out = new long[split.length];
+        for( int i=0; i<split.length; i++ ){
+            out[i] = Long.parseLong(split[i].trim());
+        }
+        return out;
+    }
+}
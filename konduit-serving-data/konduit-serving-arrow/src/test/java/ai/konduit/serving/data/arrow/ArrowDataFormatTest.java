@@ -0,0 +1,76 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.arrow;
+
+import ai.konduit.serving.data.arrow.format.ArrowDataFormat;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.serde.DataFormat;
+import ai.konduit.serving.pipeline.registry.DataFormatRegistry;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ArrowDataFormatTest {
+
+    @Test
+    public void testRegistry(){
+        DataFormat f = DataFormatRegistry.getFormatFor(ArrowDataFormat.CONTENT_TYPE);
+        assertNotNull(f);
+        assertTrue(f instanceof ArrowDataFormat);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Data d = Data.empty();
+        d.put("vector", NDArray.create(new double[]{1, 2, 3}));
+        d.put("matrix", NDArray.create(new float[][]{{1, 2}, {3, 4}, {5, 6}}));
+        d.put("rank3", NDArray.create(new long[][][]{{{1, 2}, {3, 4}}, {{5, 6}, {7, 8}}, {{9, 10}, {11, 12}}}));
+        d.put("bool", NDArray.create(new boolean[]{true, false, true}));
+        d.put("label", "some label");
+        d.put("threshold", 0.5);
+        d.putListString("classes", Arrays.asList("a", "b"));
+
+        ArrowDataFormat format = new ArrowDataFormat();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        format.write(d, baos);
+
+        Data out = format.read(ByteBuffer.wrap(baos.toByteArray()));
+        assertEquals(d, out);
+        assertArrayEquals(new long[]{3, 2, 2}, out.getNDArray("rank3").shape());
+    }
+
+    @Test
+    public void testMismatchedRows(){
+        Data d = Data.empty();
+        d.put("a", NDArray.create(new float[]{1, 2, 3}));
+        d.put("b", NDArray.create(new float[]{1, 2}));
+
+        try {
+            new ArrowDataFormat().write(d, new ByteArrayOutputStream());
+            fail("Expected exception");
+        } catch (Exception e){
+            assertTrue(e.getMessage(), e.getMessage().contains("same size for dimension 0"));
+        }
+    }
+}
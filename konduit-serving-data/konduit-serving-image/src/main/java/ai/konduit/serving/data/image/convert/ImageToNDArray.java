@@ -27,17 +27,23 @@ import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.util.BufferPool;
 import org.bytedeco.javacpp.Loader;
 import org.bytedeco.javacpp.indexer.*;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.bytedeco.opencv.opencv_core.Size;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.primitives.Pair;
 import org.nd4j.common.util.ArrayUtil;
 
 import java.nio.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
 
 import static org.bytedeco.opencv.global.opencv_imgproc.resize;
 
@@ -89,7 +95,7 @@ public class ImageToNDArray {
             if (h == AspectRatioHandling.CENTER_CROP) {
                 return centerCropBB(imgH, imgW, outH, outW);
             } else if (h == AspectRatioHandling.PAD) {
-                throw new UnsupportedOperationException("Not yet implemented");
+                return letterboxBB(imgH, imgW, outH, outW);
             } else if (h == AspectRatioHandling.STRETCH) {
                 return BoundingBox.createXY(0.0, 1.0, 0.0, 1.0);
             } else {
@@ -102,8 +108,6 @@ public class ImageToNDArray {
     }
 
     protected static Pair<NDArray,BoundingBox> convert(Image image, ImageToNDArrayConfig config, boolean withMeta) {
-        BoundingBox bbMeta = null;
-
         Integer outH = config.height();
         Integer outW = config.width();
         if (outH == null)
@@ -111,6 +115,115 @@ public class ImageToNDArray {
         if (outW == null)
             outW = image.width();
 
+        Pair<Mat,BoundingBox> p = resize(image, outH, outW, config, withMeta);
+        Mat m = convertColor(p.getFirst(), config);
+
+        ByteBuffer bb = toFloatBuffer(m, config);
+
+        if (config.dataType() != NDArrayType.FLOAT) //TODO there are likely more efficient ways than this!
+            bb = cast(bb, NDArrayType.FLOAT, config.dataType());
+
+        int ch = config.channelLayout().numChannels();
+
+        long[] shape;
+        if (config.format() == NDFormat.CHANNELS_FIRST) {
+            shape = config.includeMinibatchDim() ? new long[]{1, ch, outH, outW} : new long[]{ch, outH, outW};
+        } else {
+            shape = config.includeMinibatchDim() ? new long[]{1, outH, outW, ch} : new long[]{outH, outW, ch};
+        }
+
+        SerializedNDArray arr = new SerializedNDArray(config.dataType(), shape, bb);
+
+        return new Pair<>(NDArray.create(arr), p.getSecond());
+    }
+
+    /**
+     * Convert all of the provided images to a single batched NDArray with shape [N,C,H,W] or [N,H,W,C] (depending on
+     * the configured format), according to the specified configuration. The images are converted in parallel, directly
+     * into the output array's buffer. Note that a minibatch dimension is always present in the output, regardless of
+     * {@link ImageToNDArrayConfig#includeMinibatchDim()}.<br>
+     * An empty list of images is converted to an empty array with a minibatch size of 0 (and a height/width of 0 if
+     * these are not set in the configuration).<br>
+     * If the height and width are not set in the configuration, all images must have the same size.
+     *
+     * @param images Images to convert
+     * @param config Configuration to use
+     * @return The images converted to a single NDArray
+     */
+    public static NDArray convertBatch(List<Image> images, ImageToNDArrayConfig config) {
+        return convertBatch(images, config, false).getFirst();
+    }
+
+    /**
+     * As per {@link #convertBatch(List, ImageToNDArrayConfig)}, but also returns the region of each image that was used
+     * (see {@link #convertWithMetadata(Image, ImageToNDArrayConfig)})
+     */
+    public static Pair<NDArray,List<BoundingBox>> convertBatchWithMetadata(List<Image> images, ImageToNDArrayConfig config) {
+        return convertBatch(images, config, true);
+    }
+
+    protected static Pair<NDArray,List<BoundingBox>> convertBatch(List<Image> images, ImageToNDArrayConfig config, boolean withMeta) {
+        Preconditions.checkState(config.channelLayout() == NDChannelLayout.RGB || config.channelLayout() == NDChannelLayout.BGR,
+                "Only RGB and BGR conversion implement so far");
+        Preconditions.checkState(config.dataType() != NDArrayType.BOOL && config.dataType() != NDArrayType.UTF8,
+                "%s datatype is not supported for ImageToNDArray", config.dataType());
+
+        if (images.isEmpty()) {
+            //For example, no detections from a previous step: return an empty array with a minibatch size of 0
+            int ch = config.channelLayout().numChannels();
+            int outH = config.height() == null ? 0 : config.height();
+            int outW = config.width() == null ? 0 : config.width();
+            long[] shape = config.format() == NDFormat.CHANNELS_FIRST ? new long[]{0, ch, outH, outW} : new long[]{0, outH, outW, ch};
+            ByteBuffer bb = ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+            NDArray arr = NDArray.create(new SerializedNDArray(config.dataType(), shape, bb));
+            return new Pair<>(arr, withMeta ? Collections.<BoundingBox>emptyList() : null);
+        }
+
+        Image first = images.get(0);
+        int outH = config.height() == null ? first.height() : config.height();
+        int outW = config.width() == null ? first.width() : config.width();
+        if (config.height() == null || config.width() == null) {
+            for (Image i : images) {
+                Preconditions.checkState((config.height() != null || i.height() == outH) && (config.width() != null || i.width() == outW),
+                        "Unable to convert batch of images: output height/width is not set in the configuration, and images " +
+                        "have different sizes: %sx%s vs. %sx%s (height x width)", outH, outW, i.height(), i.width());
+            }
+        }
+
+        int n = images.size();
+        int ch = config.channelLayout().numChannels();
+        long lengthBytes = (long) n * ch * outH * outW * 4;
+        Preconditions.checkState(lengthBytes < Integer.MAX_VALUE, "Unable to convert batch of %s images: more than 2 billion bytes in result", n);
+
+        boolean direct = !Loader.getPlatform().startsWith("android");
+        ByteBuffer bb = direct ? BufferPool.allocate((int) lengthBytes) : ByteBuffer.allocate((int) lengthBytes);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer fb = bb.asFloatBuffer();
+
+        BoundingBox[] bbMeta = new BoundingBox[n];
+        int imageLength = ch * outH * outW;
+        IntStream.range(0, n).parallel().forEach(i -> {
+            Pair<Mat,BoundingBox> p = resize(images.get(i), outH, outW, config, withMeta);
+            Mat m = convertColor(p.getFirst(), config);
+            ImageToNDArrayKernel.convert(m, config, fb, i * imageLength);
+            bbMeta[i] = p.getSecond();
+        });
+
+        if (config.dataType() != NDArrayType.FLOAT)
+            bb = cast(bb, NDArrayType.FLOAT, config.dataType());
+
+        long[] shape = config.format() == NDFormat.CHANNELS_FIRST ? new long[]{n, ch, outH, outW} : new long[]{n, outH, outW, ch};
+        NDArray arr = NDArray.create(new SerializedNDArray(config.dataType(), shape, bb));
+        return new Pair<>(arr, withMeta ? Arrays.asList(bbMeta) : null);
+    }
+
+    /**
+     * Crop and/or resize the image to the specified size, according to the configured aspect ratio handling
+     *
+     * @return The resized image, and the region of the original image that was used (if withMeta is true)
+     */
+    protected static Pair<Mat,BoundingBox> resize(Image image, int outH, int outW, ImageToNDArrayConfig config, boolean withMeta) {
+        BoundingBox bbMeta = null;
 
         //Resize if necessary
         boolean correctSize = outH == image.height() && outW == image.width();
@@ -132,7 +245,11 @@ public class ImageToNDArray {
                     bbMeta = p.getSecond();
                 }
             } else if (h == AspectRatioHandling.PAD) {
-                throw new UnsupportedOperationException("Not yet implemented");
+                Pair<Mat,BoundingBox> p = letterbox(m, outH, outW, withMeta);
+                m = p.getFirst();
+                if(withMeta){
+                    bbMeta = p.getSecond();
+                }
             } else if (h == AspectRatioHandling.STRETCH) {
                 Mat resized = new Mat();
                 org.bytedeco.opencv.global.opencv_imgproc.resize(m, resized, new Size(outW, outH));
@@ -150,25 +267,7 @@ public class ImageToNDArray {
             }
         }
 
-        m = convertColor(m, config);
-
-        ByteBuffer bb = toFloatBuffer(m, config);
-
-        if (config.dataType() != NDArrayType.FLOAT) //TODO there are likely more efficient ways than this!
-            bb = cast(bb, NDArrayType.FLOAT, config.dataType());
-
-        int ch = config.channelLayout().numChannels();
-
-        long[] shape;
-        if (config.format() == NDFormat.CHANNELS_FIRST) {
-            shape = config.includeMinibatchDim() ? new long[]{1, ch, outH, outW} : new long[]{ch, outH, outW};
-        } else {
-            shape = config.includeMinibatchDim() ? new long[]{1, outH, outW, ch} : new long[]{outH, outW, ch};
-        }
-
-        SerializedNDArray arr = new SerializedNDArray(config.dataType(), shape, bb);
-
-        return new Pair<>(NDArray.create(arr), bbMeta);
+        return new Pair<>(m, bbMeta);
     }
 
     protected static Pair<Mat,BoundingBox> centerCrop(Mat image, int outH, int outW, boolean withBB) {
@@ -214,6 +313,49 @@ public class ImageToNDArray {
         return new Pair<>(out, bb);
     }
 
+    /**
+     * Letterbox the image: resize it (preserving the aspect ratio) to fit within the output size, and zero pad the
+     * remainder of the smaller dimension equally on both sides. The image is resized directly into the padded output.<br>
+     * The returned bounding box (if withBB is true) is the region of the original image that the output covers - this
+     * extends beyond [0,1] in the padded dimension, so that positions in the output can be mapped back to the original
+     * image the same way as for cropped images.
+     */
+    protected static Pair<Mat,BoundingBox> letterbox(Mat image, int outH, int outW, boolean withBB) {
+        int imgH = image.rows();
+        int imgW = image.cols();
+        Rect r = letterboxRect(imgH, imgW, outH, outW);
+
+        Mat out = new Mat(outH, outW, image.type(), Scalar.all(0));
+        Mat roi = out.apply(r);
+        if(r.width() == imgW && r.height() == imgH){
+            image.copyTo(roi);
+        } else {
+            org.bytedeco.opencv.global.opencv_imgproc.resize(image, roi, new Size(r.width(), r.height()));
+        }
+
+        BoundingBox bb = withBB ? letterboxBB(imgH, imgW, outH, outW) : null;
+        return new Pair<>(out, bb);
+    }
+
+    /**
+     * @return The region of the output (in pixels) that the resized image occupies when letterboxing
+     */
+    protected static Rect letterboxRect(int imgH, int imgW, int outH, int outW){
+        double scale = Math.min(outW / (double)imgW, outH / (double)imgH);
+        int w = Math.max(1, Math.min(outW, (int)Math.round(imgW * scale)));
+        int h = Math.max(1, Math.min(outH, (int)Math.round(imgH * scale)));
+        return new Rect((outW - w) / 2, (outH - h) / 2, w, h);
+    }
+
+    protected static BoundingBox letterboxBB(int imgH, int imgW, int outH, int outW){
+        Rect r = letterboxRect(imgH, imgW, outH, outW);
+        double dx1 = -r.x() / (double)r.width();
+        double dx2 = (outW - r.x()) / (double)r.width();
+        double dy1 = -r.y() / (double)r.height();
+        double dy2 = (outH - r.y()) / (double)r.height();
+        return BoundingBox.createXY(dx1, dx2, dy1, dy2);
+    }
+
     protected static BoundingBox centerCropBB(int imgH, int imgW, int outH, int outW){
         double aspectIn = imgW / (double)imgH;
         double aspectOut = outW / (double)outH;
@@ -277,18 +419,14 @@ public class ImageToNDArray {
                 "%s datatype is not supported for ImageToNDArray", config.dataType());
 
         boolean direct = !Loader.getPlatform().startsWith("android");
+        return ImageToNDArrayKernel.convert(m, config, direct);
+    }
 
-        //By default, Mat stores values in channels first format - CHW
-        int h = m.rows();
-        int w = m.cols();
-        int ch = m.channels();
-
-        int lengthElements = h * w * ch;
-        int lengthBytes = lengthElements * 4;
-
-        ByteBuffer bb = direct ? ByteBuffer.allocateDirect(lengthBytes).order(ByteOrder.LITTLE_ENDIAN) : ByteBuffer.allocate(lengthBytes).order(ByteOrder.LITTLE_ENDIAN);
-        FloatBuffer fb = bb.asFloatBuffer();
-
+    /**
+     * Get the normalization function for the specified configuration. Note that the channel index is the index
+     * of the channel in the output (i.e., depends on whether the output is RGB or BGR)
+     */
+    protected static FloatNormalizer normalizer(ImageToNDArrayConfig config) {
         boolean rgb = config.channelLayout() == NDChannelLayout.RGB;
 
         FloatNormalizer f;
@@ -334,61 +472,7 @@ public class ImageToNDArray {
             }
         }
 
-        Indexer imgIdx = m.createIndexer(direct);
-        if (imgIdx instanceof UByteIndexer) {
-            UByteIndexer ubIdx = (UByteIndexer) imgIdx;
-
-            if (config.format() == NDFormat.CHANNELS_FIRST) {
-                if (rgb) {
-                    //Mat is HWC in BGR, we want (N)CHW in RGB format
-                    int[] rgbToBgr = {2, 1, 0};
-                    for (int c = 0; c < 3; c++) {
-                        for (int y = 0; y < h; y++) {
-                            for (int x = 0; x < w; x++) {
-                                int idxBGR = (ch * w * y) + (ch * x) + rgbToBgr[c];
-                                int v = ubIdx.get(idxBGR);
-                                float normalized = f.normalize(v, c);
-                                fb.put(normalized);
-                            }
-                        }
-                    }
-                } else {
-                    //Mat is HWC in BGR, we want (N)CHW in BGR format
-                    for (int c = 0; c < 3; c++) {
-                        for (int y = 0; y < h; y++) {
-                            for (int x = 0; x < w; x++) {
-                                int idxBGR = (ch * w * y) + (ch * x) + c;
-                                int v = ubIdx.get(idxBGR);
-                                float normalized = f.normalize(v, c);
-                                fb.put(normalized);
-                            }
-                        }
-                    }
-                }
-            } else {
-                if (rgb) {
-                    //Mat is HWC in BGR, we want (N)HWC in RGB format
-                    for (int i = 0; i < lengthElements; i += 3) {
-                        int b = ubIdx.get(i);
-                        int g = ubIdx.get(i + 1);
-                        int r = ubIdx.get(i + 2);
-                        fb.put(f.normalize(r, 0));
-                        fb.put(f.normalize(g, 1));
-                        fb.put(f.normalize(b, 2));
-                    }
-                } else {
-                    //Mat is HWC in BGR, we want (N)HWC in BGR format
-                    for (int i = 0; i < lengthElements; i++) {
-                        float normalized = f.normalize(ubIdx.get(i), i % 3);
-                        fb.put(normalized);
-                    }
-                }
-            }
-        } else {
-            throw new RuntimeException("Not yet implemented: " + imgIdx.getClass());
-        }
-
-        return bb;
+        return f;
     }
 
     //TODO This isn't the most efficient or elegant approach, but it should work OK for images
@@ -445,7 +529,7 @@ public class ImageToNDArray {
         }
 
         int bytesLength = toType.width() * length;
-        ByteBuffer bb = direct ? ByteBuffer.allocateDirect(bytesLength).order(ByteOrder.LITTLE_ENDIAN) : ByteBuffer.allocate(bytesLength).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer bb = direct ? BufferPool.allocate(bytesLength) : ByteBuffer.allocate(bytesLength).order(ByteOrder.LITTLE_ENDIAN);
 
         switch (toType) {
             case DOUBLE:
@@ -41,7 +41,8 @@ import lombok.experimental.Accessors;
  *     <li><b>aspectRatioHandling</b>: How should input images with different aspect ratio to the output height/width be handled? Default: CENTER_CROP</li>
  *     <ul>
  *         <li><b>CENTER_CROP</b>: Crop the larger dimension down to the correct aspect ratio (and then resize if necessary).</li>
- *         <li><b>PAD</b>: Zero pad the smaller dimension to make the aspect ratio match the output (and then resize if necessary)</li>
+ *         <li><b>PAD</b>: Resize the image (preserving the aspect ratio) to fit the output, and zero pad the smaller dimension
+ *         equally on both sides to make the aspect ratio match the output (i.e., letterboxing)</li>
  *         <li><b>STRETCH</b>: Simply resize the image to the required aspect ratio, distorting the image if necessary</li>
  *     </ul>
  *     <li><b>format</b>: CHANNELS_FIRST (output shape: [1, c, h, w] or [c, h, w]) or CHANNELS_LAST (output shape: [1, h, w, c] or [h, w, c])</li>
@@ -0,0 +1,168 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.image.convert;
+
+import ai.konduit.serving.data.image.convert.config.NDChannelLayout;
+import ai.konduit.serving.data.image.convert.config.NDFormat;
+import ai.konduit.serving.pipeline.util.BufferPool;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.nd4j.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_8U;
+
+/**
+ * Conversion of (already resized) 8-bit OpenCV images to float pixel values, used by {@link ImageToNDArray}.<br>
+ * Channel order (BGR to RGB), layout (HWC to CHW) and normalization are applied in a single pass over the image:
+ * each row of the image is copied from the Mat in bulk, converted using a per-channel lookup table (an 8-bit image has
+ * only 256 possible values per channel, so the normalization is computed once per value rather than once per pixel),
+ * and written to the output buffer in bulk. Rows are converted in parallel for images with at least
+ * {@link #PARALLEL_THRESHOLD_PROPERTY} pixels.
+ */
+public class ImageToNDArrayKernel {
+
+    /**
+     * System property for the minimum number of pixels (height x width) for an image to be converted using multiple
+     * threads. Default: {@link #DEFAULT_PARALLEL_THRESHOLD}
+     */
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "konduit.serving.image.parallelThreshold";
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256 * 256;
+    protected static final int MIN_ROWS_PER_TILE = 16;
+
+    private ImageToNDArrayKernel(){ }
+
+    /**
+     * Convert the specified Mat to float values, returning a new (little endian) buffer. Direct buffers are allocated
+     * via {@link BufferPool}
+     *
+     * @param m      Image to convert. Must be an 8-bit image with at least 3 channels, in BGR(A) order
+     * @param config Configuration - only the channel layout, format and normalization are used here
+     */
+    public static ByteBuffer convert(Mat m, ImageToNDArrayConfig config, boolean direct){
+        int lengthBytes = m.rows() * m.cols() * config.channelLayout().numChannels() * 4;
+        ByteBuffer bb = direct ? BufferPool.allocate(lengthBytes) : ByteBuffer.allocate(lengthBytes);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        convert(m, config, bb.asFloatBuffer(), 0);
+        return bb;
+    }
+
+    /**
+     * Convert the specified Mat to float values, writing the result to the specified buffer starting at the
+     * specified (absolute) index. The position of the buffer is not modified.
+     *
+     * @param m      Image to convert. Must be an 8-bit image with at least 3 channels, in BGR(A) order
+     * @param config Configuration - only the channel layout, format and normalization are used here
+     * @param out    Buffer to write the converted values to
+     * @param offset Index (in floats, not bytes) of the buffer to write the first value to
+     */
+    public static void convert(Mat m, ImageToNDArrayConfig config, FloatBuffer out, int offset){
+        Preconditions.checkState(config.channelLayout() == NDChannelLayout.RGB || config.channelLayout() == NDChannelLayout.BGR,
+                "Only RGB and BGR conversion implement so far");
+        if(m.depth() != CV_8U || m.channels() < 3)
+            throw new UnsupportedOperationException("Not yet implemented: conversion of images with depth " + m.depth() + " and " + m.channels() + " channels");
+
+        int h = m.rows();
+        int w = m.cols();
+        Preconditions.checkState(out.limit() - offset >= h * w * 3, "Output buffer is too small: %s values required at offset %s, buffer limit is %s",
+                h * w * 3, offset, out.limit());
+
+        boolean rgb = config.channelLayout() == NDChannelLayout.RGB;
+        int[] srcChannel = rgb ? new int[]{2, 1, 0} : new int[]{0, 1, 2};    //Index in the BGR Mat, for each output channel
+        float[][] lut = lookupTable(config);
+        boolean chw = config.format() == NDFormat.CHANNELS_FIRST;
+
+        int tiles = 1;
+        if((long) h * w >= Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_THRESHOLD)){
+            tiles = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() + 1, h / MIN_ROWS_PER_TILE));
+        }
+
+        if(tiles == 1){
+            convertRows(m, 0, h, lut, srcChannel, chw, out, offset);
+        } else {
+            int rowsPerTile = (h + tiles - 1) / tiles;
+            IntStream.range(0, tiles).parallel().forEach(t -> {
+                int start = t * rowsPerTile;
+                int end = Math.min(h, start + rowsPerTile);
+                if(start < end)
+                    convertRows(m, start, end, lut, srcChannel, chw, out, offset);
+            });
+        }
+    }
+
+    protected static void convertRows(Mat m, int rowStart, int rowEnd, float[][] lut, int[] srcChannel, boolean chw,
+                                      FloatBuffer out, int offset){
+        int h = m.rows();
+        int w = m.cols();
+        int ch = m.channels();
+        long step = m.step();
+        BytePointer data = new BytePointer(m.data());      //Separate pointer (position) for each thread
+        FloatBuffer fb = out.duplicate();
+
+        byte[] row = new byte[w * ch];
+        float[] outRow = new float[w * 3];
+        float[] lut0 = lut[0], lut1 = lut[1], lut2 = lut[2];
+        int s0 = srcChannel[0], s1 = srcChannel[1], s2 = srcChannel[2];
+
+        for( int y=rowStart; y<rowEnd; y++ ){
+            data.position(y * step).get(row);
+
+            if(chw){
+                //Output is planar: one contiguous run of w values per channel for this row
+                for( int x=0, i=0; x<w; x++, i+=ch ){
+                    outRow[x] = lut0[row[i + s0] & 0xFF];
+                    outRow[w + x] = lut1[row[i + s1] & 0xFF];
+                    outRow[2*w + x] = lut2[row[i + s2] & 0xFF];
+                }
+                int planeSize = h * w;
+                for( int c=0; c<3; c++ ){
+                    fb.position(offset + c * planeSize + y * w);
+                    fb.put(outRow, c * w, w);
+                }
+            } else {
+                for( int x=0, i=0, j=0; x<w; x++, i+=ch, j+=3 ){
+                    outRow[j] = lut0[row[i + s0] & 0xFF];
+                    outRow[j + 1] = lut1[row[i + s1] & 0xFF];
+                    outRow[j + 2] = lut2[row[i + s2] & 0xFF];
+                }
+                fb.position(offset + y * w * 3);
+                fb.put(outRow);
+            }
+        }
+    }
+
+    /**
+     * Normalized value for each of the 256 possible 8-bit values, for each output channel
+     */
+    protected static float[][] lookupTable(ImageToNDArrayConfig config){
+        ImageToNDArray.FloatNormalizer f = ImageToNDArray.normalizer(config);
+        float[][] lut = new float[3][256];
+        for( int c=0; c<3; c++ ){
+            for( int v=0; v<256; v++ ){
+                lut[c][v] = f.normalize(v, c);
+            }
+        }
+        return lut;
+    }
+}
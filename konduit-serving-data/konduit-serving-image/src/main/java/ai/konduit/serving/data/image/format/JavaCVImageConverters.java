@@ -20,6 +20,7 @@ package ai.konduit.serving.data.image.format;
 
 import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.exception.DataConversionException;
+import ai.konduit.serving.pipeline.impl.data.ConversionCache;
 import ai.konduit.serving.pipeline.impl.data.image.Png;
 import ai.konduit.serving.pipeline.impl.format.JavaImageConverters;
 import ai.konduit.serving.pipeline.util.FileUtils;
@@ -36,6 +37,11 @@ public class JavaCVImageConverters {
     private JavaCVImageConverters(){ }
 
     public static class FrameToMatConverter extends JavaImageConverters.BaseConverter {
+        static {
+            //Allows decoded images to be cached by Image.getAs(Mat.class) - see ConversionCache
+            ConversionCache.registerCopier(Mat.class, Mat::clone);
+        }
+
         protected OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
 
         public FrameToMatConverter() {
@@ -90,6 +96,10 @@ public class JavaCVImageConverters {
     }
 
     public static class PngToMat extends JavaImageConverters.BaseConverter {
+        static {
+            ConversionCache.registerCopier(Mat.class, Mat::clone);
+        }
+
         public PngToMat() {
             super(Png.class, Mat.class);
         }
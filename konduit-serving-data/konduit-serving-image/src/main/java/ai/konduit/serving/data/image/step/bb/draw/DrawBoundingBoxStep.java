@@ -59,7 +59,8 @@ public class DrawBoundingBoxStep implements PipelineStep {
     private int resizeH;
     private int resizeW;
 
-    //Used to account for the fact that ImageToNDArray can crop images
+    //Used to account for the fact that ImageToNDArray can crop or pad (letterbox) images
+    //Should be null if the bounding boxes have already been mapped back to the original image (i.e., by SSDToBoundingBoxStep with accountForCropRegion)
     private ImageToNDArrayConfig imageToNDArrayConfig;
     private boolean drawCropRegion = false;
     private String cropRegionColor;
@@ -103,6 +103,10 @@ public class DrawBoundingBoxStepRunner implements PipelineStepRunner {
         String dc = step.color();
 
         Mat scaled = scaleIfRequired(m);
+        if(scaled == m){
+            //Don't draw on the input image (or its cached Mat representation)
+            scaled = m.clone();
+        }
 
         int thickness = Math.max(1, step.lineThickness());
 
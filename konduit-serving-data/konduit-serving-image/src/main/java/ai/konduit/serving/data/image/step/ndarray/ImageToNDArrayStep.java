@@ -34,7 +34,8 @@ import java.util.List;
  * The following configuration is available:
  * <ul>
  *     <li><b>config</b>: the {@link ImageToNDArrayConfig} configuration for how conversion should be performed</li>
- *     <li><b>keys</b>: may be null. If non-null: These are the names of images in the Data instance to convert</li>
+ *     <li><b>keys</b>: may be null. If non-null: These are the names of images in the Data instance to convert. If null: all
+ *         images and lists of images are converted</li>
  *     <li><b>outputNames</b>: may be null. If non-null: the input images are renamed to this in the output Data instance after conversion to NDArray</li>
  *     <li><b>keepOtherValues</b>: True by default. If true: copy all the other (non-converted/non-image) entries in the input Data to the output Data</li>
  *     <li><b>metadata</b>: False by default. If true: include metadata about the images in the output Data - for example if/how it was cropped,
@@ -43,6 +44,20 @@ import java.util.List;
  *         metadata == false</li>
  * </ul>
  *
+ * Lists of images (for example, the crops output by CropGridStep or ExtractBoundingBoxStep) are converted to a single
+ * batched NDArray with shape [N,C,H,W] or [N,H,W,C] (depending on the configured format), with the images converted in
+ * parallel directly into the output array. Unless the output height and width are configured, all images in the list
+ * must have the same size. An empty list is converted to an array with a minibatch size of 0.<br>
+ * Note that when keys is null, lists of images are now converted in addition to single images. Previously, lists were
+ * left unconverted (and passed through as-is if keepOtherValues is true); existing configurations that relied on this
+ * should set keys explicitly.<br>
+ * <br>
+ * The crop region metadata ({@link #META_CROP_REGION}) is the region of the original image that the NDArray covers, in
+ * coordinates relative to the original image size. For {@link ai.konduit.serving.data.image.convert.config.AspectRatioHandling#PAD}
+ * this extends beyond [0,1] in the padded dimension. Positions in the NDArray (such as bounding boxes predicted by a
+ * detection model) can be mapped back to the original image using {@code x = cropX1 + cropWidth * x}.
+ * SSDToBoundingBoxStep does this when its accountForCropRegion option is enabled and this metadata is present in its input.<br>
+ * <br>
  * Note that metadata will have the following format:<br>
  * If a single image is converted, the metadata Data instance will have a nested Data instance
  * i.e.:
@@ -54,7 +54,8 @@ public class ImageToNDArrayStepRunner implements PipelineStepRunner {
         /*
         Behaviour:
         (a) If keys are defined, convert only those
-        (b) In no keys are defined, convert all images
+        (b) In no keys are defined, convert all images and lists of images
+        Lists of images are converted to a single batched NDArray (i.e., [N,C,H,W] or [N,H,W,C])
          */
 
         List<String> toConvert = step.getKeys();
@@ -66,7 +67,7 @@ public class ImageToNDArrayStepRunner implements PipelineStepRunner {
         if(toConvert == null){
             toConvert = new ArrayList<>();
             for(String s : data.keys()){
-                if(data.type(s) == ValueType.IMAGE){
+                if(data.type(s) == ValueType.IMAGE || (data.type(s) == ValueType.LIST && data.listType(s) == ValueType.IMAGE)){
                     toConvert.add(s);
 
                     if(inferOutNames)
@@ -82,20 +83,44 @@ public class ImageToNDArrayStepRunner implements PipelineStepRunner {
         List<BoundingBox> cropRegionMeta = meta ? new ArrayList<>(toConvert.size()) : null;
         List<Long> origHMeta = meta ? new ArrayList<>(toConvert.size()) : null;
         List<Long> origWMeta = meta ? new ArrayList<>(toConvert.size()) : null;
+        List<String> inNameMeta = meta ? new ArrayList<>(toConvert.size()) : null;
+        List<String> outNameMeta = meta ? new ArrayList<>(toConvert.size()) : null;
 
         Data d = Data.empty();
         int idx = 0;
         for(String s : toConvert){
+            String outName = outNames.get(idx++);
+            if(data.type(s) == ValueType.LIST){
+                List<Image> images = data.getListImage(s);
+                if(meta){
+                    Pair<NDArray,List<BoundingBox>> p = ImageToNDArray.convertBatchWithMetadata(images, step.getConfig());
+                    d.put(outName, p.getFirst());
+                    cropRegionMeta.addAll(p.getSecond());
+                    for(Image i : images){
+                        inNameMeta.add(s);
+                        outNameMeta.add(outName);
+                        origHMeta.add((long)i.height());
+                        origWMeta.add((long)i.width());
+                    }
+                } else {
+                    d.put(outName, ImageToNDArray.convertBatch(images, step.getConfig()));
+                }
+                continue;
+            }
+
             Image i = data.getImage(s);
 
             if(meta){
                 Pair<NDArray,BoundingBox> p = ImageToNDArray.convertWithMetadata(i, step.getConfig());
+                d.put(outName, p.getFirst());
                 cropRegionMeta.add(p.getSecond());
+                inNameMeta.add(s);
+                outNameMeta.add(outName);
                 origHMeta.add((long)i.height());
                 origWMeta.add((long)i.width());
             } else {
                 NDArray array = ImageToNDArray.convert(i, step.getConfig());
-                d.put(outNames.get(idx++), array);
+                d.put(outName, array);
             }
         }
 
@@ -111,15 +136,15 @@ public class ImageToNDArrayStepRunner implements PipelineStepRunner {
             Data dMeta = meta ? Data.empty() : null;
             if(cropRegionMeta.size() == 1){
                 //If only 1 image is converted: store as single values
-                dMeta.put(ImageToNDArrayStep.META_INNAME_KEY, toConvert.get(0));
-                dMeta.put(ImageToNDArrayStep.META_OUTNAME_KEY, outNames.get(0));
+                dMeta.put(ImageToNDArrayStep.META_INNAME_KEY, inNameMeta.get(0));
+                dMeta.put(ImageToNDArrayStep.META_OUTNAME_KEY, outNameMeta.get(0));
                 dMeta.put(ImageToNDArrayStep.META_IMG_H, origHMeta.get(0));
                 dMeta.put(ImageToNDArrayStep.META_IMG_W, origWMeta.get(0));
                 dMeta.put(ImageToNDArrayStep.META_CROP_REGION, cropRegionMeta.get(0));
             } else {
-                //Multiple images converted: store as multiple values
-                dMeta.putListString(ImageToNDArrayStep.META_INNAME_KEY, toConvert);
-                dMeta.putListString(ImageToNDArrayStep.META_OUTNAME_KEY, outNames);
+                //Multiple images converted: store as multiple values (one per image, for lists of images)
+                dMeta.putListString(ImageToNDArrayStep.META_INNAME_KEY, inNameMeta);
+                dMeta.putListString(ImageToNDArrayStep.META_OUTNAME_KEY, outNameMeta);
                 dMeta.putListInt64(ImageToNDArrayStep.META_IMG_H, origHMeta);
                 dMeta.putListInt64(ImageToNDArrayStep.META_IMG_W, origWMeta);
                 dMeta.putListBoundingBox(ImageToNDArrayStep.META_CROP_REGION, cropRegionMeta);
@@ -195,6 +195,20 @@ public class DrawSegmentationStepRunner implements PipelineStepRunner {
         if(resizeRequired){
             Image im = data.getImage(imgName);
             BoundingBox bb = ImageToNDArray.getCropRegion(im, step.imageToNDArrayConfig());
+            if(bb.x1() < 0 || bb.y1() < 0 || bb.x2() > 1 || bb.y2() > 1){
+                //Image was padded (letterboxed): only draw the part of the segmentation that covers the image
+                int x0 = (int) Math.round(-bb.x1() / bb.width() * drawOn.cols());
+                int y0 = (int) Math.round(-bb.y1() / bb.height() * drawOn.rows());
+                int x1 = (int) Math.round((1.0 - bb.x1()) / bb.width() * drawOn.cols());
+                int y1 = (int) Math.round((1.0 - bb.y1()) / bb.height() * drawOn.rows());
+                x0 = Math.max(0, x0);
+                y0 = Math.max(0, y0);
+                Rect valid = new Rect(x0, y0, Math.min(drawOn.cols(), x1) - x0, Math.min(drawOn.rows(), y1) - y0);
+                drawOn = drawOn.apply(valid);
+                if(backgroundMask != null)
+                    backgroundMask = backgroundMask.apply(valid);
+                bb = BoundingBox.createXY(Math.max(0.0, bb.x1()), Math.min(1.0, bb.x2()), Math.max(0.0, bb.y1()), Math.min(1.0, bb.y2()));
+            }
             int oH = (int) (bb.height() * im.height());
             int oW = (int) (bb.width() * im.width());
             int x1 = (int) (bb.x1() * im.width());
@@ -24,6 +24,7 @@ import ai.konduit.serving.pipeline.impl.data.image.Png;
 import org.bytedeco.javacv.Frame;
 import org.bytedeco.javacv.OpenCVFrameConverter;
 import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.Test;
 import org.nd4j.common.resources.Resources;
 
@@ -32,8 +33,7 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class TestConversion {
 
@@ -87,6 +87,12 @@ public class TestConversion {
         assertTrue(equalMats(mat, pm));
         assertTrue(equalFrames(frame, pf));
 
+        //Decoded images are cached, but each caller gets its own copy: writing to one must not affect the others
+        Mat pm2 = png.getAs(Mat.class);
+        assertNotSame(pm, pm2);
+        pm.put(new Scalar(0.0));
+        assertFalse(equalMats(mat, pm));
+        assertTrue(equalMats(mat, png.getAs(Mat.class)));
 
 
         //Test Data
@@ -1,6 +1,9 @@
 package ai.konduit.serving.data.image;
 
+import ai.konduit.serving.data.image.convert.ImageToNDArray;
 import ai.konduit.serving.data.image.convert.ImageToNDArrayConfig;
+import ai.konduit.serving.data.image.convert.ImageToNDArrayKernel;
+import ai.konduit.serving.data.image.convert.config.AspectRatioHandling;
 import ai.konduit.serving.data.image.convert.config.ImageNormalization;
 import ai.konduit.serving.data.image.convert.config.NDChannelLayout;
 import ai.konduit.serving.data.image.convert.config.NDFormat;
@@ -11,18 +14,25 @@ import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
 import org.junit.Test;
 import org.nd4j.common.primitives.Pair;
 import org.nd4j.common.resources.Resources;
 import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
 import static org.junit.Assert.*;
 
 public class TestImageToNDArray {
@@ -495,6 +505,7 @@ public class TestImageToNDArray {
 
             Data out = exec.exec(in);
 
+            assertTrue(out.has("myNDArray"));
             Data meta = out.getMetaData();
             assertNotNull(meta);
             assertTrue(meta.has("Metakey"));
@@ -642,4 +653,187 @@ public class TestImageToNDArray {
 
         System.out.println("***** NON-RGB NORMALIZATION NOT YET IMPLEMENTED *****");
     }
+
+    @Test
+    public void testKernel(){
+        //Compare the fused conversion against a per-pixel reference, including non-contiguous (cropped) images
+        // and parallel (multi-threaded) conversion
+        Random r = new Random(12345);
+        byte[] pixels = new byte[300 * 200 * 3];
+        r.nextBytes(pixels);
+        Mat full = new Mat(300, 200, CV_8UC3);
+        full.data().put(pixels);
+        Mat cropped = full.apply(new Rect(10, 20, 150, 250));
+
+        double[] mean = {120, 110, 100};
+        double[] std = {60, 50, 40};
+        for(String threshold : new String[]{null, "1"}) {
+            if(threshold != null)
+                System.setProperty(ImageToNDArrayKernel.PARALLEL_THRESHOLD_PROPERTY, threshold);
+            try {
+                for (Mat m : new Mat[]{full, cropped}) {
+                    UByteIndexer idx = m.createIndexer();
+                    int h = m.rows();
+                    int w = m.cols();
+                    for (boolean rgb : new boolean[]{true, false}) {
+                        for (NDFormat f : NDFormat.values()) {
+                            ImageToNDArrayConfig c = ImageToNDArrayConfig.builder()
+                                    .channelLayout(rgb ? NDChannelLayout.RGB : NDChannelLayout.BGR)
+                                    .format(f)
+                                    .normalization(ImageNormalization.builder().type(ImageNormalization.Type.STANDARDIZE)
+                                            .meanRgb(mean).stdRgb(std).build())
+                                    .build();
+
+                            FloatBuffer out = ImageToNDArrayKernel.convert(m, c, true).asFloatBuffer();
+                            assertEquals(h * w * 3, out.limit());
+                            for (int y = 0; y < h; y++) {
+                                for (int x = 0; x < w; x++) {
+                                    for (int ch = 0; ch < 3; ch++) {
+                                        int bgr = rgb ? 2 - ch : ch;
+                                        float v = idx.get(y, x, bgr);
+                                        int rgbIdx = 2 - bgr;
+                                        float exp = (v - (float) mean[rgbIdx]) / (float) std[rgbIdx];
+                                        int i = f == NDFormat.CHANNELS_FIRST ? (ch * h * w + y * w + x) : ((y * w + x) * 3 + ch);
+                                        assertEquals(exp, out.get(i), 0.0f);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            } finally {
+                System.clearProperty(ImageToNDArrayKernel.PARALLEL_THRESHOLD_PROPERTY);
+            }
+        }
+    }
+
+    @Test
+    public void testBatch(){
+        List<Image> images = Arrays.asList(
+                Image.create(createConstantImageRgb(48, 64, 255, 128, 32)),
+                Image.create(createConstantImageRgb(32, 32, 0, 64, 192)),
+                Image.create(createConstantImageRgb(100, 40, 10, 20, 30)));
+        Data in = Data.empty();
+        in.putListImage("crops", images);
+        in.put("other", "value");
+
+        for(NDFormat f : NDFormat.values()) {
+            for(NDArrayType t : new NDArrayType[]{NDArrayType.FLOAT, NDArrayType.DOUBLE}) {
+                ImageToNDArrayConfig c = ImageToNDArrayConfig.builder()
+                        .height(24)
+                        .width(32)
+                        .format(f)
+                        .dataType(t)
+                        .includeMinibatchDim(true)
+                        .normalization(ImageNormalization.builder().type(ImageNormalization.Type.SCALE).build())
+                        .build();
+
+                Pipeline p = SequencePipeline.builder()
+                        .add(ImageToNDArrayStep.builder()
+                                .config(c)
+                                .metadata(true)
+                                .build())
+                        .build();
+
+                Data out = p.executor().exec(in);
+                assertEquals(ValueType.NDARRAY, out.type("crops"));
+                assertEquals("value", out.getString("other"));
+                INDArray arr = out.getNDArray("crops").getAs(INDArray.class);
+                long[] expShape = f == NDFormat.CHANNELS_FIRST ? new long[]{3, 3, 24, 32} : new long[]{3, 24, 32, 3};
+                assertArrayEquals(expShape, arr.shape());
+
+                //Each example should match the single image conversion
+                for (int i = 0; i < images.size(); i++) {
+                    INDArray exp = ImageToNDArray.convert(images.get(i), c).getAs(INDArray.class);
+                    assertEquals(exp, arr.get(NDArrayIndex.interval(i, i, true)));
+                }
+
+                Data meta = out.getMetaData().getData(ImageToNDArrayStep.DEFAULT_METADATA_KEY);
+                assertEquals(Arrays.asList(48L, 32L, 100L), meta.getListInt64(ImageToNDArrayStep.META_IMG_H));
+                assertEquals(Arrays.asList("crops", "crops", "crops"), meta.getListString(ImageToNDArrayStep.META_INNAME_KEY));
+                assertEquals(3, meta.getListBoundingBox(ImageToNDArrayStep.META_CROP_REGION).size());
+            }
+        }
+    }
+
+    @Test
+    public void testPad(){
+        //Wide and tall images, letterboxed to a square output
+        int[][] inHW = {{32, 64}, {64, 32}};
+        for(int[] hw : inHW) {
+            int inH = hw[0];
+            int inW = hw[1];
+            Image img = Image.create(createConstantImageRgb(inH, inW, 255, 128, 32));
+
+            ImageToNDArrayConfig c = ImageToNDArrayConfig.builder()
+                    .height(32)
+                    .width(32)
+                    .format(NDFormat.CHANNELS_FIRST)
+                    .channelLayout(NDChannelLayout.RGB)
+                    .aspectRatioHandling(AspectRatioHandling.PAD)
+                    .includeMinibatchDim(false)
+                    .dataType(NDArrayType.FLOAT)
+                    .normalization(ImageNormalization.builder().type(ImageNormalization.Type.SCALE).build())
+                    .build();
+
+            Pair<NDArray, BoundingBox> p = ImageToNDArray.convertWithMetadata(img, c);
+            INDArray arr = p.getFirst().getAs(INDArray.class);
+            assertArrayEquals(new long[]{3, 32, 32}, arr.shape());
+
+            //Image is resized to 32x16 (or 16x32) and placed in the center, with 8 rows/columns of zero padding on each side
+            boolean wide = inW > inH;
+            for (int y = 0; y < 32; y++) {
+                for (int x = 0; x < 32; x++) {
+                    int pos = wide ? y : x;
+                    boolean padding = pos < 8 || pos >= 24;
+                    assertEquals(padding ? 0.0 : 1.0, arr.getDouble(0, y, x), 1e-5);
+                    assertEquals(padding ? 0.0 : 128 / 255.0, arr.getDouble(1, y, x), 1e-5);
+                }
+            }
+
+            //Crop region: covers the full image, plus the padding outside of [0,1]
+            BoundingBox exp = wide ? BoundingBox.createXY(0.0, 1.0, -0.5, 1.5) : BoundingBox.createXY(-0.5, 1.5, 0.0, 1.0);
+            BoundingBox bb = p.getSecond();
+            assertEquals(exp.x1(), bb.x1(), 1e-6);
+            assertEquals(exp.x2(), bb.x2(), 1e-6);
+            assertEquals(exp.y1(), bb.y1(), 1e-6);
+            assertEquals(exp.y2(), bb.y2(), 1e-6);
+            assertEquals(bb, ImageToNDArray.getCropRegion(img, c));
+
+            //Same for batches
+            NDArray batch = ImageToNDArray.convertBatch(Arrays.asList(img, img), c);
+            assertEquals(arr, batch.getAs(INDArray.class).get(NDArrayIndex.point(1)));
+        }
+    }
+
+    @Test
+    public void testEmptyImageList(){
+        ImageToNDArrayConfig c = ImageToNDArrayConfig.builder()
+                .height(32)
+                .width(48)
+                .format(NDFormat.CHANNELS_FIRST)
+                .channelLayout(NDChannelLayout.RGB)
+                .dataType(NDArrayType.FLOAT)
+                .build();
+
+        Pair<NDArray, List<BoundingBox>> p = ImageToNDArray.convertBatchWithMetadata(Collections.emptyList(), c);
+        assertArrayEquals(new long[]{0, 3, 32, 48}, p.getFirst().shape());
+        assertTrue(p.getSecond().isEmpty());
+
+        //Lists of images are picked up automatically when no keys are set - for example, no detections from a
+        //previous step should give an empty array, not an exception
+        Pipeline pipeline = SequencePipeline.builder()
+                .add(ImageToNDArrayStep.builder()
+                        .config(ImageToNDArrayConfig.builder()
+                                .height(32)
+                                .width(48)
+                                .format(NDFormat.CHANNELS_LAST)
+                                .build())
+                        .build())
+                .build();
+        Data in = Data.empty();
+        in.putListImage("images", Collections.emptyList());
+        Data out = pipeline.executor().exec(in);
+        assertArrayEquals(new long[]{0, 32, 48, 3}, out.getNDArray("images").shape());
+    }
 }
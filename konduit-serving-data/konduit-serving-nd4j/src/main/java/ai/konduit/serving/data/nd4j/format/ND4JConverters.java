@@ -24,6 +24,7 @@ import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.api.format.NDArrayConverter;
 import ai.konduit.serving.pipeline.api.format.NDArrayFormat;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.util.BufferPool;
 import lombok.AllArgsConstructor;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.util.ArrayUtil;
@@ -32,9 +33,9 @@ import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.NDArrayIndex;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 public class ND4JConverters  {
@@ -90,9 +91,16 @@ public class ND4JConverters  {
         @Override
         public float[][][] convert(INDArray from) {
             Preconditions.checkState(from.rank() == 3, "Can only convert rank 3 arrays to float[][][], got array with shape %s", from.shape());
-            float[][][] out = new float[(int)from.size(0)][0][0];
+            float[] flat = flatFloat(from);
+            int d1 = (int)from.size(1);
+            int d2 = (int)from.size(2);
+            float[][][] out = new float[(int)from.size(0)][d1][d2];
+            int pos = 0;
             for( int i=0; i<out.length; i++){
-                out[i] = from.get(NDArrayIndex.point(i), NDArrayIndex.all(), NDArrayIndex.all()).toFloatMatrix();
+                for( int j=0; j<d1; j++){
+                    System.arraycopy(flat, pos, out[i][j], 0, d2);
+                    pos += d2;
+                }
             }
             return out;
         }
@@ -103,10 +111,18 @@ public class ND4JConverters  {
         @Override
         public float[][][][] convert(INDArray from) {
             Preconditions.checkState(from.rank() == 4, "Can only convert rank 4 arrays to float[][][][], got array with shape %s", from.shape());
-            float[][][][] out = new float[(int)from.size(0)][(int)from.size(1)][0][0];
+            float[] flat = flatFloat(from);
+            int d1 = (int)from.size(1);
+            int d2 = (int)from.size(2);
+            int d3 = (int)from.size(3);
+            float[][][][] out = new float[(int)from.size(0)][d1][d2][d3];
+            int pos = 0;
             for( int i=0; i<out.length; i++){
-                for( int j=0; j<out[0].length; j++){
-                    out[i][j] = from.get(NDArrayIndex.point(i), NDArrayIndex.point(j), NDArrayIndex.all(), NDArrayIndex.all()).toFloatMatrix();
+                for( int j=0; j<d1; j++){
+                    for( int k=0; k<d2; k++){
+                        System.arraycopy(flat, pos, out[i][j][k], 0, d3);
+                        pos += d3;
+                    }
                 }
             }
             return out;
@@ -186,6 +202,17 @@ public class ND4JConverters  {
     }
 
 
+    /**
+     * Get the values of the array as a float[] in C order, in a single bulk copy (rather than one slice at a time)
+     */
+    protected static float[] flatFloat(INDArray arr){
+        if(arr.dataType() != DataType.FLOAT)
+            arr = arr.castTo(DataType.FLOAT);
+        if(arr.isView() || arr.ordering() != 'c' || !Shape.hasDefaultStridesForShape(arr))
+            arr = arr.dup('c');
+        return arr.data().asFloat();
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     @AllArgsConstructor
@@ -222,12 +249,36 @@ public class ND4JConverters  {
             long length = ArrayUtil.prodLong(shape);
 
             ByteBuffer bb = from.getBuffer();
+            if(canWrap(bb, dt, shape, length)){
+                //Zero-copy: the array is a view of the SerializedNDArray's memory, which must not be returned to the pool.
+                //Note that in-place operations on the returned array (putScalar, addi, assign, etc) also modify the
+                //SerializedNDArray, and any other conversions of it that share its memory. Use dup() before modifying
+                BufferPool.retain(bb);
+                DataBuffer db = ND4JUtil.wrap(bb, dt, length, from);
+                return Nd4j.create(db, shape, Nd4j.getStrides(shape, 'c'), 0, 'c', dt);
+            }
+
             bb.rewind();
+            if(!bb.isDirect()){
+                //ND4J can only copy from direct buffers - for example, NDArrays deserialized from protobuf are heap buffers
+                ByteBuffer direct = ByteBuffer.allocateDirect(bb.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+                direct.put(bb.duplicate());
+                direct.rewind();
+                bb = direct;
+            }
 
             DataBuffer db = Nd4j.createBuffer(bb, dt, (int)length, 0);
             INDArray arr = Nd4j.create(db, shape);
             return arr;
         }
+
+        /**
+         * Direct buffers can be wrapped without copying, as long as the (little endian) contents are in native byte order
+         */
+        protected boolean canWrap(ByteBuffer bb, DataType dt, long[] shape, long length){
+            return bb.isDirect() && !bb.isReadOnly() && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN &&
+                    shape.length > 0 && length > 0 && ND4JUtil.canWrap(dt) && length * dt.width() <= bb.capacity();
+        }
     }
 
 
@@ -265,9 +316,11 @@ public class ND4JConverters  {
 
             NDArrayType type = ND4JUtil.typeNd4jToNDArrayType(from.dataType());
             long[] shape = from.shape();
+            //Zero-copy: the buffer is a view of the array's memory, so the DataBuffer is kept as the owner.
+            //As above, later in-place modifications of the INDArray are visible in the SerializedNDArray
             ByteBuffer bb = from.data().asNio();
 
-            return new SerializedNDArray(type, shape, bb);
+            return new SerializedNDArray(type, shape, bb, from.data());
         }
     }
 }
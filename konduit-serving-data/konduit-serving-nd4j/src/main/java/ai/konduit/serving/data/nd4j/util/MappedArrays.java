@@ -0,0 +1,412 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.nd4j.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Utilities for memory-mapping model parameters.<br>
+ * Arrays are written once to a parameter file: a small header (names, data types and shapes) followed by the raw,
+ * C order array data in native byte order, with each array aligned to {@link #ALIGNMENT} bytes. The file is then
+ * memory-mapped (copy-on-write, if the file is writable), and each array is a zero-copy view of the mapped memory. This means that:<br>
+ * - Multiple processes loading the same model on one host share the same page cache pages for the parameters<br>
+ * - Parameters are only read from disk when they are first used<br>
+ * - Parameters don't need to fit in the JVM's off-heap memory limits (though mapped pages that are resident still
+ * count towards the container's memory usage)<br>
+ * Parameter files are stored in the directory specified by the system property {@link #CACHE_DIR_PROPERTY} (default:
+ * "konduit-serving-mmap" in the temporary directory), named by a hash of the model file path, size and last modified
+ * time - see {@link #cacheFile(File, String)}.<br>
+ * A single Java memory-mapped buffer is limited to 2^31-1 bytes. Larger files are mapped as a single region using the
+ * JDK's internal native mapping method, so arrays larger than this (such as the flattened parameters of a large DL4J
+ * network) are still zero-copy views. If that method is not accessible, smaller arrays are mapped separately, and
+ * larger arrays are read into memory instead.
+ */
+@Slf4j
+public class MappedArrays {
+
+    public static final String CACHE_DIR_PROPERTY = "konduit.serving.mmap.dir";
+    public static final int ALIGNMENT = 64;
+    public static final long MAX_REGION_BYTES = Integer.MAX_VALUE;
+
+    private static final int MAGIC = 0x4B534D4D;   //"KSMM"
+    private static final int VERSION = 1;
+
+    //FileChannelImpl.map0(int prot, long position, long length) and unmap0(long address, long length), or null if not accessible
+    private static final Method MAP0 = fileChannelMethod("map0", int.class, long.class, long.class);
+    private static final Method UNMAP0 = fileChannelMethod("unmap0", long.class, long.class);
+
+    private MappedArrays(){ }
+
+    private static Method fileChannelMethod(String name, Class<?>... args){
+        try {
+            Method m = Class.forName("sun.nio.ch.FileChannelImpl").getDeclaredMethod(name, args);
+            m.setAccessible(true);
+            return m;
+        } catch (Throwable t){
+            log.debug("Unable to access FileChannelImpl.{} - files larger than 2^31-1 bytes can't be mapped as a single region", name, t);
+            return null;
+        }
+    }
+
+    /**
+     * @return The directory to store parameter files in
+     */
+    public static File cacheDir(){
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if(dir != null && !dir.isEmpty())
+            return new File(dir);
+        return new File(System.getProperty("java.io.tmpdir"), "konduit-serving-mmap");
+    }
+
+    /**
+     * Get the parameter (or other derived) file for the specified model file. The name depends on the model file's
+     * canonical path, size and last modified time, so a changed model file results in a different (new) file.
+     *
+     * @param model     Model file
+     * @param extension Extension for the file, for example ".params"
+     */
+    public static File cacheFile(@NonNull File model, @NonNull String extension) throws IOException {
+        String key = model.getCanonicalPath() + "|" + model.length() + "|" + model.lastModified();
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e){
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        StringBuilder sb = new StringBuilder(model.getName()).append("-");
+        for( int i=0; i<8; i++ ){
+            sb.append(String.format("%02x", hash[i]));
+        }
+        return new File(cacheDir(), sb.append(extension).toString());
+    }
+
+    /**
+     * @return True if the specified data type can be written to a parameter file
+     */
+    public static boolean isSupported(@NonNull DataType dataType){
+        return ND4JUtil.canWrap(dataType);
+    }
+
+    /**
+     * Write the specified arrays to a parameter file. The file is written to a temporary file first and then moved,
+     * so that concurrent readers (other processes) never see a partially written file.
+     */
+    public static void write(@NonNull Map<String, INDArray> arrays, @NonNull File file) throws IOException {
+        write(arrays, file, MAX_REGION_BYTES);
+    }
+
+    /**
+     * As per {@link #write(Map, File)}, but writing the data of each array in regions of at most maxRegionBytes bytes.
+     * Mainly used for testing.
+     */
+    public static void write(@NonNull Map<String, INDArray> arrays, @NonNull File file, long maxRegionBytes) throws IOException {
+        Preconditions.checkState(maxRegionBytes > 0 && maxRegionBytes <= MAX_REGION_BYTES, "Max region bytes must be" +
+                " between 1 and %s, got %s", MAX_REGION_BYTES, maxRegionBytes);
+        List<String> names = new ArrayList<>(arrays.keySet());
+        List<INDArray> data = new ArrayList<>(names.size());
+        List<Long> offsets = new ArrayList<>(names.size());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(DataOutputStream dos = new DataOutputStream(baos)) {
+            long offset = 0;
+            for (String s : names) {
+                INDArray arr = arrays.get(s);
+                Preconditions.checkState(isSupported(arr.dataType()), "Unable to write array \"%s\": data type %s is not supported",
+                        s, arr.dataType());
+                if (!arr.isEmpty() && (arr.isView() || arr.ordering() != 'c' || arr.data().length() != arr.length())) {
+                    arr = arr.dup('c');
+                }
+                long numBytes = arr.isEmpty() ? 0 : arr.length() * arr.dataType().width();
+                data.add(arr);
+                offsets.add(offset);
+
+                dos.writeUTF(s);
+                dos.writeUTF(arr.dataType().name());
+                long[] shape = arr.shape();
+                dos.writeInt(shape.length);
+                for (long l : shape)
+                    dos.writeLong(l);
+                dos.writeLong(offset);
+                dos.writeLong(numBytes);
+                offset = align(offset + numBytes);
+            }
+        }
+        byte[] header = baos.toByteArray();
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if(!dir.exists() && !dir.mkdirs() && !dir.exists())
+            throw new IOException("Unable to create directory: " + dir.getAbsolutePath());
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (FileChannel fc = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer h = ByteBuffer.allocate(16 + header.length);
+                h.putInt(MAGIC).putInt(VERSION).putLong(header.length).put(header);
+                h.flip();
+                writeFully(fc, h);
+
+                long dataStart = align(16 + header.length);
+                for( int i=0; i<data.size(); i++ ){
+                    INDArray arr = data.get(i);
+                    if (arr.isEmpty())
+                        continue;
+                    long pos = fc.position();
+                    long start = dataStart + offsets.get(i);
+                    if (start > pos)
+                        writeFully(fc, ByteBuffer.allocate((int) (start - pos)));
+
+                    long numBytes = arr.length() * arr.dataType().width();
+                    BytePointer bp = new BytePointer(arr.data().addressPointer()).capacity(numBytes);
+                    for( long p=0; p<numBytes; p+=maxRegionBytes ){
+                        writeFully(fc, bp.position(p).limit(Math.min(p + maxRegionBytes, numBytes)).asByteBuffer());
+                    }
+                }
+                fc.force(true);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if(tmp.exists())
+                tmp.delete();
+        }
+    }
+
+    /**
+     * Memory-map the specified parameter file (as written by {@link #write(Map, File)})
+     */
+    public static Mapping map(@NonNull File file) throws IOException {
+        return map(file, MAX_REGION_BYTES);
+    }
+
+    /**
+     * As per {@link #map(File)}, but treating maxRegionBytes as the maximum size of a Java memory-mapped buffer.
+     * Mainly used for testing.
+     */
+    public static Mapping map(@NonNull File file, long maxRegionBytes) throws IOException {
+        Preconditions.checkState(maxRegionBytes > 0 && maxRegionBytes <= MAX_REGION_BYTES, "Max region bytes must be" +
+                " between 1 and %s, got %s", MAX_REGION_BYTES, maxRegionBytes);
+        Map<String, INDArray> out = new LinkedHashMap<>();
+        List<Object> regions = new ArrayList<>();
+
+        //Copy-on-write mapping requires a writable channel (though the file itself is never modified). Read-only
+        //mapping is used if the file isn't writable, in which case in-place modification of the arrays is not possible
+        FileChannel.MapMode mode = FileChannel.MapMode.PRIVATE;
+        FileChannel channel;
+        if(file.canWrite()){
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } else {
+            log.warn("Parameter file {} is not writable: mapping as read-only", file.getAbsolutePath());
+            mode = FileChannel.MapMode.READ_ONLY;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+
+        try(FileChannel fc = channel) {
+            ByteBuffer h = ByteBuffer.allocate(16);
+            readFully(fc, h, 0);
+            h.flip();
+            if(h.getInt() != MAGIC)
+                throw new IOException("Not a valid parameter file: " + file.getAbsolutePath());
+            int version = h.getInt();
+            if(version != VERSION)
+                throw new IOException("Unsupported parameter file version " + version + ": " + file.getAbsolutePath());
+            long headerLength = h.getLong();
+            ByteBuffer header = ByteBuffer.allocate((int) headerLength);
+            readFully(fc, header, 16);
+            long dataStart = align(16 + headerLength);
+
+            //Map the whole file once if possible, otherwise map each array separately
+            long fileSize = fc.size();
+            ByteBuffer all = null;
+            BytePointer allNative = null;
+            if(fileSize <= maxRegionBytes) {
+                all = fc.map(mode, 0, fileSize);
+                regions.add(all);
+            } else {
+                allNative = mapNative(fc, mode, fileSize);
+                if(allNative != null)
+                    regions.add(allNative);
+            }
+
+            try(DataInputStream dis = new DataInputStream(new ByteArrayInputStream(header.array()))) {
+                while (dis.available() > 0) {
+                    String name = dis.readUTF();
+                    DataType dt = DataType.valueOf(dis.readUTF());
+                    long[] shape = new long[dis.readInt()];
+                    for (int i = 0; i < shape.length; i++)
+                        shape[i] = dis.readLong();
+                    long offset = dataStart + dis.readLong();
+                    long numBytes = dis.readLong();
+
+                    if (numBytes == 0) {
+                        //Empty array (note that scalars have rank 0 but are not empty)
+                        out.put(name, shape.length == 0 ? Nd4j.empty(dt) : Nd4j.create(dt, shape));
+                        continue;
+                    }
+
+                    long length = numBytes / dt.width();
+                    if (allNative == null && numBytes > maxRegionBytes) {
+                        log.warn("Unable to memory-map array \"{}\" of {} bytes: reading into memory instead", name, numBytes);
+                        out.put(name, read(fc, offset, numBytes, dt, shape, maxRegionBytes));
+                        continue;
+                    }
+
+                    DataBuffer db;
+                    if (allNative != null) {
+                        db = ND4JUtil.wrap(pointer(allNative.address() + offset, numBytes), dt, length, allNative);
+                    } else {
+                        ByteBuffer bb;
+                        if (all != null) {
+                            bb = all.duplicate();
+                            bb.position((int) offset);
+                            bb.limit((int) (offset + numBytes));
+                            bb = bb.slice();
+                        } else {
+                            bb = fc.map(mode, offset, numBytes);
+                            regions.add(bb);
+                        }
+                        bb.order(ByteOrder.nativeOrder());
+                        db = ND4JUtil.wrap(bb, dt, length, null);
+                    }
+                    out.put(name, Nd4j.create(db, shape, Nd4j.getStrides(shape, 'c'), 0, 'c', dt));
+                }
+            }
+        }
+        return new Mapping(out, regions);
+    }
+
+    /**
+     * Map the whole file as a single region, which (unlike FileChannel.map) is not limited to 2^31-1 bytes. The region
+     * is unmapped once the returned pointer has been garbage collected.
+     *
+     * @return Pointer to the start of the mapped region, or null if the JDK's native mapping method is not accessible
+     */
+    private static BytePointer mapNative(FileChannel fc, FileChannel.MapMode mode, long size) throws IOException {
+        if(MAP0 == null || UNMAP0 == null || !MAP0.getDeclaringClass().isInstance(fc))
+            return null;
+        long address;
+        try {
+            //Protection modes as per FileChannelImpl.MAP_RO and MAP_PV
+            String prot = mode == FileChannel.MapMode.READ_ONLY ? "MAP_RO" : "MAP_PV";
+            Field f = MAP0.getDeclaringClass().getDeclaredField(prot);
+            f.setAccessible(true);
+            address = (Long) MAP0.invoke(fc, f.getInt(null), 0L, size);
+        } catch (ReflectiveOperationException | RuntimeException e){
+            if(e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            log.debug("Unable to map file as a single region", e);
+            return null;
+        }
+        return new MappedRegion(address, size);
+    }
+
+    /**
+     * Read an array that can't be mapped into (off-heap) memory, in regions of at most maxRegionBytes bytes
+     */
+    private static INDArray read(FileChannel fc, long offset, long numBytes, DataType dt, long[] shape, long maxRegionBytes) throws IOException {
+        INDArray arr = Nd4j.createUninitialized(dt, shape, 'c');
+        BytePointer bp = new BytePointer(arr.data().addressPointer()).capacity(numBytes);
+        for( long p=0; p<numBytes; p+=maxRegionBytes ){
+            readFully(fc, bp.position(p).limit(Math.min(p + maxRegionBytes, numBytes)).asByteBuffer(), offset + p);
+        }
+        return arr;
+    }
+
+    private static BytePointer pointer(long start, long numBytes){
+        return new BytePointer(){
+            {
+                this.address = start;
+                this.capacity = numBytes;
+                this.limit = numBytes;
+            }
+        };
+    }
+
+    private static long align(long l){
+        return (l + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static void writeFully(FileChannel fc, ByteBuffer bb) throws IOException {
+        while(bb.hasRemaining())
+            fc.write(bb);
+    }
+
+    private static void readFully(FileChannel fc, ByteBuffer bb, long position) throws IOException {
+        while(bb.hasRemaining()){
+            int n = fc.read(bb, position);
+            if(n < 0)
+                throw new EOFException("Unexpected end of parameter file");
+            position += n;
+        }
+    }
+
+    /**
+     * A region mapped using FileChannelImpl.map0, which is unmapped once this pointer has been garbage collected
+     */
+    private static class MappedRegion extends BytePointer {
+        private MappedRegion(long address, long size){
+            this.address = address;
+            //Set before the capacity: JavaCPP counts the capacity of pointers with a deallocator towards its
+            //off-heap memory limit, but mapped memory is not allocated memory
+            deallocator(() -> {
+                try {
+                    UNMAP0.invoke(null, address, size);
+                } catch (ReflectiveOperationException e){
+                    log.warn("Unable to unmap memory-mapped region", e);
+                }
+            });
+            this.capacity = size;
+            this.limit = size;
+        }
+    }
+
+    /**
+     * The arrays of a memory-mapped parameter file. The mapped regions are referenced here so that they are not
+     * unmapped (garbage collected) while the arrays are still in use: keep a reference to this object for as long as
+     * the arrays are used.
+     */
+    @AllArgsConstructor
+    public static class Mapping {
+        @Getter
+        private final Map<String, INDArray> arrays;
+        private final List<Object> regions;
+
+        public INDArray get(String name){
+            return arrays.get(name);
+        }
+    }
+}
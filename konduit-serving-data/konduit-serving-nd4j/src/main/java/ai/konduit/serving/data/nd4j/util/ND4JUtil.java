@@ -20,7 +20,17 @@ package ai.konduit.serving.data.nd4j.util;
 
 import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import lombok.NonNull;
+import org.bytedeco.javacpp.*;
+import org.bytedeco.javacpp.indexer.*;
+import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.nio.ByteBuffer;
 
 public class ND4JUtil {
 
@@ -98,5 +108,125 @@ public class ND4JUtil {
         }
     }
 
+    /**
+     * Split the specified array along dimension 0 into arrays with the specified sizes for dimension 0 - i.e., the
+     * reverse of {@code Nd4j.concat(0, ...)}. The returned arrays are copies, not views.
+     */
+    public static INDArray[] splitBatch(@NonNull INDArray arr, @NonNull long[] sizes){
+        INDArray[] out = new INDArray[sizes.length];
+        long start = 0;
+        for( int i=0; i<sizes.length; i++ ){
+            INDArrayIndex[] idx = new INDArrayIndex[arr.rank()];
+            idx[0] = NDArrayIndex.interval(start, start + sizes[i]);
+            for( int j=1; j<idx.length; j++ ){
+                idx[j] = NDArrayIndex.all();
+            }
+            out[i] = arr.get(idx).dup();
+            start += sizes[i];
+        }
+        return out;
+    }
 
+    /**
+     * @return True if buffers of the specified data type can be wrapped using {@link #wrap(ByteBuffer, DataType, long, Object)}
+     */
+    public static boolean canWrap(@NonNull DataType dataType){
+        switch (dataType){
+            case DOUBLE:
+            case FLOAT:
+            case HALF:
+            case BFLOAT16:
+            case LONG:
+            case INT:
+            case SHORT:
+            case BYTE:
+            case UBYTE:
+            case BOOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Create a DataBuffer that is a view of the specified direct buffer (starting at index 0), without copying. The
+     * buffer's contents must be in native byte order.<br>
+     * The DataBuffer holds a reference to the ByteBuffer and the specified owner (if any), so that the memory is not
+     * freed while the DataBuffer is still in use.
+     *
+     * @param bb     Direct buffer to wrap
+     * @param dt     Data type of the buffer contents
+     * @param length Number of elements
+     * @param owner  Object that owns the buffer's memory, if it is not the buffer itself. May be null
+     */
+    public static DataBuffer wrap(@NonNull ByteBuffer bb, @NonNull DataType dt, long length, Object owner){
+        Preconditions.checkState(bb.isDirect(), "Only direct buffers can be wrapped");
+        Preconditions.checkState(length * dt.width() <= bb.capacity(), "Unable to wrap buffer: %s elements of type %s " +
+                "requires %s bytes, buffer capacity is %s bytes", length, dt, length * dt.width(), bb.capacity());
+        ByteBuffer b = bb.duplicate();
+        b.clear();
+        return wrap(new BytePointer(b), dt, length, new Object[]{bb, owner});
+    }
+
+    /**
+     * Create a DataBuffer that is a view of the memory starting at the specified pointer's address, without copying.
+     * Unlike {@link #wrap(ByteBuffer, DataType, long, Object)}, this is not limited to 2^31-1 bytes. The memory's
+     * contents must be in native byte order.<br>
+     * The DataBuffer holds a reference to the specified owner (if any), so that the memory is not freed while the
+     * DataBuffer is still in use.
+     *
+     * @param bp     Pointer to the start of the memory to wrap
+     * @param dt     Data type of the memory contents
+     * @param length Number of elements
+     * @param owner  Object that owns the memory. May be null
+     */
+    public static DataBuffer wrap(@NonNull BytePointer bp, @NonNull DataType dt, long length, Object owner){
+        Preconditions.checkState(bp.position() == 0, "Unable to wrap pointer with non-zero position");
+        Preconditions.checkState(bp.capacity() == 0 || length * dt.width() <= bp.capacity(), "Unable to wrap pointer: %s" +
+                " elements of type %s requires %s bytes, pointer capacity is %s bytes", length, dt, length * dt.width(), bp.capacity());
+        switch (dt){
+            case DOUBLE: {
+                DoublePointer p = new DoublePointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, DoubleIndexer.create(p));
+            }
+            case FLOAT: {
+                FloatPointer p = new FloatPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, FloatIndexer.create(p));
+            }
+            case HALF: {
+                ShortPointer p = new ShortPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, HalfIndexer.create(p));
+            }
+            case BFLOAT16: {
+                ShortPointer p = new ShortPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, Bfloat16Indexer.create(p));
+            }
+            case LONG: {
+                LongPointer p = new LongPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, LongIndexer.create(p));
+            }
+            case INT: {
+                IntPointer p = new IntPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, IntIndexer.create(p));
+            }
+            case SHORT: {
+                ShortPointer p = new ShortPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, ShortIndexer.create(p));
+            }
+            case BYTE: {
+                BytePointer p = new BytePointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, ByteIndexer.create(p));
+            }
+            case UBYTE: {
+                BytePointer p = new BytePointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, UByteIndexer.create(p));
+            }
+            case BOOL: {
+                BooleanPointer p = new BooleanPointer(bp){ private final Object ref = owner; }.capacity(length).limit(length);
+                return Nd4j.createBuffer(p, dt, length, BooleanIndexer.create(p));
+            }
+            default:
+                throw new UnsupportedOperationException("Wrapping buffers of type " + dt + " is not supported");
+        }
+    }
 }
@@ -20,8 +20,10 @@ package ai.konduit.serving.data.nd4j;
 
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 
 import static org.junit.Assert.*;
 
@@ -111,4 +113,31 @@ public class ConverterTest {
         //NDArray.canGetAs(float[][].class) shouldn't work on a rank != 2 array
         //Also check can't get String type as float, etc
     }
+
+    @Test
+    public void testNDArrayToFloatViews(){
+        //Non-float and non-contiguous (view) arrays
+        INDArray a3 = Nd4j.linspace(DataType.DOUBLE, 1, 24, 1).reshape(2, 3, 4).permute(2, 0, 1);
+        float[][][] f3 = NDArray.create(a3).getAs(float[][][].class);
+        INDArray a4 = Nd4j.linspace(DataType.DOUBLE, 1, 120, 1).reshape(2, 3, 4, 5).get(NDArrayIndex.all(), NDArrayIndex.interval(1, 3),
+                NDArrayIndex.all(), NDArrayIndex.all());
+        float[][][][] f4 = NDArray.create(a4).getAs(float[][][][].class);
+
+        for( int i=0; i<4; i++ ){
+            for( int j=0; j<2; j++ ){
+                for( int k=0; k<3; k++ ){
+                    assertEquals(a3.getDouble(i, j, k), f3[i][j][k], 0.0);
+                }
+            }
+        }
+        for( int i=0; i<2; i++ ){
+            for( int j=0; j<2; j++ ){
+                for( int k=0; k<4; k++ ){
+                    for( int l=0; l<5; l++ ){
+                        assertEquals(a4.getDouble(i, j, k, l), f4[i][j][k][l], 0.0);
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.data.nd4j;
+
+import ai.konduit.serving.data.nd4j.util.MappedArrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MappedArraysTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testWriteMap() throws Exception {
+        Map<String, INDArray> m = new LinkedHashMap<>();
+        m.put("float", Nd4j.rand(DataType.FLOAT, 3, 4));
+        m.put("double", Nd4j.rand(DataType.DOUBLE, 5));
+        m.put("int", Nd4j.createFromArray(1, 2, 3));
+        m.put("long", Nd4j.createFromArray(new long[][]{{1, 2}, {3, 4}}));
+        m.put("half", Nd4j.rand(DataType.FLOAT, 2, 3).castTo(DataType.HALF));
+        m.put("byte", Nd4j.createFromArray(new byte[]{1, 2, 3}));
+        m.put("bool", Nd4j.createFromArray(true, false, true));
+        m.put("scalar", Nd4j.scalar(3.0f));
+        m.put("empty", Nd4j.empty(DataType.FLOAT));
+        m.put("fOrder", Nd4j.rand(DataType.FLOAT, 'f', 3, 5));
+        m.put("view", Nd4j.rand(DataType.FLOAT, 4, 5).get(org.nd4j.linalg.indexing.NDArrayIndex.interval(1, 3)));
+
+        File f = new File(testDir.newFolder(), "test.params");
+        MappedArrays.write(m, f);
+
+        MappedArrays.Mapping mapping = MappedArrays.map(f);
+        assertEquals(m.keySet(), mapping.getArrays().keySet());
+        for(Map.Entry<String, INDArray> e : m.entrySet()){
+            INDArray mapped = mapping.get(e.getKey());
+            assertEquals(e.getKey(), e.getValue(), mapped);
+        }
+
+        //Mapped arrays should be usable in native ops
+        INDArray w = mapping.get("float");
+        INDArray in = Nd4j.rand(DataType.FLOAT, 2, 3);
+        assertEquals(in.mmul(m.get("float")), in.mmul(w));
+    }
+
+    @Test
+    public void testLargeArrays() throws Exception {
+        //Arrays (and file) larger than the maximum region size: written and mapped across region boundaries
+        long maxRegionBytes = 4096;
+        Map<String, INDArray> m = new LinkedHashMap<>();
+        m.put("small", Nd4j.createFromArray(1, 2, 3));
+        m.put("float", Nd4j.rand(DataType.FLOAT, 30, 100));
+        m.put("double", Nd4j.rand(DataType.DOUBLE, 1000));
+
+        File f = new File(testDir.newFolder(), "test.params");
+        MappedArrays.write(m, f, maxRegionBytes);
+        assertTrue(f.length() > 4 * maxRegionBytes);
+
+        MappedArrays.Mapping mapping = MappedArrays.map(f, maxRegionBytes);
+        for(Map.Entry<String, INDArray> e : m.entrySet()){
+            assertEquals(e.getKey(), e.getValue(), mapping.get(e.getKey()));
+        }
+
+        INDArray in = Nd4j.rand(DataType.FLOAT, 2, 30);
+        assertEquals(in.mmul(m.get("float")), in.mmul(mapping.get("float")));
+
+        //Reading with the default region size should give the same arrays
+        MappedArrays.Mapping mapping2 = MappedArrays.map(f);
+        for(Map.Entry<String, INDArray> e : m.entrySet()){
+            assertEquals(e.getKey(), e.getValue(), mapping2.get(e.getKey()));
+        }
+    }
+
+    @Test
+    public void testCacheFile() throws Exception {
+        File dir = testDir.newFolder();
+        File model = new File(dir, "model.bin");
+        assertTrue(model.createNewFile());
+
+        String prev = System.getProperty(MappedArrays.CACHE_DIR_PROPERTY);
+        System.setProperty(MappedArrays.CACHE_DIR_PROPERTY, dir.getAbsolutePath());
+        try {
+            File f1 = MappedArrays.cacheFile(model, ".params");
+            assertEquals(dir, f1.getParentFile());
+            assertTrue(f1.getName().startsWith("model.bin-") && f1.getName().endsWith(".params"));
+            assertEquals(f1, MappedArrays.cacheFile(model, ".params"));
+
+            //Modified model file should result in a different parameter file
+            assertTrue(model.setLastModified(model.lastModified() - 10000));
+            assertNotEquals(f1, MappedArrays.cacheFile(model, ".params"));
+        } finally {
+            if(prev == null)
+                System.clearProperty(MappedArrays.CACHE_DIR_PROPERTY);
+            else
+                System.setProperty(MappedArrays.CACHE_DIR_PROPERTY, prev);
+        }
+    }
+}
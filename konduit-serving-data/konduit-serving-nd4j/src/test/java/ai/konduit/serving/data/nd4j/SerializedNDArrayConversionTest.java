@@ -19,12 +19,19 @@
 package ai.konduit.serving.data.nd4j;
 
 import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import org.bytedeco.javacpp.Pointer;
 import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SerializedNDArrayConversionTest {
 
@@ -69,4 +76,47 @@ public class SerializedNDArrayConversionTest {
             assertEquals(sa, s2);
         }
     }
+
+    @Test
+    public void testZeroCopy(){
+        //Direct buffer -> INDArray: should be a view of the same memory
+        ByteBuffer bb = ByteBuffer.allocateDirect(6 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for( int i=0; i<6; i++ )
+            bb.putFloat(i * 4, i + 1);
+        SerializedNDArray sa = new SerializedNDArray(NDArrayType.FLOAT, new long[]{2, 3}, bb);
+        INDArray ia = NDArray.create(sa).getAs(INDArray.class);
+        assertEquals(Nd4j.createFromArray(new float[][]{{1, 2, 3}, {4, 5, 6}}), ia);
+        bb.putFloat(0, 100);
+        assertEquals(100.0f, ia.getFloat(0), 0.0f);
+        assertEquals(120.0, ia.sumNumber().doubleValue(), 1e-6);
+
+        //INDArray -> SerializedNDArray: should also be a view of the same memory
+        INDArray arr = Nd4j.createFromArray(new double[]{1, 2, 3});
+        SerializedNDArray sa2 = NDArray.create(arr).getAs(SerializedNDArray.class);
+        assertEquals(arr.data().address(), new Pointer(sa2.getBuffer()).address());
+        arr.putScalar(0, 42.0);
+        assertEquals(42.0, sa2.getBuffer().duplicate().order(ByteOrder.LITTLE_ENDIAN).getDouble(0), 0.0);
+
+        //Heap buffers are copied
+        ByteBuffer heap = ByteBuffer.allocate(3 * 8).order(ByteOrder.LITTLE_ENDIAN);
+        heap.putDouble(0, 1).putDouble(8, 2).putDouble(16, 3);
+        INDArray fromHeap = NDArray.create(new SerializedNDArray(NDArrayType.DOUBLE, new long[]{3}, heap)).getAs(INDArray.class);
+        assertEquals(Nd4j.createFromArray(new double[]{1, 2, 3}), fromHeap);
+        assertEquals(DataType.DOUBLE, fromHeap.dataType());
+    }
+
+    @Test
+    public void testConversionCached(){
+        //Transposed view: conversion to SerializedNDArray requires a copy
+        INDArray arr = Nd4j.createFromArray(new float[][]{{1, 2, 3}, {4, 5, 6}}).transpose();
+        NDArray nd = NDArray.create(arr);
+        SerializedNDArray s1 = nd.getAs(SerializedNDArray.class);
+        SerializedNDArray s2 = nd.getAs(SerializedNDArray.class);
+
+        //The second call should return a read-only view of the cached conversion, not a new copy
+        assertEquals(new Pointer(s1.getBuffer()).address(), new Pointer(s2.getBuffer()).address());
+        assertTrue(s2.getBuffer().isReadOnly());
+        assertEquals(s1, s2);
+        assertEquals(Nd4j.createFromArray(new float[][]{{1, 4}, {2, 5}, {3, 6}}), NDArray.create(s2).getAs(INDArray.class));
+    }
 }
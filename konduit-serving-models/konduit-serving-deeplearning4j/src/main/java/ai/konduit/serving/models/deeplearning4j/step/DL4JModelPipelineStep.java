@@ -33,16 +33,30 @@ public class DL4JModelPipelineStep extends BaseModelPipelineStep<DL4JConfigurati
 
     private List<String> inputNames;        //Mainly for ComputationGraph with multiple inputs - map Data keys to ComputationGraph outputs
     private List<String> outputNames;       //Mainly for ComputationGraph with multiple outputs - map INDArray[] to Data keys
+    private Integer numReplicas;            //Number of model copies for concurrent inference. Replicas share the parameters. Default: 1
+    private Boolean memoryMapped;           //If true: memory-map the parameters from an extracted parameter file, shared between processes. Default: false
 
     public DL4JModelPipelineStep(String modelUri, DL4JConfiguration config) {
         super(modelUri, config);
     }
 
+    public DL4JModelPipelineStep(String modelUri, DL4JConfiguration config, List<String> inputNames, List<String> outputNames){
+        this(modelUri, config, inputNames, outputNames, null);
+    }
+
+    public DL4JModelPipelineStep(String modelUri, DL4JConfiguration config, List<String> inputNames, List<String> outputNames,
+                                 Integer numReplicas){
+        this(modelUri, config, inputNames, outputNames, numReplicas, null);
+    }
+
     public DL4JModelPipelineStep(@JsonProperty("modelUri") String modelUri, @JsonProperty("config") DL4JConfiguration config,
-                                 @JsonProperty("inputNames") List<String> inputNames, @JsonProperty("outputNames") List<String> outputNames){
+                                 @JsonProperty("inputNames") List<String> inputNames, @JsonProperty("outputNames") List<String> outputNames,
+                                 @JsonProperty("numReplicas") Integer numReplicas, @JsonProperty("memoryMapped") Boolean memoryMapped){
         super(modelUri, config);
         this.inputNames = inputNames;
         this.outputNames = outputNames;
+        this.numReplicas = numReplicas;
+        this.memoryMapped = memoryMapped;
     }
 
 
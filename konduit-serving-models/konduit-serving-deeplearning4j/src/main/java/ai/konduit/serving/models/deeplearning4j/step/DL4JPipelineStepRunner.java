@@ -15,6 +15,8 @@
  ******************************************************************************/
 package ai.konduit.serving.models.deeplearning4j.step;
 
+import ai.konduit.serving.data.nd4j.util.MappedArrays;
+import ai.konduit.serving.data.nd4j.util.ND4JUtil;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
@@ -22,27 +24,52 @@ import ai.konduit.serving.pipeline.api.exception.ModelLoadingException;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.util.BatchUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.RNNFormat;
+import org.deeplearning4j.nn.conf.graph.GraphVertex;
+import org.deeplearning4j.nn.conf.graph.LayerVertex;
+import org.deeplearning4j.nn.conf.layers.*;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.util.DL4JModelValidator;
+import org.deeplearning4j.util.ModelSerializer;
 import org.nd4j.common.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 
+@Slf4j
 public class DL4JPipelineStepRunner implements PipelineStepRunner {
 
     public static final String DEFAULT_OUT_NAME_SINGLE = "default";
+    protected static final String PARAMS_KEY = "params";
 
 
     private DL4JModelPipelineStep step;
     private final MultiLayerNetwork net;
     private final ComputationGraph graph;
+    private final ModelReplicaPool<MultiLayerNetwork> netPool;
+    private final ModelReplicaPool<ComputationGraph> graphPool;
+    private MappedArrays.Mapping mapping;   //Memory-mapped parameters, if used - referenced to keep the parameters mapped
+    private volatile boolean batchMajor = true;     //False if the network output was found not to be batch-major
 
     public DL4JPipelineStepRunner(DL4JModelPipelineStep step) {
         this.step = step;
@@ -61,26 +88,103 @@ public class DL4JPipelineStepRunner implements PipelineStepRunner {
 
         Preconditions.checkState(isMLN || isCG, "Model at URI %s is not a valid MultiLayerNetwork or ComputationGraph model", uri);
 
+        boolean memoryMapped = step.memoryMapped() != null && step.memoryMapped();
         if (isMLN) {
             try {
-                net = MultiLayerNetwork.load(f, false);
+                net = memoryMapped ? loadMappedMLN(f) : MultiLayerNetwork.load(f, false);
                 graph = null;
             } catch (IOException e) {
                 throw new ModelLoadingException("Failed to load Deeplearning4J MultiLayerNetwork from URI " + step.getModelUri(), e);
             }
         } else {
             try {
-                graph = ComputationGraph.load(f, false);
+                graph = memoryMapped ? loadMappedCG(f) : ComputationGraph.load(f, false);
                 net = null;
             } catch (IOException e) {
                 throw new ModelLoadingException("Failed to load Deeplearning4J ComputationGraph from URI " + step.getModelUri(), e);
             }
         }
+
+        int numReplicas = step.numReplicas() == null ? 1 : step.numReplicas();
+        Preconditions.checkState(numReplicas > 0, "Number of replicas must be positive, got %s", numReplicas);
+        if (numReplicas > 1) {
+            //Replicas share the (read-only during inference) parameters of the original model - only the
+            //per-network activations/workspaces are duplicated
+            if (net != null) {
+                List<MultiLayerNetwork> l = new ArrayList<>();
+                l.add(net);
+                for (int i = 1; i < numReplicas; i++) {
+                    MultiLayerNetwork r = new MultiLayerNetwork(net.getLayerWiseConfigurations().clone());
+                    r.init(net.params(), false);
+                    l.add(r);
+                }
+                netPool = new ModelReplicaPool<>(l);
+                graphPool = null;
+            } else {
+                List<ComputationGraph> l = new ArrayList<>();
+                l.add(graph);
+                for (int i = 1; i < numReplicas; i++) {
+                    ComputationGraph r = new ComputationGraph(graph.getConfiguration().clone());
+                    r.init(graph.params(), false);
+                    l.add(r);
+                }
+                graphPool = new ModelReplicaPool<>(l);
+                netPool = null;
+            }
+        } else {
+            netPool = null;
+            graphPool = null;
+        }
+    }
+
+
+    protected MultiLayerNetwork loadMappedMLN(File f) throws IOException {
+        INDArray params = mappedParams(f, true);
+        MultiLayerNetwork n = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(readConfiguration(f)));
+        n.init(params, false);
+        return n;
     }
 
+    protected ComputationGraph loadMappedCG(File f) throws IOException {
+        INDArray params = mappedParams(f, false);
+        ComputationGraph g = new ComputationGraph(ComputationGraphConfiguration.fromJson(readConfiguration(f)));
+        g.init(params, false);
+        return g;
+    }
+
+    /**
+     * Get the memory-mapped parameters for the specified model file, extracting them to a parameter file first if
+     * this is the first time the model is loaded (on this host)
+     */
+    protected INDArray mappedParams(File f, boolean isMLN) throws IOException {
+        File paramsFile = MappedArrays.cacheFile(f, ".params");
+        if (!paramsFile.exists()) {
+            log.info("Extracting parameters of model {} to {} for memory-mapped loading", f.getAbsolutePath(), paramsFile.getAbsolutePath());
+            Model m = isMLN ? MultiLayerNetwork.load(f, false) : ComputationGraph.load(f, false);
+            try {
+                MappedArrays.write(Collections.singletonMap(PARAMS_KEY, m.params()), paramsFile);
+            } finally {
+                m.close();
+            }
+        }
+        mapping = MappedArrays.map(paramsFile);
+        return mapping.get(PARAMS_KEY);
+    }
+
+    protected static String readConfiguration(File f) throws IOException {
+        try (ZipFile zf = new ZipFile(f)) {
+            ZipEntry ze = zf.getEntry(ModelSerializer.CONFIGURATION_JSON);
+            if (ze == null)
+                throw new IOException("No " + ModelSerializer.CONFIGURATION_JSON + " entry in model file " + f.getAbsolutePath());
+            try (InputStream is = zf.getInputStream(ze)) {
+                return IOUtils.toString(is, StandardCharsets.UTF_8);
+            }
+        }
+    }
 
     @Override
     public void close() {
+        //Replicas (if any) share the parameters of the original model, so only the original needs to be closed
         try {
             if (net != null) {
                 net.close();
@@ -99,76 +203,207 @@ public class DL4JPipelineStepRunner implements PipelineStepRunner {
 
     @Override
     public Data exec(Context ctx, Data data) {
+        INDArray[] out = output(getInputs(data));
+        return toData(out);
+    }
+
+    @Override
+    public Data[] exec(Context ctx, Data... data) {
+        if(data.length <= 1 || !batchMajor || !BatchUtils.canStack(data))
+            return PipelineStepRunner.super.exec(ctx, data);
+
+        //Concatenate the inputs along dimension 0 and perform a single forward pass for all examples
+        INDArray[][] inputs = new INDArray[data.length][];
+        for( int i=0; i<data.length; i++ ){
+            inputs[i] = getInputs(data[i]);
+        }
+
+        long[] batchSizes = new long[data.length];
+        long total = 0;
+        for( int i=0; i<data.length; i++ ){
+            batchSizes[i] = inputs[i][0].size(0);
+            total += batchSizes[i];
+        }
+
+        INDArray[] batchInput = new INDArray[inputs[0].length];
+        for( int j=0; j<batchInput.length; j++ ){
+            INDArray[] toConcat = new INDArray[data.length];
+            for( int i=0; i<data.length; i++ ){
+                toConcat[i] = inputs[i][j];
+            }
+            batchInput[j] = Nd4j.concat(0, toConcat);
+        }
+
+        INDArray[] batchOut = output(batchInput);
+        for(INDArray o : batchOut){
+            if(o.rank() == 0 || o.size(0) != total) {
+                //Output is not batch-major - can't split it, so fall back on separate forward passes
+                //DL4J always computes all of the network outputs, so the separate forward passes are used for all
+                // outputs. Don't attempt batched forward passes for this network again
+                log.debug("Network output is not batch-major: executing examples separately");
+                batchMajor = false;
+                return PipelineStepRunner.super.exec(ctx, data);
+            }
+        }
+
+        INDArray[][] split = new INDArray[batchOut.length][];
+        for( int j=0; j<batchOut.length; j++ ){
+            split[j] = ND4JUtil.splitBatch(batchOut[j], batchSizes);
+        }
+
+        Data[] out = new Data[data.length];
+        for( int i=0; i<data.length; i++ ){
+            INDArray[] o = new INDArray[batchOut.length];
+            for( int j=0; j<o.length; j++ ){
+                o[j] = split[j][i];
+            }
+            out[i] = toData(o);
+        }
+        return out;
+    }
+
+    @Override
+    public Data warmupInput() {
+        //DL4J models don't store their input types: infer the input shapes from the first layers where possible
+        List<String> names;
+        List<long[]> shapes = new ArrayList<>();
+        if (net != null) {
+            MultiLayerConfiguration conf = net.getLayerWiseConfigurations();
+            names = Collections.singletonList("input");     //Any name: single input networks accept any key
+            shapes.add(conf.getInputPreProcess(0) == null ? warmupShape(conf.getConf(0).getLayer()) : null);
+        } else {
+            ComputationGraphConfiguration conf = graph.getConfiguration();
+            names = step.inputNames() != null ? step.inputNames() : conf.getNetworkInputs();
+            for (String in : conf.getNetworkInputs()) {
+                long[] shape = null;
+                for (Map.Entry<String, List<String>> e : conf.getVertexInputs().entrySet()) {
+                    GraphVertex v = conf.getVertices().get(e.getKey());
+                    if (e.getValue().contains(in) && v instanceof LayerVertex && ((LayerVertex) v).getPreProcessor() == null) {
+                        shape = warmupShape(((LayerVertex) v).getLayerConf().getLayer());
+                        break;
+                    }
+                }
+                shapes.add(shape);
+            }
+        }
+
+        if (shapes.contains(null) || names.size() != shapes.size())
+            return null;
+
+        DataType dt = (net != null ? net.params() : graph.params()).dataType();
+        JData.DataBuilder b = JData.builder();
+        for (int i = 0; i < shapes.size(); i++) {
+            b.add(names.get(i), NDArray.create(Nd4j.create(dt, shapes.get(i))));
+        }
+        return b.build();
+    }
+
+    /**
+     * Input shape (minibatch size 1) for the specified layer, or null if it can't be determined from the layer
+     * configuration alone (for example, the spatial dimensions of a CNN input)
+     */
+    protected static long[] warmupShape(Layer l) {
+        if (!(l instanceof FeedForwardLayer) || ((FeedForwardLayer) l).getNIn() <= 0)
+            return null;
+
+        long nIn = ((FeedForwardLayer) l).getNIn();
+        if (l instanceof BaseRecurrentLayer || l instanceof RnnOutputLayer) {
+            RNNFormat f = l instanceof BaseRecurrentLayer ? ((BaseRecurrentLayer) l).getRnnDataFormat() : ((RnnOutputLayer) l).getRnnDataFormat();
+            return f == RNNFormat.NWC ? new long[]{1, 1, nIn} : new long[]{1, nIn, 1};
+        } else if (l instanceof DenseLayer || l instanceof OutputLayer) {
+            return new long[]{1, nIn};
+        }
+        return null;
+    }
 
+    protected INDArray[] getInputs(Data data){
         //First: Get array
         //TODO HANDLE DIFFERENT NAMES (Not hardcoded)
         int numInputs = net != null ? 1 : graph.getNumInputArrays();
         Preconditions.checkArgument(numInputs == data.size(), "Expected %s inputs to DL4JModelStep but got Data instance with %s inputs (keys: %s)",
                 numInputs, data.size(), data.keys());
 
-        if (net != null) {
-            INDArray arr = getOnlyArray(data);
-            INDArray out;
-            synchronized (net) {
-                out = net.output(arr);
-            }
-
-            String outName = step.outputNames() == null || step.outputNames().isEmpty() ? DEFAULT_OUT_NAME_SINGLE : step.outputNames().get(0);
+        if (net != null || numInputs == 1) {
+            return new INDArray[]{getOnlyArray(data)};
+        }
 
-            return Data.singleton(outName, NDArray.create(out));
+        INDArray[] input;
+        //TODO make configurable input names/order
+        if (step.inputNames() != null) {
+            input = new INDArray[numInputs];
+            int i = 0;
+            for (String s : step.inputNames()) {
+                input[i++] = (INDArray) data.getNDArray(s).get();      //TODO FIX NDARRAY
+            }
         } else {
-            INDArray[] input;
-            if (numInputs == 1) {
-                input = new INDArray[]{getOnlyArray(data)};
-            } else {
-                //TODO make configurable input names/order
-                if (step.inputNames() != null) {
-                    input = new INDArray[numInputs];
-                    int i = 0;
-                    for (String s : step.inputNames()) {
-                        input[i++] = (INDArray) data.getNDArray(s).get();      //TODO FIX NDARRAY
-                    }
-                } else {
-                    //Configuration does not have names specified
-                    //See if model input names matches data
-                    List<String> networkInputs = graph.getConfiguration().getNetworkInputs();
-                    if (data.hasAll(networkInputs)) {
-                        input = new INDArray[numInputs];
-                        int i = 0;
-                        for (String s : networkInputs) {
-                            input[i++] = (INDArray) data.getNDArray(s).get();      //TODO FIX NDARRAY
-                        }
-                    } else {
-                        throw new IllegalStateException("Network has " + numInputs + " inputs, but no Data input names were specified." +
-                                " Attempting to infer input names also failed: Model has input names " + networkInputs + " but Data object has keys " + data.keys());
-                    }
+            //Configuration does not have names specified
+            //See if model input names matches data
+            List<String> networkInputs = graph.getConfiguration().getNetworkInputs();
+            if (data.hasAll(networkInputs)) {
+                input = new INDArray[numInputs];
+                int i = 0;
+                for (String s : networkInputs) {
+                    input[i++] = (INDArray) data.getNDArray(s).get();      //TODO FIX NDARRAY
                 }
+            } else {
+                throw new IllegalStateException("Network has " + numInputs + " inputs, but no Data input names were specified." +
+                        " Attempting to infer input names also failed: Model has input names " + networkInputs + " but Data object has keys " + data.keys());
+            }
+        }
+        return input;
+    }
+
+    protected INDArray[] output(INDArray[] input){
+        if (netPool != null) {
+            MultiLayerNetwork n = netPool.checkout();
+            try {
+                return new INDArray[]{n.output(input[0])};
+            } finally {
+                netPool.release(n);
+            }
+        } else if (graphPool != null) {
+            ComputationGraph g = graphPool.checkout();
+            try {
+                return g.output(input);
+            } finally {
+                graphPool.release(g);
+            }
+        } else if (net != null) {
+            synchronized (net) {
+                return new INDArray[]{net.output(input[0])};
             }
-            INDArray[] out;
+        } else {
             synchronized (graph) {
-                out = graph.output(input);
+                return graph.output(input);
             }
+        }
+    }
 
-            //Work out output names
-            List<String> outNames;
-            if (step.outputNames() != null) {
-                outNames = step.outputNames();
+    protected Data toData(INDArray[] out){
+        if (net != null) {
+            String outName = step.outputNames() == null || step.outputNames().isEmpty() ? DEFAULT_OUT_NAME_SINGLE : step.outputNames().get(0);
+            return Data.singleton(outName, NDArray.create(out[0]));
+        }
+
+        //Work out output names
+        List<String> outNames;
+        if (step.outputNames() != null) {
+            outNames = step.outputNames();
+        } else {
+            if (out.length == 1) {
+                outNames = Collections.singletonList(DEFAULT_OUT_NAME_SINGLE);
             } else {
-                if (out.length == 1) {
-                    outNames = Collections.singletonList(DEFAULT_OUT_NAME_SINGLE);
-                } else {
-                    outNames = graph.getConfiguration().getNetworkOutputs();
-                }
+                outNames = graph.getConfiguration().getNetworkOutputs();
             }
+        }
 
-            Preconditions.checkState(outNames.size() == out.length);
+        Preconditions.checkState(outNames.size() == out.length);
 
-            JData.DataBuilder b = JData.builder();
-            for (int i = 0; i < out.length; i++) {
-                b.add(outNames.get(i), NDArray.create(out[i]));
-            }
-            return b.build();
+        JData.DataBuilder b = JData.builder();
+        for (int i = 0; i < out.length; i++) {
+            b.add(outNames.get(i), NDArray.create(out[i]));
         }
+        return b.build();
     }
 
     private INDArray getOnlyArray(Data data) {
@@ -0,0 +1,75 @@
+/* ******************************************************************************
+ * Copyright (c) 2020 Konduit K.K.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package ai.konduit.serving.models.deeplearning4j.step;
+
+import lombok.NonNull;
+import org.nd4j.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fixed size pool of model replicas. Each replica is used by at most one thread at a time.<br>
+ * Checking out a replica is lock-free when one is available (a CAS on the semaphore permits and a poll of a
+ * concurrent queue); callers only block when all replicas are in use.
+ *
+ * @param <T> Type of the model
+ */
+public class ModelReplicaPool<T> {
+
+    private final List<T> replicas;
+    private final Queue<T> available;
+    private final Semaphore permits;
+
+    public ModelReplicaPool(@NonNull List<T> replicas){
+        Preconditions.checkState(!replicas.isEmpty(), "At least one model replica is required");
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.available = new ConcurrentLinkedQueue<>(replicas);
+        this.permits = new Semaphore(replicas.size());
+    }
+
+    /**
+     * Get a replica for exclusive use, blocking until one is available. The replica must be returned using
+     * {@link #release(Object)} once it is no longer used.
+     */
+    public T checkout(){
+        permits.acquireUninterruptibly();
+        return available.poll();
+    }
+
+    /**
+     * Return a replica obtained from {@link #checkout()} to the pool
+     */
+    public void release(@NonNull T replica){
+        available.offer(replica);
+        permits.release();
+    }
+
+    /**
+     * @return All replicas in the pool, whether in use or not
+     */
+    public List<T> replicas(){
+        return replicas;
+    }
+
+    public int size(){
+        return replicas.size();
+    }
+}
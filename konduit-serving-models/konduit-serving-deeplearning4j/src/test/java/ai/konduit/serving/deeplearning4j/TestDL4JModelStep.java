@@ -16,10 +16,12 @@
 package ai.konduit.serving.deeplearning4j;
 
 import ai.konduit.serving.models.deeplearning4j.step.DL4JModelPipelineStep;
+import ai.konduit.serving.data.nd4j.util.MappedArrays;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
@@ -39,9 +41,14 @@ import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class TestDL4JModelStep {
 
@@ -133,6 +140,144 @@ public class TestDL4JModelStep {
         }
     }
 
+    @Test
+    public void testBatchExec() throws Exception {
+        for(boolean cg : new boolean[]{false, true}) {
+            File netFile = cg ? createIrisCGFile() : createIrisMLNFile();
+
+            Pipeline p = SequencePipeline.builder()
+                    .add(DL4JModelPipelineStep.builder()
+                            .modelUri(netFile.toURI().toString())
+                            .build())
+                    .build();
+
+            PipelineStepRunner r = p.executor().getRunners().get(0);
+
+            INDArray[] arr = new INDArray[]{Nd4j.rand(DataType.FLOAT, 1, 4), Nd4j.rand(DataType.FLOAT, 3, 4), Nd4j.rand(DataType.FLOAT, 2, 4)};
+            Data[] in = new Data[arr.length];
+            for (int i = 0; i < arr.length; i++) {
+                in[i] = Data.singleton("in", NDArray.create(arr[i]));
+            }
+
+            Data[] out = r.exec(null, in);
+            assertEquals(arr.length, out.length);
+            for (int i = 0; i < arr.length; i++) {
+                INDArray exp = cg ? predictFromFileCG(netFile, arr[i])[0] : predictFromFile(netFile, arr[i]);
+                INDArray actual = out[i].getNDArray("default").getAs(INDArray.class);
+                assertTrue(exp.equalsWithEps(actual, 1e-5));
+            }
+        }
+    }
+
+    @Test
+    public void testReplicas() throws Exception {
+        for(boolean cg : new boolean[]{false, true}) {
+            File netFile = cg ? createIrisCGFile() : createIrisMLNFile();
+
+            Pipeline p = SequencePipeline.builder()
+                    .add(DL4JModelPipelineStep.builder()
+                            .modelUri(netFile.toURI().toString())
+                            .numReplicas(4)
+                            .build())
+                    .build();
+
+            Pipeline pJson = Pipeline.fromJson(p.toJson());
+            assertEquals(p, pJson);
+
+            PipelineExecutor e = pJson.executor();
+
+            int nThreads = 8;
+            INDArray[] arr = new INDArray[nThreads];
+            INDArray[] exp = new INDArray[nThreads];
+            for (int i = 0; i < nThreads; i++) {
+                arr[i] = Nd4j.rand(DataType.FLOAT, 3, 4);
+                exp[i] = cg ? predictFromFileCG(netFile, arr[i])[0] : predictFromFile(netFile, arr[i]);
+            }
+
+            ExecutorService es = Executors.newFixedThreadPool(nThreads);
+            try {
+                List<Future<INDArray>> futures = new ArrayList<>();
+                for (int i = 0; i < nThreads; i++) {
+                    Data d = Data.singleton("in", NDArray.create(arr[i]));
+                    futures.add(es.submit(() -> {
+                        INDArray out = null;
+                        for (int j = 0; j < 20; j++) {
+                            out = e.exec(d).getNDArray("default").getAs(INDArray.class);
+                        }
+                        return out;
+                    }));
+                }
+
+                for (int i = 0; i < nThreads; i++) {
+                    assertEquals(exp[i], futures.get(i).get());
+                }
+            } finally {
+                es.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testMemoryMapped() throws Exception {
+        File mmapDir = testDir.newFolder();
+        System.setProperty(MappedArrays.CACHE_DIR_PROPERTY, mmapDir.getAbsolutePath());
+        try {
+            for (boolean cg : new boolean[]{false, true}) {
+                File netFile = cg ? createIrisCGFile() : createIrisMLNFile();
+
+                Pipeline p = SequencePipeline.builder()
+                        .add(DL4JModelPipelineStep.builder()
+                                .modelUri(netFile.toURI().toString())
+                                .memoryMapped(true)
+                                .numReplicas(2)
+                                .build())
+                        .build();
+
+                Pipeline pJson = Pipeline.fromJson(p.toJson());
+                assertEquals(p, pJson);
+
+                INDArray arr = Nd4j.rand(DataType.FLOAT, 3, 4);
+                INDArray exp = cg ? predictFromFileCG(netFile, arr)[0] : predictFromFile(netFile, arr);
+                Data d = Data.singleton("in", NDArray.create(arr));
+
+                //First load extracts the parameters, second load maps the existing parameter file
+                for (int i = 0; i < 2; i++) {
+                    PipelineExecutor e = pJson.executor();
+                    INDArray out = e.exec(d).getNDArray("default").getAs(INDArray.class);
+                    assertEquals(exp, out);
+                    assertTrue(MappedArrays.cacheFile(netFile, ".params").exists());
+                    e.close();
+                }
+            }
+        } finally {
+            System.clearProperty(MappedArrays.CACHE_DIR_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testWarmupInput() throws Exception {
+        for (boolean cg : new boolean[]{false, true}) {
+            File netFile = cg ? createIrisCGFile() : createIrisMLNFile();
+
+            Pipeline p = SequencePipeline.builder()
+                    .add(DL4JModelPipelineStep.builder()
+                            .modelUri(netFile.toURI().toString())
+                            .build())
+                    .build();
+
+            PipelineExecutor e = p.executor();
+            Data in = e.getRunners().get(0).warmupInput();
+            assertNotNull(in);
+            assertEquals(1, in.size());
+            INDArray arr = in.getNDArray(in.keys().get(0)).getAs(INDArray.class);
+            assertArrayEquals(new long[]{1, 4}, arr.shape());
+            assertEquals(DataType.FLOAT, arr.dataType());
+
+            e.warmup(2);
+            e.close();
+        }
+    }
+
     public File createIrisMLNFile() throws Exception {
         File dir = testDir.newFolder();
         File netFile = new File(dir, "testMLN.zip");
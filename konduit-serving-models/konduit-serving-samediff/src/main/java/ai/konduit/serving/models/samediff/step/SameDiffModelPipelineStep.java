@@ -32,14 +32,20 @@ import java.util.List;
 public class SameDiffModelPipelineStep extends BaseModelPipelineStep<SameDiffConfig> {
 
     private List<String> outputNames;       //Mainly for ComputationGraph with multiple outputs - map INDArray[] to Data keys
+    private Boolean memoryMapped;           //If true: memory-map the variables from an extracted parameter file, shared between processes. Default: false
 
     public SameDiffModelPipelineStep(String modelUri, SameDiffConfig config) {
         super(modelUri, config);
     }
 
+    public SameDiffModelPipelineStep(String modelUri, SameDiffConfig config, List<String> outputNames){
+        this(modelUri, config, outputNames, null);
+    }
+
     public SameDiffModelPipelineStep(@JsonProperty("modelUri") String modelUri, @JsonProperty("config") SameDiffConfig config,
-                                     @JsonProperty("outputNames") List<String> outputNames){
+                                     @JsonProperty("outputNames") List<String> outputNames, @JsonProperty("memoryMapped") Boolean memoryMapped){
         super(modelUri, config);
         this.outputNames = outputNames;
+        this.memoryMapped = memoryMapped;
     }
 }
@@ -15,6 +15,8 @@
  ******************************************************************************/
 package ai.konduit.serving.models.samediff.step;
 
+import ai.konduit.serving.data.nd4j.util.MappedArrays;
+import ai.konduit.serving.data.nd4j.util.ND4JUtil;
 import ai.konduit.serving.pipeline.api.context.Context;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
@@ -22,17 +24,24 @@ import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.api.exception.ModelLoadingException;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.util.BatchUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.SDVariable;
 import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.VariableType;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
 
 
+@Slf4j
 public class SameDiffPipelineStepRunner implements PipelineStepRunner {
 
     public static final String DEFAULT_OUT_NAME_SINGLE = "default";
@@ -40,6 +49,8 @@ public class SameDiffPipelineStepRunner implements PipelineStepRunner {
 
     private SameDiffModelPipelineStep step;
     private final SameDiff sd;
+    private MappedArrays.Mapping mapping;   //Memory-mapped variables, if used - referenced to keep the arrays mapped
+    private volatile Set<String> nonBatchOutputs = Collections.emptySet();     //Outputs found not to be batch-major
 
     public SameDiffPipelineStepRunner(SameDiffModelPipelineStep step) {
         this.step = step;
@@ -55,13 +66,58 @@ public class SameDiffPipelineStepRunner implements PipelineStepRunner {
 
 
         try {
-            sd = SameDiff.load(f, false);
+            boolean memoryMapped = step.memoryMapped() != null && step.memoryMapped();
+            sd = memoryMapped ? loadMapped(f) : SameDiff.load(f, false);
         } catch (Throwable e) {
             throw new ModelLoadingException("Failed to load SameDiff model from URI " + step.getModelUri(), e);
         }
     }
 
 
+    /**
+     * Load the model with memory-mapped variables and constants. On the first load of a model (on this host), the
+     * arrays are extracted to a parameter file, and the graph structure (without the extracted arrays) is saved
+     * separately. Subsequent loads only need to read the (small) graph structure file and map the parameter file.
+     */
+    protected SameDiff loadMapped(File f) throws IOException {
+        File paramsFile = MappedArrays.cacheFile(f, ".params");
+        File graphFile = MappedArrays.cacheFile(f, ".sdgraph");
+        if (!paramsFile.exists() || !graphFile.exists()) {
+            log.info("Extracting variables of model {} to {} for memory-mapped loading", f.getAbsolutePath(), paramsFile.getAbsolutePath());
+            SameDiff full = SameDiff.load(f, false);
+            Map<String, INDArray> arrays = new LinkedHashMap<>();
+            for (SDVariable v : full.variables()) {
+                VariableType vt = v.getVariableType();
+                if (vt != VariableType.VARIABLE && vt != VariableType.CONSTANT)
+                    continue;
+                INDArray arr = v.getArr();
+                if (arr != null && !arr.isEmpty() && MappedArrays.isSupported(arr.dataType()))
+                    arrays.put(v.name(), arr);
+            }
+            MappedArrays.write(arrays, paramsFile);
+
+            //Replace the extracted arrays with scalars: these are replaced by the mapped arrays after loading
+            for (Map.Entry<String, INDArray> e : arrays.entrySet()) {
+                full.associateArrayWithVariable(Nd4j.scalar(e.getValue().dataType(), 0), e.getKey());
+            }
+            File tmp = File.createTempFile(graphFile.getName(), ".tmp", graphFile.getParentFile());
+            try {
+                full.save(tmp, false);
+                Files.move(tmp.toPath(), graphFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                if (tmp.exists())
+                    tmp.delete();
+            }
+        }
+
+        SameDiff out = SameDiff.load(graphFile, false);
+        mapping = MappedArrays.map(paramsFile);
+        for (Map.Entry<String, INDArray> e : mapping.getArrays().entrySet()) {
+            out.associateArrayWithVariable(e.getValue(), e.getKey());
+        }
+        return out;
+    }
+
     @Override
     public void close() {
 
@@ -74,7 +130,108 @@ public class SameDiffPipelineStepRunner implements PipelineStepRunner {
 
     @Override
     public Data exec(Context ctx, Data data) {
+        return toData(output(getInputs(data)));
+    }
+
+    @Override
+    public Data[] exec(Context ctx, Data... data) {
+        if(data.length <= 1 || sd.inputs().isEmpty() || !BatchUtils.canStack(data))
+            return PipelineStepRunner.super.exec(ctx, data);
+
+        //Concatenate the inputs along dimension 0 and execute the graph once for all examples
+        List<Map<String,INDArray>> inputs = new ArrayList<>(data.length);
+        for(Data d : data){
+            inputs.add(getInputs(d));
+        }
+
+        String first = sd.inputs().get(0);
+        long[] batchSizes = new long[data.length];
+        long total = 0;
+        for( int i=0; i<data.length; i++ ){
+            batchSizes[i] = inputs.get(i).get(first).size(0);
+            total += batchSizes[i];
+        }
+
+        Map<String,INDArray> batchInput = new HashMap<>();
+        for(String s : sd.inputs()){
+            INDArray[] toConcat = new INDArray[data.length];
+            for( int i=0; i<data.length; i++ ){
+                toConcat[i] = inputs.get(i).get(s);
+            }
+            batchInput.put(s, Nd4j.concat(0, toConcat));
+        }
+
+        //Outputs that are not batch-major (i.e., can't be split per example) are computed separately for each example
+        // instead. Outputs found not to be batch-major are remembered, so they are only computed once.
+        List<String> outNames = outputNames();
+        List<String> batched = new ArrayList<>();
+        for(String s : outNames){
+            if(!nonBatchOutputs.contains(s))
+                batched.add(s);
+        }
+
+        Set<String> remainder = new HashSet<>(nonBatchOutputs);
+        Data[] out = new Data[data.length];
+        for( int i=0; i<data.length; i++ ){
+            out[i] = Data.empty();
+        }
+        Map<String,INDArray[]> split = new HashMap<>();
+        if(!batched.isEmpty()) {
+            Map<String, INDArray> batchOut = sd.output(batchInput, batched);
+            for (Map.Entry<String, INDArray> e : batchOut.entrySet()) {
+                INDArray o = e.getValue();
+                if (o.rank() == 0 || o.size(0) != total) {
+                    remainder.add(e.getKey());
+                } else {
+                    split.put(e.getKey(), ND4JUtil.splitBatch(o, batchSizes));
+                }
+            }
+            if(remainder.size() > nonBatchOutputs.size()) {
+                log.debug("SameDiff outputs are not batch-major and will be computed separately for each example: {}", remainder);
+                nonBatchOutputs = Collections.unmodifiableSet(new HashSet<>(remainder));
+            }
+        }
 
+        List<String> remainderList = new ArrayList<>();
+        for(String s : outNames){
+            if(remainder.contains(s))
+                remainderList.add(s);
+        }
+
+        for( int i=0; i<data.length; i++ ){
+            Map<String,INDArray> single = remainderList.isEmpty() ? null : sd.output(inputs.get(i), remainderList);
+            for(String s : outNames){
+                INDArray arr = remainder.contains(s) ? single.get(s) : split.get(s)[i];
+                out[i].put(s, NDArray.create(arr));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public Data warmupInput() {
+        //Placeholder shapes are declared in the graph: use them, with variable (-1) dimensions set to 1
+        List<String> inputs = sd.inputs();
+        if(inputs.isEmpty())
+            return null;
+
+        Data d = Data.empty();
+        for(String s : inputs){
+            SDVariable v = sd.getVariable(s);
+            long[] shape = v.placeholderShape();
+            if(shape == null)
+                return null;    //Rank unknown
+            shape = shape.clone();
+            for( int i=0; i<shape.length; i++ ){
+                if(shape[i] < 0)
+                    shape[i] = 1;
+            }
+            d.put(s, NDArray.create(Nd4j.create(v.dataType(), shape)));
+        }
+        return d;
+    }
+
+    protected Map<String,INDArray> getInputs(Data data){
         //First: Get array
         //TODO HANDLE DIFFERENT NAMES (Not hardcoded to be exactly same name as placeholder arrays)
 
@@ -87,12 +244,20 @@ public class SameDiffPipelineStepRunner implements PipelineStepRunner {
                 throw new IllegalStateException("Input Data field \"" + s + "\" is not an NDArray - is type : " + data.type(s));
             m.put(s, data.getNDArray(s).getAs(INDArray.class));
         }
+        return m;
+    }
 
+    protected Map<String,INDArray> output(Map<String,INDArray> inputs){
+        return sd.output(inputs, outputNames());
+    }
+
+    protected List<String> outputNames(){
         List<String> outNames = step.outputNames();
         Preconditions.checkState(outNames != null && !outNames.isEmpty(), "No output names were provided in the SameDiffModelPipelineStep configuration");
+        return outNames;
+    }
 
-        Map<String,INDArray> out = sd.output(m, outNames);
-
+    protected Data toData(Map<String,INDArray> out){
         Data d = Data.empty();
         for(Map.Entry<String,INDArray> e : out.entrySet()){
             d.put(e.getKey(), NDArray.create(e.getValue()));
@@ -18,6 +18,7 @@
 
 package ai.konduit.serving.models.samediff;
 
+import ai.konduit.serving.data.nd4j.util.MappedArrays;
 import ai.konduit.serving.models.samediff.step.SameDiffModelPipelineStep;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
@@ -34,9 +35,10 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class TestSameDiffServing {
 
@@ -87,6 +89,116 @@ public class TestSameDiffServing {
         Data dOut2 = p2.executor().exec(d);
         INDArray outArr2 = dOut2.getNDArray("out").getAs(INDArray.class);
         assertEquals(outExp, outArr2);
+
+        //Batched execution: single forward pass, split back into the original examples
+        INDArray inArr2 = Nd4j.rand(DataType.FLOAT, 2, 784);
+        INDArray outExp2 = sd.outputSingle(Collections.singletonMap("in", inArr2), "out");
+        Data[] batchOut = exec.getRunners().get(0).exec(null, d, Data.singleton("in", NDArray.create(inArr2)));
+        assertEquals(2, batchOut.length);
+        assertTrue(outExp.equalsWithEps(batchOut[0].getNDArray("out").getAs(INDArray.class), 1e-5));
+        assertTrue(outExp2.equalsWithEps(batchOut[1].getNDArray("out").getAs(INDArray.class), 1e-5));
+    }
+
+    @Test
+    public void testMemoryMapped() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray inArr = Nd4j.rand(DataType.FLOAT, 3, 10);
+
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 10);
+        SDVariable w = sd.var("w", Nd4j.rand(DataType.FLOAT, 10, 5));
+        SDVariable b = sd.constant("b", Nd4j.rand(DataType.FLOAT, 5));
+        SDVariable out = sd.nn.softmax("out", in.mmul(w).add(b));
+        INDArray outExp = sd.outputSingle(Collections.singletonMap("in", inArr), "out");
+
+        File dir = testDir.newFolder();
+        File f = new File(dir, "samediff.bin");
+        sd.save(f, false);
+
+        System.setProperty(MappedArrays.CACHE_DIR_PROPERTY, dir.getAbsolutePath());
+        try {
+            Pipeline p = SequencePipeline.builder()
+                    .add(SameDiffModelPipelineStep.builder()
+                            .modelUri(f.toURI().toString())
+                            .outputNames(Collections.singletonList("out"))
+                            .memoryMapped(true)
+                            .build())
+                    .build();
+            Pipeline pJson = Pipeline.fromJson(p.toJson());
+            assertEquals(p, pJson);
+
+            //First load extracts the variables, second load maps the existing parameter file
+            Data d = Data.singleton("in", NDArray.create(inArr));
+            for (int i = 0; i < 2; i++) {
+                PipelineExecutor exec = pJson.executor();
+                INDArray outArr = exec.exec(d).getNDArray("out").getAs(INDArray.class);
+                assertEquals(outExp, outArr);
+                assertTrue(MappedArrays.cacheFile(f, ".params").exists());
+                assertTrue(MappedArrays.cacheFile(f, ".sdgraph").exists());
+                exec.close();
+            }
+            assertTrue(MappedArrays.cacheFile(f, ".sdgraph").length() < f.length());
+        } finally {
+            System.clearProperty(MappedArrays.CACHE_DIR_PROPERTY);
+        }
     }
 
+    @Test
+    public void testWarmupInput() throws Exception {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 10);
+        SDVariable w = sd.var("w", Nd4j.rand(DataType.FLOAT, 10, 5));
+        SDVariable out = sd.nn.softmax("out", in.mmul(w));
+
+        File f = new File(testDir.newFolder(), "samediff.bin");
+        sd.save(f, false);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(SameDiffModelPipelineStep.builder()
+                        .modelUri(f.toURI().toString())
+                        .outputNames(Collections.singletonList("out"))
+                        .build())
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        Data warmup = exec.getRunners().get(0).warmupInput();
+        assertNotNull(warmup);
+        INDArray arr = warmup.getNDArray("in").getAs(INDArray.class);
+        assertArrayEquals(new long[]{1, 10}, arr.shape());
+        assertEquals(DataType.FLOAT, arr.dataType());
+
+        exec.warmup(2);
+        exec.close();
+    }
+
+    @Test
+    public void testBatchedNonBatchMajor() throws Exception {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.placeHolder("in", DataType.FLOAT, -1, 4);
+        SDVariable out = in.mul("out", 2.0);
+        SDVariable sum = in.sum("sum");         //Not batch-major: must be computed separately for each example
+
+        File dir = testDir.newFolder();
+        File f = new File(dir, "samediff.bin");
+        sd.save(f, false);
+
+        Pipeline p = SequencePipeline.builder()
+                .add(SameDiffModelPipelineStep.builder()
+                        .modelUri(f.toURI().toString())
+                        .outputNames(Arrays.asList("out", "sum"))
+                        .build())
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        INDArray in1 = Nd4j.rand(DataType.FLOAT, 2, 4);
+        INDArray in2 = Nd4j.rand(DataType.FLOAT, 1, 4);
+        for( int i=0; i<2; i++ ) {
+            Data[] outData = exec.exec(Data.singleton("in", NDArray.create(in1)), Data.singleton("in", NDArray.create(in2)));
+            assertEquals(2, outData.length);
+            assertEquals(in1.mul(2.0), outData[0].getNDArray("out").getAs(INDArray.class));
+            assertEquals(in2.mul(2.0), outData[1].getNDArray("out").getAs(INDArray.class));
+            assertEquals(in1.sumNumber().doubleValue(), outData[0].getNDArray("sum").getAs(INDArray.class).getDouble(0), 1e-5);
+            assertEquals(in2.sumNumber().doubleValue(), outData[1].getNDArray("sum").getAs(INDArray.class).getDouble(0), 1e-5);
+        }
+    }
 }
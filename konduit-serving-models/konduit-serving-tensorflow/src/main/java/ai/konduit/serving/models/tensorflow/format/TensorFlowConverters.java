@@ -24,6 +24,7 @@ import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.api.format.NDArrayConverter;
 import ai.konduit.serving.pipeline.api.format.NDArrayFormat;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.util.BufferPool;
 import lombok.AllArgsConstructor;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.util.ArrayUtil;
@@ -67,7 +68,10 @@ public class TensorFlowConverters {
         public Tensor<?> convert(SerializedNDArray from){
             long[] shape = from.getShape();
             Class<?> tfType = TensorFlowUtil.toTFType(from.getType());
-            Tensor<?> t = Tensor.create(tfType, shape, from.getBuffer());
+            //Tensor.create consumes the buffer; use a duplicate so the (possibly cached/shared) array isn't modified
+            ByteBuffer bb = from.getBuffer().duplicate();
+            bb.rewind();
+            Tensor<?> t = Tensor.create(tfType, shape, bb);
             return t;
         }
     }
@@ -107,8 +111,12 @@ public class TensorFlowConverters {
             int w = t.width();
             long length = ArrayUtil.prodLong(shape);
             long lengthBytes = w * length;
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)lengthBytes).order(ByteOrder.nativeOrder());     //TODO SerializedNDArray should be in little endian...
+            //Note that the TensorFlow Java API always copies here (there is no way to access the tensor's memory
+            // directly), but the resulting buffer is direct so it can be used without further copies (for example,
+            // as an ND4J array via the SerializedNDArray -> INDArray conversion)
+            ByteBuffer bb = BufferPool.allocate((int)lengthBytes).order(ByteOrder.nativeOrder());     //TODO SerializedNDArray should be in little endian...
             from.writeTo(bb);
+            bb.clear();
 
             return new SerializedNDArray(t, shape, bb);
         }
@@ -23,6 +23,7 @@ import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.util.BatchUtils;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
@@ -34,7 +35,7 @@ import org.tensorflow.Tensor;
 
 import java.io.File;
 import java.net.URI;
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 public class TensorFlowStepRunner implements PipelineStepRunner {
@@ -42,6 +43,7 @@ public class TensorFlowStepRunner implements PipelineStepRunner {
     private final TensorFlowPipelineStep step;
     private Graph graph;
     private Session sess;
+    private volatile Set<String> nonBatchOutputs = Collections.emptySet();     //Outputs found not to be batch-major
 
     public TensorFlowStepRunner(@NonNull TensorFlowPipelineStep step) {
         this.step = step;
@@ -65,6 +67,13 @@ public class TensorFlowStepRunner implements PipelineStepRunner {
 
     @Override
     public Data exec(Context ctx, Data data) {
+        return run(data, step.getOutputNames());
+    }
+
+    /**
+     * Execute the graph on the specified input, fetching only the specified outputs
+     */
+    protected Data run(Data data, List<String> outNames) {
         Preconditions.checkState(step.getInputNames() != null, "TensorFlowStep input array names are not set (null)");
 
         Session.Runner r = sess.runner();
@@ -74,7 +83,6 @@ public class TensorFlowStepRunner implements PipelineStepRunner {
             r.feed(s, t);
         }
 
-        List<String> outNames = step.getOutputNames();
         for (String s : outNames) {
             String name;
             int idx;
@@ -102,6 +110,65 @@ public class TensorFlowStepRunner implements PipelineStepRunner {
         return out;
     }
 
+    @Override
+    public Data[] exec(Context ctx, Data... data) {
+        if(data.length <= 1 || !BatchUtils.canStack(data))
+            return PipelineStepRunner.super.exec(ctx, data);
+
+        long[] batchSizes = new long[data.length];
+        long total = 0;
+        for( int i=0; i<data.length; i++ ){
+            batchSizes[i] = BatchUtils.batchSize(data[i]);
+            total += batchSizes[i];
+        }
+
+        //Concatenate the inputs along dimension 0 and execute Session.run once for all examples, for the outputs
+        // that are batch-major. Outputs that are not (i.e., can't be split per example) are fetched separately
+        // for each example. Outputs found not to be batch-major are remembered, so they are only computed once.
+        List<String> outNames = step.getOutputNames();
+        List<String> batched = new ArrayList<>();
+        for(String s : outNames){
+            if(!nonBatchOutputs.contains(s))
+                batched.add(s);
+        }
+
+        Data[] split = null;
+        Set<String> remainder = new HashSet<>(nonBatchOutputs);
+        if(!batched.isEmpty()) {
+            Data out = run(BatchUtils.stack(Arrays.asList(data)), batched);
+            Data splittable = Data.empty();
+            for (String s : batched) {
+                long[] shape = out.getNDArray(s).shape();
+                if (shape.length == 0 || shape[0] != total) {
+                    remainder.add(s);
+                } else {
+                    splittable.copyFrom(s, out);
+                }
+            }
+            split = BatchUtils.split(splittable, batchSizes);
+            if(remainder.size() > nonBatchOutputs.size()) {
+                log.debug("TensorFlow outputs are not batch-major and will be computed separately for each example: {}", remainder);
+                nonBatchOutputs = Collections.unmodifiableSet(new HashSet<>(remainder));
+            }
+        }
+
+        List<String> remainderList = new ArrayList<>();
+        for(String s : outNames){
+            if(remainder.contains(s))
+                remainderList.add(s);
+        }
+
+        Data[] ret = new Data[data.length];
+        for( int i=0; i<data.length; i++ ){
+            Data single = remainderList.isEmpty() ? null : run(data[i], remainderList);
+            ret[i] = Data.empty();
+            for(String s : outNames){
+                ret[i].copyFrom(s, remainder.contains(s) ? single : split[i]);
+            }
+        }
+        return ret;
+    }
+
 
     protected void init() {
         try {
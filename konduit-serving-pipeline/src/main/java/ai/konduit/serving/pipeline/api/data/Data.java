@@ -19,6 +19,7 @@ package ai.konduit.serving.pipeline.api.data;
 
 import ai.konduit.serving.pipeline.impl.data.*;
 import ai.konduit.serving.pipeline.impl.data.image.Png;
+import ai.konduit.serving.pipeline.impl.data.image.base.BaseImageFile;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import ai.konduit.serving.pipeline.impl.serde.DataJsonDeserializer;
 import ai.konduit.serving.pipeline.impl.serde.DataJsonSerializer;
@@ -31,6 +32,7 @@ import org.nd4j.shade.jackson.databind.annotation.JsonDeserialize;
 import org.nd4j.shade.jackson.databind.annotation.JsonSerialize;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -46,7 +48,7 @@ public interface Data {
     String RESERVED_KEY_NDARRAY_SHAPE = "@NDArrayShape";
     String RESERVED_KEY_NDARRAY_TYPE = "@NDArrayType";
     String RESERVED_KEY_NDARRAY_DATA_BASE64 = "@NDArrayDataBase64";
-    String RESERVED_KEY_NDARRAY_DATA_ARRAY = "@NDArrayDataBase64";
+    String RESERVED_KEY_NDARRAY_DATA_ARRAY = "@NDArrayDataArray";
     String RESERVED_KEY_METADATA = "@Metadata";
     String RESERVED_KEY_BB_X1 = "@x1";
     String RESERVED_KEY_BB_X2 = "@x2";
@@ -76,6 +78,22 @@ public interface Data {
         }
     }
 
+    /**
+     * Convert this Data instance to JSON.
+     *
+     * @param numericNDArrays If true, NDArray values are written as flat arrays of JSON numbers instead of base64
+     *                        encoded bytes. See {@link DataJsonSerializer#NUMERIC_NDARRAYS_ATTRIBUTE}
+     */
+    default String toJson(boolean numericNDArrays){
+        try {
+            return ObjectMappers.json().writer()
+                    .withAttribute(DataJsonSerializer.NUMERIC_NDARRAYS_ATTRIBUTE, numericNDArrays)
+                    .writeValueAsString(this);
+        } catch (JsonProcessingException e){
+            throw new RuntimeException("Error serializing Data instance to JSON", e);
+        }
+    }
+
     List<String> keys();
 
     String key(int id);
@@ -169,6 +187,14 @@ public interface Data {
         return new ProtoData(input);
     }
 
+    /**
+     * Deserialize a Data instance from the remaining bytes of the specified buffer. Unlike {@link #fromBytes(byte[])},
+     * NDArray values are not copied but are read-only views of the buffer, which must not be modified afterwards.
+     */
+    static Data fromBuffer(ByteBuffer input) {
+        return ProtoData.fromBuffer(input);
+    }
+
     static Data fromFile(File f) throws IOException {
         return new ProtoData(f);
     }
@@ -231,8 +257,14 @@ public interface Data {
 
                     break;
                 case IMAGE:
+                    Object i1 = d1.getImage(s).get();
+                    Object i2 = d2.getImage(s).get();
+                    if(i1 instanceof BaseImageFile && i1.getClass() == i2.getClass() &&
+                            Arrays.equals(((BaseImageFile) i1).getBytes(), ((BaseImageFile) i2).getBytes()))
+                        break;      //Same encoded format and content - no need to convert
+
                     Png png1 = d1.getImage(s).getAs(Png.class);
-                    Png png2 = d1.getImage(s).getAs(Png.class);
+                    Png png2 = d2.getImage(s).getAs(Png.class);
 
                     byte[] pngBytes1 = png1.getBytes();
                     byte[] pngBytes2 = png2.getBytes();
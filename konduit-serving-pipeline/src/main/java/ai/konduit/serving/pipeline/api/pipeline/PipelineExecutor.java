@@ -16,10 +16,13 @@
  ******************************************************************************/
 package ai.konduit.serving.pipeline.api.pipeline;
 
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.context.PipelineMetrics;
 import ai.konduit.serving.pipeline.api.context.Profiler;
 import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.impl.context.DefaultContext;
 import org.slf4j.Logger;
 
 import java.util.List;
@@ -58,6 +61,61 @@ public interface PipelineExecutor {
         return out;
     }
 
+    /**
+     * Get the context (metrics and profiler) that this executor passes to its step runners
+     */
+    default Context context() {
+        return new DefaultContext(new PipelineMetrics(getPipeline().id()), profiler());
+    }
+
+    /**
+     * Warm up the pipeline: each runner that provides a synthetic input (see {@link PipelineStepRunner#warmupInput()})
+     * is executed on that input the specified number of times, so that the first requests don't pay for JIT
+     * compilation and native initialization.<br>
+     * Runners are executed directly with this executor's {@link #context()}, not via this executor: warm-up inputs don't
+     * pass through any batching or caching. Note that metrics recorded by the runners themselves are included in the
+     * pipeline metrics.
+     *
+     * @param iterations Number of times to execute each runner
+     */
+    default void warmup(int iterations) {
+        Context ctx = context();
+        for (PipelineStepRunner r : getRunners()) {
+            if (r == null)
+                continue;       //Merge, switch etc in graph pipelines
+            Data in = r.warmupInput();
+            if (in == null)
+                continue;
+
+            if (ctx.metrics() instanceof PipelineMetrics) {
+                ((PipelineMetrics) ctx.metrics()).setInstanceName(r.name());
+                ((PipelineMetrics) ctx.metrics()).setStepName(r.getPipelineStep().name());
+            }
+
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                r.exec(ctx, in);
+            }
+            getLogger().info("Warmed up pipeline step runner {} with {} iterations in {} ms", r.name(), iterations,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Warm up the pipeline by executing it on the specified input (usually a representative request) the specified
+     * number of times.
+     *
+     * @param input      Input to execute the pipeline on
+     * @param iterations Number of times to execute the pipeline
+     */
+    default void warmup(Data input, int iterations) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            exec(input);
+        }
+        getLogger().info("Warmed up pipeline with {} iterations in {} ms", iterations, System.currentTimeMillis() - start);
+    }
+
     /**
      * Close the pipeline executor.
      * This means cleaning up any used resources such as memory, database connections, etc.
@@ -0,0 +1,54 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.api.serde;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * DataFormat is a wire format for {@link Data} instances, in addition to the built-in JSON and protobuf formats.<br>
+ * Implementations are loaded via {@link ServiceLoader} (see {@link ai.konduit.serving.pipeline.registry.DataFormatRegistry}),
+ * so that protocol servers can accept and produce the content types of whatever formats are available on the classpath.
+ */
+public interface DataFormat {
+
+    /**
+     * @return The MIME content types (for example, "application/vnd.apache.arrow.stream") handled by this format
+     */
+    List<String> contentTypes();
+
+    /**
+     * Deserialize a Data instance from the specified buffer. Implementations may return a Data instance that refers to
+     * the buffer's memory instead of copying it, hence the buffer must not be modified after calling this method
+     *
+     * @param buffer Buffer to read from, between its position and limit
+     * @return The deserialized Data instance
+     */
+    Data read(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Serialize the specified Data instance to the output stream. The stream is not closed.
+     */
+    void write(Data data, OutputStream os) throws IOException;
+}
@@ -56,6 +56,18 @@ public interface PipelineStepRunner extends Closeable {
         return out;
     }
 
+    /**
+     * Get a synthetic input for warming up this runner - i.e., for triggering JIT compilation, native kernel
+     * initialization and workspace allocation before the first real request is received. This is usually derived from
+     * the input names and shapes declared by the model, with variable size dimensions (such as the minibatch dimension)
+     * set to 1.
+     *
+     * @return The warm-up input, or null if the runner does not need (or can't determine the input for) warm-up
+     */
+    default Data warmupInput() {
+        return null;
+    }
+
     /**
      * Get name of the current runner for logging
      */
@@ -0,0 +1,159 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.data;
+
+import ai.konduit.serving.pipeline.impl.data.image.base.BaseImageFile;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * A small, bounded (least recently used) cache of the converted representations of a single {@link ai.konduit.serving.pipeline.api.data.Image}
+ * or {@link ai.konduit.serving.pipeline.api.data.NDArray} value, keyed by the target class or format.<br>
+ * This means that each representation (for example, an OpenCV Mat decoded from a JPEG) is produced at most once,
+ * no matter how many pipeline steps request it.<br>
+ * Only types with a registered copier are cached (see {@link #registerCopier(Class, UnaryOperator)}), and every caller
+ * - including the one that produced the conversion - gets its own copy. This means callers may modify the objects
+ * returned by getAs in-place (or take views of them), without affecting other callers. Immutable types (such as
+ * encoded image files) are registered with the identity function, and are shared. SerializedNDArray conversions are
+ * shared as read-only views, as copying them would cost as much as converting again. Conversions to other types are not
+ * cached: these are usually cheap views (such as SerializedNDArray to INDArray) or need a full copy anyway.
+ * <br>
+ * The underlying map is only allocated once a conversion is actually cached.
+ */
+public class ConversionCache {
+
+    public static final int DEFAULT_MAX_SIZE = 4;
+
+    private static final Map<Class<?>,UnaryOperator<Object>> COPIERS = new ConcurrentHashMap<>();
+
+    static {
+        registerCopier(BaseImageFile.class, UnaryOperator.identity());
+        registerCopier(SerializedNDArray.class, SerializedNDArray::asReadOnly);
+        registerCopier(BufferedImage.class, bi -> {
+            ColorModel cm = bi.getColorModel();
+            return new BufferedImage(cm, bi.copyData(null), cm.isAlphaPremultiplied(), null);
+        });
+    }
+
+    private final int maxSize;
+    private Map<Object,Object> cache;
+
+    public ConversionCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public ConversionCache(int maxSize) {
+        if(maxSize < 1)
+            throw new IllegalStateException("Max size should be positive value");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Register the function used to copy cached conversions of the specified type (and its subtypes), which allows
+     * them to be cached. For immutable types, use {@code UnaryOperator.identity()}.
+     *
+     * @param type   Type of the converted values
+     * @param copier Function that returns an independent copy of a value
+     */
+    public static <T> void registerCopier(@NonNull Class<T> type, @NonNull UnaryOperator<T> copier) {
+        COPIERS.put(type, (UnaryOperator<Object>) copier);
+    }
+
+    /**
+     * @return True if values of the specified type can be cached, i.e., have a registered copier
+     */
+    public static boolean isCacheable(@NonNull Class<?> type) {
+        return copierFor(type) != null;
+    }
+
+    private static UnaryOperator<Object> copierFor(Class<?> type) {
+        UnaryOperator<Object> copier = COPIERS.get(type);
+        if(copier != null)
+            return copier;
+        for(Map.Entry<Class<?>,UnaryOperator<Object>> e : COPIERS.entrySet()) {
+            if(e.getKey().isAssignableFrom(type))
+                return e.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * @param key Target class or format
+     * @return A copy of the cached conversion, or null if not present
+     */
+    public Object get(Object key) {
+        Object value;
+        synchronized (this) {
+            value = cache == null ? null : cache.get(key);
+        }
+        return value == null ? null : copierFor(value.getClass()).apply(value);
+    }
+
+    /**
+     * Cache the result of a conversion, if its type is cacheable
+     *
+     * @param key   Target class or format
+     * @param value Result of the conversion
+     * @return The value that should be returned to the caller: a copy of the value if it was cached (and is not
+     * immutable), or the value itself otherwise
+     */
+    public Object put(Object key, @NonNull Object value) {
+        UnaryOperator<Object> copier = copierFor(value.getClass());
+        if(copier == null)
+            return value;
+
+        synchronized (this) {
+            if(cache == null) {
+                cache = new LinkedHashMap<Object,Object>(maxSize + 1, 1.0f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                        return size() > maxSize;
+                    }
+                };
+            }
+            cache.put(key, value);
+        }
+        return copier.apply(value);
+    }
+
+    /**
+     * @return A snapshot of the cached conversions. These must not be modified
+     */
+    public synchronized List<Object> values() {
+        return cache == null ? Collections.emptyList() : new ArrayList<>(cache.values());
+    }
+
+    public synchronized void clear() {
+        cache = null;
+    }
+
+    public synchronized int size() {
+        return cache == null ? 0 : cache.size();
+    }
+}
@@ -20,11 +20,14 @@ package ai.konduit.serving.pipeline.impl.data;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.exception.DataLoadingException;
 import ai.konduit.serving.pipeline.impl.data.helpers.ProtobufUtils;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 @Slf4j
@@ -66,20 +69,44 @@ public class ProtoData extends JData {
 
     @Override
     public void write(OutputStream toStream) throws IOException {
+        toProtoMessage().writeTo(toStream);
+    }
+
+    /**
+     * Convert this Data instance to its protobuf message representation. NDArray values are not copied: the message
+     * references their buffers directly.
+     */
+    public DataProtoMessage.DataMap toProtoMessage() {
+        return toProtoMessage(ProtobufUtils.NO_CHUNKING);
+    }
 
+    /**
+     * As per {@link #toProtoMessage()}, but NDArrays larger than the specified size are written in multiple chunks -
+     * see {@link ProtobufUtils#serialize(Map, Map, int)}
+     *
+     * @param ndArrayChunkSize Maximum size (in bytes) of each chunk of an NDArray's data, or {@link ProtobufUtils#NO_CHUNKING}
+     */
+    public DataProtoMessage.DataMap toProtoMessage(int ndArrayChunkSize) {
         if (hasMetaData()) {
-            DataProtoMessage.DataMap pbDataMap = ProtobufUtils.serialize(getDataMap(), ((JData)getMetaData()).getDataMap());
-            pbDataMap.writeTo(toStream);
+            return ProtobufUtils.serialize(getDataMap(), ((JData)getMetaData()).getDataMap(), ndArrayChunkSize);
         }
         else {
-            Map<String, DataProtoMessage.DataScheme> newItemsMap = ProtobufUtils.serializeMap(getDataMap());
-            DataProtoMessage.DataMap pbDataMap = DataProtoMessage.DataMap.newBuilder().
+            Map<String, DataProtoMessage.DataScheme> newItemsMap = ProtobufUtils.serializeMap(getDataMap(), ndArrayChunkSize);
+            return DataProtoMessage.DataMap.newBuilder().
                     putAllMapItems(newItemsMap).
                     build();
-            pbDataMap.writeTo(toStream);
         }
     }
 
+    /**
+     * Convert the protobuf message representation to a Data instance directly, without serializing the message.
+     * NDArray values may refer to the message's buffers, hence the message must not be modified while the returned
+     * Data instance is in use.
+     */
+    public static Data fromProtoMessage(@NonNull DataProtoMessage.DataMap dataMap) {
+        return ProtobufUtils.deserialize(dataMap);
+    }
+
     public static Data fromFile(File fromFile) throws IOException {
         try (InputStream is = new FileInputStream(fromFile)) {
             return fromStream(is);
@@ -120,6 +147,25 @@ public class ProtoData extends JData {
         return retVal;
     }
 
+    /**
+     * Deserialize the Data instance from the remaining bytes of the specified buffer, without copying NDArray values:
+     * the returned NDArrays are read-only views of the provided buffer. Hence the buffer must not be modified while
+     * the returned Data instance is in use.
+     */
+    public static Data fromBuffer(ByteBuffer input) {
+        CodedInputStream cis = UnsafeByteOperations.unsafeWrap(input).newCodedInput();
+        cis.enableAliasing(true);
+        DataProtoMessage.DataMap dataMap;
+        try {
+            dataMap = DataProtoMessage.DataMap.parseFrom(cis);
+        } catch (IOException e) {
+            String errorText = "Error converting byte buffer to data";
+            log.error(errorText,e);
+            throw new DataLoadingException(errorText);
+        }
+        return ProtobufUtils.deserialize(dataMap);
+    }
+
     @Override
     public Data clone(){
         Data ret = empty();
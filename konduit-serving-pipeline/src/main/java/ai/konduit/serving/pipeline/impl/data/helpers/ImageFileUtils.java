@@ -0,0 +1,71 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.data.helpers;
+
+import ai.konduit.serving.pipeline.api.data.Image;
+import ai.konduit.serving.pipeline.impl.data.image.Bmp;
+import ai.konduit.serving.pipeline.impl.data.image.Gif;
+import ai.konduit.serving.pipeline.impl.data.image.Jpeg;
+import ai.konduit.serving.pipeline.impl.data.image.Png;
+import ai.konduit.serving.pipeline.impl.data.image.base.BaseImageFile;
+import lombok.NonNull;
+
+/**
+ * Utilities for serializing images in their encoded (file) formats - PNG, JPEG, BMP and GIF.<br>
+ * Images that are already stored in one of these formats are serialized as-is, instead of being decoded and
+ * re-encoded as PNG. Other images (for example, BufferedImage) are encoded as PNG.
+ */
+public class ImageFileUtils {
+
+    private ImageFileUtils(){ }
+
+    /**
+     * Get the image in an encoded format for serialization: the image itself if it is stored in an encoded format
+     * already, or as a PNG otherwise
+     */
+    public static BaseImageFile encoded(@NonNull Image image){
+        Object o = image.get();
+        if(o instanceof BaseImageFile)
+            return (BaseImageFile) o;
+        return image.getAs(Png.class);
+    }
+
+    /**
+     * Create an image from encoded image bytes
+     *
+     * @param format Format name of the image, as per {@link BaseImageFile#formatName()}: PNG, JPEG, BMP or GIF
+     * @param bytes  Encoded image bytes
+     */
+    public static Image fromEncoded(@NonNull String format, @NonNull byte[] bytes){
+        switch (format.toUpperCase()){
+            case "PNG":
+                return Image.create(new Png(bytes));
+            case "JPEG":
+            case "JPG":
+                return Image.create(new Jpeg(bytes));
+            case "BMP":
+                return Image.create(new Bmp(bytes));
+            case "GIF":
+                return Image.create(new Gif(bytes));
+            default:
+                throw new IllegalStateException("Unable to deserialize image: unsupported image format \"" + format +
+                        "\" - supported formats are PNG, JPEG, BMP and GIF");
+        }
+    }
+}
@@ -22,30 +22,46 @@ import ai.konduit.serving.pipeline.impl.data.JData;
 import ai.konduit.serving.pipeline.impl.data.Value;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.*;
 
 import ai.konduit.serving.pipeline.impl.data.box.BBoxCHW;
 import ai.konduit.serving.pipeline.impl.data.box.BBoxXY;
-import ai.konduit.serving.pipeline.impl.data.image.Png;
+import ai.konduit.serving.pipeline.impl.data.image.base.BaseImageFile;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
 import ai.konduit.serving.pipeline.impl.data.wrappers.ListValue;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import lombok.val;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
 public class ProtobufUtils {
 
-    private static String PNG = "PNG";
+    /**
+     * Value for the NDArray chunk size that disables chunking (the default): each NDArray's data is written as a
+     * single entry of the (repeated) array field
+     */
+    public static final int NO_CHUNKING = 0;
 
-    private static List<ByteString> ndArrayToByteStringList(SerializedNDArray sn) {
-        sn.getBuffer().rewind();
-        byte[] bufferBytes = new byte[sn.getBuffer().remaining()];
-        sn.getBuffer().get(bufferBytes);
-        ByteString byteString = ByteString.copyFrom(bufferBytes);
-        List<ByteString> byteStringList = new ArrayList<>();
-        byteStringList.add(byteString);
+    /**
+     * @param chunkSize Maximum size (in bytes) of each entry, or {@link #NO_CHUNKING}
+     */
+    private static List<ByteString> ndArrayToByteStringList(SerializedNDArray sn, int chunkSize) {
+        //Reference the array's buffer directly instead of copying it, as the message is usually written out immediately
+        ByteBuffer bb = sn.getBuffer().duplicate();
+        bb.rewind();
+        int length = bb.remaining();
+        if(chunkSize <= NO_CHUNKING || length <= chunkSize)
+            return Collections.singletonList(UnsafeByteOperations.unsafeWrap(bb));
+
+        List<ByteString> byteStringList = new ArrayList<>(length / chunkSize + 1);
+        for(int pos = 0; pos < length; pos += chunkSize){
+            bb.limit(Math.min(length, pos + chunkSize));
+            bb.position(pos);
+            byteStringList.add(UnsafeByteOperations.unsafeWrap(bb.slice()));
+        }
         return byteStringList;
     }
 
@@ -171,20 +187,38 @@ public class ProtobufUtils {
 
         List<ByteString> data = pbArray.getArrayList();
         DataProtoMessage.NDArray.ValueType type = pbArray.getType();
-        byte[] bytes = data.get(0).toByteArray();
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        ByteBuffer bb;
+        if(data.size() == 1) {
+            //When parsed with aliasing enabled (see ProtoData.fromBuffer) this is a view of the input buffer, not a copy
+            bb = data.get(0).asReadOnlyByteBuffer().slice().order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            //Array was written in multiple chunks: combine them. Unlike the single chunk case, this copies the array's
+            //data into a new direct buffer
+            int length = 0;
+            for(ByteString b : data)
+                length += b.size();
+            bb = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+            for(ByteString b : data)
+                bb.put(b.asReadOnlyByteBuffer());
+            bb.flip();
+        }
         SerializedNDArray ndArray = new SerializedNDArray(fromPbNDArrayType(type), aShapes, bb);
         return NDArray.create(ndArray);
     }
 
     private static Image deserializeImage(DataProtoMessage.Image pbImage) {
-        if (!StringUtils.equals(pbImage.getType(), PNG))
-            throw new IllegalStateException("Only PNG images supported for now.");
         List<ByteString> pbData = pbImage.getDataList();
         byte[] data = pbData.get(0).toByteArray();
-        // TODO: obviously should be working for different formats
-        Png png = new Png(data);
-        return Image.create(png);
+        return ImageFileUtils.fromEncoded(pbImage.getType(), data);
+    }
+
+    private static DataProtoMessage.Image serializeImage(Image image) {
+        //Images already in an encoded format (JPEG etc) are written as-is, without converting to PNG
+        BaseImageFile f = ImageFileUtils.encoded(image);
+        return DataProtoMessage.Image.newBuilder().
+                addData(UnsafeByteOperations.unsafeWrap(f.getBytes())).
+                setType(f.formatName()).
+                build();
     }
 
     public static DataProtoMessage.DataMap serialize(Map<String,Value> dataMap) {
@@ -193,12 +227,23 @@ public class ProtobufUtils {
 
     public static DataProtoMessage.DataMap serialize(Map<String,Value> dataMap,
                                                      Map<String,Value> metaData) {
+        return serialize(dataMap, metaData, NO_CHUNKING);
+    }
+
+    /**
+     * @param ndArrayChunkSize Maximum size (in bytes) of each chunk of an NDArray's data, or {@link #NO_CHUNKING}.
+     *                         Arrays larger than this are written as multiple entries of the (repeated) array field,
+     *                         so that readers don't need a single contiguous field for very large arrays. Note that
+     *                         reading a chunked array requires an extra copy, to combine the chunks
+     */
+    public static DataProtoMessage.DataMap serialize(Map<String,Value> dataMap,
+                                                     Map<String,Value> metaData, int ndArrayChunkSize) {
 
         DataProtoMessage.DataMap pbDataMap = null;
 
-        Map<String, DataProtoMessage.DataScheme> pbItemsMap = serializeMap(dataMap);
+        Map<String, DataProtoMessage.DataScheme> pbItemsMap = serializeMap(dataMap, ndArrayChunkSize);
         if (metaData != null) {
-            Map<String, DataProtoMessage.DataScheme> pbMetaData = serializeMap(metaData);
+            Map<String, DataProtoMessage.DataScheme> pbMetaData = serializeMap(metaData, ndArrayChunkSize);
             pbDataMap = DataProtoMessage.DataMap.newBuilder().
                     putAllMapItems(pbItemsMap).
                     putAllMetaData(pbMetaData).
@@ -213,6 +258,15 @@ public class ProtobufUtils {
     }
 
     public static Map<String, DataProtoMessage.DataScheme> serializeMap(Map<String,Value> dataMap) {
+        return serializeMap(dataMap, NO_CHUNKING);
+    }
+
+    /**
+     * @see #serialize(Map, Map, int)
+     */
+    public static Map<String, DataProtoMessage.DataScheme> serializeMap(Map<String,Value> dataMap, int ndArrayChunkSize) {
+        if(ndArrayChunkSize < 0)
+            throw new IllegalStateException("NDArray chunk size should be non-negative value");
 
         Map<String, DataProtoMessage.DataScheme> pbItemsMap = new HashMap<>();
         Iterator<Map.Entry<String, Value>> iterator = dataMap.entrySet().iterator();
@@ -246,13 +300,7 @@ public class ProtobufUtils {
             }
             else if (value.type() == ValueType.IMAGE) {
                 Image image = (Image) nextItem.getValue().get();
-                Png p = image.getAs(Png.class);
-                byte[] imageBytes = p.getBytes();
-                //byte[] imageBytes = new JavaImageConverters.IdentityConverter().convert(image, byte[].class);
-                DataProtoMessage.Image pbImage = DataProtoMessage.Image.newBuilder().
-                        addData(ByteString.copyFrom(imageBytes)).
-                        setType(PNG).
-                        build();
+                DataProtoMessage.Image pbImage = serializeImage(image);
 
                 item = DataProtoMessage.DataScheme.newBuilder().
                         setImValue(pbImage).
@@ -262,7 +310,7 @@ public class ProtobufUtils {
             else if (value.type() == ValueType.NDARRAY) {
                 NDArray ndArray = (NDArray)nextItem.getValue().get();
                 SerializedNDArray sn = ndArray.getAs(SerializedNDArray.class);
-                List<ByteString> byteStringList = ndArrayToByteStringList(sn);
+                List<ByteString> byteStringList = ndArrayToByteStringList(sn, ndArrayChunkSize);
                 DataProtoMessage.NDArray.ValueType ndType =
                         toPbNDArrayType(ndArray.type());
 
@@ -279,7 +327,7 @@ public class ProtobufUtils {
             }
             else if (value.type() == ValueType.DATA) {
                 JData jData = (JData)nextItem.getValue().get();
-                DataProtoMessage.DataMap dataMapEmbedded = serialize(jData.getDataMap());
+                DataProtoMessage.DataMap dataMapEmbedded = serialize(jData.getDataMap(), null, ndArrayChunkSize);
 
                 item = DataProtoMessage.DataScheme.newBuilder().
                         setMetaData(dataMapEmbedded).
@@ -360,13 +408,7 @@ public class ProtobufUtils {
                     List<Image> images = (List<Image>)nextItem.getValue().get();
                     List<DataProtoMessage.Image> pbImages = new ArrayList<>();
                     for (val image : images) {
-                        Png p = image.getAs(Png.class);
-                        byte[] imageBytes = p.getBytes();
-                        DataProtoMessage.Image pbImage = DataProtoMessage.Image.newBuilder().
-                                addData(ByteString.copyFrom(imageBytes)).
-                                setType(PNG).
-                                build();
-                        pbImages.add(pbImage);
+                        pbImages.add(serializeImage(image));
                     }
 
                     DataProtoMessage.ImageList toAdd = DataProtoMessage.ImageList.newBuilder().addAllList(pbImages).build();
@@ -382,7 +424,7 @@ public class ProtobufUtils {
                     List<DataProtoMessage.NDArray> pbArrays = new ArrayList<>();
                     for (val arr : arrays) {
                         SerializedNDArray sn = arr.getAs(SerializedNDArray.class);
-                        List<ByteString> byteStringList = ndArrayToByteStringList(sn);
+                        List<ByteString> byteStringList = ndArrayToByteStringList(sn, ndArrayChunkSize);
                         DataProtoMessage.NDArray pbNDArray = DataProtoMessage.NDArray.newBuilder().
                                 addAllShape(Arrays.asList(ArrayUtils.toObject(sn.getShape()))).
                                 addAllArray(byteStringList).
@@ -21,6 +21,7 @@ package ai.konduit.serving.pipeline.impl.data.image.base;
 import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.format.ImageConverter;
 import ai.konduit.serving.pipeline.api.format.ImageFormat;
+import ai.konduit.serving.pipeline.impl.data.ConversionCache;
 import ai.konduit.serving.pipeline.impl.data.image.Png;
 import ai.konduit.serving.pipeline.registry.ImageConverterRegistry;
 import lombok.AllArgsConstructor;
@@ -32,6 +33,8 @@ import java.util.Arrays;
 public abstract class BaseImage<T> implements Image {
 
     protected final T image;
+    //Converted representations of this value - see ConversionCache
+    protected final ConversionCache conversions = new ConversionCache();
 
     @Override
     public Object get() {
@@ -40,14 +43,29 @@ public abstract class BaseImage<T> implements Image {
 
     @Override
     public <T> T getAs(ImageFormat<T> format) {
-        return ImageConverterRegistry.getConverterFor(this, format).convert(this, format);
+        Object cached = conversions.get(format);
+        if(cached != null)
+            return (T) cached;
+        T out = ImageConverterRegistry.getConverterFor(this, format).convert(this, format);
+        return (T) cache(format, out);
     }
 
     @Override
     public <T> T getAs(Class<T> type) {
+        Object cached = conversions.get(type);
+        if(cached != null)
+            return (T) cached;
         ImageConverter converter = ImageConverterRegistry.getConverterFor(this, type);
         Preconditions.checkState(converter != null, "No converter found for converting from %s to %s", image.getClass(), type);
-        return converter.convert(this, type);
+        T out = converter.convert(this, type);
+        return (T) cache(type, out);
+    }
+
+    private Object cache(Object key, Object converted) {
+        //No point caching the wrapped object itself (no-op conversions)
+        if(converted == null || converted == image)
+            return converted;
+        return conversions.put(key, converted);
     }
 
     @Override
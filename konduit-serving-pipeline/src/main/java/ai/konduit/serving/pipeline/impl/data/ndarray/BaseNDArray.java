@@ -21,6 +21,7 @@ package ai.konduit.serving.pipeline.impl.data.ndarray;
 import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.format.NDArrayConverter;
 import ai.konduit.serving.pipeline.api.format.NDArrayFormat;
+import ai.konduit.serving.pipeline.impl.data.ConversionCache;
 import ai.konduit.serving.pipeline.registry.NDArrayConverterRegistry;
 import lombok.AllArgsConstructor;
 import org.nd4j.common.base.Preconditions;
@@ -29,6 +30,8 @@ import org.nd4j.common.base.Preconditions;
 public abstract class BaseNDArray<T> implements NDArray {
 
     protected final T array;
+    //Converted representations of this value - see ConversionCache
+    protected final ConversionCache conversions = new ConversionCache();
 
     @Override
     public Object get() {
@@ -37,14 +40,36 @@ public abstract class BaseNDArray<T> implements NDArray {
 
     @Override
     public <T> T getAs(NDArrayFormat<T> format) {
-        return NDArrayConverterRegistry.getConverterFor(this, format).convert(this, format);
+        Object cached = conversions.get(format);
+        if(cached != null)
+            return (T) cached;
+        T out = NDArrayConverterRegistry.getConverterFor(this, format).convert(this, format);
+        return (T) cache(format, out);
     }
 
     @Override
     public <T> T getAs(Class<T> type) {
+        Object cached = conversions.get(type);
+        if(cached != null)
+            return (T) cached;
         NDArrayConverter converter = NDArrayConverterRegistry.getConverterFor(this, type);
         Preconditions.checkState(converter != null, "No converter found for converting from %s to %s", array.getClass(), type);
-        return converter.convert(this, type);
+        T out = converter.convert(this, type);
+        return (T) cache(type, out);
+    }
+
+    /**
+     * @return The cache of converted representations of this NDArray
+     */
+    public ConversionCache conversionCache() {
+        return conversions;
+    }
+
+    private Object cache(Object key, Object converted) {
+        //No point caching the wrapped object itself (no-op conversions)
+        if(converted == null || converted == array)
+            return converted;
+        return conversions.put(key, converted);
     }
 
     @Override
@@ -19,14 +19,21 @@
 package ai.konduit.serving.pipeline.impl.data.ndarray;
 
 import ai.konduit.serving.pipeline.api.data.NDArrayType;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /**
- * Note that the provided ByteBuffer should be little endian
+ * Note that the provided ByteBuffer should be little endian.<br>
+ * The buffer may be a view of memory that is managed elsewhere (for example, the buffer of an ND4J array): in that case,
+ * the owner of that memory should be provided, so that the memory is not freed while this array is still in use.
  */
 @AllArgsConstructor
 @Data
@@ -34,6 +41,23 @@ public class SerializedNDArray {
     private final NDArrayType type;
     private final long[] shape;
     private final ByteBuffer buffer;
+    //Not used directly - only held to keep the memory of the buffer alive. May be null
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private final Object owner;
+
+    public SerializedNDArray(NDArrayType type, long[] shape, ByteBuffer buffer){
+        this(type, shape, buffer, null);
+    }
+
+    /**
+     * @return A read-only view of this array, that shares this array's memory (and owner) but has its own position
+     * and limit
+     */
+    public SerializedNDArray asReadOnly(){
+        return new SerializedNDArray(type, shape.clone(), buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN), owner);
+    }
 
     @Override
     public boolean equals(Object o){
@@ -47,7 +71,7 @@ public class SerializedNDArray {
         if(buffer.capacity() != s.buffer.capacity())
             return false;
 
-        if(buffer.hasArray() && s.buffer.hasArray()){
+        if(wholeArray(buffer) && wholeArray(s.buffer)){
             return Arrays.equals(buffer.array(), s.buffer.array());
         }
 
@@ -61,4 +85,8 @@ public class SerializedNDArray {
 
         return true;
     }
+
+    private static boolean wholeArray(ByteBuffer bb){
+        return bb.hasArray() && bb.arrayOffset() == 0 && bb.array().length == bb.capacity();
+    }
 }
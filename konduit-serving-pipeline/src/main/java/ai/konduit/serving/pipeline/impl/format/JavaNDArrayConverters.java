@@ -24,6 +24,7 @@ import ai.konduit.serving.pipeline.api.data.ValueType;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import ai.konduit.serving.pipeline.api.format.NDArrayConverter;
 import ai.konduit.serving.pipeline.api.format.NDArrayFormat;
+import ai.konduit.serving.pipeline.util.BufferPool;
 import lombok.AllArgsConstructor;
 import org.nd4j.common.base.Preconditions;
 
@@ -105,9 +106,9 @@ public class JavaNDArrayConverters {
                 prod *= l;
 
             long bufferLength = prod * 4L;  //Float = 4 bytes per element
-            Preconditions.checkState(prod < Integer.MAX_VALUE, "More than 2 billion bytes in Java float array - unable to convert to SerializedNDArray");
+            Preconditions.checkState(bufferLength < Integer.MAX_VALUE, "More than 2 billion bytes in Java float array - unable to convert to SerializedNDArray");
 
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)bufferLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer bb = BufferPool.allocate((int)bufferLength);
             FloatBuffer fb = bb.asFloatBuffer();
 
             int rank = rank(o);
@@ -238,9 +239,9 @@ public class JavaNDArrayConverters {
                 prod *= l;
 
             long bufferLength = prod * 8L;  //Double = 8 bytes per element
-            Preconditions.checkState(prod < Integer.MAX_VALUE, "More than 2 billion bytes in Java double array - unable to convert to SerializedNDArray");
+            Preconditions.checkState(bufferLength < Integer.MAX_VALUE, "More than 2 billion bytes in Java double array - unable to convert to SerializedNDArray");
 
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)bufferLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer bb = BufferPool.allocate((int)bufferLength);
             DoubleBuffer fb = bb.asDoubleBuffer();
 
             int rank = rank(o);
@@ -370,10 +371,10 @@ public class JavaNDArrayConverters {
             for(long l : shape)
                 prod *= l;
 
-            long bufferLength = prod * 1L;  //Float = 4 bytes per element
-            Preconditions.checkState(prod < Integer.MAX_VALUE, "More than 2 billion bytes in Java byte array - unable to convert to SerializedNDArray");
+            long bufferLength = prod * 1L;  //Byte = 1 byte per element
+            Preconditions.checkState(bufferLength < Integer.MAX_VALUE, "More than 2 billion bytes in Java byte array - unable to convert to SerializedNDArray");
 
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)bufferLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer bb = BufferPool.allocate((int)bufferLength);
             //ByteBuffer byteBuffer = bb.asReadOnlyBuffer();
 
             int rank = rank(o);
@@ -503,10 +504,10 @@ public class JavaNDArrayConverters {
             for(long l : shape)
                 prod *= l;
 
-            long bufferLength = prod * 4L;  //Float = 4 bytes per element
-            Preconditions.checkState(prod < Integer.MAX_VALUE, "More than 2 billion bytes in Java short array - unable to convert to SerializedNDArray");
+            long bufferLength = prod * 2L;  //Short = 2 bytes per element
+            Preconditions.checkState(bufferLength < Integer.MAX_VALUE, "More than 2 billion bytes in Java short array - unable to convert to SerializedNDArray");
 
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)bufferLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer bb = BufferPool.allocate((int)bufferLength);
             ShortBuffer sb = bb.asShortBuffer();
 
             int rank = rank(o);
@@ -636,10 +637,10 @@ public class JavaNDArrayConverters {
             for(long l : shape)
                 prod *= l;
 
-            long bufferLength = prod * 32L;  //Float = 4 bytes per element
-            Preconditions.checkState(prod < Integer.MAX_VALUE, "More than 2 billion bytes in Java int array - unable to convert to SerializedNDArray");
+            long bufferLength = prod * 4L;  //Int = 4 bytes per element
+            Preconditions.checkState(bufferLength < Integer.MAX_VALUE, "More than 2 billion bytes in Java int array - unable to convert to SerializedNDArray");
 
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)bufferLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer bb = BufferPool.allocate((int)bufferLength);
             IntBuffer ib = bb.asIntBuffer();
 
             int rank = rank(o);
@@ -769,10 +770,10 @@ public class JavaNDArrayConverters {
             for(long l : shape)
                 prod *= l;
 
-            long bufferLength = prod * 64L;  //Float = 4 bytes per element
-            Preconditions.checkState(prod < Integer.MAX_VALUE, "More than 2 billion bytes in Java long array - unable to convert to SerializedNDArray");
+            long bufferLength = prod * 8L;  //Long = 8 bytes per element
+            Preconditions.checkState(bufferLength < Integer.MAX_VALUE, "More than 2 billion bytes in Java long array - unable to convert to SerializedNDArray");
 
-            ByteBuffer bb = ByteBuffer.allocateDirect((int)bufferLength).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer bb = BufferPool.allocate((int)bufferLength);
             LongBuffer lb = bb.asLongBuffer();
 
             int rank = rank(o);
@@ -30,10 +30,102 @@ import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public abstract class BasePipelineExecutor implements PipelineExecutor {
 
+    /**
+     * System property for the maximum number of threads used to create (i.e., load the models for) the step runners
+     * of a pipeline in parallel. Set to 1 to create the runners sequentially on the calling thread.
+     * Default: {@link #DEFAULT_LOAD_THREADS}
+     */
+    public static final String LOAD_THREADS_PROPERTY = "konduit.serving.pipeline.loadThreads";
+    public static final int DEFAULT_LOAD_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Create the runners for all of the specified steps. Runners are created in parallel (up to
+     * {@link #LOAD_THREADS_PROPERTY} threads), as model loading usually dominates startup time for pipelines with
+     * multiple models. If any runner can't be created, the runners that were created are closed and the first
+     * exception is rethrown.
+     *
+     * @param steps Steps to create the runners for
+     * @return Runners, in the same order as the steps
+     */
+    List<PipelineStepRunner> getRunners(@NonNull List<PipelineStep> steps) {
+        int threads = Math.min(steps.size(), Math.max(1, Integer.getInteger(LOAD_THREADS_PROPERTY, DEFAULT_LOAD_THREADS)));
+        if (threads <= 1) {
+            List<PipelineStepRunner> out = new ArrayList<>(steps.size());
+            try {
+                for (PipelineStep s : steps) {
+                    out.add(getRunner(s));
+                }
+            } catch (Throwable t) {
+                closeQuietly(out);
+                throw t;
+            }
+            return out;
+        }
+
+        //Initialize the registry before starting the load threads, so the factories are only loaded once
+        PipelineRegistry.getStepRunnerFactories();
+
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService loaders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "konduit-runner-loader-" + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.currentTimeMillis();
+        List<Future<PipelineStepRunner>> futures = new ArrayList<>(steps.size());
+        try {
+            for (PipelineStep s : steps) {
+                futures.add(loaders.submit(() -> getRunner(s)));
+            }
+        } finally {
+            loaders.shutdown();
+        }
+
+        //Wait for all loads to complete (even after a failure), so that every runner that was created can be closed
+        List<PipelineStepRunner> out = new ArrayList<>(steps.size());
+        Throwable first = null;
+        for (Future<PipelineStepRunner> f : futures) {
+            try {
+                out.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (first == null)
+                    first = e;
+            } catch (ExecutionException e) {
+                if (first == null)
+                    first = e.getCause();
+            }
+        }
+
+        if (first != null) {
+            closeQuietly(out);
+            if (first instanceof RuntimeException)
+                throw (RuntimeException) first;
+            if (first instanceof Error)
+                throw (Error) first;
+            throw new RuntimeException("Failed to create PipelineStepRunner", first);
+        }
+
+        log.debug("Created {} pipeline step runners in {} ms using {} threads", out.size(), System.currentTimeMillis() - start, threads);
+        return out;
+    }
+
+    private void closeQuietly(List<PipelineStepRunner> runners) {
+        for (PipelineStepRunner r : runners) {
+            try {
+                r.close();
+            } catch (Throwable t) {
+                log.error("Error closing PipelineStepRunner", t);
+            }
+        }
+    }
 
     PipelineStepRunner getRunner(@NonNull PipelineStep step) {
 
@@ -0,0 +1,393 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.pipeline;
+
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.context.Profiler;
+import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.util.BatchUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * A {@link PipelineExecutor} that combines concurrent requests into batches before executing them with the underlying
+ * PipelineExecutor.<br>
+ * Requests are collected until either {@code maxBatchSize} requests are available or {@code maxWaitTimeMs} milliseconds
+ * have passed since the first request of the batch was received (if all workers are busy, requests that arrive in the
+ * meantime are batched together as soon as a worker becomes available). Compatible requests (see
+ * {@link BatchUtils#canStack(Data, Data)}) are then combined by concatenating their NDArray values along dimension 0,
+ * executed once, and the output is split back along dimension 0 for each caller.<br>
+ * Note that this requires the pipeline to treat dimension 0 of all NDArrays as the batch dimension: the NDArray outputs
+ * of the pipeline must have the same size for dimension 0 as the inputs. Requests that can't be batched together are
+ * executed individually. If the output of a batched execution is found not to be batch-major (for example, the
+ * pipeline returns bounding boxes or other non-NDArray values), the requests of that batch are executed individually
+ * instead - see {@link BatchUtils#canSplit(Data, long)}.
+ */
+@Slf4j
+public class BatchingPipelineExecutor implements PipelineExecutor {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    public static final long DEFAULT_MAX_WAIT_TIME_MS = 5;
+    public static final int DEFAULT_QUEUE_LIMIT = 1024;
+    public static final int DEFAULT_WORKERS = 1;
+
+    private final PipelineExecutor underlying;
+    private final int maxBatchSize;
+    private final long maxWaitTimeNanos;
+    private final BlockingQueue<Request> queue;
+    private final Semaphore availableWorkers;
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+    private volatile boolean warnedNotBatchMajor;
+
+    protected BatchingPipelineExecutor(Builder b){
+        this.underlying = b.underlying;
+        this.maxBatchSize = b.maxBatchSize;
+        this.maxWaitTimeNanos = TimeUnit.MILLISECONDS.toNanos(b.maxWaitTimeMs);
+        this.queue = new LinkedBlockingQueue<>(b.queueLimit);
+        this.availableWorkers = new Semaphore(b.workers);
+        this.workers = Executors.newFixedThreadPool(b.workers, r -> {
+            Thread t = new Thread(r, "konduit-batch-worker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.dispatcher = new Thread(this::dispatch, "konduit-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public static Builder builder(@NonNull PipelineExecutor underlying){
+        return new Builder(underlying);
+    }
+
+    @Override
+    public Pipeline getPipeline() {
+        return underlying.getPipeline();
+    }
+
+    @Override
+    public List<PipelineStepRunner> getRunners() {
+        return underlying.getRunners();
+    }
+
+    @Override
+    public Data exec(Data data) {
+        return submit(data).get();
+    }
+
+    @Override
+    public Data[] exec(Data... data) {
+        //Submit all before waiting, so they can be batched together
+        Request[] requests = new Request[data.length];
+        for( int i=0; i<data.length; i++ ){
+            requests[i] = submit(data[i]);
+        }
+        Data[] out = new Data[data.length];
+        for( int i=0; i<data.length; i++ ){
+            out[i] = requests[i].get();
+        }
+        return out;
+    }
+
+    protected Request submit(Data data){
+        if(closed)
+            throw new IllegalStateException("Unable to execute pipeline: BatchingPipelineExecutor has been closed");
+
+        Request r = new Request(data);
+        try {
+            //Don't block indefinitely on a full queue: the executor may be closed in the meantime
+            while(!queue.offer(r, 100, TimeUnit.MILLISECONDS)){
+                if(closed)
+                    throw new IllegalStateException("Unable to execute pipeline: BatchingPipelineExecutor has been closed");
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        //The executor may have been closed (and the queue drained) between the check above and adding the request
+        //If the request is still in the queue it would never be executed
+        if(closed && queue.remove(r))
+            r.completeExceptionally(closedException());
+        return r;
+    }
+
+    protected void dispatch(){
+        List<Request> batch = null;
+        try {
+            while (!closed) {
+                //Wait for a worker to become available first: requests that arrive in the meantime are batched together
+                availableWorkers.acquire();
+                batch = new ArrayList<>(maxBatchSize);
+                batch.add(queue.take());
+
+                //Measured from the arrival of the first request, not from when a worker became available
+                long deadline = batch.get(0).arrivalNanos + maxWaitTimeNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0)
+                        break;
+                    Request r = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (r == null)
+                        break;
+                    batch.add(r);
+                }
+
+                List<Request> toExec = batch;
+                batch = null;
+                try {
+                    workers.execute(() -> {
+                        try {
+                            execBatch(toExec);
+                        } finally {
+                            availableWorkers.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e){
+                    for(Request r : toExec)
+                        r.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e){
+            //Executor has been closed
+        } finally {
+            //Requests that were taken from the queue but not yet handed to a worker
+            if(batch != null){
+                for(Request r : batch)
+                    r.completeExceptionally(closedException());
+            }
+        }
+    }
+
+    protected void execBatch(List<Request> batch){
+        //Group the requests into compatible batches, preserving arrival order within each group
+        List<List<Request>> groups = new ArrayList<>();
+        for(Request r : batch){
+            List<Request> group = null;
+            for(List<Request> g : groups){
+                if(BatchUtils.canStack(g.get(0).input, r.input)){
+                    group = g;
+                    break;
+                }
+            }
+            if(group == null){
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(r);
+        }
+
+        for(List<Request> g : groups){
+            if (g.size() == 1) {
+                execIndividually(g);
+                continue;
+            }
+
+            try {
+                List<Data> in = new ArrayList<>(g.size());
+                long[] batchSizes = new long[g.size()];
+                long total = 0;
+                for( int i=0; i<batchSizes.length; i++ ){
+                    Data d = g.get(i).input;
+                    in.add(d);
+                    batchSizes[i] = BatchUtils.batchSize(d);
+                    total += batchSizes[i];
+                }
+
+                log.trace("Executing batch of {} requests", g.size());
+                Data out = underlying.exec(BatchUtils.stack(in));
+                if(!BatchUtils.canSplit(out, total)){
+                    //The output can't be attributed to individual requests (for example, bounding boxes decoded from
+                    // only the first example)
+                    if(!warnedNotBatchMajor) {
+                        warnedNotBatchMajor = true;
+                        log.warn("Pipeline output is not batch-major (only NDArray outputs with dimension 0 equal to" +
+                                " the batch size can be split) - requests of this batch will be executed individually." +
+                                " Output keys: {}", out.keys());
+                    } else {
+                        log.debug("Pipeline output is not batch-major - executing {} requests individually", g.size());
+                    }
+                    execIndividually(g);
+                    continue;
+                }
+                Data[] split = BatchUtils.split(out, batchSizes);
+                for( int i=0; i<split.length; i++ ){
+                    g.get(i).complete(split[i]);
+                }
+            } catch (Throwable t){
+                for(Request r : g)
+                    r.completeExceptionally(t);
+            }
+        }
+    }
+
+    protected void execIndividually(List<Request> requests){
+        for(Request r : requests){
+            try {
+                r.complete(underlying.exec(r.input));
+            } catch (Throwable t){
+                r.completeExceptionally(t);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            //Wait for the dispatcher to exit, so it can't take requests from the queue after it has been drained
+            dispatcher.join();
+            workers.shutdown();
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            workers.shutdown();
+        }
+
+        List<Request> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for(Request r : remaining){
+            r.completeExceptionally(closedException());
+        }
+
+        underlying.close();
+    }
+
+    protected static IllegalStateException closedException(){
+        return new IllegalStateException("BatchingPipelineExecutor was closed before request was executed");
+    }
+
+    @Override
+    public Logger getLogger() {
+        return log;
+    }
+
+    @Override
+    public void profilerConfig(ProfilerConfig profilerConfig) {
+        underlying.profilerConfig(profilerConfig);
+    }
+
+    @Override
+    public Profiler profiler() {
+        return underlying.profiler();
+    }
+
+    @Override
+    public Context context() {
+        return underlying.context();
+    }
+
+    protected static class Request extends CompletableFuture<Data> {
+        private final Data input;
+        private final long arrivalNanos;
+
+        protected Request(Data input){
+            this.input = input;
+            this.arrivalNanos = System.nanoTime();
+        }
+
+        @Override
+        public Data get() {
+            try {
+                return super.get();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e){
+                Throwable t = e.getCause();
+                if(t instanceof RuntimeException)
+                    throw (RuntimeException) t;
+                if(t instanceof Error)
+                    throw (Error) t;
+                throw new RuntimeException(t);
+            }
+        }
+    }
+
+    public static class Builder {
+        private final PipelineExecutor underlying;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private long maxWaitTimeMs = DEFAULT_MAX_WAIT_TIME_MS;
+        private int queueLimit = DEFAULT_QUEUE_LIMIT;
+        private int workers = DEFAULT_WORKERS;
+
+        public Builder(@NonNull PipelineExecutor underlying){
+            this.underlying = underlying;
+        }
+
+        /**
+         * Maximum number of requests to combine into a single batch. Default: 32
+         */
+        public Builder maxBatchSize(int maxBatchSize){
+            if(maxBatchSize < 1)
+                throw new IllegalStateException("Max batch size should be positive value");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Maximum amount of time (in milliseconds) to wait for further requests after the first request of a batch
+         * has been received. Default: 5ms
+         */
+        public Builder maxWaitTimeMs(long maxWaitTimeMs){
+            if(maxWaitTimeMs < 0)
+                throw new IllegalStateException("Max wait time should be non-negative value");
+            this.maxWaitTimeMs = maxWaitTimeMs;
+            return this;
+        }
+
+        /**
+         * Maximum number of requests waiting to be batched. Callers block once the queue is full. Default: 1024
+         */
+        public Builder queueLimit(int queueLimit){
+            if(queueLimit < 1)
+                throw new IllegalStateException("Queue limit should be positive value");
+            this.queueLimit = queueLimit;
+            return this;
+        }
+
+        /**
+         * Number of batches that may be executed concurrently. Note that the underlying PipelineExecutor must be
+         * thread safe if this is greater than 1. Default: 1
+         */
+        public Builder workers(int workers){
+            if(workers < 1)
+                throw new IllegalStateException("Workers should be positive value");
+            this.workers = workers;
+            return this;
+        }
+
+        public BatchingPipelineExecutor build(){
+            return new BatchingPipelineExecutor(this);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.pipeline;
+
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.context.Profiler;
+import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.util.DataCache;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link PipelineExecutor} that caches the outputs of the underlying PipelineExecutor, keyed by the content of the
+ * input {@link Data} instances. Repeated requests with identical inputs return the cached output without executing the
+ * pipeline. See {@link DataCache} for details on keys, eviction and metrics.<br>
+ * Note that this should only be used with deterministic pipelines: i.e., pipelines where the output depends only on
+ * the input.
+ */
+@Slf4j
+public class CachingPipelineExecutor implements PipelineExecutor {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    public static final long DEFAULT_TTL_MS = 0;
+
+    private final PipelineExecutor underlying;
+    private final DataCache cache;
+
+    protected CachingPipelineExecutor(Builder b){
+        this.underlying = b.underlying;
+        String name = b.name != null ? b.name : underlying.getPipeline().id();
+        this.cache = new DataCache(name, b.maxEntries, b.maxBytes, b.ttlMs);
+    }
+
+    public static Builder builder(@NonNull PipelineExecutor underlying){
+        return new Builder(underlying);
+    }
+
+    public DataCache getCache(){
+        return cache;
+    }
+
+    @Override
+    public Pipeline getPipeline() {
+        return underlying.getPipeline();
+    }
+
+    @Override
+    public List<PipelineStepRunner> getRunners() {
+        return underlying.getRunners();
+    }
+
+    @Override
+    public Data exec(Data data) {
+        return cache.get(data, underlying::exec);
+    }
+
+    @Override
+    public Data[] exec(Data... data) {
+        //Execute all misses together, so that they can still be batched by the underlying executor
+        Data[] out = new Data[data.length];
+        DataCache.Key[] keys = new DataCache.Key[data.length];
+        List<Integer> missIdxs = new ArrayList<>();
+        for( int i=0; i<data.length; i++ ){
+            keys[i] = DataCache.key(data[i]);
+            out[i] = cache.get(keys[i]);
+            if(out[i] == null)
+                missIdxs.add(i);
+        }
+
+        if(missIdxs.isEmpty())
+            return out;
+
+        Data[] in = new Data[missIdxs.size()];
+        for( int i=0; i<in.length; i++ ){
+            in[i] = data[missIdxs.get(i)];
+        }
+        Data[] computed = underlying.exec(in);
+        for( int i=0; i<computed.length; i++ ){
+            int idx = missIdxs.get(i);
+            cache.put(keys[idx], computed[i]);
+            out[idx] = computed[i];
+        }
+        return out;
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+        underlying.close();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return log;
+    }
+
+    @Override
+    public void profilerConfig(ProfilerConfig profilerConfig) {
+        underlying.profilerConfig(profilerConfig);
+    }
+
+    @Override
+    public Profiler profiler() {
+        return underlying.profiler();
+    }
+
+    @Override
+    public Context context() {
+        return underlying.context();
+    }
+
+    public static class Builder {
+        private final PipelineExecutor underlying;
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private long maxBytes = DEFAULT_MAX_BYTES;
+        private long ttlMs = DEFAULT_TTL_MS;
+        private String name;
+
+        public Builder(@NonNull PipelineExecutor underlying){
+            this.underlying = underlying;
+        }
+
+        /**
+         * Maximum number of cached outputs. Default: 10000
+         */
+        public Builder maxEntries(int maxEntries){
+            if(maxEntries < 1)
+                throw new IllegalStateException("Max entries should be positive value");
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Maximum total (estimated) size of the cached outputs, in bytes. Default: 256MB
+         */
+        public Builder maxBytes(long maxBytes){
+            if(maxBytes < 1)
+                throw new IllegalStateException("Max bytes should be positive value");
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Time after which cached outputs expire, in milliseconds. 0 (default) for no expiry
+         */
+        public Builder ttlMs(long ttlMs){
+            if(ttlMs < 0)
+                throw new IllegalStateException("TTL should be non-negative value");
+            this.ttlMs = ttlMs;
+            return this;
+        }
+
+        /**
+         * Name of the cache, used to tag the cache metrics. Default: the pipeline ID
+         */
+        public Builder name(String name){
+            this.name = name;
+            return this;
+        }
+
+        public CachingPipelineExecutor build(){
+            return new CachingPipelineExecutor(this);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.nd4j.shade.jackson.annotation.JsonPropertyOrder;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 /**
  * A pipeline with a graph structure - possibly including conditional operations, etc.
@@ -64,6 +65,17 @@ public class GraphPipeline implements Pipeline {
         return new GraphPipelineExecutor(this);
     }
 
+    /**
+     * Return an executor for this pipeline that executes independent branches of the graph in parallel
+     *
+     * @param executorService Executor to use for executing the graph steps. Not shut down when the returned executor
+     *                        is closed
+     * @return An instantiated pipeline executor for this pipeline
+     */
+    public PipelineExecutor executor(ExecutorService executorService) {
+        return new GraphPipelineExecutor(this, executorService);
+    }
+
     @Override
     public int size() {
         return steps != null ? steps.size() : 0;
@@ -18,64 +18,155 @@
 
 package ai.konduit.serving.pipeline.impl.pipeline;
 
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.context.NoOpProfiler;
+import ai.konduit.serving.pipeline.api.context.PipelineMetrics;
 import ai.konduit.serving.pipeline.api.context.Profiler;
 import ai.konduit.serving.pipeline.api.context.ProfilerConfig;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.impl.context.DefaultContext;
 import ai.konduit.serving.pipeline.impl.pipeline.graph.*;
 import ai.konduit.serving.pipeline.impl.pipeline.graph.SwitchOutput;
-import lombok.AllArgsConstructor;
+import ai.konduit.serving.pipeline.util.BufferPool;
 import lombok.extern.slf4j.Slf4j;
 import org.nd4j.common.base.Preconditions;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 
 /**
- * An executer for {@link GraphPipeline} instances
+ * An executer for {@link GraphPipeline} instances.<br>
+ * The execution plan (step indices, dependency counts and successors for each step) is computed once at construction.
+ * By default, steps are executed sequentially on the calling thread. If an {@link ExecutorService} is provided,
+ * independent branches of the graph (for example, two models feeding into a {@link MergeStep}) are executed concurrently
+ * on that executor, so that the latency of the graph is determined by its critical path rather than the sum of all steps.
+ * Note that the ExecutorService is not shut down when this executor is closed - its lifecycle is managed by the caller.
  *
  * @author Alex Black
  */
 @Slf4j
-@AllArgsConstructor
 public class GraphPipelineExecutor extends BasePipelineExecutor {
 
     private final GraphPipeline pipeline;
+    private final ExecutorService executorService;
     private Map<String,PipelineStepRunner> runners;
-    private Map<String,List<String>> inputsFor;     //Key: a step. Value: The steps that this is an input for: i.e., key -> X exists
     private ProfilerConfig profilerConfig;
+    private volatile Context ctx;
+
+    //Execution plan - all arrays are indexed by step index
+    private final String[] names;
+    private final GraphStep[] graphSteps;
+    private final PipelineStepRunner[] stepRunners;
+    private final int[][] inputIdxs;            //Indices of the inputs for each step; -1 if the input does not exist
+    private final int[][] successors;           //Indices of the steps that this step is an input for: i.e., idx -> X exists
+    private final int[] numDependencies;        //Number of inputs that must be available before the step can be executed
+    private final int inputIdx;
+    private final int outputIdx;
+    private final boolean hasSwitch;            //If true: the steps executed depend on the input
 
     public GraphPipelineExecutor(GraphPipeline pipeline){
+        this(pipeline, null);
+    }
+
+    /**
+     * @param pipeline        Pipeline to execute
+     * @param executorService Executor to use for executing independent branches of the graph in parallel. May be null,
+     *                        in which case all steps are executed sequentially on the calling thread
+     */
+    public GraphPipelineExecutor(GraphPipeline pipeline, ExecutorService executorService){
         this.pipeline = pipeline;
+        this.executorService = executorService;
 
         Map<String, GraphStep> steps = pipeline.steps();
 
-        inputsFor = new HashMap<>();
-        for(Map.Entry<String, GraphStep> e : steps.entrySet()){
-            GraphStep g = e.getValue();
+        List<String> nameList = new ArrayList<>(steps.keySet());
+        if(!steps.containsKey(GraphPipeline.INPUT_KEY))
+            nameList.add(GraphPipeline.INPUT_KEY);
+        int n = nameList.size();
+        Map<String,Integer> idxs = new HashMap<>();
+        for( int i=0; i<n; i++ ){
+            idxs.put(nameList.get(i), i);
+        }
+        names = nameList.toArray(new String[n]);
+        inputIdx = idxs.get(GraphPipeline.INPUT_KEY);
+        Integer out = idxs.get(pipeline.outputStep());
+        Preconditions.checkState(out != null, "Output step \"%s\" is not present in the graph", pipeline.outputStep());
+        outputIdx = out;
+
+        graphSteps = new GraphStep[n];
+        inputIdxs = new int[n][0];
+        numDependencies = new int[n];
+        List<List<Integer>> succ = new ArrayList<>(n);
+        for( int i=0; i<n; i++ ){
+            succ.add(new ArrayList<>());
+        }
+        for( int i=0; i<n; i++ ){
+            GraphStep g = steps.get(names[i]);
+            graphSteps[i] = g;
+            if(g == null)
+                continue;   //Input, not present in the step map
+
             List<String> inputs = g.inputs();
-            for(String s : inputs){
-                List<String> l = inputsFor.computeIfAbsent(s, x -> new ArrayList<>());
-                l.add(e.getKey());
+            inputIdxs[i] = new int[inputs.size()];
+            for( int j=0; j<inputs.size(); j++ ){
+                Integer in = idxs.get(inputs.get(j));
+                inputIdxs[i][j] = in == null ? -1 : in;
+                if(in != null)
+                    succ.get(in).add(i);
+            }
+            //Any and SwitchOutput steps can execute once a single input is available
+            numDependencies[i] = (g instanceof AnyStep || g instanceof SwitchOutput) ? 1 : inputs.size();
+        }
+
+        boolean sw = false;
+        for(GraphStep g : graphSteps){
+            sw |= g instanceof SwitchStep;
+        }
+        hasSwitch = sw;
+
+        successors = new int[n][0];
+        for( int i=0; i<n; i++ ){
+            List<Integer> l = succ.get(i);
+            successors[i] = new int[l.size()];
+            for( int j=0; j<l.size(); j++ ){
+                successors[i][j] = l.get(j);
             }
         }
 
         //Initialize runners:
         runners = new HashMap<>();
+        stepRunners = new PipelineStepRunner[n];
+        List<String> toLoad = new ArrayList<>();
+        List<PipelineStep> toLoadSteps = new ArrayList<>();
         for(Map.Entry<String, GraphStep> e : steps.entrySet()){
             GraphStep g = e.getValue();
             if(g.hasStep()){
-                PipelineStep s = g.getStep();
-                PipelineStepRunner r = getRunner(s);
-                runners.put(e.getKey(), r);
+                toLoad.add(e.getKey());
+                toLoadSteps.add(g.getStep());
             }
 
             if(g instanceof MergeStep || g instanceof SwitchStep || g instanceof AnyStep){
                 runners.put(e.getKey(), null);
             }
         }
+
+        List<PipelineStepRunner> loaded = getRunners(toLoadSteps);
+        for( int i=0; i<loaded.size(); i++ ){
+            String name = toLoad.get(i);
+            runners.put(name, loaded.get(i));
+            stepRunners[idxs.get(name)] = loaded.get(i);
+        }
     }
 
     @Override
@@ -83,6 +174,14 @@ public class GraphPipelineExecutor extends BasePipelineExecutor {
         return pipeline;
     }
 
+    @Override
+    public Context context() {
+        if (ctx == null) {
+            ctx = new DefaultContext(new PipelineMetrics(pipeline.id()), new NoOpProfiler());
+        }
+        return ctx;
+    }
+
     @Override
     public List<PipelineStepRunner> getRunners() {
         return new ArrayList<>(runners.values());
@@ -90,138 +189,252 @@ public class GraphPipelineExecutor extends BasePipelineExecutor {
 
     @Override
     public Data exec(Data in) {
+        if(outputIdx == inputIdx){
+            //No steps other than input - no-op
+            return in;
+        }
+
+        //Buffers allocated during execution but not referenced by the output are returned to the pool afterwards
+        BufferPool.Scope scope = BufferPool.openScope();
+        Data out = null;
+        try {
+            if (executorService == null) {
+                out = execSequential(in);
+            } else {
+                out = new ParallelExecution().exec(in);
+            }
+            return out;
+        } finally {
+            scope.close(in, out);
+        }
+    }
 
-        Queue<String> canExec = new LinkedList<>();
-        Set<String> canExecSet = new HashSet<>();
+    /**
+     * Execute the pipeline on multiple inputs. Unless the graph contains switch steps (in which case the steps to execute
+     * may differ between the inputs), each step is executed once for all of the inputs via
+     * {@link PipelineStepRunner#exec(Context, Data...)}, so that runners that support it (for example, model runners)
+     * can execute the inputs as a single batch. Steps are executed sequentially on the calling thread in this case.
+     */
+    @Override
+    public Data[] exec(Data... data) {
+        Data[] out = new Data[data.length];
+        if(data.length == 1 || outputIdx == inputIdx || hasSwitch){
+            for( int i=0; i<data.length; i++ ){
+                out[i] = exec(data[i]);
+            }
+            return out;
+        }
+
+        BufferPool.Scope scope = BufferPool.openScope();
+        try {
+            out = execSequential(data);
+            return out;
+        } finally {
+            Data[] reachable = Arrays.copyOf(data, data.length + out.length);
+            System.arraycopy(out, 0, reachable, data.length, out.length);
+            scope.close(reachable);
+        }
+    }
 
-        Map<String,Data> stepOutputData = new HashMap<>();
-        stepOutputData.put(GraphPipeline.INPUT_KEY, in);
+    protected Data[] execSequential(Data[] in){
+        Data[][] stepOutputData = new Data[names.length][0];
+        stepOutputData[inputIdx] = in;
+        AtomicIntegerArray remaining = new AtomicIntegerArray(numDependencies);
 
-        Map<String,GraphStep> m = pipeline.steps();
+        Queue<Integer> canExec = new ArrayDeque<>();
+        markCompleted(inputIdx, null, remaining, canExec::add);     //No switch steps: output isn't needed
 
-        for(Map.Entry<String, GraphStep> e : m.entrySet()){
-            List<String> inputs = e.getValue().inputs();
-            if(inputs != null && inputs.size() == 1 && inputs.get(0).equals(GraphPipeline.INPUT_KEY)){
-                canExec.add(e.getKey());
-                canExecSet.add(e.getKey());
-            }
+        while(!canExec.isEmpty()){
+            int next = canExec.remove();
+            log.trace("Executing step: {}", names[next]);
+
+            Data[] stepOut = execStep(next, stepOutputData, in.length);
+            if(next == outputIdx)
+                return stepOut;
+
+            stepOutputData[next] = stepOut;
+            markCompleted(next, null, remaining, canExec::add);
         }
 
-        Data out = null;
+        throw new IllegalStateException("Could not get output");
+    }
 
-        if(m.size() == 1){
-            //No steps other than input - no-op
-            out = in;
+    /**
+     * Execute the specified step for multiple inputs, given the outputs of the steps executed so far
+     */
+    protected Data[] execStep(int idx, Data[][] stepOutputData, int n){
+        if(graphSteps[idx] instanceof PipelineGraphStep){
+            int[] inputs = inputIdxs[idx];
+            Preconditions.checkState(inputs.length == 1, "PipelineSteps should only have 1 input: got inputs %s", graphSteps[idx].inputs());
+            Data[] inData = stepOutputData[inputs[0]];
+            Preconditions.checkState(inData != null && inData.length == n, "Input data is null for step %s - input %s", names[idx], 0);
+            Data[] stepOut = stepRunners[idx].exec(context(), inData);
+            for(Data d : stepOut){
+                if(d == null)
+                    throw new IllegalStateException("Got null output from step \"" + names[idx] + "\"");
+            }
+            return stepOut;
         }
 
+        //Merge and any steps: per input
+        Data[] out = new Data[n];
+        for( int j=0; j<n; j++ ){
+            int example = j;
+            out[j] = execStep(idx, i -> stepOutputData[i] == null || stepOutputData[i].length == 0 ? null : stepOutputData[i][example]);
+        }
+        return out;
+    }
+
+    protected Data execSequential(Data in){
+        Data[] stepOutputData = new Data[names.length];
+        stepOutputData[inputIdx] = in;
+        AtomicIntegerArray remaining = new AtomicIntegerArray(numDependencies);
+
+        Queue<Integer> canExec = new ArrayDeque<>();
+        markCompleted(inputIdx, in, remaining, canExec::add);
+
         while(!canExec.isEmpty()){
-            String next = canExec.remove();
+            int next = canExec.remove();
+            log.trace("Executing step: {}", names[next]);
+
+            Data stepOut = execStep(next, i -> stepOutputData[i]);
+            if(next == outputIdx)
+                return stepOut;
 
-            log.trace("Executing step: {}", next);
+            stepOutputData[next] = stepOut;
+            markCompleted(next, stepOut, remaining, canExec::add);
+        }
 
-            canExecSet.remove(next);
-            GraphStep gs = m.get(next);
-            List<String> inputs = gs.inputs();
+        throw new IllegalStateException("Could not get output");
+    }
 
-            int switchOut = -1;
-            Data stepOut = null;
-            if(gs instanceof MergeStep) {
-                stepOut = Data.empty();
-                for (String s : inputs) {
-                    Data d = stepOutputData.get(s);
-                    stepOut.merge(false, d);
-                }
-            } else if(gs instanceof SwitchStep) {
-                SwitchStep s = (SwitchStep)gs;
-                Data inData = stepOutputData.get(inputs.get(0));
-                switchOut = s.switchFn().selectOutput(inData);
-                stepOut = inData;
-            } else if(gs instanceof AnyStep) {
-                List<String> stepInputs = gs.inputs();
-                for (String s : stepInputs) {
-                    if (stepOutputData.containsKey(s)) {
-                        stepOut = stepOutputData.get(s);
-                        break;
-                    }
+    /**
+     * Execute the specified step, given the outputs of the steps executed so far
+     */
+    protected Data execStep(int idx, IntFunction<Data> stepOutputData){
+        GraphStep gs = graphSteps[idx];
+        int[] inputs = inputIdxs[idx];
+
+        Data stepOut = null;
+        if(gs instanceof MergeStep) {
+            stepOut = Data.empty();
+            for (int i : inputs) {
+                Data d = stepOutputData.apply(i);
+                stepOut.merge(false, d);
+            }
+        } else if(gs instanceof SwitchStep || gs instanceof SwitchOutput) {
+            stepOut = stepOutputData.apply(inputs[0]);
+        } else if(gs instanceof AnyStep) {
+            for (int i : inputs) {
+                if (i >= 0 && stepOutputData.apply(i) != null) {
+                    stepOut = stepOutputData.apply(i);
+                    break;
                 }
-                System.out.println();
-            } else if(gs instanceof SwitchOutput){
-                stepOut = stepOutputData.get(gs.input());
-            } else if(gs instanceof PipelineGraphStep){
-                Preconditions.checkState(inputs.size() == 1, "PipelineSteps should only have 1 input: got inputs %s", inputs);;
-                if (inputs.size() != 1 && !GraphPipeline.INPUT_KEY.equals(next))
-                    throw new IllegalStateException("Execution of steps with numInputs != 1 is not supported: " + next + ".numInputs=" + inputs.size());
-
-                PipelineStepRunner exec = runners.get(next);
-                Data inData = stepOutputData.get(inputs.get(0));
-                Preconditions.checkState(inData != null, "Input data is null for step %s - input %s", next, 0);
-                stepOut = exec.exec(null, inData);
-            } else {
-                throw new UnsupportedOperationException("Execution support not yet implemented: " + gs);
             }
+        } else if(gs instanceof PipelineGraphStep){
+            Preconditions.checkState(inputs.length == 1, "PipelineSteps should only have 1 input: got inputs %s", gs.inputs());
+            PipelineStepRunner exec = stepRunners[idx];
+            Data inData = stepOutputData.apply(inputs[0]);
+            Preconditions.checkState(inData != null, "Input data is null for step %s - input %s", names[idx], 0);
+            stepOut = exec.exec(context(), inData);
+        } else {
+            throw new UnsupportedOperationException("Execution support not yet implemented: " + gs);
+        }
+
+        if(stepOut == null)
+            throw new IllegalStateException("Got null output from step \"" + names[idx] + "\"");
 
-            if(stepOut == null)
-                throw new IllegalStateException("Got null output from step \"" + next + "\"");
+        return stepOut;
+    }
+
+    /**
+     * Record that the specified step has been executed, and pass any steps that can now be executed to the consumer
+     */
+    protected void markCompleted(int idx, Data stepOut, AtomicIntegerArray remaining, IntConsumer canExec){
+        GraphStep gs = graphSteps[idx];
+        int switchOut = gs instanceof SwitchStep ? ((SwitchStep) gs).switchFn().selectOutput(stepOut) : -1;
+
+        for(int s : successors[idx]){
+            GraphStep currStep = graphSteps[s];
+            if(currStep instanceof SwitchOutput && ((SwitchOutput) currStep).outputNum() != switchOut)
+                continue;   //Not the branch that was selected by the switch
+
+            //For Any steps, the remaining count goes negative once further inputs become available - only execute once
+            if(remaining.decrementAndGet(s) == 0)
+                canExec.accept(s);
+        }
+    }
 
-            if(next.equals(pipeline.outputStep())){
-                out = stepOut;
-                break;
+    /**
+     * State for a single execution of the graph on the ExecutorService. Each task executes its step, then continues
+     * on the same thread with one of the steps that become executable (if any), submitting the others to the executor
+     */
+    private class ParallelExecution {
+        private final AtomicReferenceArray<Data> stepOutputData = new AtomicReferenceArray<>(names.length);
+        private final AtomicIntegerArray remaining = new AtomicIntegerArray(numDependencies);
+        private final AtomicInteger pending = new AtomicInteger();
+        private final CompletableFuture<Data> result = new CompletableFuture<>();
+
+        private Data exec(Data in){
+            stepOutputData.set(inputIdx, in);
+            int first = completed(inputIdx, in);
+            if(first < 0)
+                throw new IllegalStateException("Could not get output");
+            run(first);
+
+            try {
+                return result.get();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for graph pipeline execution", e);
+            } catch (ExecutionException e){
+                Throwable t = e.getCause();
+                if(t instanceof RuntimeException)
+                    throw (RuntimeException) t;
+                if(t instanceof Error)
+                    throw (Error) t;
+                throw new RuntimeException(t);
             }
+        }
 
-            stepOutputData.put(next, stepOut);
-
-            //Check what can now be executed
-            //TODO This should be optimized
-            Map<String, GraphStep> steps = pipeline.steps();
-            for(String s : steps.keySet()){
-                if(canExecSet.contains(s))
-                    continue;
-                if(stepOutputData.containsKey(s))
-                    continue;
-
-                GraphStep currStep = steps.get(s);
-                List<String> stepInputs = currStep.inputs();
-                boolean allSeen;
-                if(currStep instanceof SwitchOutput) {
-                    allSeen = false;
-                    SwitchOutput so = (SwitchOutput) currStep;
-                    String switchIn = so.input();
-                    if (switchIn.equals(next) && so.outputNum() == switchOut) {
-                        //Just executed the switch this iteration
-                        allSeen = true;
-                    }
-                } else if(currStep instanceof AnyStep ){
-                    //Can execute the Any step if at least one of the inputs are available
-                    allSeen = false;
-                    for (String inName : stepInputs) {
-                        if (stepOutputData.containsKey(inName)) {
-                            allSeen = true;
-                            break;
-                        }
-                    }
-                } else {
-                    //StandardPipelineStep, MergeStep
-                    allSeen = true;
-                    for (String inName : stepInputs) {
-                        if (!stepOutputData.containsKey(inName)) {
-                            allSeen = false;
-                            break;
-                        }
+        private void run(int idx){
+            while(idx >= 0 && !result.isDone()){
+                int next = -1;
+                try {
+                    log.trace("Executing step: {}", names[idx]);
+                    Data stepOut = execStep(idx, stepOutputData::get);
+                    if(idx == outputIdx){
+                        result.complete(stepOut);
+                    } else {
+                        stepOutputData.set(idx, stepOut);
+                        next = completed(idx, stepOut);
                     }
+                } catch (Throwable t){
+                    result.completeExceptionally(t);
                 }
 
-                if(allSeen) {
-                    canExec.add(s);
-                    canExecSet.add(s);
-                    //log.info("Can now exec: {}", s);
-                }
+                if(pending.decrementAndGet() == 0 && !result.isDone())
+                    result.completeExceptionally(new IllegalStateException("Could not get output"));
+                idx = next;
             }
         }
 
-        if(out == null)
-            throw new IllegalStateException("Could not get output");
-
-        return out;
+        /**
+         * @return The index of the step to execute next on the current thread, or -1 if no steps can be executed
+         */
+        private int completed(int idx, Data stepOut){
+            List<Integer> canExec = new ArrayList<>(2);
+            markCompleted(idx, stepOut, remaining, canExec::add);
+            if(canExec.isEmpty())
+                return -1;
+
+            pending.addAndGet(canExec.size());
+            for( int i=0; i<canExec.size()-1; i++ ){
+                int s = canExec.get(i);
+                executorService.execute(() -> run(s));
+            }
+            return canExec.get(canExec.size()-1);
+        }
     }
 
     @Override
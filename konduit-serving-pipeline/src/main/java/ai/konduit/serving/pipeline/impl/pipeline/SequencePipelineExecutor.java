@@ -18,15 +18,15 @@ package ai.konduit.serving.pipeline.impl.pipeline;
 import ai.konduit.serving.pipeline.api.context.*;
 import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
-import ai.konduit.serving.pipeline.api.step.PipelineStep;
 import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
 import ai.konduit.serving.pipeline.impl.context.DefaultContext;
+import ai.konduit.serving.pipeline.util.BufferPool;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -48,13 +48,7 @@ public class SequencePipelineExecutor extends BasePipelineExecutor {
         this.pipeline = p;
 
         //Initialize
-        runners = new ArrayList<>();
-        List<PipelineStep> steps = p.getSteps();
-
-        for (PipelineStep ps : steps) {
-            PipelineStepRunner r = getRunner(ps);
-            runners.add(r);
-        }
+        runners = getRunners(p.getSteps());
     }
 
 
@@ -69,12 +63,71 @@ public class SequencePipelineExecutor extends BasePipelineExecutor {
     }
 
     @Override
-    public Data exec(Data data) {
+    public Context context() {
         if (ctx == null) {
             metrics = new PipelineMetrics(pipeline.id());
             ctx = new DefaultContext(metrics, profiler);
         }
+        return ctx;
+    }
+
+    @Override
+    public Data exec(Data data) {
+        context();
+
+        //Buffers allocated during execution but not referenced by the output are returned to the pool afterwards
+        BufferPool.Scope scope = BufferPool.openScope();
+        Data out = null;
+        try {
+            out = execSteps(data);
+            return out;
+        } finally {
+            scope.close(data, out);
+        }
+    }
+
+    /**
+     * Execute the pipeline on multiple inputs. Each step is executed once for all of the inputs via
+     * {@link PipelineStepRunner#exec(Context, Data...)}, so that runners that support it (for example, model runners)
+     * can execute the inputs as a single batch.
+     */
+    @Override
+    public Data[] exec(Data... data) {
+        if(data.length == 1)
+            return new Data[]{exec(data[0])};
+
+        context();
+
+        BufferPool.Scope scope = BufferPool.openScope();
+        Data[] out = null;
+        try {
+            out = execSteps(data);
+            return out;
+        } finally {
+            Data[] reachable = Arrays.copyOf(data, data.length + (out == null ? 0 : out.length));
+            if(out != null)
+                System.arraycopy(out, 0, reachable, data.length, out.length);
+            scope.close(reachable);
+        }
+    }
+
+    protected Data[] execSteps(Data[] data) {
+        Data[] current = data;
+        for (PipelineStepRunner psr : runners) {
+            String name = psr.name();
+            profiler.eventStart(name);
+            ((PipelineMetrics)metrics).setInstanceName(name);
+            ((PipelineMetrics)metrics).setStepName(psr.getPipelineStep().name());
+
+            current = psr.exec(ctx, current);
+
+            profiler.eventEnd(name);
+            profiler.closeAll();
+        }
+        return current;
+    }
 
+    protected Data execSteps(Data data) {
         Data current = data;
         for (PipelineStepRunner psr : runners) {
             String name = psr.name();
@@ -20,7 +20,7 @@ package ai.konduit.serving.pipeline.impl.serde;
 
 import ai.konduit.serving.pipeline.api.data.*;
 import ai.konduit.serving.pipeline.impl.data.JData;
-import ai.konduit.serving.pipeline.impl.data.image.Png;
+import ai.konduit.serving.pipeline.impl.data.helpers.ImageFileUtils;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import org.nd4j.common.base.Preconditions;
 import org.nd4j.common.primitives.Pair;
@@ -33,6 +33,7 @@ import org.nd4j.shade.jackson.databind.node.ArrayNode;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Iterator;
@@ -114,22 +115,61 @@ public class DataJsonDeserializer extends JsonDeserializer<Data> {
         long[] shape = new long[shapeNode.size()];
         for (int i = 0; i < shape.length; i++)
             shape[i] = shapeNode.get(i).asLong();
-        String base64 = n.get(Data.RESERVED_KEY_NDARRAY_DATA_BASE64).textValue();
-        byte[] bytes = Base64.getDecoder().decode(base64);
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        ByteBuffer bb;
+        if (n.has(Data.RESERVED_KEY_NDARRAY_DATA_ARRAY)) {
+            bb = deserializeNumeric(type, (ArrayNode) n.get(Data.RESERVED_KEY_NDARRAY_DATA_ARRAY));
+        } else {
+            String base64 = n.get(Data.RESERVED_KEY_NDARRAY_DATA_BASE64).textValue();
+            byte[] bytes = Base64.getDecoder().decode(base64);
+            bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
         SerializedNDArray ndArray = new SerializedNDArray(type, shape, bb);
         return NDArray.create(ndArray);
     }
 
+    protected ByteBuffer deserializeNumeric(NDArrayType type, ArrayNode values){
+        Preconditions.checkState(type.isFixedWidth(), "Unable to deserialize NDArray of type %s from JSON numeric array", type);
+        ByteBuffer bb = ByteBuffer.allocateDirect(values.size() * type.width()).order(ByteOrder.LITTLE_ENDIAN);
+        for (JsonNode v : values) {
+            switch (type) {
+                case DOUBLE:
+                    bb.putDouble(v.asDouble());
+                    break;
+                case FLOAT:
+                    bb.putFloat((float) v.asDouble());
+                    break;
+                case INT64:
+                case UINT64:
+                    bb.putLong(v.isBigInteger() ? v.bigIntegerValue().longValue() : v.asLong());
+                    break;
+                case INT32:
+                case UINT32:
+                    bb.putInt((int) v.asLong());
+                    break;
+                case INT16:
+                case UINT16:
+                    bb.putShort((short) v.asInt());
+                    break;
+                case INT8:
+                case UINT8:
+                    bb.put((byte) v.asInt());
+                    break;
+                case BOOL:
+                    bb.put((byte) (v.asBoolean() ? 1 : 0));
+                    break;
+                default:
+                    throw new IllegalStateException("Unable to deserialize NDArray of type " + type + " from JSON numeric array");
+            }
+        }
+        bb.rewind();
+        return bb;
+    }
+
     protected Image deserializeImage(JsonNode n2){
         String format = n2.get(Data.RESERVED_KEY_IMAGE_FORMAT).textValue();
-        if(!"PNG".equalsIgnoreCase(format)){
-            throw new UnsupportedOperationException("Deserialization of formats other than PNG not yet implemented");
-        }
         String base64Data = n2.get(Data.RESERVED_KEY_IMAGE_DATA).textValue();
         byte[] bytes = Base64.getDecoder().decode(base64Data);
-        Png png = new Png(bytes);
-        return Image.create(png);
+        return ImageFileUtils.fromEncoded(format, bytes);
     }
 
     protected BoundingBox deserializeBB(JsonNode n2){
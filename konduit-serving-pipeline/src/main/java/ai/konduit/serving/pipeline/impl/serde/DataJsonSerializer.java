@@ -21,15 +21,18 @@ package ai.konduit.serving.pipeline.impl.serde;
 import ai.konduit.serving.pipeline.api.data.*;
 import ai.konduit.serving.pipeline.impl.data.box.BBoxCHW;
 import ai.konduit.serving.pipeline.impl.data.box.BBoxXY;
-import ai.konduit.serving.pipeline.impl.data.image.Png;
+import ai.konduit.serving.pipeline.impl.data.helpers.ImageFileUtils;
+import ai.konduit.serving.pipeline.impl.data.image.base.BaseImageFile;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import org.nd4j.shade.jackson.core.JsonGenerator;
+import org.nd4j.shade.jackson.core.json.JsonGeneratorImpl;
 import org.nd4j.shade.jackson.databind.JsonSerializer;
-import org.nd4j.shade.jackson.databind.ObjectMapper;
 import org.nd4j.shade.jackson.databind.SerializerProvider;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Base64;
 import java.util.List;
 
@@ -47,6 +50,14 @@ import java.util.List;
  */
 public class DataJsonSerializer extends JsonSerializer<Data> {
 
+    /**
+     * Serialization attribute (see {@link org.nd4j.shade.jackson.databind.ObjectWriter#withAttribute(Object, Object)}):
+     * when set to {@code true}, NDArray values are written as flat JSON arrays of numbers (in C order) instead of
+     * base64 encoded bytes. This is larger and slower than the default format, but easier to use from other languages.
+     * Arrays of types without a JSON number equivalent (FLOAT16, BFLOAT16, UTF8) are always base64 encoded.
+     */
+    public static final String NUMERIC_NDARRAYS_ATTRIBUTE = "konduit.serving.data.numericNDArrays";
+
     @Override
     public void serialize(Data data, JsonGenerator jg, SerializerProvider sp) throws IOException {
         //TODO do we serialize in any particular order?
@@ -62,7 +73,7 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
             switch (vt) {
                 case NDARRAY:
                     NDArray n = data.getNDArray(s);
-                    writeNDArray(jg, n);
+                    writeNDArray(jg, n, sp);
                     break;
                 case STRING:
                     String str = data.getString(s);
@@ -86,7 +97,7 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
                     break;
                 case DATA:
                     Data d = data.getData(s);
-                    writeNestedData(jg, d);
+                    writeNestedData(jg, d, sp);
                     break;
                 case LIST:
                     /*
@@ -95,7 +106,7 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
                      */
                     ValueType listVt = data.listType(s);
                     List<?> list = data.getList(s, listVt);
-                    writeList(jg, list, listVt);
+                    writeList(jg, list, listVt, sp);
                     break;
                 case BOUNDING_BOX:
                     BoundingBox bb = data.getBoundingBox(s);
@@ -109,27 +120,35 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
         if (data.getMetaData() != null) {
             Data md = data.getMetaData();
             jg.writeFieldName(Data.RESERVED_KEY_METADATA);
-            writeNestedData(jg, md);
+            writeNestedData(jg, md, sp);
         }
 
         jg.writeEndObject();
     }
 
-    private void writeNestedData(JsonGenerator jg, Data data) throws IOException {
-        ObjectMapper om = (ObjectMapper) jg.getCodec();
-        String dataStr = om.writeValueAsString(data);
-        jg.writeRawValue(dataStr);
+    private void writeNestedData(JsonGenerator jg, Data data, SerializerProvider sp) throws IOException {
+        //Write directly to the generator, instead of serializing to an intermediate String
+        serialize(data, jg, sp);
     }
 
     private void writeBytes(JsonGenerator jg, byte[] bytes) throws IOException {
         //TODO add option to do raw bytes array - [0, 1, 2, ...] style
         jg.writeStartObject();
         jg.writeFieldName(Data.RESERVED_KEY_BYTES_BASE64);
-        String base64 = Base64.getEncoder().encodeToString(bytes);
-        jg.writeString(base64);
+        writeBase64(jg, bytes);
         jg.writeEndObject();
     }
 
+    private void writeBase64(JsonGenerator jg, byte[] bytes) throws IOException {
+        if (jg instanceof JsonGeneratorImpl) {
+            //JSON generators base64 encode directly into their output buffer, using the same (standard, padded) format
+            jg.writeBinary(bytes);
+        } else {
+            //Other formats (such as YAML) may encode binary data differently
+            jg.writeString(Base64.getEncoder().encodeToString(bytes));
+        }
+    }
+
     private void writeDouble(JsonGenerator jg, double d) throws IOException {
         jg.writeNumber(d);
     }
@@ -139,18 +158,17 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
     }
 
     private void writeImage(JsonGenerator jg, Image i) throws IOException {
-        Png png = i.getAs(Png.class);
-        byte[] imgData = png.getBytes();
+        //Images already in an encoded format (JPEG etc) are written as-is, without converting to PNG
+        BaseImageFile f = ImageFileUtils.encoded(i);
         jg.writeStartObject();
         jg.writeFieldName(Data.RESERVED_KEY_IMAGE_FORMAT);
-        jg.writeString("PNG");      //TODO No magic constant
+        jg.writeString(f.formatName());
         jg.writeFieldName(Data.RESERVED_KEY_IMAGE_DATA);
-        String base64 = Base64.getEncoder().encodeToString(imgData);
-        jg.writeString(base64);
+        writeBase64(jg, f.getBytes());
         jg.writeEndObject();
     }
 
-    private void writeNDArray(JsonGenerator jg, NDArray n) throws IOException {
+    private void writeNDArray(JsonGenerator jg, NDArray n, SerializerProvider sp) throws IOException {
         jg.writeStartObject();
 
         SerializedNDArray sn = n.getAs(SerializedNDArray.class);
@@ -161,25 +179,73 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
         jg.writeFieldName(Data.RESERVED_KEY_NDARRAY_SHAPE);
         jg.writeArray(shape, 0, shape.length);
 
-        ByteBuffer bb = sn.getBuffer();
+        ByteBuffer bb = sn.getBuffer().duplicate().order(ByteOrder.LITTLE_ENDIAN);
         bb.rewind();
-        byte[] array;
-        if (bb.hasArray()) {
-            array = bb.array();
+        if (Boolean.TRUE.equals(sp.getAttribute(NUMERIC_NDARRAYS_ATTRIBUTE)) && hasNumericFormat(type)) {
+            jg.writeFieldName(Data.RESERVED_KEY_NDARRAY_DATA_ARRAY);
+            writeNumeric(jg, type, bb);
+        } else if (jg instanceof JsonGeneratorImpl) {
+            //Base64 encode straight from the buffer, without copying it to a byte[] or String first
+            jg.writeFieldName(Data.RESERVED_KEY_NDARRAY_DATA_BASE64);
+            jg.writeBinary(new ByteBufferInputStream(bb), bb.remaining());
         } else {
-            int size = bb.remaining();
-            array = new byte[size];
-            for (int i = 0; i < size; i++) {
-                array[i] = bb.get(i);
-            }
+            byte[] array = new byte[bb.remaining()];
+            bb.get(array);
+            jg.writeFieldName(Data.RESERVED_KEY_NDARRAY_DATA_BASE64);
+            writeBase64(jg, array);
         }
-
-        String base64 = Base64.getEncoder().encodeToString(array);
-        jg.writeFieldName(Data.RESERVED_KEY_NDARRAY_DATA_ARRAY);
-        jg.writeString(base64);
         jg.writeEndObject();
     }
 
+    private static boolean hasNumericFormat(NDArrayType type) {
+        return type != NDArrayType.FLOAT16 && type != NDArrayType.BFLOAT16 && type != NDArrayType.UTF8;
+    }
+
+    private void writeNumeric(JsonGenerator jg, NDArrayType type, ByteBuffer bb) throws IOException {
+        int n = bb.remaining() / type.width();
+        jg.writeStartArray(n);
+        for (int i = 0; i < n; i++) {
+            switch (type) {
+                case DOUBLE:
+                    jg.writeNumber(bb.getDouble());
+                    break;
+                case FLOAT:
+                    jg.writeNumber(bb.getFloat());
+                    break;
+                case INT64:
+                    jg.writeNumber(bb.getLong());
+                    break;
+                case INT32:
+                    jg.writeNumber(bb.getInt());
+                    break;
+                case INT16:
+                    jg.writeNumber(bb.getShort());
+                    break;
+                case INT8:
+                    jg.writeNumber(bb.get());
+                    break;
+                case UINT64:
+                    jg.writeNumber(Long.toUnsignedString(bb.getLong()));
+                    break;
+                case UINT32:
+                    jg.writeNumber(Integer.toUnsignedLong(bb.getInt()));
+                    break;
+                case UINT16:
+                    jg.writeNumber(Short.toUnsignedInt(bb.getShort()));
+                    break;
+                case UINT8:
+                    jg.writeNumber(Byte.toUnsignedInt(bb.get()));
+                    break;
+                case BOOL:
+                    jg.writeBoolean(bb.get() != 0);
+                    break;
+                default:
+                    throw new IllegalStateException("Numeric JSON format is not supported for NDArray type " + type);
+            }
+        }
+        jg.writeEndArray();
+    }
+
     private void writeBB(JsonGenerator jg, BoundingBox bb) throws IOException {
         //We'll keep it in the original format, if possible - but encode it as a X/Y format otherwise
         jg.writeStartObject();
@@ -215,14 +281,14 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
         jg.writeEndObject();
     }
 
-    private void writeList(JsonGenerator jg, List<?> list, ValueType listType) throws IOException {
+    private void writeList(JsonGenerator jg, List<?> list, ValueType listType, SerializerProvider sp) throws IOException {
         int n = list.size();
         jg.writeStartArray(n);
 
         switch (listType) {
             case NDARRAY:
                 for(NDArray arr : (List<NDArray>) list){
-                    writeNDArray(jg, arr);
+                    writeNDArray(jg, arr, sp);
                 }
                 break;
             case STRING:
@@ -261,7 +327,7 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
             case DATA:
                 List<Data> dataList = (List<Data>) list;
                 for (Data d : dataList) {
-                    writeNestedData(jg, d);
+                    writeNestedData(jg, d, sp);
                 }
                 break;
             case BOUNDING_BOX:
@@ -285,4 +351,36 @@ public class DataJsonSerializer extends JsonSerializer<Data> {
 
         jg.writeEndArray();
     }
+
+    /**
+     * Read-only InputStream view of the remaining bytes of a ByteBuffer
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bb;
+
+        private ByteBufferInputStream(ByteBuffer bb) {
+            this.bb = bb;
+        }
+
+        @Override
+        public int read() {
+            return bb.hasRemaining() ? bb.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!bb.hasRemaining())
+                return -1;
+            int n = Math.min(len, bb.remaining());
+            bb.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return bb.remaining();
+        }
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.step.cache;
+
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.impl.pipeline.CachingPipelineExecutor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * CachePipelineStep executes the specified (sub) pipeline, caching its outputs keyed by the content of the input.
+ * This allows only the expensive (deterministic) part of a pipeline to be cached - for example, the model, but not
+ * the non-deterministic or cheap steps before or after it.<br>
+ * See {@link CachingPipelineExecutor} and {@link ai.konduit.serving.pipeline.util.DataCache} for details.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class CachePipelineStep implements PipelineStep {
+
+    /**
+     * The pipeline to execute and cache the outputs of
+     */
+    private Pipeline pipeline;
+
+    @Builder.Default
+    private int maxEntries = CachingPipelineExecutor.DEFAULT_MAX_ENTRIES;
+
+    @Builder.Default
+    private long maxBytes = CachingPipelineExecutor.DEFAULT_MAX_BYTES;
+
+    @Builder.Default
+    private long ttlMs = CachingPipelineExecutor.DEFAULT_TTL_MS;
+
+    /**
+     * Name of the cache, used to tag the cache metrics. If not set, the pipeline ID is used
+     */
+    private String name;
+
+    public CachePipelineStep(){
+        //@Builder.Default values are NOT treated as normal default values - set them here also for JSON/YAML deserialization
+        this.maxEntries = CachingPipelineExecutor.DEFAULT_MAX_ENTRIES;
+        this.maxBytes = CachingPipelineExecutor.DEFAULT_MAX_BYTES;
+        this.ttlMs = CachingPipelineExecutor.DEFAULT_TTL_MS;
+    }
+}
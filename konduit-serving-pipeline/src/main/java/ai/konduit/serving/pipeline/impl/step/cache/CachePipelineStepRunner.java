@@ -0,0 +1,68 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.step.cache;
+
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.impl.pipeline.CachingPipelineExecutor;
+import lombok.NonNull;
+import org.nd4j.common.base.Preconditions;
+
+public class CachePipelineStepRunner implements PipelineStepRunner {
+
+    private final CachePipelineStep step;
+    private final CachingPipelineExecutor executor;
+
+    public CachePipelineStepRunner(@NonNull CachePipelineStep step) {
+        Preconditions.checkState(step.getPipeline() != null, "CachePipelineStep: pipeline must be set");
+        this.step = step;
+        this.executor = CachingPipelineExecutor.builder(step.getPipeline().executor())
+                .maxEntries(step.getMaxEntries())
+                .maxBytes(step.getMaxBytes())
+                .ttlMs(step.getTtlMs())
+                .name(step.getName())
+                .build();
+    }
+
+    public CachingPipelineExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    @Override
+    public PipelineStep getPipelineStep() {
+        return step;
+    }
+
+    @Override
+    public Data exec(Context ctx, Data data) {
+        return executor.exec(data);
+    }
+
+    @Override
+    public Data[] exec(Context ctx, Data... data) {
+        return executor.exec(data);
+    }
+}
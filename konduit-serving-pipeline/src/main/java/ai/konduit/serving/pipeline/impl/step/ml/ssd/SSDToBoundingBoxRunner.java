@@ -59,6 +59,8 @@ public class SSDToBoundingBoxRunner implements PipelineStepRunner {
         float[][][] bArr = bND.getAs(float[][][].class);        //Batch, num, xy
         float[][] pArr = pND.getAs(float[][].class);            //Batch, num
 
+        BoundingBox cropRegion = step.accountForCropRegion() ? cropRegion(data) : null;
+
         List<BoundingBox> l = new ArrayList<>();
         for(int i=0; i<bArr[0].length; i++ ){
             //SSD order usually: [y1, x1, y2, x2]
@@ -68,7 +70,10 @@ public class SSDToBoundingBoxRunner implements PipelineStepRunner {
             double x2 = bArr[0][i][3];
             double p = pArr[0][i];
             if(p >= threshold) {
-                l.add(BoundingBox.createXY(x1, x2, y1, y2, null, p));
+                BoundingBox bb = BoundingBox.createXY(x1, x2, y1, y2, null, p);
+                if(cropRegion != null)
+                    bb = accountForCrop(bb, cropRegion);
+                l.add(bb);
             }
         }
 
@@ -90,4 +95,47 @@ public class SSDToBoundingBoxRunner implements PipelineStepRunner {
 
         return d;
     }
+
+    /**
+     * Get the region of the original image that the network input was created from, if the input Data instance has
+     * metadata from ImageToNDArrayStep (a nested Data instance with a {@link SSDToBoundingBoxStep#META_CROP_REGION}
+     * value). Returns null otherwise.
+     */
+    protected BoundingBox cropRegion(Data data){
+        if(!data.hasMetaData())
+            return null;
+        Data meta = data.getMetaData();
+        for(String s : meta.keys()){
+            if(meta.type(s) != ValueType.DATA)
+                continue;
+            Data d = meta.getData(s);
+            if(!d.has(SSDToBoundingBoxStep.META_CROP_REGION))
+                continue;
+            ValueType vt = d.type(SSDToBoundingBoxStep.META_CROP_REGION);
+            if(vt == ValueType.BOUNDING_BOX){
+                return d.getBoundingBox(SSDToBoundingBoxStep.META_CROP_REGION);
+            } else if(vt == ValueType.LIST && d.listType(SSDToBoundingBoxStep.META_CROP_REGION) == ValueType.BOUNDING_BOX){
+                //Only the first example of the minibatch is converted
+                List<BoundingBox> l = d.getListBoundingBox(SSDToBoundingBoxStep.META_CROP_REGION);
+                return l.isEmpty() ? null : l.get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Map a bounding box from network input coordinates to original image coordinates. The crop region may extend
+     * beyond [0,1] if the image was padded.
+     */
+    protected BoundingBox accountForCrop(BoundingBox bbox, BoundingBox cropRegion){
+        double cropWidth = cropRegion.width();
+        double cropHeight = cropRegion.height();
+
+        double x1 = cropRegion.x1() + cropWidth * bbox.x1();
+        double x2 = cropRegion.x1() + cropWidth * bbox.x2();
+        double y1 = cropRegion.y1() + cropHeight * bbox.y1();
+        double y2 = cropRegion.y1() + cropHeight * bbox.y2();
+
+        return BoundingBox.createXY(x1, x2, y1, y2, bbox.label(), bbox.probability());
+    }
 }
@@ -30,6 +30,11 @@ import lombok.experimental.Accessors;
 @AllArgsConstructor
 public class SSDToBoundingBoxStep implements PipelineStep {
     public static final String DEFAULT_OUTPUT_NAME = "bounding_boxes";
+    /**
+     * Key of the crop region in the (nested) metadata of the input Data instance, as produced by ImageToNDArrayStep
+     * with metadata enabled. Used only if {@link #accountForCropRegion()} is true.
+     */
+    public static final String META_CROP_REGION = "crop_region";
 
     //TODO config
 
@@ -42,6 +47,17 @@ public class SSDToBoundingBoxStep implements PipelineStep {
     @Builder.Default
     protected String outputName = DEFAULT_OUTPUT_NAME;
 
+    /**
+     * If true: map the bounding boxes back to the coordinates of the original image, using the crop region from the
+     * ImageToNDArrayStep metadata ({@link #META_CROP_REGION}) in this step's input Data, if present. This accounts for
+     * cropping and padding (letterboxing) of the image. Note that the metadata must be present in this step's input:
+     * pipeline steps (for example, model steps) don't necessarily pass on their input's metadata.<br>
+     * False by default: the bounding boxes are relative to the network input. Don't enable this if the bounding boxes
+     * are mapped by a later step (for example, DrawBoundingBoxStep with imageToNDArrayConfig set).
+     */
+    @Builder.Default
+    protected boolean accountForCropRegion = false;
+
     public SSDToBoundingBoxStep(){
         //Normally this would be unnecessary to set default values here - but @Builder.Default values are NOT treated as normal default values.
         //Without setting defaults here again like this, the fields would actually be null
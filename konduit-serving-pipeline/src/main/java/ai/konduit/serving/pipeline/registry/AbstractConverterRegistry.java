@@ -0,0 +1,176 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.registry;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Base class for converter registries (i.e., {@link ai.konduit.serving.pipeline.api.format.NDArrayConverter} and
+ * {@link ai.konduit.serving.pipeline.api.format.ImageConverter}).<br>
+ * Converters for a (source, target class) pair are resolved once and stored in a routing table, so that subsequent
+ * lookups for the same pair are a single map lookup. If no single converter can perform the conversion, a shortest
+ * path (fewest conversions) via the registry's intermediate types is searched for, and the resulting chain of
+ * converters is stored in the routing table instead.<br>
+ * The routing table key is provided by {@link #routeKey(Object)}: this must capture everything that the converters'
+ * canConvert methods depend on (by default: the class of the wrapped object).
+ *
+ * @param <C> Converter type
+ * @param <V> Value type (NDArray or Image)
+ */
+public abstract class AbstractConverterRegistry<C,V> extends AbstractRegistry<C> {
+
+    private final Map<Route,Optional<C>> routes = new ConcurrentHashMap<>();
+
+    //Intentionally package private (no/default access modifier)
+
+    AbstractConverterRegistry(Class<C> factoryClass){
+        super(factoryClass);
+    }
+
+    /**
+     * @return The object wrapped by the specified value
+     */
+    protected abstract Object unwrap(V value);
+
+    /**
+     * @return The specified object, wrapped as a value (used for the intermediate results of a converter chain)
+     */
+    protected abstract V wrap(Object o);
+
+    protected abstract boolean canConvert(C converter, V value, Class<?> type);
+
+    protected abstract Object convert(C converter, V value, Class<?> type);
+
+    /**
+     * Types (other than the source and target types) that conversions may go via, in order of preference
+     */
+    protected abstract List<Class<?>> intermediateTypes();
+
+    /**
+     * Create a single converter that applies the specified converters in order
+     *
+     * @param from       Class of the source object
+     * @param converters Converters to apply, in order
+     * @param types      Target type for each of the converters
+     */
+    protected abstract C chain(Class<?> from, List<C> converters, List<Class<?>> types);
+
+    /**
+     * Get the routing table key for converting the specified value. Two values with the same key must be convertible
+     * by the same converters.
+     */
+    protected Object routeKey(V value){
+        return unwrap(value).getClass();
+    }
+
+    protected C getConverterForClass(V value, Class<?> type){
+        if(factories == null)
+            init();
+
+        Route r = new Route(routeKey(value), type);
+        Optional<C> c = routes.get(r);
+        if(c == null){
+            c = Optional.ofNullable(findRoute(value, type));
+            routes.putIfAbsent(r, c);
+        }
+        return c.orElse(null);
+    }
+
+    protected C findRoute(V value, Class<?> type){
+        C direct = findDirect(value, type);
+        if(direct != null)
+            return direct;
+
+        //No single converter is available: breadth first search via the intermediate types, starting from the value
+        //Note that each hop requires actually converting the value, as the converters can only be queried for
+        // an instance. This is done only once per route, however.
+        Class<?> from = unwrap(value).getClass();
+        Set<Class<?>> visited = new HashSet<>();
+        visited.add(from);
+        visited.add(type);
+        Queue<Path> queue = new ArrayDeque<>();
+        queue.add(new Path(value, Collections.emptyList(), Collections.emptyList()));
+        while(!queue.isEmpty()){
+            Path p = queue.remove();
+            for(Class<?> t : intermediateTypes()){
+                if(visited.contains(t) || t.isAssignableFrom(unwrap(p.value).getClass()))
+                    continue;
+                C c = findDirect(p.value, t);
+                if(c == null)
+                    continue;
+                visited.add(t);
+
+                V next;
+                try {
+                    next = wrap(convert(c, p.value, t));
+                } catch (Throwable e){
+                    //Converter claimed support but failed - don't route via this type
+                    continue;
+                }
+
+                List<C> converters = new ArrayList<>(p.converters);
+                converters.add(c);
+                List<Class<?>> types = new ArrayList<>(p.types);
+                types.add(t);
+
+                C last = findDirect(next, type);
+                if(last != null){
+                    converters.add(last);
+                    types.add(type);
+                    return chain(from, converters, types);
+                }
+                queue.add(new Path(next, converters, types));
+            }
+        }
+
+        return null;
+    }
+
+    protected C findDirect(V value, Class<?> type){
+        for(C c : factories){
+            if(canConvert(c, value, type))
+                return c;
+        }
+        return null;
+    }
+
+    @Override
+    public void addFactoryInstance(C factory){
+        super.addFactoryInstance(factory);
+        routes.clear();
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class Route {
+        private final Object from;
+        private final Class<?> to;
+    }
+
+    @AllArgsConstructor
+    private class Path {
+        private final V value;
+        private final List<C> converters;
+        private final List<Class<?>> types;
+    }
+}
@@ -23,15 +23,36 @@ import ai.konduit.serving.pipeline.api.format.ImageFactory;
 import lombok.NonNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class BaseFactoryRegistry<T extends FormatFactory> extends AbstractRegistry<T> {
 
+    //Factory for each class of object seen so far. Factories are selected based on the object's class only
+    private final Map<Class<?>,T> factoryForClass = new ConcurrentHashMap<>();
+
     //Intentionally package private (no/default access modifier)
 
     BaseFactoryRegistry(Class<T> factoryClass){
         super(factoryClass);
     }
 
+    @Override
+    public T registryGetFactoryFor(@NonNull Object o){
+        T f = factoryForClass.get(o.getClass());
+        if(f == null){
+            f = super.registryGetFactoryFor(o);
+            if(f != null)
+                factoryForClass.putIfAbsent(o.getClass(), f);
+        }
+        return f;
+    }
+
+    @Override
+    public void addFactoryInstance(T factory){
+        super.addFactoryInstance(factory);
+        factoryForClass.clear();
+    }
+
     public boolean acceptFactory(T factory, Object o){
         return factory.canCreateFrom(o);
     }
@@ -0,0 +1,86 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.registry;
+
+import ai.konduit.serving.pipeline.api.serde.DataFormat;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * Registry for {@link DataFormat} implementations, looked up by content type
+ */
+public class DataFormatRegistry extends AbstractRegistry<DataFormat> {
+
+    private static final DataFormatRegistry INSTANCE = new DataFormatRegistry();
+
+    protected DataFormatRegistry(){
+        super(DataFormat.class);
+    }
+
+    public static int numFormats(){
+        return INSTANCE.registryNumFactories();
+    }
+
+    public static List<DataFormat> getFormats(){
+        return INSTANCE.registryGetFactories();
+    }
+
+    /**
+     * Get the DataFormat for the specified content type. Content type parameters (such as "; charset=utf-8") are ignored.
+     *
+     * @param contentType Content type, usually from a Content-Type or Accept header
+     * @return The format for the content type, or null if no format is available
+     */
+    public static DataFormat getFormatFor(@NonNull String contentType){
+        return INSTANCE.registryGetFactoryFor(contentType);
+    }
+
+    /**
+     * @return All content types supported by the available formats
+     */
+    public static Set<String> contentTypes(){
+        Set<String> out = new LinkedHashSet<>();
+        for(DataFormat f : getFormats()){
+            out.addAll(f.contentTypes());
+        }
+        return out;
+    }
+
+    public static void addFormat(DataFormat f){
+        INSTANCE.addFactoryInstance(f);
+    }
+
+    @Override
+    public boolean acceptFactory(DataFormat factory, Object o) {
+        if(!(o instanceof String))
+            return false;
+        String s = (String)o;
+        for(String ct : factory.contentTypes()){
+            if(s.contains(ct))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Class<?>> supportedForFactory(DataFormat factory) {
+        return Collections.emptySet();
+    }
+}
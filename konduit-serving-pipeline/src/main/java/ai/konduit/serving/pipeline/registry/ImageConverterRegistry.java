@@ -19,7 +19,6 @@
 package ai.konduit.serving.pipeline.registry;
 
 import ai.konduit.serving.pipeline.api.data.Image;
-import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.format.*;
 import ai.konduit.serving.pipeline.api.format.ImageConverter;
 import ai.konduit.serving.pipeline.impl.data.image.Png;
@@ -27,11 +26,13 @@ import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import org.nd4j.common.primitives.Pair;
 
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-public class ImageConverterRegistry extends AbstractRegistry<ImageConverter> {
+public class ImageConverterRegistry extends AbstractConverterRegistry<ImageConverter, Image> {
 
     private static final ImageConverterRegistry INSTANCE = new ImageConverterRegistry();
 
@@ -70,31 +71,9 @@ public class ImageConverterRegistry extends AbstractRegistry<ImageConverter> {
         return INSTANCE.getConverterForType(img, type);
     }
 
+    @Override
     public ImageConverter getConverterForClass(Image img, Class<?> type ){
-        if(factories == null)
-            init();
-
-        if(factoriesMap.containsKey(type)){
-            return factoriesMap.get(type).get(0);       //TODO multiple converters available
-        }
-
-        for(ImageConverter c : factories){
-            if(c.canConvert(img, type)){
-                return c;
-            }
-        }
-
-        //No converter is available. Try to fall back on X -> PNG -> Y
-        if(type != Png.class && !(img.get() instanceof Png)){
-            ImageConverter c1 = getConverterForClass(img, Png.class);
-            if(c1 != null){
-                Image i2 = Image.create(c1.convert(img, Png.class));            //TODO this is ugly - we throw this result away!
-                ImageConverter c2 = getConverterForClass(i2, type);
-                return new TwoStepImageConverter(img.get().getClass(), type, c1, c2);
-            }
-        }
-
-        return null;
+        return super.getConverterForClass(img, type);
     }
 
     public ImageConverter getConverterForType(Image img, ImageFormat<?> type ){
@@ -113,12 +92,42 @@ public class ImageConverterRegistry extends AbstractRegistry<ImageConverter> {
         INSTANCE.addFactoryInstance(f);
     }
 
+    @Override
+    protected Object unwrap(Image value) {
+        return value.get();
+    }
+
+    @Override
+    protected Image wrap(Object o) {
+        return Image.create(o);
+    }
+
+    @Override
+    protected boolean canConvert(ImageConverter converter, Image value, Class<?> type) {
+        return converter.canConvert(value, type);
+    }
+
+    @Override
+    protected Object convert(ImageConverter converter, Image value, Class<?> type) {
+        return converter.convert(value, type);
+    }
+
+    @Override
+    protected List<Class<?>> intermediateTypes() {
+        //Fall back on X -> PNG -> Y, then X -> BufferedImage -> Y
+        return Arrays.asList(Png.class, BufferedImage.class);
+    }
+
+    @Override
+    protected ImageConverter chain(Class<?> from, List<ImageConverter> converters, List<Class<?>> types) {
+        return new ChainedImageConverter(from, converters, types);
+    }
+
     @AllArgsConstructor
-    private static class TwoStepImageConverter implements ImageConverter {
+    private static class ChainedImageConverter implements ImageConverter {
         private Class<?> cFrom;
-        private Class<?> cTo;
-        private ImageConverter c1;
-        private ImageConverter c2;
+        private List<ImageConverter> converters;
+        private List<Class<?>> types;
 
         @Override
         public boolean canConvert(Image from, ImageFormat<?> to) {
@@ -127,7 +136,7 @@ public class ImageConverterRegistry extends AbstractRegistry<ImageConverter> {
 
         @Override
         public boolean canConvert(Image from, Class<?> to) {
-            return cFrom.isAssignableFrom(from.get().getClass()) && to.isAssignableFrom(cTo);
+            return cFrom.isAssignableFrom(from.get().getClass()) && to.isAssignableFrom(types.get(types.size()-1));
         }
 
         @Override
@@ -137,8 +146,11 @@ public class ImageConverterRegistry extends AbstractRegistry<ImageConverter> {
 
         @Override
         public <T> T convert(Image from, Class<T> to) {
-            Image png = Image.create(c1.convert(from, Png.class));
-            return (T) c2.convert(png, cTo);
+            Image img = from;
+            for( int i=0; i<converters.size()-1; i++ ){
+                img = Image.create(converters.get(i).convert(img, types.get(i)));
+            }
+            return (T) converters.get(converters.size()-1).convert(img, types.get(types.size()-1));
         }
     }
 }
@@ -18,12 +18,12 @@
 
 package ai.konduit.serving.pipeline.registry;
 
-import ai.konduit.serving.pipeline.api.data.Image;
 import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
 import ai.konduit.serving.pipeline.api.format.*;
-import ai.konduit.serving.pipeline.impl.data.image.Png;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import org.nd4j.common.primitives.Pair;
 
@@ -31,7 +31,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-public class NDArrayConverterRegistry extends AbstractRegistry<NDArrayConverter> {
+public class NDArrayConverterRegistry extends AbstractConverterRegistry<NDArrayConverter, NDArray> {
 
     private static final NDArrayConverterRegistry INSTANCE = new NDArrayConverterRegistry();
 
@@ -70,31 +70,9 @@ public class NDArrayConverterRegistry extends AbstractRegistry<NDArrayConverter>
         return INSTANCE.getConverterForType(arr, type);
     }
 
+    @Override
     public NDArrayConverter getConverterForClass(NDArray arr, Class<?> type ){
-        if(factories == null)
-            init();
-
-        if(factoriesMap.containsKey(type)){
-            return factoriesMap.get(type).get(0);       //TODO multiple converters
-        }
-
-        for(NDArrayConverter c : factories){
-            if(c.canConvert(arr, type)){
-                return c;
-            }
-        }
-
-        //No factory is available. Try to fall back on X -> SerializedNDArray -> Y
-        if(type != SerializedNDArray.class && !(arr.get() instanceof SerializedNDArray)){
-            NDArrayConverter c1 = getConverterForClass(arr, SerializedNDArray.class);
-            if(c1 != null){
-                NDArray arr2 = NDArray.create(c1.convert(arr, SerializedNDArray.class));            //TODO this is ugly - we throw this result away!
-                NDArrayConverter c2 = getConverterForClass(arr2, type);
-                return new TwoStepNDArrayConverter(arr.get().getClass(), type, c1, c2);
-            }
-        }
-
-        return null;
+        return super.getConverterForClass(arr, type);
     }
 
     public NDArrayConverter getConverterForType(NDArray arr, NDArrayFormat<?> type ){
@@ -113,12 +91,56 @@ public class NDArrayConverterRegistry extends AbstractRegistry<NDArrayConverter>
         INSTANCE.addFactoryInstance(f);
     }
 
+    @Override
+    protected Object unwrap(NDArray value) {
+        return value.get();
+    }
+
+    @Override
+    protected NDArray wrap(Object o) {
+        return NDArray.create(o);
+    }
+
+    @Override
+    protected boolean canConvert(NDArrayConverter converter, NDArray value, Class<?> type) {
+        return converter.canConvert(value, type);
+    }
+
+    @Override
+    protected Object convert(NDArrayConverter converter, NDArray value, Class<?> type) {
+        return converter.convert(value, type);
+    }
+
+    @Override
+    protected List<Class<?>> intermediateTypes() {
+        //Fall back on X -> SerializedNDArray -> Y
+        return Collections.singletonList(SerializedNDArray.class);
+    }
+
+    @Override
+    protected Object routeKey(NDArray value) {
+        //Converters may depend on the data type and rank, not just the class - for example, SerializedNDArray -> float[][]
+        return new NDArrayRouteKey(value.get().getClass(), value.type(), value.shape().length);
+    }
+
+    @Override
+    protected NDArrayConverter chain(Class<?> from, List<NDArrayConverter> converters, List<Class<?>> types) {
+        return new ChainedNDArrayConverter(from, converters, types);
+    }
+
     @AllArgsConstructor
-    private static class TwoStepNDArrayConverter implements NDArrayConverter {
+    @EqualsAndHashCode
+    private static class NDArrayRouteKey {
+        private final Class<?> c;
+        private final NDArrayType type;
+        private final int rank;
+    }
+
+    @AllArgsConstructor
+    private static class ChainedNDArrayConverter implements NDArrayConverter {
         private Class<?> cFrom;
-        private Class<?> cTo;
-        private NDArrayConverter c1;
-        private NDArrayConverter c2;
+        private List<NDArrayConverter> converters;
+        private List<Class<?>> types;
 
         @Override
         public boolean canConvert(NDArray from, NDArrayFormat<?> to) {
@@ -127,7 +149,7 @@ public class NDArrayConverterRegistry extends AbstractRegistry<NDArrayConverter>
 
         @Override
         public boolean canConvert(NDArray from, Class<?> to) {
-            return cFrom.isAssignableFrom(from.get().getClass()) && to.isAssignableFrom(cTo);
+            return cFrom.isAssignableFrom(from.get().getClass()) && to.isAssignableFrom(types.get(types.size()-1));
         }
 
         @Override
@@ -137,8 +159,11 @@ public class NDArrayConverterRegistry extends AbstractRegistry<NDArrayConverter>
 
         @Override
         public <T> T convert(NDArray from, Class<T> to) {
-            NDArray sArr = NDArray.create(c1.convert(from, SerializedNDArray.class));
-            return (T) c2.convert(sArr, cTo);
+            NDArray arr = from;
+            for( int i=0; i<converters.size()-1; i++ ){
+                arr = NDArray.create(converters.get(i).convert(arr, types.get(i)));
+            }
+            return (T) converters.get(converters.size()-1).convert(arr, types.get(types.size()-1));
         }
     }
 }
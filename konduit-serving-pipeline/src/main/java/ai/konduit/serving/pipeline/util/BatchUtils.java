@@ -0,0 +1,278 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.util;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.NDArrayType;
+import ai.konduit.serving.pipeline.api.data.ValueType;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import lombok.NonNull;
+import org.nd4j.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Utilities for combining multiple {@link Data} instances into a single batched Data instance (by concatenating NDArray
+ * values along dimension 0) and splitting the batched output back into the individual examples.
+ */
+public class BatchUtils {
+
+    private BatchUtils(){ }
+
+    /**
+     * Determine whether two Data instances can be combined into a single batch using {@link #stack(List)}.<br>
+     * This is the case when both have the same keys, NDArray values have the same (fixed width) data type and the
+     * same shape other than dimension 0, and all other values are equal. Data instances with metadata are not batched.
+     */
+    public static boolean canStack(@NonNull Data d1, @NonNull Data d2){
+        if(d1.hasMetaData() || d2.hasMetaData() || d1.size() != d2.size() || d1.size() == 0)
+            return false;
+
+        for(String s : d1.keys()){
+            if(!d2.has(s))
+                return false;
+            ValueType vt = d1.type(s);
+            if(vt != d2.type(s))
+                return false;
+
+            switch (vt){
+                case NDARRAY:
+                    NDArray a1 = d1.getNDArray(s);
+                    NDArray a2 = d2.getNDArray(s);
+                    if(a1.type() != a2.type() || !a1.type().isFixedWidth())
+                        return false;
+                    long[] s1 = a1.shape();
+                    long[] s2 = a2.shape();
+                    if(s1.length == 0 || s1.length != s2.length)
+                        return false;
+                    for( int i=1; i<s1.length; i++ ){
+                        if(s1[i] != s2[i])
+                            return false;
+                    }
+                    break;
+                case STRING:
+                case INT64:
+                case DOUBLE:
+                case BOOLEAN:
+                    if(!d1.get(s).equals(d2.get(s)))
+                        return false;
+                    break;
+                case BYTES:
+                    if(!Arrays.equals(d1.getBytes(s), d2.getBytes(s)))
+                        return false;
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determine whether all of the specified Data instances can be combined into a single batch using {@link #stack(List)}
+     * @see #canStack(Data, Data)
+     */
+    public static boolean canStack(@NonNull Data... data){
+        for( int i=1; i<data.length; i++ ){
+            if(!canStack(data[0], data[i]))
+                return false;
+        }
+        return data.length > 0;
+    }
+
+    /**
+     * Combine the specified Data instances into a single Data instance. NDArray values are concatenated along
+     * dimension 0; all other values are taken from the first Data instance. Use {@link #canStack(Data, Data)} to check
+     * whether the Data instances are compatible first.
+     *
+     * @param data Data instances to combine
+     * @return The batched Data instance
+     */
+    public static Data stack(@NonNull List<Data> data){
+        Preconditions.checkState(!data.isEmpty(), "Cannot stack an empty list of Data instances");
+        Data first = data.get(0);
+        if(data.size() == 1)
+            return first;
+
+        Data out = Data.empty();
+        for(String s : first.keys()){
+            if(first.type(s) != ValueType.NDARRAY){
+                out.copyFrom(s, first);
+                continue;
+            }
+
+            List<NDArray> arrays = new ArrayList<>(data.size());
+            for(Data d : data){
+                arrays.add(d.getNDArray(s));
+            }
+            out.put(s, concat(arrays));
+        }
+        return out;
+    }
+
+    /**
+     * Determine whether the specified (batched) Data instance can be split back into individual examples using
+     * {@link #split(Data, long[])} without losing information. This is the case only when all values are NDArrays
+     * with size {@code totalBatchSize} for dimension 0 (i.e., batch-major), and there is no metadata. Other values
+     * (for example, bounding boxes or strings derived from only some of the examples) can't be attributed to
+     * individual examples.
+     *
+     * @param data           Batched Data instance
+     * @param totalBatchSize Total size of dimension 0 of the batched input
+     */
+    public static boolean canSplit(@NonNull Data data, long totalBatchSize){
+        if(data.hasMetaData())
+            return false;
+        for(String s : data.keys()){
+            if(data.type(s) != ValueType.NDARRAY)
+                return false;
+            long[] shape = data.getNDArray(s).shape();
+            if(shape.length == 0 || shape[0] != totalBatchSize)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Split a batched Data instance (usually the output of a pipeline executed on the result of {@link #stack(List)})
+     * back into the individual examples. NDArray values are split along dimension 0 according to the specified sizes;
+     * all other values are copied to every output Data instance. Use {@link #canSplit(Data, long)} to check whether
+     * the Data instance can be split without losing information.
+     *
+     * @param data       Batched Data instance to split
+     * @param batchSizes Size of dimension 0 for each of the Data instances to return
+     * @return The split Data instances
+     */
+    public static Data[] split(@NonNull Data data, @NonNull long[] batchSizes){
+        long total = 0;
+        for(long l : batchSizes)
+            total += l;
+
+        Data[] out = new Data[batchSizes.length];
+        for( int i=0; i<out.length; i++ ){
+            out[i] = Data.empty();
+        }
+
+        for(String s : data.keys()){
+            if(data.type(s) != ValueType.NDARRAY){
+                for(Data d : out){
+                    d.copyFrom(s, data);
+                }
+                continue;
+            }
+
+            NDArray arr = data.getNDArray(s);
+            long[] shape = arr.shape();
+            Preconditions.checkState(shape.length > 0 && shape[0] == total, "Unable to split batched NDArray \"%s\" with" +
+                    " shape %s into %s examples: dimension 0 size does not match the total batch size of %s", s, shape, batchSizes.length, total);
+            NDArray[] split = split(arr, batchSizes);
+            for( int i=0; i<out.length; i++ ){
+                out[i].put(s, split[i]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Get the size of dimension 0 for the NDArray values in the specified Data instance, as used when stacking.
+     * Returns 1 if the Data instance has no NDArray values.
+     */
+    public static long batchSize(@NonNull Data data){
+        for(String s : data.keys()){
+            if(data.type(s) == ValueType.NDARRAY){
+                return data.getNDArray(s).shape()[0];
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Concatenate the specified NDArrays along dimension 0. All arrays must have the same data type and the same
+     * shape for dimensions 1 onward.
+     */
+    public static NDArray concat(@NonNull List<NDArray> arrays){
+        Preconditions.checkState(!arrays.isEmpty(), "Cannot concatenate an empty list of arrays");
+        if(arrays.size() == 1)
+            return arrays.get(0);
+
+        SerializedNDArray first = arrays.get(0).getAs(SerializedNDArray.class);
+        NDArrayType type = first.getType();
+        long[] outShape = first.getShape().clone();
+        outShape[0] = 0;
+
+        List<SerializedNDArray> l = new ArrayList<>(arrays.size());
+        long totalBytes = 0;
+        for(NDArray a : arrays){
+            SerializedNDArray sa = a.getAs(SerializedNDArray.class);
+            Preconditions.checkState(sa.getType() == type, "Unable to concatenate arrays with different types: %s and %s", type, sa.getType());
+            l.add(sa);
+            outShape[0] += sa.getShape()[0];
+            totalBytes += numBytes(sa);
+        }
+        Preconditions.checkState(totalBytes < Integer.MAX_VALUE, "Unable to concatenate arrays: more than 2 billion bytes in result");
+
+        ByteBuffer bb = ByteBuffer.allocateDirect(Math.toIntExact(totalBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        for(SerializedNDArray sa : l){
+            ByteBuffer src = sa.getBuffer().duplicate();
+            src.clear();
+            src.limit(Math.toIntExact(numBytes(sa)));
+            bb.put(src);
+        }
+        bb.clear();
+
+        return NDArray.create(new SerializedNDArray(type, outShape, bb));
+    }
+
+    /**
+     * Split the specified NDArray along dimension 0. The returned arrays are views of the original array's buffer,
+     * not copies.
+     */
+    public static NDArray[] split(@NonNull NDArray array, @NonNull long[] sizes){
+        SerializedNDArray sa = array.getAs(SerializedNDArray.class);
+        long[] shape = sa.getShape();
+        long bytesPerExample = shape[0] == 0 ? 0 : numBytes(sa) / shape[0];
+
+        NDArray[] out = new NDArray[sizes.length];
+        long offset = 0;
+        for( int i=0; i<sizes.length; i++ ){
+            long[] outShape = shape.clone();
+            outShape[0] = sizes[i];
+
+            ByteBuffer bb = sa.getBuffer().duplicate();
+            bb.clear();
+            bb.position(Math.toIntExact(offset));
+            bb.limit(Math.toIntExact(offset + sizes[i] * bytesPerExample));
+            ByteBuffer slice = bb.slice().order(ByteOrder.LITTLE_ENDIAN);
+            offset += sizes[i] * bytesPerExample;
+
+            out[i] = NDArray.create(new SerializedNDArray(sa.getType(), outShape, slice));
+        }
+        return out;
+    }
+
+    private static long numBytes(SerializedNDArray sa){
+        long prod = 1;
+        for(long l : sa.getShape())
+            prod *= l;
+        return prod * sa.getType().width();
+    }
+}
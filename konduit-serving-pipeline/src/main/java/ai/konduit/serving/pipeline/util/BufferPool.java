@@ -0,0 +1,422 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.util;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.data.ValueType;
+import ai.konduit.serving.pipeline.impl.data.ndarray.BaseNDArray;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.registry.MicrometerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.common.base.Preconditions;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct ByteBuffers, used for the buffers of NDArrays (SerializedNDArray) created during pipeline execution
+ * - for example, by image to NDArray conversion.<br>
+ * Buffers are pooled in power of 2 size classes (1KB to 128MB): freed buffers are kept in a small per-thread cache
+ * (one buffer per size class) backed by a shared arena, up to a maximum total number of bytes. Larger buffers are
+ * never pooled.<br>
+ * <br>
+ * Buffer lifecycle is tied to {@link ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor#exec(Data)}: the
+ * executor opens a {@link Scope} before executing the pipeline steps, and closes it with the input and output Data
+ * instances once execution has completed. Buffers allocated within the scope (on the executing thread) that are not
+ * referenced by the input or output (including their cached conversions) are then returned to the pool. Buffers that
+ * are referenced escape the pool, and are freed by the garbage collector as usual. Buffers allocated outside of a
+ * scope are never pooled.<br>
+ * Anything that keeps a reference to a buffer beyond the end of the current exec call, other than via the input or
+ * output Data instances (for example, a cache, or an array that wraps the buffer's memory without copying it) must
+ * call {@link #retain(Data)} or {@link #retain(ByteBuffer)} so that the buffer is not returned to the pool.<br>
+ * Note that the contents of pooled buffers are not zeroed: callers must overwrite the full buffer.<br>
+ * <br>
+ * Pooling is disabled by default, and can be enabled using the {@link #ENABLED_PROPERTY} system property or
+ * {@link #setEnabled(boolean)}. It should only be enabled if all pipeline steps are stateless, or call retain for any
+ * buffers they keep between exec calls (for example, the previous input of a step, or a native object wrapping a
+ * buffer's memory): otherwise those buffers will be reused - and overwritten - by later executions.<br>
+ * <br>
+ * Pool occupancy is exposed via {@link MicrometerRegistry} as gauges: "konduit.bufferpool.pooled.bytes" and
+ * "konduit.bufferpool.pooled.buffers" (free buffers held by the pool), "konduit.bufferpool.used.bytes" (pooled buffers
+ * currently in use) and "konduit.bufferpool.hits"/"konduit.bufferpool.misses" (allocations served from the pool, and
+ * allocations that required a new buffer).
+ */
+@Slf4j
+public class BufferPool {
+
+    public static final String ENABLED_PROPERTY = "konduit.serving.pipeline.bufferPool.enabled";
+    public static final String MAX_BYTES_PROPERTY = "konduit.serving.pipeline.bufferPool.maxBytes";
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    protected static final int MIN_CLASS_SHIFT = 10;
+    protected static final int MAX_CLASS_SHIFT = 27;
+    private static final int NUM_CLASSES = MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1;
+
+    private static final Field ADDRESS = addressField();
+    private static volatile boolean enabled = ADDRESS != null && Boolean.getBoolean(ENABLED_PROPERTY);
+    private static final long MAX_BYTES = Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES);
+
+    private static final List<Queue<ByteBuffer>> ARENA = new ArrayList<>(NUM_CLASSES);
+    private static final ThreadLocal<ByteBuffer[]> THREAD_CACHE = ThreadLocal.withInitial(() -> new ByteBuffer[NUM_CLASSES]);
+    private static final ThreadLocal<Deque<Scope>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final AtomicLong POOLED_BYTES = new AtomicLong();
+    private static final AtomicLong POOLED_BUFFERS = new AtomicLong();
+    private static final AtomicLong USED_BYTES = new AtomicLong();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    static {
+        for( int i=0; i<NUM_CLASSES; i++ ){
+            ARENA.add(new ConcurrentLinkedQueue<>());
+        }
+
+        MeterRegistry registry = MicrometerRegistry.getRegistry();
+        Gauge.builder("konduit.bufferpool.pooled.bytes", POOLED_BYTES, AtomicLong::get).register(registry);
+        Gauge.builder("konduit.bufferpool.pooled.buffers", POOLED_BUFFERS, AtomicLong::get).register(registry);
+        Gauge.builder("konduit.bufferpool.used.bytes", USED_BYTES, AtomicLong::get).register(registry);
+        Gauge.builder("konduit.bufferpool.hits", HITS, AtomicLong::get).register(registry);
+        Gauge.builder("konduit.bufferpool.misses", MISSES, AtomicLong::get).register(registry);
+    }
+
+    private BufferPool(){ }
+
+    private static Field addressField(){
+        try {
+            Field f = Buffer.class.getDeclaredField("address");
+            f.setAccessible(true);
+            return f;
+        } catch (Throwable t){
+            log.debug("Unable to access direct buffer addresses - buffer pooling is disabled", t);
+            return null;
+        }
+    }
+
+    /**
+     * @return True if buffer pooling is enabled
+     */
+    public static boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * Enable or disable buffer pooling. Disabling pooling does not affect scopes that are already open. Note that
+     * pooling cannot be enabled if direct buffer addresses are not accessible on this JVM.
+     *
+     * @param enable Whether buffer pooling should be enabled
+     */
+    public static void setEnabled(boolean enable){
+        if(enable && ADDRESS == null){
+            log.warn("Unable to enable buffer pooling: direct buffer addresses are not accessible");
+            return;
+        }
+        enabled = enable;
+    }
+
+    /**
+     * Allocate a little endian direct ByteBuffer with the specified capacity. If called within a {@link Scope} (i.e.,
+     * during pipeline execution), the buffer is taken from the pool if possible. Note that the buffer contents are
+     * not zeroed.
+     *
+     * @param bytes Size of the buffer, in bytes
+     */
+    public static ByteBuffer allocate(int bytes){
+        Preconditions.checkState(bytes >= 0, "Number of bytes must be non-negative, got %s", bytes);
+        Scope scope = enabled ? SCOPES.get().peek() : null;
+        int c = sizeClass(bytes);
+        if(scope == null || c < 0)
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer b = take(c);
+        if(b == null){
+            MISSES.incrementAndGet();
+            b = ByteBuffer.allocateDirect(1 << (c + MIN_CLASS_SHIFT));
+        } else {
+            HITS.incrementAndGet();
+        }
+        USED_BYTES.addAndGet(b.capacity());
+        scope.allocations.add(new Allocation(b, address(b)));
+
+        ByteBuffer out = b.duplicate();
+        out.clear();
+        out.limit(bytes);
+        return out.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Open a new allocation scope for the current thread. Scopes may be nested: buffers that are still referenced
+     * when a nested scope is closed are transferred to the enclosing scope.
+     */
+    public static Scope openScope(){
+        Scope s = new Scope();
+        if(enabled)
+            SCOPES.get().push(s);
+        return s;
+    }
+
+    /**
+     * Mark all pooled buffers referenced by the specified Data instances (including their NDArrays' cached conversions)
+     * as retained: they will not be returned to the pool when the current scope is closed.
+     */
+    public static void retain(Data... data){
+        if(SCOPES.get().isEmpty())
+            return;
+        List<long[]> ranges = new ArrayList<>();
+        for(Data d : data)
+            collect(d, ranges);
+        retain(ranges);
+    }
+
+    /**
+     * Mark the pooled buffer that the specified buffer is part of as retained: it will not be returned to the pool when
+     * the current scope is closed.
+     */
+    public static void retain(ByteBuffer buffer){
+        if(SCOPES.get().isEmpty())
+            return;
+        List<long[]> ranges = new ArrayList<>(1);
+        collect(buffer, ranges);
+        retain(ranges);
+    }
+
+    private static void retain(List<long[]> ranges){
+        if(ranges.isEmpty())
+            return;
+        for(Scope s : SCOPES.get()){
+            Iterator<Allocation> iter = s.allocations.iterator();
+            while(iter.hasNext()){
+                Allocation a = iter.next();
+                if(a.referencedBy(ranges)){
+                    iter.remove();
+                    USED_BYTES.addAndGet(-a.buffer.capacity());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of bytes in free buffers currently held by the pool
+     */
+    public static long pooledBytes(){
+        return POOLED_BYTES.get();
+    }
+
+    /**
+     * @return Number of free buffers currently held by the pool
+     */
+    public static long pooledBuffers(){
+        return POOLED_BUFFERS.get();
+    }
+
+    /**
+     * @return Number of bytes in pooled buffers that are currently in use
+     */
+    public static long usedBytes(){
+        return USED_BYTES.get();
+    }
+
+    /**
+     * @return Number of allocations that were served by a pooled buffer
+     */
+    public static long hits(){
+        return HITS.get();
+    }
+
+    /**
+     * @return Number of pooled allocations that required a new buffer to be allocated
+     */
+    public static long misses(){
+        return MISSES.get();
+    }
+
+    /**
+     * Remove all free buffers from the shared arena, and from the current thread's cache
+     */
+    public static void clear(){
+        ByteBuffer[] cache = THREAD_CACHE.get();
+        for( int i=0; i<NUM_CLASSES; i++ ){
+            if(cache[i] != null){
+                removed(cache[i]);
+                cache[i] = null;
+            }
+            ByteBuffer b;
+            while((b = ARENA.get(i).poll()) != null)
+                removed(b);
+        }
+    }
+
+    /**
+     * @return The size class for the specified number of bytes, or -1 if the buffer is too large to be pooled
+     */
+    protected static int sizeClass(int bytes){
+        int shift = bytes <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(bytes - 1);
+        if(shift > MAX_CLASS_SHIFT)
+            return -1;
+        return Math.max(0, shift - MIN_CLASS_SHIFT);
+    }
+
+    private static ByteBuffer take(int sizeClass){
+        ByteBuffer[] cache = THREAD_CACHE.get();
+        ByteBuffer b = cache[sizeClass];
+        if(b != null){
+            cache[sizeClass] = null;
+        } else {
+            b = ARENA.get(sizeClass).poll();
+        }
+        if(b != null)
+            removed(b);
+        return b;
+    }
+
+    private static void release(ByteBuffer b){
+        USED_BYTES.addAndGet(-b.capacity());
+        if(POOLED_BYTES.addAndGet(b.capacity()) > MAX_BYTES){
+            //Pool is full - leave the buffer to the garbage collector
+            POOLED_BYTES.addAndGet(-b.capacity());
+            return;
+        }
+        POOLED_BUFFERS.incrementAndGet();
+
+        int c = sizeClass(b.capacity());
+        ByteBuffer[] cache = THREAD_CACHE.get();
+        if(cache[c] == null){
+            cache[c] = b;
+        } else {
+            ARENA.get(c).offer(b);
+        }
+    }
+
+    private static void removed(ByteBuffer b){
+        POOLED_BYTES.addAndGet(-b.capacity());
+        POOLED_BUFFERS.decrementAndGet();
+    }
+
+    private static long address(ByteBuffer b){
+        try {
+            return ADDRESS.getLong(b);
+        } catch (IllegalAccessException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void collect(Data d, List<long[]> ranges){
+        if(d == null)
+            return;
+        for(String s : d.keys()){
+            ValueType vt = d.type(s);
+            if(vt == ValueType.NDARRAY){
+                collect(d.getNDArray(s), ranges);
+            } else if(vt == ValueType.DATA){
+                collect(d.getData(s), ranges);
+            } else if(vt == ValueType.LIST){
+                ValueType lt = d.listType(s);
+                if(lt == ValueType.NDARRAY || lt == ValueType.DATA || lt == ValueType.LIST)
+                    collect(d.getList(s, lt), ranges);
+            }
+        }
+        if(d.hasMetaData())
+            collect(d.getMetaData(), ranges);
+    }
+
+    private static void collect(Object o, List<long[]> ranges){
+        if(o instanceof NDArray){
+            NDArray a = (NDArray) o;
+            collect(a.get(), ranges);
+            if(a instanceof BaseNDArray){
+                for(Object c : ((BaseNDArray<?>) a).conversionCache().values())
+                    collect(c, ranges);
+            }
+        } else if(o instanceof SerializedNDArray){
+            collect(((SerializedNDArray) o).getBuffer(), ranges);
+        } else if(o instanceof ByteBuffer){
+            ByteBuffer b = (ByteBuffer) o;
+            if(b.isDirect()){
+                long start = address(b);
+                ranges.add(new long[]{start, start + b.capacity()});
+            }
+        } else if(o instanceof Data){
+            collect((Data) o, ranges);
+        } else if(o instanceof List){
+            for(Object o2 : (List<?>) o)
+                collect(o2, ranges);
+        }
+    }
+
+    /**
+     * An allocation scope: see {@link BufferPool}
+     */
+    public static class Scope {
+        private final List<Allocation> allocations = new ArrayList<>();
+
+        private Scope(){ }
+
+        /**
+         * Close the scope, returning all buffers allocated within it to the pool, other than those referenced by the
+         * specified Data instances (usually, the pipeline input and output). Null Data instances are ignored.
+         */
+        public void close(Data... reachable){
+            Deque<Scope> scopes = SCOPES.get();
+            if(!scopes.removeFirstOccurrence(this))
+                return;
+            if(allocations.isEmpty())
+                return;
+
+            List<long[]> ranges = new ArrayList<>();
+            for(Data d : reachable)
+                collect(d, ranges);
+
+            Scope parent = scopes.peek();
+            for(Allocation a : allocations){
+                if(!a.referencedBy(ranges)){
+                    release(a.buffer);
+                } else if(parent != null){
+                    parent.allocations.add(a);
+                } else {
+                    //Escapes the pool: buffer is referenced by the output
+                    USED_BYTES.addAndGet(-a.buffer.capacity());
+                }
+            }
+            allocations.clear();
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Allocation {
+        private final ByteBuffer buffer;
+        private final long address;
+
+        private boolean referencedBy(List<long[]> ranges){
+            long end = address + buffer.capacity();
+            for(long[] r : ranges){
+                if(r[0] < end && r[1] > address)
+                    return true;
+            }
+            return false;
+        }
+    }
+}
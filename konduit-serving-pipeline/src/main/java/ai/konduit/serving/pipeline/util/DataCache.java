@@ -0,0 +1,329 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.util;
+
+import ai.konduit.serving.pipeline.api.data.*;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
+import ai.konduit.serving.pipeline.registry.MicrometerRegistry;
+import com.google.protobuf.CodedOutputStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import org.nd4j.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A size bounded cache of pipeline outputs, keyed by the content of the input {@link Data} instance.<br>
+ * The key is the SHA-256 hash of the input's protobuf form (serialized deterministically, so that equal Data instances
+ * have equal keys regardless of key order). Entries are evicted in least recently used order once either the maximum
+ * number of entries or the maximum (estimated) number of bytes is exceeded, and optionally expire after a fixed time
+ * since they were added.<br>
+ * Hit, miss and eviction counts are exposed as counters via {@link MicrometerRegistry} ("konduit.cache.hits",
+ * "konduit.cache.misses", "konduit.cache.evictions"), along with the current number of entries and bytes as gauges
+ * ("konduit.cache.size", "konduit.cache.bytes"), all tagged with the cache name. The gauges are additionally tagged with
+ * a unique instance ID, as multiple caches may have the same name, and are removed when the cache is closed.<br>
+ * Note that cached outputs are shallow copies: callers may add or remove values, but must not modify the content
+ * of NDArrays or other values in-place.
+ */
+public class DataCache {
+
+    public static final String METRIC_TAG = "cache";
+    public static final String INSTANCE_METRIC_TAG = "cache.instance";
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final MeterRegistry registry;
+    private final Gauge sizeGauge;
+    private final Gauge bytesGauge;
+
+    /**
+     * @param name       Name of the cache, used as the metrics tag
+     * @param maxEntries Maximum number of entries
+     * @param maxBytes   Maximum total (estimated) size of the cached outputs, in bytes
+     * @param ttlMs      Time after which entries expire, in milliseconds. 0 for no expiry
+     */
+    public DataCache(@NonNull String name, int maxEntries, long maxBytes, long ttlMs){
+        Preconditions.checkState(maxEntries > 0, "Max entries should be positive value, got %s", maxEntries);
+        Preconditions.checkState(maxBytes > 0, "Max bytes should be positive value, got %s", maxBytes);
+        Preconditions.checkState(ttlMs >= 0, "TTL should be non-negative value, got %s", ttlMs);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlMs * 1_000_000L;
+
+        registry = MicrometerRegistry.getRegistry();
+        hits = Counter.builder("konduit.cache.hits").tag(METRIC_TAG, name).register(registry);
+        misses = Counter.builder("konduit.cache.misses").tag(METRIC_TAG, name).register(registry);
+        evictions = Counter.builder("konduit.cache.evictions").tag(METRIC_TAG, name).register(registry);
+        String instance = String.valueOf(INSTANCES.incrementAndGet());
+        sizeGauge = Gauge.builder("konduit.cache.size", this, DataCache::size)
+                .tag(METRIC_TAG, name).tag(INSTANCE_METRIC_TAG, instance).register(registry);
+        bytesGauge = Gauge.builder("konduit.cache.bytes", this, DataCache::bytes)
+                .tag(METRIC_TAG, name).tag(INSTANCE_METRIC_TAG, instance).register(registry);
+    }
+
+    /**
+     * Get the cached output for the specified input, or compute (and cache) it if not present.<br>
+     * Note that the function is called without holding the cache lock: concurrent misses for the same input may
+     * each compute the output.
+     */
+    public Data get(@NonNull Data input, @NonNull Function<Data, Data> fn){
+        Key key = key(input);
+        Data out = get(key);
+        if(out != null)
+            return out;
+        out = fn.apply(input);
+        put(key, out);
+        return out;
+    }
+
+    /**
+     * @return The cached output for the specified key, or null if not present (or expired)
+     */
+    public Data get(@NonNull Key key){
+        Data out = null;
+        synchronized (this){
+            Entry e = map.get(key);
+            if(e != null){
+                if(ttlNanos > 0 && System.nanoTime() - e.created > ttlNanos){
+                    remove(key);
+                } else {
+                    out = e.data;
+                }
+            }
+        }
+
+        if(out == null){
+            missCount.incrementAndGet();
+            misses.increment();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        hits.increment();
+        return out.clone();
+    }
+
+    /**
+     * Add the output for the specified key. Outputs larger than the maximum number of bytes are not cached.
+     */
+    public void put(@NonNull Key key, @NonNull Data output){
+        long size = estimateBytes(output);
+        if(size > maxBytes)
+            return;
+
+        //The cached output outlives the current pipeline execution - its buffers must not be returned to the pool
+        BufferPool.retain(output);
+        Entry e = new Entry(output.clone(), size, System.nanoTime());
+        synchronized (this){
+            Entry prev = map.put(key, e);
+            if(prev != null)
+                bytes -= prev.bytes;
+            bytes += size;
+
+            Iterator<Entry> iter = map.values().iterator();
+            while((map.size() > maxEntries || bytes > maxBytes) && iter.hasNext()){
+                Entry eldest = iter.next();
+                iter.remove();
+                bytes -= eldest.bytes;
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void clear(){
+        map.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Clear the cache and remove its gauges from the metrics registry. The counters are shared by all caches with the
+     * same name, and are not removed.
+     */
+    public void close(){
+        clear();
+        registry.remove(sizeGauge);
+        registry.remove(bytesGauge);
+    }
+
+    public synchronized int size(){
+        return map.size();
+    }
+
+    public synchronized long bytes(){
+        return bytes;
+    }
+
+    /**
+     * @return Number of hits for this cache instance. Note that the "konduit.cache.hits" metric is shared by all caches
+     * with the same name
+     */
+    public long hits(){
+        return hitCount.get();
+    }
+
+    /**
+     * @return Number of misses for this cache instance
+     */
+    public long misses(){
+        return missCount.get();
+    }
+
+    private void remove(Key key){
+        Entry e = map.remove(key);
+        if(e != null)
+            bytes -= e.bytes;
+    }
+
+    /**
+     * Compute the cache key for the specified input: the SHA-256 hash of its deterministically serialized protobuf form
+     */
+    public static Key key(@NonNull Data input){
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        DataProtoMessage.DataMap m = input.toProtoData().toProtoMessage();
+        try {
+            CodedOutputStream cos = CodedOutputStream.newInstance(new DigestStream(md));
+            cos.useDeterministicSerialization();
+            m.writeTo(cos);
+            cos.flush();
+        } catch (IOException e){
+            //Should never happen: digest stream doesn't throw
+            throw new IllegalStateException("Error hashing Data instance", e);
+        }
+        return new Key(md.digest());
+    }
+
+    /**
+     * Estimate the memory used by the specified Data instance, in bytes. Only the (dominant) size of the values is
+     * accounted for: NDArray buffers, images (as uncompressed 3 channel 8-bit), strings and bytes
+     */
+    public static long estimateBytes(@NonNull Data data){
+        long total = 0;
+        for(String s : data.keys()){
+            ValueType vt = data.type(s);
+            if(vt == ValueType.LIST){
+                ValueType lt = data.listType(s);
+                for(Object o : data.getList(s, lt)){
+                    total += estimateBytes(o);
+                }
+            } else {
+                total += estimateBytes(data.get(s));
+            }
+        }
+        if(data.hasMetaData())
+            total += estimateBytes(data.getMetaData());
+        return total;
+    }
+
+    private static long estimateBytes(Object o){
+        if(o instanceof NDArray){
+            NDArray arr = (NDArray) o;
+            long prod = 1;
+            for(long l : arr.shape())
+                prod *= l;
+            NDArrayType t = arr.type();
+            return prod * (t.isFixedWidth() ? t.width() : 8);
+        } else if(o instanceof Image){
+            Image i = (Image) o;
+            return 3L * i.height() * i.width();
+        } else if(o instanceof String){
+            return 2L * ((String) o).length();
+        } else if(o instanceof byte[]){
+            return ((byte[]) o).length;
+        } else if(o instanceof Data){
+            return estimateBytes((Data) o);
+        } else if(o instanceof List){
+            long total = 0;
+            for(Object o2 : (List<?>) o)
+                total += estimateBytes(o2);
+            return total;
+        }
+        return 8;
+    }
+
+    /**
+     * Cache key: hash of the input Data instance
+     */
+    public static final class Key {
+        private final byte[] hash;
+        private final int hashCode;
+
+        private Key(byte[] hash){
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof Key && Arrays.equals(hash, ((Key) o).hash);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final Data data;
+        private final long bytes;
+        private final long created;
+    }
+
+    @AllArgsConstructor
+    private static class DigestStream extends OutputStream {
+        private final MessageDigest md;
+
+        @Override
+        public void write(int b){
+            md.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len){
+            md.update(b, off, len);
+        }
+    }
+}
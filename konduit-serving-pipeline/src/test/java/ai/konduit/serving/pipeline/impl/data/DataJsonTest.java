@@ -27,6 +27,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class DataJsonTest {
 
@@ -183,4 +185,24 @@ public class DataJsonTest {
         Data meta2 = d2.getMetaData();
         assertEquals(meta ,meta2);
     }
+
+    @Test
+    public void testNumericNDArrays(){
+        Data d = Data.singleton("float", NDArray.create(new float[][]{{0, 1.5f, 2}, {3, 4, -5}}));
+        d.put("double", NDArray.create(new double[]{0, 1, Math.PI}));
+        d.put("int", NDArray.create(new int[]{-1, 0, Integer.MAX_VALUE}));
+        d.put("long", NDArray.create(new long[]{Long.MIN_VALUE, 0, 1}));
+        d.put("inner", Data.singleton("innerArray", NDArray.create(new float[]{7, 8, 9})));
+
+        String json = d.toJson(true);
+        assertTrue(json.contains(Data.RESERVED_KEY_NDARRAY_DATA_ARRAY));
+        assertFalse(json.contains(Data.RESERVED_KEY_NDARRAY_DATA_BASE64));
+        assertTrue(json.contains("1.5"));
+        assertEquals(d, Data.fromJson(json));
+
+        String base64Json = d.toJson(false);
+        assertFalse(base64Json.contains(Data.RESERVED_KEY_NDARRAY_DATA_ARRAY));
+        assertEquals(d, Data.fromJson(base64Json));
+        assertEquals(d.toJson(), base64Json);
+    }
 }
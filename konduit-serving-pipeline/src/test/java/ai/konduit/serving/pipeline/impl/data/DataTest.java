@@ -18,26 +18,35 @@ package ai.konduit.serving.pipeline.impl.data;
 import ai.konduit.serving.pipeline.api.data.*;
 import ai.konduit.serving.pipeline.impl.data.box.BBoxCHW;
 import ai.konduit.serving.pipeline.impl.data.box.BBoxXY;
+import ai.konduit.serving.pipeline.impl.data.image.Bmp;
+import ai.konduit.serving.pipeline.impl.data.image.Gif;
+import ai.konduit.serving.pipeline.impl.data.image.Jpeg;
 import ai.konduit.serving.pipeline.impl.data.image.Png;
+import ai.konduit.serving.pipeline.impl.data.image.base.BaseImageFile;
 import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
 import org.apache.commons.compress.utils.Lists;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.nd4j.common.resources.Resources;
 
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static ai.konduit.serving.pipeline.impl.data.JData.empty;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class DataTest {
@@ -347,6 +356,37 @@ public class DataTest {
         assertEquals(imageData.get(KEY), restoredData.get(KEY));
     }
 
+    @Test
+    public void testEncodedImagePassthrough() {
+        BufferedImage bi = new BufferedImage(32, 32, BufferedImage.TYPE_3BYTE_BGR);
+        for( int x=0; x<32; x++ ){
+            bi.setRGB(x, x, 0xFF8000);
+        }
+        Image png = Image.create(Image.create(bi).getAs(Png.class));
+        List<Image> images = Arrays.asList(
+                Image.create(png.getAs(Jpeg.class)),
+                Image.create(png.getAs(Bmp.class)),
+                Image.create(png.getAs(Gif.class)));
+
+        for(Image i : images) {
+            BaseImageFile orig = (BaseImageFile) i.get();
+            Data d = Data.singleton(KEY, i);
+            d.putListImage("list", Arrays.asList(i, png));
+
+            //Images are serialized in their current format, not converted to PNG
+            for(Data restored : new Data[]{Data.fromBytes(d.asBytes()), Data.fromJson(d.toJson())}) {
+                Object o = restored.getImage(KEY).get();
+                assertEquals(orig.getClass(), o.getClass());
+                assertArrayEquals(orig.getBytes(), ((BaseImageFile) o).getBytes());
+
+                List<Image> l = restored.getListImage("list");
+                assertEquals(orig.getClass(), l.get(0).get().getClass());
+                assertEquals(Png.class, l.get(1).get().getClass());
+                assertEquals(d, restored);
+            }
+        }
+    }
+
     @Test
     public void testNDArraySerde() throws IOException {
         float[] rawData = {1, 3, 6, 7, 8, 10, 4, 3, 2, 4};
@@ -360,6 +400,56 @@ public class DataTest {
         assertEquals(ndData.get(KEY), restoredData.get(KEY));
     }
 
+    @Test
+    public void testNDArrayBufferSerde() {
+        float[] rawData = {1, 3, 6, 7, 8, 10, 4, 3, 2, 4};
+        Data ndData = Data.singleton(KEY, NDArray.create(new float[][]{rawData}));
+        ndData.put("other", "value");
+
+        //Deserialize from a heap buffer with an offset, and from a direct buffer
+        byte[] bytes = ndData.asBytes();
+        byte[] padded = new byte[bytes.length + 7];
+        System.arraycopy(bytes, 0, padded, 5, bytes.length);
+        ByteBuffer heap = ByteBuffer.wrap(padded, 5, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        for(ByteBuffer bb : new ByteBuffer[]{heap, direct}) {
+            Data restored = Data.fromBuffer(bb);
+            assertEquals(ndData, restored);
+            assertArrayEquals(rawData, restored.getNDArray(KEY).getAs(float[][].class)[0], 0.0f);
+
+            //NDArray values should be views of the input buffer, not copies
+            SerializedNDArray sn = restored.getNDArray(KEY).getAs(SerializedNDArray.class);
+            assertTrue(sn.getBuffer().isReadOnly());
+            assertEquals(bb.isDirect(), sn.getBuffer().isDirect());
+        }
+    }
+
+    @Test
+    public void testNDArrayChunkedSerde() throws Exception {
+        float[][] rawData = new float[100][10];
+        for( int i=0; i<rawData.length; i++ ){
+            for( int j=0; j<rawData[i].length; j++ ){
+                rawData[i][j] = i * 10 + j;
+            }
+        }
+        Data ndData = Data.singleton(KEY, NDArray.create(rawData));
+        ndData.putListNDArray("list", Arrays.asList(NDArray.create(rawData), NDArray.create(new float[]{1,2,3})));
+
+        //No chunking by default
+        assertEquals(1, ndData.toProtoData().toProtoMessage().getMapItemsOrThrow(KEY).getNdValue().getArrayCount());
+
+        //4000 bytes of data -> 3 chunks, the last one partial
+        DataProtoMessage.DataMap pb = ndData.toProtoData().toProtoMessage(1500);
+        assertEquals(3, pb.getMapItemsOrThrow(KEY).getNdValue().getArrayCount());
+        assertEquals(1000, pb.getMapItemsOrThrow(KEY).getNdValue().getArray(2).size());
+
+        Data restored = Data.fromBytes(pb.toByteArray());
+        assertEquals(ndData, restored);
+        assertArrayEquals(rawData, restored.getNDArray(KEY).getAs(float[][].class));
+    }
+
     @Test
     public void testImageListSerde() throws IOException {
         List<Image> imageList = new ArrayList<>();
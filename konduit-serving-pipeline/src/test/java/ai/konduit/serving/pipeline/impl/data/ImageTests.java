@@ -156,6 +156,45 @@ public class ImageTests {
 
     }
 
+    @Test
+    public void testConversionCache() throws Exception {
+        File f = Resources.asFile("data/5_32x32.png");
+        Image i = Image.create(f);
+
+        //Each representation should be produced once, then reused - but each caller gets its own copy of mutable types
+        BufferedImage bi = i.getAs(BufferedImage.class);
+        BufferedImage bi2 = i.getAs(BufferedImage.class);
+        assertNotSame(bi, bi2);
+        assertTrue(bufferedImagesEqual(bi, bi2));
+        int rgb = bi.getRGB(0, 0);
+        bi.setRGB(0, 0, ~rgb);
+        assertEquals(rgb, i.getAs(BufferedImage.class).getRGB(0, 0));
+        assertSame(i.get(), i.getAs(Png.class));
+
+        //Immutable types are shared
+        Image fromBi = Image.create(bi2);
+        Png png = fromBi.getAs(Png.class);
+        assertSame(png, fromBi.getAs(Png.class));
+
+        //Types without a copier are not cached
+        ConversionCache cache = new ConversionCache(2);
+        Object o = new Object();
+        assertSame(o, cache.put(Object.class, o));
+        assertEquals(0, cache.size());
+
+        //Bounded cache: the least recently used conversion is evicted
+        Png p1 = new Png(new byte[1]);
+        Png p2 = new Png(new byte[2]);
+        Png p3 = new Png(new byte[3]);
+        cache.put("a", p1);
+        cache.put("b", p2);
+        assertSame(p1, cache.get("a"));
+        cache.put("c", p3);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertSame(p1, cache.get("a"));
+    }
+
     @AllArgsConstructor
     @lombok.Data
     public static class TestImageObject {
@@ -36,7 +36,7 @@ import java.nio.FloatBuffer;
 import java.util.Collections;
 import java.util.Set;
 
-import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.*;
 
 public class NDArrayTests {
 
@@ -67,6 +67,33 @@ public class NDArrayTests {
         assertArrayEquals(f, outF, 0.0f);
     }
 
+    @Test
+    public void testConverterRouting(){
+        NDArray a1 = NDArray.create(new float[][]{{1,2},{3,4}});
+        NDArray a2 = NDArray.create(new float[][]{{5,6,7}});
+
+        //Same class, type and rank: resolved once, then the same converter is returned from the routing table
+        NDArrayConverter c1 = NDArrayConverterRegistry.getConverterFor(a1, SerializedNDArray.class);
+        NDArrayConverter c2 = NDArrayConverterRegistry.getConverterFor(a2, SerializedNDArray.class);
+        assertNotNull(c1);
+        assertSame(c1, c2);
+
+        //Routes depend on the data type and rank of serialized arrays, not just the class
+        NDArray s2 = NDArray.create(a1.getAs(SerializedNDArray.class));
+        NDArray s1 = NDArray.create(NDArray.create(new float[]{1,2,3}).getAs(SerializedNDArray.class));
+        assertTrue(s2.canGetAs(float[][].class));
+        assertFalse(s2.canGetAs(float[].class));
+        assertTrue(s1.canGetAs(float[].class));
+        assertFalse(s1.canGetAs(float[][].class));
+        assertFalse(s2.canGetAs(double[][].class));
+
+        //Two step conversions are resolved once and reused
+        NDArrayConverter chain = NDArrayConverterRegistry.getConverterFor(a1, float[][].class);
+        assertNotNull(chain);
+        assertSame(chain, NDArrayConverterRegistry.getConverterFor(a2, float[][].class));
+        assertArrayEquals(new float[]{5,6,7}, a2.getAs(float[][].class)[0], 0.0f);
+    }
+
     @AllArgsConstructor
     @lombok.Data
     public static class TestNDArrayObject {
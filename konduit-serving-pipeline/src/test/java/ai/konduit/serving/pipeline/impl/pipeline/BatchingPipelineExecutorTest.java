@@ -0,0 +1,215 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.pipeline;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.testpipelines.fn.FunctionStep;
+import ai.konduit.serving.pipeline.util.BatchUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchingPipelineExecutorTest {
+
+    @Test
+    public void testStackSplit(){
+        Data d1 = Data.singleton("x", NDArray.create(new float[][]{{1, 2, 3}}));
+        d1.put("s", "value");
+        Data d2 = Data.singleton("x", NDArray.create(new float[][]{{4, 5, 6}, {7, 8, 9}}));
+        d2.put("s", "value");
+        Data d3 = Data.singleton("x", NDArray.create(new float[][]{{4, 5}}));
+        d3.put("s", "value");
+
+        assertTrue(BatchUtils.canStack(d1, d2));
+        assertFalse(BatchUtils.canStack(d1, d3));
+
+        Data stacked = BatchUtils.stack(Arrays.asList(d1, d2));
+        assertArrayEquals(new long[]{3, 3}, stacked.getNDArray("x").shape());
+        assertEquals("value", stacked.getString("s"));
+
+        Data[] split = BatchUtils.split(stacked, new long[]{1, 2});
+        assertEquals(2, split.length);
+        assertTrue(Arrays.deepEquals(new float[][]{{1, 2, 3}}, split[0].getNDArray("x").getAs(float[][].class)));
+        assertTrue(Arrays.deepEquals(new float[][]{{4, 5, 6}, {7, 8, 9}}, split[1].getNDArray("x").getAs(float[][].class)));
+        assertEquals("value", split[1].getString("s"));
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        List<Long> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    NDArray arr = d.getNDArray("in");
+                    batchSizes.add(arr.shape()[0]);
+                    return Data.singleton("out", arr);
+                }))
+                .build();
+
+        int n = 8;
+        PipelineExecutor exec = BatchingPipelineExecutor.builder(p.executor())
+                .maxBatchSize(n)
+                .maxWaitTimeMs(1000)
+                .build();
+
+        try {
+            Data[] in = new Data[n];
+            for (int i = 0; i < n; i++) {
+                in[i] = Data.singleton("in", NDArray.create(new float[][]{{i, 2 * i}}));
+            }
+
+            Data[] out = exec.exec(in);
+            assertEquals(Collections.singletonList((long) n), batchSizes);
+            for (int i = 0; i < n; i++) {
+                float[][] f = out[i].getNDArray("out").getAs(float[][].class);
+                assertTrue(Arrays.deepEquals(new float[][]{{i, 2 * i}}, f));
+            }
+
+            //Incompatible requests should be executed separately
+            batchSizes.clear();
+            Data[] out2 = exec.exec(Data.singleton("in", NDArray.create(new float[][]{{1, 2}})),
+                    Data.singleton("in", NDArray.create(new float[][]{{1, 2, 3}})));
+            assertEquals(2, batchSizes.size());
+            assertEquals(2, out2.length);
+        } finally {
+            exec.close();
+        }
+    }
+
+    @Test
+    public void testNonBatchMajorOutput() throws Exception {
+        //Output is derived from the first example only, like SSD bounding box decoding
+        List<Long> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    if(d.has("x")) {
+                        //Batch-major output
+                        NDArray x = d.getNDArray("x");
+                        batchSizes.add(x.shape()[0]);
+                        return Data.singleton("out", x);
+                    }
+                    float[][] f = d.getNDArray("in").getAs(float[][].class);
+                    batchSizes.add((long) f.length);
+                    Data out = Data.singleton("first", (double) f[0][0]);
+                    out.put("sum", NDArray.create(new float[]{f[0][0] + f[0][1]}));
+                    return out;
+                }))
+                .build();
+
+        int n = 4;
+        BatchingPipelineExecutor exec = BatchingPipelineExecutor.builder(p.executor())
+                .maxBatchSize(n)
+                .maxWaitTimeMs(1000)
+                .build();
+
+        try {
+            for( int iter=0; iter<2; iter++ ) {
+                Data[] in = new Data[n];
+                for (int i = 0; i < n; i++) {
+                    in[i] = Data.singleton("in", NDArray.create(new float[][]{{i, 2 * i}}));
+                }
+
+                Data[] out = exec.exec(in);
+                for (int i = 0; i < n; i++) {
+                    assertEquals(i, out[i].getDouble("first"), 0.0);
+                    assertArrayEquals(new float[]{3 * i}, out[i].getNDArray("sum").getAs(float[].class), 0.0f);
+                }
+            }
+            //For each batch: one batched execution (to detect the output), then individual executions
+            assertEquals(2 * (1 + n), batchSizes.size());
+            for( int i=0; i<batchSizes.size(); i++ ){
+                assertEquals(i % (1 + n) == 0 ? n : 1L, (long) batchSizes.get(i));
+            }
+
+            //Batches with batch-major outputs should still be executed as a batch
+            batchSizes.clear();
+            Data[] in = new Data[n];
+            for (int i = 0; i < n; i++) {
+                in[i] = Data.singleton("x", NDArray.create(new float[][]{{i}}));
+            }
+            Data[] out = exec.exec(in);
+            assertEquals(Collections.singletonList((long) n), batchSizes);
+            for (int i = 0; i < n; i++) {
+                assertTrue(Arrays.deepEquals(new float[][]{{i}}, out[i].getNDArray("out").getAs(float[][].class)));
+            }
+        } finally {
+            exec.close();
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void testCloseUnderLoad() throws Exception {
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e){
+                        Thread.currentThread().interrupt();
+                    }
+                    return Data.singleton("out", d.getNDArray("in"));
+                }))
+                .build();
+
+        BatchingPipelineExecutor exec = BatchingPipelineExecutor.builder(p.executor())
+                .maxBatchSize(4)
+                .maxWaitTimeMs(20)
+                .queueLimit(8)
+                .build();
+
+        int nThreads = 8;
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for( int t=0; t<nThreads; t++ ){
+            Thread th = new Thread(() -> {
+                for( int i=0; i<1000; i++ ){
+                    try {
+                        exec.exec(Data.singleton("in", NDArray.create(new float[][]{{i}})));
+                        completed.incrementAndGet();
+                    } catch (IllegalStateException e){
+                        //Executor closed
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+            th.setDaemon(true);
+            th.start();
+            threads.add(th);
+        }
+
+        Thread.sleep(200);
+        exec.close();
+
+        //Every caller must return (normally or with an exception) - none may block forever
+        for(Thread th : threads){
+            th.join(10000);
+            assertFalse("Caller thread is blocked after close", th.isAlive());
+        }
+        assertTrue(completed.get() > 0);
+        assertEquals(nThreads * 1000, completed.get() + failed.get());
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.pipeline;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.data.ndarray.SerializedNDArray;
+import ai.konduit.serving.pipeline.impl.testpipelines.fn.FunctionStep;
+import ai.konduit.serving.pipeline.util.BufferPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class BufferPoolTest {
+
+    private boolean enabledBefore;
+
+    @Before
+    public void before(){
+        enabledBefore = BufferPool.isEnabled();
+        BufferPool.setEnabled(true);
+        assumeTrue(BufferPool.isEnabled());
+    }
+
+    @After
+    public void after(){
+        BufferPool.setEnabled(enabledBefore);
+    }
+
+    @Test
+    public void testAllocate(){
+        //Outside of a scope: not pooled
+        long misses = BufferPool.misses();
+        ByteBuffer bb = BufferPool.allocate(100);
+        assertEquals(100, bb.capacity());
+        assertTrue(bb.isDirect());
+        assertEquals(misses, BufferPool.misses());
+
+        BufferPool.Scope s = BufferPool.openScope();
+        bb = BufferPool.allocate(3000);
+        assertEquals(3000, bb.capacity());
+        assertEquals(0, bb.position());
+        assertEquals(misses + 1, BufferPool.misses());
+        assertEquals(4096, BufferPool.usedBytes());
+        s.close();
+        assertEquals(0, BufferPool.usedBytes());
+
+        //Same size class - should reuse the buffer
+        long hits = BufferPool.hits();
+        s = BufferPool.openScope();
+        BufferPool.allocate(4000);
+        assertEquals(hits + 1, BufferPool.hits());
+        s.close();
+    }
+
+    @Test
+    public void testPipelineReuse(){
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    //Intermediate array - not part of the output
+                    float[] f = d.getNDArray("in").getAs(float[].class);
+                    SerializedNDArray sa = NDArray.create(f).getAs(SerializedNDArray.class);
+                    return Data.singleton("intermediate", NDArray.create(sa));
+                }))
+                .add(new FunctionStep(d -> {
+                    float[] f = d.getNDArray("intermediate").getAs(float[].class);
+                    float sum = 0;
+                    for(float v : f)
+                        sum += v;
+                    return Data.singleton("sum", (double)sum);
+                }))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        Data in = Data.singleton("in", NDArray.create(new float[]{1, 2, 3, 4}));
+        assertEquals(10.0, exec.exec(in).getDouble("sum"), 0.0);
+        assertEquals(0, BufferPool.usedBytes());
+
+        long hits = BufferPool.hits();
+        long misses = BufferPool.misses();
+        for( int i=0; i<10; i++ ){
+            assertEquals(10.0, exec.exec(in).getDouble("sum"), 0.0);
+        }
+        //Steady state: no new allocations
+        assertEquals(misses, BufferPool.misses());
+        assertEquals(hits + 10, BufferPool.hits());
+    }
+
+    @Test
+    public void testReferencedBuffersNotReused(){
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    //Converts the input to SerializedNDArray (cached in the input NDArray), and returns a view of it
+                    SerializedNDArray sa = d.getNDArray("in").getAs(SerializedNDArray.class);
+                    ByteBuffer view = sa.getBuffer().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                    return Data.singleton("out", NDArray.create(new SerializedNDArray(sa.getType(), sa.getShape(), view)));
+                }))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        List<Data> inputs = new ArrayList<>();
+        List<Data> outputs = new ArrayList<>();
+        for( int i=0; i<5; i++ ){
+            Data in = Data.singleton("in", NDArray.create(new float[]{i, i, i}));
+            inputs.add(in);
+            outputs.add(exec.exec(in));
+        }
+
+        for( int i=0; i<5; i++ ){
+            assertArrayEquals(new float[]{i, i, i}, outputs.get(i).getNDArray("out").getAs(float[].class), 0.0f);
+            SerializedNDArray sa = inputs.get(i).getNDArray("in").getAs(SerializedNDArray.class);
+            assertEquals(i, sa.getBuffer().getFloat(0), 0.0f);
+        }
+        assertEquals(0, BufferPool.usedBytes());
+    }
+
+    @Test
+    public void testRetain(){
+        List<Data> stored = new ArrayList<>();
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    NDArray arr = NDArray.create(NDArray.create(d.getNDArray("in").getAs(float[].class)).getAs(SerializedNDArray.class));
+                    Data toStore = Data.singleton("stored", arr);
+                    BufferPool.retain(toStore);
+                    stored.add(toStore);
+                    return Data.singleton("out", 0.0);
+                }))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        for( int i=0; i<5; i++ ){
+            exec.exec(Data.singleton("in", NDArray.create(new float[]{i, i})));
+        }
+        for( int i=0; i<5; i++ ){
+            assertArrayEquals(new float[]{i, i}, stored.get(i).getNDArray("stored").getAs(float[].class), 0.0f);
+        }
+        assertEquals(0, BufferPool.usedBytes());
+    }
+
+    @Test
+    public void testStatefulRunner(){
+        //Pooling disabled: a step may keep its input between exec calls without retaining it
+        BufferPool.setEnabled(false);
+        statefulRunner(false);
+
+        //Pooling enabled: a step that keeps its input must retain it
+        BufferPool.setEnabled(true);
+        statefulRunner(true);
+        assertEquals(0, BufferPool.usedBytes());
+    }
+
+    private void statefulRunner(boolean retain){
+        NDArray[] previous = new NDArray[1];
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    float[] f = d.getNDArray("in").getAs(float[].class);
+                    return Data.singleton("intermediate", NDArray.create(NDArray.create(f).getAs(SerializedNDArray.class)));
+                }))
+                .add(new FunctionStep(d -> {
+                    //Outputs the input of the previous exec call
+                    NDArray current = d.getNDArray("intermediate");
+                    float[] out = previous[0] == null ? new float[0] : previous[0].getAs(float[].class);
+                    previous[0] = current;
+                    if(retain)
+                        BufferPool.retain(d);
+                    return Data.singleton("previous", NDArray.create(out));
+                }))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        exec.exec(Data.singleton("in", NDArray.create(new float[]{1, 2, 3})));
+        Data out = exec.exec(Data.singleton("in", NDArray.create(new float[]{4, 5, 6})));
+        assertArrayEquals(new float[]{1, 2, 3}, out.getNDArray("previous").getAs(float[].class), 0.0f);
+        assertArrayEquals(new float[]{4, 5, 6}, previous[0].getAs(float[].class), 0.0f);
+    }
+
+    @Test
+    public void testIntegerArraysWithDirtyPool(){
+        //Fill pooled buffers with garbage: conversions must size and overwrite their buffers exactly
+        BufferPool.Scope s = BufferPool.openScope();
+        for( int i=0; i<4; i++ ){
+            ByteBuffer bb = BufferPool.allocate(1024 << i);
+            while(bb.hasRemaining())
+                bb.put((byte) 0x7F);
+        }
+        s.close();
+
+        int[] i32 = {1, -2, 3, Integer.MAX_VALUE};
+        long[] i64 = {1, -2, 3, Long.MAX_VALUE};
+        short[] i16 = {1, -2, 3, Short.MAX_VALUE};
+        Object[] arrays = {i32, i64, i16};
+        int[] widths = {4, 8, 2};
+        for( int i=0; i<arrays.length; i++ ) {
+            s = BufferPool.openScope();
+            SerializedNDArray sa = NDArray.create(arrays[i]).getAs(SerializedNDArray.class);
+            assertEquals(4 * widths[i], sa.getBuffer().remaining());
+            assertEquals(4 * widths[i], sa.getBuffer().capacity());
+
+            NDArray roundTrip = NDArray.create(sa);
+            if(i == 0) {
+                assertArrayEquals(i32, roundTrip.getAs(int[].class));
+            } else if(i == 1){
+                assertArrayEquals(i64, roundTrip.getAs(long[].class));
+            } else {
+                assertArrayEquals(i16, roundTrip.getAs(short[].class));
+            }
+            assertEquals(sa, NDArray.create(arrays[i]).getAs(SerializedNDArray.class));
+            s.close();
+        }
+    }
+}
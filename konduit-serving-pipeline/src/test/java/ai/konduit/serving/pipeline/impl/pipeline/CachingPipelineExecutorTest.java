@@ -0,0 +1,192 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.pipeline;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.step.cache.CachePipelineStep;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
+import ai.konduit.serving.pipeline.impl.testpipelines.fn.FunctionStep;
+import ai.konduit.serving.pipeline.registry.MicrometerRegistry;
+import ai.konduit.serving.pipeline.util.DataCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CachingPipelineExecutorTest {
+
+    @Test
+    public void testKey(){
+        Data d1 = Data.singleton("a", "value");
+        d1.put("b", 1L);
+        Data d2 = Data.singleton("b", 1L);
+        d2.put("a", "value");
+        assertEquals(DataCache.key(d1), DataCache.key(d2));
+        assertNotEquals(DataCache.key(d1), DataCache.key(Data.singleton("a", "value")));
+    }
+
+    @Test
+    public void testCaching(){
+        AtomicInteger count = new AtomicInteger();
+        Pipeline p = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    count.incrementAndGet();
+                    return Data.singleton("out", d.getNDArray("in"));
+                }))
+                .build();
+
+        CachingPipelineExecutor exec = CachingPipelineExecutor.builder(p.executor())
+                .maxEntries(2)
+                .name("testCaching")
+                .build();
+        try {
+            Data in1 = Data.singleton("in", NDArray.create(new float[]{1, 2, 3}));
+            Data in2 = Data.singleton("in", NDArray.create(new float[]{4, 5, 6}));
+            Data in3 = Data.singleton("in", NDArray.create(new float[]{7, 8, 9}));
+
+            Data out1 = exec.exec(in1);
+            assertEquals(1, count.get());
+            assertEquals(out1, exec.exec(Data.singleton("in", NDArray.create(new float[]{1, 2, 3}))));
+            assertEquals(1, count.get());
+
+            //Modifying the returned instance should not modify the cached output
+            out1.put("extra", "value");
+            assertFalse(exec.exec(in1).has("extra"));
+
+            //Batch: misses only should be executed
+            Data[] out = exec.exec(in1, in2);
+            assertEquals(2, count.get());
+            assertEquals(Data.singleton("out", in2.getNDArray("in")), out[1]);
+            assertEquals(3, exec.getCache().hits());
+            assertEquals(2, exec.getCache().misses());
+
+            //Max entries: in1 is least recently used and should be evicted
+            exec.exec(in2);
+            exec.exec(in3);
+            assertEquals(2, exec.getCache().size());
+            assertEquals(3, count.get());
+            exec.exec(in1);
+            assertEquals(4, count.get());
+
+            double hits = MicrometerRegistry.getRegistry().get("konduit.cache.hits").tag(DataCache.METRIC_TAG, "testCaching").counter().count();
+            assertEquals(4.0, hits, 0.0);
+        } finally {
+            exec.close();
+        }
+    }
+
+    @Test
+    public void testGauges(){
+        MeterRegistry registry = MicrometerRegistry.getRegistry();
+        DataCache c1 = new DataCache("testGauges", 10, 1000, 0);
+        DataCache c2 = new DataCache("testGauges", 10, 1000, 0);
+        c1.put(DataCache.key(Data.singleton("in", "x")), Data.singleton("out", "x"));
+
+        //Caches with the same name should have separate gauges
+        Collection<Gauge> gauges = registry.find("konduit.cache.size").tag(DataCache.METRIC_TAG, "testGauges").gauges();
+        assertEquals(2, gauges.size());
+        double total = 0;
+        for(Gauge g : gauges)
+            total += g.value();
+        assertEquals(1.0, total, 0.0);
+
+        //Closed caches should no longer be referenced by the registry
+        c1.close();
+        c2.close();
+        assertTrue(registry.find("konduit.cache.size").tag(DataCache.METRIC_TAG, "testGauges").gauges().isEmpty());
+        assertTrue(registry.find("konduit.cache.bytes").tag(DataCache.METRIC_TAG, "testGauges").gauges().isEmpty());
+    }
+
+    @Test
+    public void testMaxBytesAndTtl() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        PipelineExecutor underlying = SequencePipeline.builder()
+                .add(new FunctionStep(d -> {
+                    count.incrementAndGet();
+                    return d;
+                }))
+                .build().executor();
+
+        //Each output is 3 floats = 12 bytes
+        CachingPipelineExecutor exec = CachingPipelineExecutor.builder(underlying)
+                .maxBytes(30)
+                .ttlMs(100)
+                .name("testMaxBytesAndTtl")
+                .build();
+        try {
+            for (int i = 0; i < 3; i++) {
+                exec.exec(Data.singleton("in", NDArray.create(new float[]{i, i, i})));
+            }
+            assertEquals(2, exec.getCache().size());
+            assertEquals(24, exec.getCache().bytes());
+
+            Data in = Data.singleton("in", NDArray.create(new float[]{2, 2, 2}));
+            exec.exec(in);
+            assertEquals(3, count.get());
+            Thread.sleep(200);
+            exec.exec(in);
+            assertEquals(4, count.get());
+        } finally {
+            exec.close();
+        }
+    }
+
+    @Test
+    public void testCachePipelineStep(){
+        AtomicInteger count = new AtomicInteger();
+        Pipeline p = SequencePipeline.builder()
+                .add(LoggingPipelineStep.builder().build())
+                .add(CachePipelineStep.builder()
+                        .pipeline(SequencePipeline.builder()
+                                .add(new FunctionStep(d -> {
+                                    count.incrementAndGet();
+                                    return Data.singleton("out", d.getString("in") + "!");
+                                }))
+                                .build())
+                        .build())
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        try {
+            assertEquals(Data.singleton("out", "x!"), exec.exec(Data.singleton("in", "x")));
+            assertEquals(Data.singleton("out", "x!"), exec.exec(Data.singleton("in", "x")));
+            assertEquals(1, count.get());
+        } finally {
+            exec.close();
+        }
+
+        //JSON/YAML serialization
+        Pipeline p2 = SequencePipeline.builder()
+                .add(CachePipelineStep.builder()
+                        .pipeline(SequencePipeline.builder().add(LoggingPipelineStep.builder().build()).build())
+                        .maxEntries(100)
+                        .ttlMs(1000)
+                        .build())
+                .build();
+        assertEquals(p2, Pipeline.fromJson(p2.toJson()));
+        assertEquals(p2, Pipeline.fromYaml(p2.toYaml()));
+    }
+}
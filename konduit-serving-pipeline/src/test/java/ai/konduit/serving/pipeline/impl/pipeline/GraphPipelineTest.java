@@ -38,10 +38,14 @@ import org.junit.Test;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class GraphPipelineTest {
 
@@ -253,4 +257,138 @@ public class GraphPipelineTest {
             assertEquals(outRight, outRight2);
         }
     }
+
+    @Test
+    public void testParallelMerge() throws Exception {
+        GraphBuilder b = new GraphBuilder();
+        GraphStep input = b.input();
+
+        //Both branches can only complete if they are executed concurrently
+        CountDownLatch latch = new CountDownLatch(2);
+        GraphStep step1 = input.then("step1", new FunctionStep(d -> {
+            awaitLatch(latch);
+            return Data.singleton("outputStep1", "outputStep1Value");
+        }));
+        GraphStep step2 = input.then("step2", new FunctionStep(d -> {
+            awaitLatch(latch);
+            return Data.singleton("outputStep2", "outputStep2Value");
+        }));
+        GraphStep step3 = step2.then("step3", new FunctionStep(d -> {
+            Data out = d.clone();
+            out.put("outputStep3", "outputStep3Value");
+            return out;
+        }));
+        GraphStep merge = step1.mergeWith("merge", step3);
+
+        GraphPipeline p = b.build(merge);
+
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            PipelineExecutor exec = p.executor(es);
+
+            Data exp = Data.singleton("outputStep1", "outputStep1Value");
+            exp.put("outputStep2", "outputStep2Value");
+            exp.put("outputStep3", "outputStep3Value");
+
+            Data in = Data.singleton("input", "inputValue");
+            assertEquals(exp, exec.exec(in));
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelSwitchAndErrors() {
+        GraphBuilder b = new GraphBuilder();
+        GraphStep input = b.input();
+
+        SwitchFn fn = new DataIntSwitchFn(2, "int");
+        GraphStep[] sw = b.switchOp("switch", fn, input);
+
+        CountStep leftCount = new CountStep();
+        GraphStep lOut = sw[0].then("testLeft", leftCount);
+        GraphStep rOut = sw[1].then("testRight", new FunctionStep(d -> {
+            throw new IllegalStateException("Right branch failed");
+        }));
+        GraphStep any = b.any("any", lOut, rOut);
+
+        GraphPipeline p = b.build(any);
+
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            PipelineExecutor exec = p.executor(es);
+
+            Data in = Data.singleton("int", 0);
+            for( int i=0; i<10; i++ ) {
+                assertEquals(in, exec.exec(in));
+            }
+            assertEquals(10, leftCount.count);
+
+            try {
+                exec.exec(Data.singleton("int", 1));
+                fail("Expected exception");
+            } catch (IllegalStateException e){
+                assertEquals("Right branch failed", e.getMessage());
+            }
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch){
+        latch.countDown();
+        try {
+            assertTrue("Branches were not executed in parallel", latch.await(30, TimeUnit.SECONDS));
+        } catch (InterruptedException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testBatchedExec(){
+        //exec(Data...) should execute each step once for all inputs, via the runners' batched exec method
+        AtomicInteger singleCalls = new AtomicInteger();
+        AtomicInteger batchCalls = new AtomicInteger();
+        Function<Data,Data> fn = d -> {
+            singleCalls.incrementAndGet();
+            return Data.singleton("x" + d.size(), d.getLong("x0") + 1);
+        };
+        Function<Data[],Data[]> batchFn = d -> {
+            batchCalls.incrementAndGet();
+            Data[] out = new Data[d.length];
+            for( int i=0; i<d.length; i++ ){
+                out[i] = Data.singleton("x" + d[i].size(), d[i].getLong("x0") + 1);
+            }
+            return out;
+        };
+
+        GraphBuilder b = new GraphBuilder();
+        GraphStep input = b.input();
+        GraphStep step1 = input.then("step1", new FunctionStep(fn, batchFn));
+        GraphStep step2 = input.then("step2", new FunctionStep(d -> Data.singleton("y", d.getLong("x0") * 10)));
+        Pipeline graph = b.build(step1.mergeWith("merge", step2));
+
+        Pipeline sequence = SequencePipeline.builder()
+                .add(new FunctionStep(fn, batchFn))
+                .build();
+
+        Data[] in = new Data[4];
+        for( int i=0; i<in.length; i++ ){
+            in[i] = Data.singleton("x0", (long) i);
+        }
+
+        for(Pipeline p : new Pipeline[]{graph, sequence}) {
+            singleCalls.set(0);
+            batchCalls.set(0);
+            Data[] out = p.executor().exec(in);
+            assertEquals(in.length, out.length);
+            assertEquals(0, singleCalls.get());
+            assertEquals(1, batchCalls.get());
+            for (int i = 0; i < in.length; i++) {
+                assertEquals(i + 1, out[i].getLong("x1"));
+                if(p == graph)
+                    assertEquals(10L * i, out[i].getLong("y"));
+            }
+        }
+    }
 }
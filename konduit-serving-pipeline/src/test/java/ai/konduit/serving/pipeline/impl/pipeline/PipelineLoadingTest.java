@@ -0,0 +1,136 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.pipeline;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import ai.konduit.serving.pipeline.impl.pipeline.graph.GraphBuilder;
+import ai.konduit.serving.pipeline.impl.pipeline.graph.GraphStep;
+import ai.konduit.serving.pipeline.impl.testpipelines.load.LoadPipelineRunner;
+import ai.konduit.serving.pipeline.impl.testpipelines.load.LoadStep;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PipelineLoadingTest {
+
+    @Before
+    public void before(){
+        LoadStep.reset();
+        System.setProperty(BasePipelineExecutor.LOAD_THREADS_PROPERTY, "4");
+    }
+
+    @After
+    public void after(){
+        System.clearProperty(BasePipelineExecutor.LOAD_THREADS_PROPERTY);
+    }
+
+    @Test
+    public void testParallelLoading(){
+        LoadStep[] steps = new LoadStep[4];
+        SequencePipeline.Builder b = SequencePipeline.builder();
+        for( int i=0; i<steps.length; i++ ){
+            steps[i] = new LoadStep(200 + i, false);
+            b.add(steps[i]);
+        }
+        Pipeline p = b.build();
+
+        PipelineExecutor exec = p.executor();
+        List<PipelineStepRunner> runners = exec.getRunners();
+        assertEquals(4, runners.size());
+        for( int i=0; i<steps.length; i++ ){
+            assertSame(steps[i], runners.get(i).getPipelineStep());     //Order should be preserved
+        }
+        assertTrue(LoadStep.maxConcurrentLoading.get() > 1);
+
+        exec.close();
+        assertEquals(4, LoadStep.closed.get());
+
+        //Sequential loading
+        LoadStep.reset();
+        System.setProperty(BasePipelineExecutor.LOAD_THREADS_PROPERTY, "1");
+        p.executor().close();
+        assertEquals(1, LoadStep.maxConcurrentLoading.get());
+        assertEquals(4, LoadStep.closed.get());
+    }
+
+    @Test
+    public void testLoadingFailure(){
+        Pipeline p = SequencePipeline.builder()
+                .add(new LoadStep(100, false))
+                .add(new LoadStep(10, true))
+                .add(new LoadStep(100, false))
+                .build();
+
+        try {
+            p.executor();
+            fail("Expected exception");
+        } catch (IllegalStateException e){
+            assertTrue(e.getMessage(), e.getMessage().contains("Intentionally failing"));
+        }
+
+        //Runners that were successfully created should be closed
+        assertEquals(2, LoadStep.created.get());
+        assertEquals(2, LoadStep.closed.get());
+    }
+
+    @Test
+    public void testWarmup(){
+        Pipeline p = SequencePipeline.builder()
+                .add(new LoadStep(0, false))
+                .add(new LoadStep(0, false))
+                .build();
+
+        PipelineExecutor exec = p.executor();
+        exec.warmup(3);
+        for(PipelineStepRunner r : exec.getRunners()){
+            assertEquals(3, ((LoadPipelineRunner) r).getWarmupCount());
+        }
+
+        //Graph pipeline - merge steps have no runner
+        GraphBuilder gb = new GraphBuilder();
+        GraphStep in = gb.input();
+        GraphStep s1 = in.then("s1", new LoadStep(0, false));
+        GraphStep s2 = in.then("s2", new LoadStep(0, false));
+        Pipeline gp = gb.build(s1.mergeWith("merge", s2));
+
+        PipelineExecutor gExec = gp.executor();
+        gExec.warmup(2);
+        int count = 0;
+        for(PipelineStepRunner r : gExec.getRunners()){
+            if(r != null){
+                assertEquals(2, ((LoadPipelineRunner) r).getWarmupCount());
+                count++;
+            }
+        }
+        assertEquals(2, count);
+
+        //Full pipeline warm-up with an explicit input
+        exec.warmup(Data.singleton("warmup", true), 2);
+        for(PipelineStepRunner r : exec.getRunners()){
+            assertEquals(5, ((LoadPipelineRunner) r).getWarmupCount());
+        }
+    }
+}
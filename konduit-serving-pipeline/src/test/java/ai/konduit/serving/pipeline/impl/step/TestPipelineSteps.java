@@ -15,18 +15,24 @@
  ******************************************************************************/
 package ai.konduit.serving.pipeline.impl.step;
 
+import ai.konduit.serving.pipeline.api.data.BoundingBox;
 import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
 import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
+import ai.konduit.serving.pipeline.impl.step.ml.ssd.SSDToBoundingBoxStep;
+import ai.konduit.serving.pipeline.impl.testpipelines.fn.FunctionStep;
 import ai.konduit.serving.pipeline.impl.util.CallbackPipelineStep;
 import org.junit.Test;
 import org.slf4j.event.Level;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestPipelineSteps {
 
@@ -54,4 +60,34 @@ public class TestPipelineSteps {
         assertEquals(2, count2.get());
     }
 
+    @Test
+    public void testSSDToBoundingBoxCropRegion(){
+        //Crop region as produced by ImageToNDArrayStep for a letterboxed (padded) image: 25% padding top and bottom
+        BoundingBox cropRegion = BoundingBox.createXY(0.0, 1.0, -0.5, 1.5);
+
+        Data meta = Data.singleton("@ImageToNDArrayStepMetadata", Data.singleton(SSDToBoundingBoxStep.META_CROP_REGION, cropRegion));
+
+        for(boolean account : new boolean[]{false, true}) {
+            Pipeline p = SequencePipeline.builder()
+                    .add(new FunctionStep(d -> {
+                        //Model output with the ImageToNDArrayStep metadata passed through, [y1, x1, y2, x2] order
+                        Data out = Data.singleton("detection_boxes", NDArray.create(new float[][][]{{{0.25f, 0.5f, 0.75f, 1.0f}}}));
+                        out.put("detection_scores", NDArray.create(new float[][]{{0.9f}}));
+                        out.setMetaData(meta);
+                        return out;
+                    }))
+                    .add(SSDToBoundingBoxStep.builder().accountForCropRegion(account).build())
+                    .build();
+
+            Data out = p.executor().exec(Data.singleton("in", 0.0));
+            List<BoundingBox> l = out.getListBoundingBox(SSDToBoundingBoxStep.DEFAULT_OUTPUT_NAME);
+            assertEquals(1, l.size());
+            BoundingBox bb = l.get(0);
+            assertEquals(0.5, bb.x1(), 1e-5);
+            assertEquals(1.0, bb.x2(), 1e-5);
+            assertEquals(account ? 0.0 : 0.25, bb.y1(), 1e-5);
+            assertEquals(account ? 1.0 : 0.75, bb.y2(), 1e-5);
+            assertEquals(0.9, bb.probability(), 1e-5);
+        }
+    }
 }
@@ -46,4 +46,11 @@ public class FunctionPipelineRunner implements PipelineStepRunner {
     public Data exec(Context ctx, Data data) {
         return step.getFn().apply(data);
     }
+
+    @Override
+    public Data[] exec(Context ctx, Data... data) {
+        if(step.getBatchFn() == null)
+            return PipelineStepRunner.super.exec(ctx, data);
+        return step.getBatchFn().apply(data);
+    }
 }
@@ -33,9 +33,15 @@ public class FunctionStep implements PipelineStep {
     }
 
     private final Function<Data,Data> fn;
+    private final Function<Data[],Data[]> batchFn;      //Optional: used for PipelineStepRunner.exec(Context, Data...)
 
     public FunctionStep(Function<Data,Data> fn){
+        this(fn, null);
+    }
+
+    public FunctionStep(Function<Data,Data> fn, Function<Data[],Data[]> batchFn){
         this.fn = fn;
+        this.batchFn = batchFn;
     }
 
 }
@@ -0,0 +1,74 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.testpipelines.load;
+
+import ai.konduit.serving.pipeline.api.context.Context;
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import lombok.Getter;
+import lombok.NonNull;
+
+public class LoadPipelineRunner implements PipelineStepRunner {
+
+    private final LoadStep step;
+    @Getter
+    private int warmupCount;
+
+    public LoadPipelineRunner(@NonNull LoadStep step){
+        this.step = step;
+
+        int l = LoadStep.loading.incrementAndGet();
+        LoadStep.maxConcurrentLoading.accumulateAndGet(l, Math::max);
+        try {
+            Thread.sleep(step.getLoadTimeMs());
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        } finally {
+            LoadStep.loading.decrementAndGet();
+        }
+
+        if(step.isFail())
+            throw new IllegalStateException("Intentionally failing to load runner");
+        LoadStep.created.incrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        LoadStep.closed.incrementAndGet();
+    }
+
+    @Override
+    public PipelineStep getPipelineStep() {
+        return step;
+    }
+
+    @Override
+    public Data exec(Context ctx, Data data) {
+        //Warm-up executions should get the same (non-null) context as normal execution
+        if(data.has("warmup") && ctx != null && ctx.metrics() != null && ctx.profiler() != null)
+            warmupCount++;
+        return data;
+    }
+
+    @Override
+    public Data warmupInput() {
+        return Data.singleton("warmup", true);
+    }
+}
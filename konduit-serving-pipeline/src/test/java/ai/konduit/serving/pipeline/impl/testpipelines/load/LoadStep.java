@@ -0,0 +1,52 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.pipeline.impl.testpipelines.load;
+
+import ai.konduit.serving.pipeline.api.step.PipelineStep;
+import ai.konduit.serving.pipeline.registry.PipelineRegistry;
+import lombok.AllArgsConstructor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A step with a slow (or failing) runner creation, for testing model loading and warm-up
+ */
+@lombok.Data
+@AllArgsConstructor
+public class LoadStep implements PipelineStep {
+
+    public static final AtomicInteger loading = new AtomicInteger();
+    public static final AtomicInteger maxConcurrentLoading = new AtomicInteger();
+    public static final AtomicInteger created = new AtomicInteger();
+    public static final AtomicInteger closed = new AtomicInteger();
+
+    static {
+        PipelineRegistry.registerStepRunnerFactory(new LoadPipelineFactory());
+    }
+
+    private final long loadTimeMs;
+    private final boolean fail;
+
+    public static void reset(){
+        loading.set(0);
+        maxConcurrentLoading.set(0);
+        created.set(0);
+        closed.set(0);
+    }
+}
@@ -14,6 +14,807 @@ public final class GrpcService {
     registerAllExtensions(
         (com.google.protobuf.ExtensionRegistryLite) registry);
   }
+  public interface DataMapBatchOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:ai.konduit.serving.DataMapBatch)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    java.util.List<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> 
+        getItemsList();
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap getItems(int index);
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    int getItemsCount();
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    java.util.List<? extends ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder> 
+        getItemsOrBuilderList();
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder getItemsOrBuilder(
+        int index);
+  }
+  /**
+   * <pre>
+   * A batch of inputs or outputs
+   * </pre>
+   *
+   * Protobuf type {@code ai.konduit.serving.DataMapBatch}
+   */
+  public  static final class DataMapBatch extends
+      com.google.protobuf.GeneratedMessageV3 implements
+      // @@protoc_insertion_point(message_implements:ai.konduit.serving.DataMapBatch)
+      DataMapBatchOrBuilder {
+  private static final long serialVersionUID = 0L;
+    // Use DataMapBatch.newBuilder() to construct.
+    private DataMapBatch(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+    private DataMapBatch() {
+      items_ = java.util.Collections.emptyList();
+    }
+
+    @java.lang.Override
+    @SuppressWarnings({"unused"})
+    protected java.lang.Object newInstance(
+        UnusedPrivateParameter unused) {
+      return new DataMapBatch();
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+    getUnknownFields() {
+      return this.unknownFields;
+    }
+    private DataMapBatch(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 10: {
+              if (!((mutable_bitField0_ & 0x00000001) != 0)) {
+                items_ = new java.util.ArrayList<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              items_.add(
+                  input.readMessage(ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.parser(), extensionRegistry));
+              break;
+            }
+            default: {
+              if (!parseUnknownField(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) != 0)) {
+          items_ = java.util.Collections.unmodifiableList(items_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.internal_static_ai_konduit_serving_DataMapBatch_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.internal_static_ai_konduit_serving_DataMapBatch_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.class, ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.Builder.class);
+    }
+
+    public static final int ITEMS_FIELD_NUMBER = 1;
+    private java.util.List<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> items_;
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    public java.util.List<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> getItemsList() {
+      return items_;
+    }
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    public java.util.List<? extends ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder> 
+        getItemsOrBuilderList() {
+      return items_;
+    }
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    public int getItemsCount() {
+      return items_.size();
+    }
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap getItems(int index) {
+      return items_.get(index);
+    }
+    /**
+     * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+     */
+    public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder getItemsOrBuilder(
+        int index) {
+      return items_.get(index);
+    }
+
+    private byte memoizedIsInitialized = -1;
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      for (int i = 0; i < items_.size(); i++) {
+        output.writeMessage(1, items_.get(i));
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      for (int i = 0; i < items_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, items_.get(i));
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch)) {
+        return super.equals(obj);
+      }
+      ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch other = (ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch) obj;
+
+      if (!getItemsList()
+          .equals(other.getItemsList())) return false;
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      if (getItemsCount() > 0) {
+        hash = (37 * hash) + ITEMS_FIELD_NUMBER;
+        hash = (53 * hash) + getItemsList().hashCode();
+      }
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        java.nio.ByteBuffer data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+    public static Builder newBuilder(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE
+          ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * <pre>
+     * A batch of inputs or outputs
+     * </pre>
+     *
+     * Protobuf type {@code ai.konduit.serving.DataMapBatch}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:ai.konduit.serving.DataMapBatch)
+        ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatchOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.internal_static_ai_konduit_serving_DataMapBatch_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.internal_static_ai_konduit_serving_DataMapBatch_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.class, ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.Builder.class);
+      }
+
+      // Construct using ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3
+                .alwaysUseFieldBuilders) {
+          getItemsFieldBuilder();
+        }
+      }
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        if (itemsBuilder_ == null) {
+          items_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        } else {
+          itemsBuilder_.clear();
+        }
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.internal_static_ai_konduit_serving_DataMapBatch_descriptor;
+      }
+
+      @java.lang.Override
+      public ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch getDefaultInstanceForType() {
+        return ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch build() {
+        ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch buildPartial() {
+        ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch result = new ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch(this);
+        int from_bitField0_ = bitField0_;
+        if (itemsBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) != 0)) {
+            items_ = java.util.Collections.unmodifiableList(items_);
+            bitField0_ = (bitField0_ & ~0x00000001);
+          }
+          result.items_ = items_;
+        } else {
+          result.items_ = itemsBuilder_.build();
+        }
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.setField(field, value);
+      }
+      @java.lang.Override
+      public Builder clearField(
+          com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+      @java.lang.Override
+      public Builder clearOneof(
+          com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index, java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch) {
+          return mergeFrom((ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch other) {
+        if (other == ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.getDefaultInstance()) return this;
+        if (itemsBuilder_ == null) {
+          if (!other.items_.isEmpty()) {
+            if (items_.isEmpty()) {
+              items_ = other.items_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+            } else {
+              ensureItemsIsMutable();
+              items_.addAll(other.items_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.items_.isEmpty()) {
+            if (itemsBuilder_.isEmpty()) {
+              itemsBuilder_.dispose();
+              itemsBuilder_ = null;
+              items_ = other.items_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+              itemsBuilder_ = 
+                com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders ?
+                   getItemsFieldBuilder() : null;
+            } else {
+              itemsBuilder_.addAllMessages(other.items_);
+            }
+          }
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> items_ =
+        java.util.Collections.emptyList();
+      private void ensureItemsIsMutable() {
+        if (!((bitField0_ & 0x00000001) != 0)) {
+          items_ = new java.util.ArrayList<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>(items_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+          ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder> itemsBuilder_;
+
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public java.util.List<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> getItemsList() {
+        if (itemsBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(items_);
+        } else {
+          return itemsBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public int getItemsCount() {
+        if (itemsBuilder_ == null) {
+          return items_.size();
+        } else {
+          return itemsBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap getItems(int index) {
+        if (itemsBuilder_ == null) {
+          return items_.get(index);
+        } else {
+          return itemsBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder setItems(
+          int index, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap value) {
+        if (itemsBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureItemsIsMutable();
+          items_.set(index, value);
+          onChanged();
+        } else {
+          itemsBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder setItems(
+          int index, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder builderForValue) {
+        if (itemsBuilder_ == null) {
+          ensureItemsIsMutable();
+          items_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          itemsBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder addItems(ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap value) {
+        if (itemsBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureItemsIsMutable();
+          items_.add(value);
+          onChanged();
+        } else {
+          itemsBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder addItems(
+          int index, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap value) {
+        if (itemsBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureItemsIsMutable();
+          items_.add(index, value);
+          onChanged();
+        } else {
+          itemsBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder addItems(
+          ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder builderForValue) {
+        if (itemsBuilder_ == null) {
+          ensureItemsIsMutable();
+          items_.add(builderForValue.build());
+          onChanged();
+        } else {
+          itemsBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder addItems(
+          int index, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder builderForValue) {
+        if (itemsBuilder_ == null) {
+          ensureItemsIsMutable();
+          items_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          itemsBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder addAllItems(
+          java.lang.Iterable<? extends ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> values) {
+        if (itemsBuilder_ == null) {
+          ensureItemsIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, items_);
+          onChanged();
+        } else {
+          itemsBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder clearItems() {
+        if (itemsBuilder_ == null) {
+          items_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+          onChanged();
+        } else {
+          itemsBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public Builder removeItems(int index) {
+        if (itemsBuilder_ == null) {
+          ensureItemsIsMutable();
+          items_.remove(index);
+          onChanged();
+        } else {
+          itemsBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder getItemsBuilder(
+          int index) {
+        return getItemsFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder getItemsOrBuilder(
+          int index) {
+        if (itemsBuilder_ == null) {
+          return items_.get(index);  } else {
+          return itemsBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public java.util.List<? extends ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder> 
+           getItemsOrBuilderList() {
+        if (itemsBuilder_ != null) {
+          return itemsBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(items_);
+        }
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder addItemsBuilder() {
+        return getItemsFieldBuilder().addBuilder(
+            ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder addItemsBuilder(
+          int index) {
+        return getItemsFieldBuilder().addBuilder(
+            index, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .ai.konduit.serving.DataMap items = 1;</code>
+       */
+      public java.util.List<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder> 
+           getItemsBuilderList() {
+        return getItemsFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+          ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder> 
+          getItemsFieldBuilder() {
+        if (itemsBuilder_ == null) {
+          itemsBuilder_ = new com.google.protobuf.RepeatedFieldBuilderV3<
+              ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.Builder, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMapOrBuilder>(
+                  items_,
+                  ((bitField0_ & 0x00000001) != 0),
+                  getParentForChildren(),
+                  isClean());
+          items_ = null;
+        }
+        return itemsBuilder_;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:ai.konduit.serving.DataMapBatch)
+    }
+
+    // @@protoc_insertion_point(class_scope:ai.konduit.serving.DataMapBatch)
+    private static final ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch();
+    }
+
+    public static ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    private static final com.google.protobuf.Parser<DataMapBatch>
+        PARSER = new com.google.protobuf.AbstractParser<DataMapBatch>() {
+      @java.lang.Override
+      public DataMapBatch parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new DataMapBatch(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<DataMapBatch> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<DataMapBatch> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_ai_konduit_serving_DataMapBatch_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_ai_konduit_serving_DataMapBatch_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor
       getDescriptor() {
@@ -25,17 +826,28 @@ public final class GrpcService {
     java.lang.String[] descriptorData = {
       "\n\022grpc-service.proto\022\022ai.konduit.serving" +
       "\0323ai/konduit/serving/pipeline/api/protob" +
-      "uf/data.proto2X\n\tInference\022K\n\007predict\022\036." +
-      "ai.konduit.serving.DataScheme\032\036.ai.kondu" +
-      "it.serving.DataScheme\"\000B:\n+ai.konduit.se" +
-      "rving.vertx.protocols.grpc.apiB\013GrpcServ" +
-      "iceb\006proto3"
+      "uf/data.proto\":\n\014DataMapBatch\022*\n\005items\030\001" +
+      " \003(\0132\033.ai.konduit.serving.DataMap2\377\001\n\tIn" +
+      "ference\022K\n\007predict\022\036.ai.konduit.serving." +
+      "DataScheme\032\036.ai.konduit.serving.DataSche" +
+      "me\"\000\022O\n\rstreamPredict\022\033.ai.konduit.servi" +
+      "ng.DataMap\032\033.ai.konduit.serving.DataMap\"" +
+      "\000(\0010\001\022T\n\014batchPredict\022 .ai.konduit.servi" +
+      "ng.DataMapBatch\032 .ai.konduit.serving.Dat" +
+      "aMapBatch\"\000B:\n+ai.konduit.serving.vertx." +
+      "protocols.grpc.apiB\013GrpcServiceb\006proto3"
     };
     descriptor = com.google.protobuf.Descriptors.FileDescriptor
       .internalBuildGeneratedFileFrom(descriptorData,
         new com.google.protobuf.Descriptors.FileDescriptor[] {
           ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.getDescriptor(),
         });
+    internal_static_ai_konduit_serving_DataMapBatch_descriptor =
+      getDescriptor().getMessageTypes().get(0);
+    internal_static_ai_konduit_serving_DataMapBatch_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+        internal_static_ai_konduit_serving_DataMapBatch_descriptor,
+        new java.lang.String[] { "Items", });
     ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.getDescriptor();
   }
 
@@ -86,6 +86,60 @@ public final class InferenceGrpc {
      return getPredictMethod;
   }
 
+  private static volatile io.grpc.MethodDescriptor<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap,
+      ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> getStreamPredictMethod;
+
+  public static io.grpc.MethodDescriptor<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap,
+      ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> getStreamPredictMethod() {
+    io.grpc.MethodDescriptor<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> getStreamPredictMethod;
+    if ((getStreamPredictMethod = InferenceGrpc.getStreamPredictMethod) == null) {
+      synchronized (InferenceGrpc.class) {
+        if ((getStreamPredictMethod = InferenceGrpc.getStreamPredictMethod) == null) {
+          InferenceGrpc.getStreamPredictMethod = getStreamPredictMethod = 
+              io.grpc.MethodDescriptor.<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>newBuilder()
+              .setType(io.grpc.MethodDescriptor.MethodType.BIDI_STREAMING)
+              .setFullMethodName(generateFullMethodName(
+                  "ai.konduit.serving.Inference", "streamPredict"))
+              .setSampledToLocalTracing(true)
+              .setRequestMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.getDefaultInstance()))
+              .setResponseMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap.getDefaultInstance()))
+                  .setSchemaDescriptor(new InferenceMethodDescriptorSupplier("streamPredict"))
+                  .build();
+          }
+        }
+     }
+     return getStreamPredictMethod;
+  }
+
+  private static volatile io.grpc.MethodDescriptor<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch,
+      ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> getBatchPredictMethod;
+
+  public static io.grpc.MethodDescriptor<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch,
+      ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> getBatchPredictMethod() {
+    io.grpc.MethodDescriptor<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch, ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> getBatchPredictMethod;
+    if ((getBatchPredictMethod = InferenceGrpc.getBatchPredictMethod) == null) {
+      synchronized (InferenceGrpc.class) {
+        if ((getBatchPredictMethod = InferenceGrpc.getBatchPredictMethod) == null) {
+          InferenceGrpc.getBatchPredictMethod = getBatchPredictMethod = 
+              io.grpc.MethodDescriptor.<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch, ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>newBuilder()
+              .setType(io.grpc.MethodDescriptor.MethodType.UNARY)
+              .setFullMethodName(generateFullMethodName(
+                  "ai.konduit.serving.Inference", "batchPredict"))
+              .setSampledToLocalTracing(true)
+              .setRequestMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.getDefaultInstance()))
+              .setResponseMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch.getDefaultInstance()))
+                  .setSchemaDescriptor(new InferenceMethodDescriptorSupplier("batchPredict"))
+                  .build();
+          }
+        }
+     }
+     return getBatchPredictMethod;
+  }
+
   /**
    * Creates a new async stub that supports all call types for the service
    */
@@ -133,6 +187,26 @@ public final class InferenceGrpc {
       asyncUnimplementedUnaryCall(getPredictMethod(), responseObserver);
     }
 
+    /**
+     * <pre>
+     * predicts an output for each input of the stream, over a single call. Outputs are returned in input order
+     * </pre>
+     */
+    public io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> streamPredict(
+        io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> responseObserver) {
+      return asyncUnimplementedStreamingCall(getStreamPredictMethod(), responseObserver);
+    }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the batch
+     * </pre>
+     */
+    public void batchPredict(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch request,
+        io.grpc.stub.StreamObserver<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> responseObserver) {
+      asyncUnimplementedUnaryCall(getBatchPredictMethod(), responseObserver);
+    }
+
     @java.lang.Override public final io.grpc.ServerServiceDefinition bindService() {
       return io.grpc.ServerServiceDefinition.builder(getServiceDescriptor())
           .addMethod(
@@ -142,6 +216,20 @@ public final class InferenceGrpc {
                 ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme,
                 ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme>(
                   this, METHODID_PREDICT)))
+          .addMethod(
+            getStreamPredictMethod(),
+            asyncBidiStreamingCall(
+              new MethodHandlers<
+                ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap,
+                ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>(
+                  this, METHODID_STREAM_PREDICT)))
+          .addMethod(
+            getBatchPredictMethod(),
+            asyncUnaryCall(
+              new MethodHandlers<
+                ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch,
+                ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>(
+                  this, METHODID_BATCH_PREDICT)))
           .build();
     }
   }
@@ -177,6 +265,28 @@ public final class InferenceGrpc {
       asyncUnaryCall(
           getChannel().newCall(getPredictMethod(), getCallOptions()), request, responseObserver);
     }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the stream, over a single call. Outputs are returned in input order
+     * </pre>
+     */
+    public io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> streamPredict(
+        io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> responseObserver) {
+      return asyncBidiStreamingCall(
+          getChannel().newCall(getStreamPredictMethod(), getCallOptions()), responseObserver);
+    }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the batch
+     * </pre>
+     */
+    public void batchPredict(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch request,
+        io.grpc.stub.StreamObserver<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> responseObserver) {
+      asyncUnaryCall(
+          getChannel().newCall(getBatchPredictMethod(), getCallOptions()), request, responseObserver);
+    }
   }
 
   /**
@@ -209,6 +319,16 @@ public final class InferenceGrpc {
       return blockingUnaryCall(
           getChannel(), getPredictMethod(), getCallOptions(), request);
     }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the batch
+     * </pre>
+     */
+    public ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch batchPredict(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch request) {
+      return blockingUnaryCall(
+          getChannel(), getBatchPredictMethod(), getCallOptions(), request);
+    }
   }
 
   /**
@@ -242,6 +362,17 @@ public final class InferenceGrpc {
       return futureUnaryCall(
           getChannel().newCall(getPredictMethod(), getCallOptions()), request);
     }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the batch
+     * </pre>
+     */
+    public com.google.common.util.concurrent.ListenableFuture<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> batchPredict(
+        ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch request) {
+      return futureUnaryCall(
+          getChannel().newCall(getBatchPredictMethod(), getCallOptions()), request);
+    }
   }
 
   /**
@@ -261,6 +392,26 @@ public final class InferenceGrpc {
       asyncUnimplementedUnaryCall(getPredictMethod(), InferenceGrpc.toObserver(response));
     }
 
+    /**
+     * <pre>
+     * predicts an output for each input of the stream, over a single call. Outputs are returned in input order
+     * </pre>
+     */
+    public void streamPredict(
+        io.vertx.grpc.GrpcBidiExchange<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> exchange) {
+      exchange.setReadObserver(asyncUnimplementedStreamingCall(getStreamPredictMethod(), exchange.writeObserver()));
+    }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the batch
+     * </pre>
+     */
+    public void batchPredict(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch request,
+        io.vertx.core.Promise<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch> response) {
+      asyncUnimplementedUnaryCall(getBatchPredictMethod(), InferenceGrpc.toObserver(response));
+    }
+
     @java.lang.Override public final io.grpc.ServerServiceDefinition bindService() {
       return io.grpc.ServerServiceDefinition.builder(getServiceDescriptor())
           .addMethod(
@@ -270,6 +421,20 @@ public final class InferenceGrpc {
                 ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme,
                 ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme>(
                   this, METHODID_PREDICT)))
+          .addMethod(
+            getStreamPredictMethod(),
+            asyncBidiStreamingCall(
+              new VertxMethodHandlers<
+                ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap,
+                ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>(
+                  this, METHODID_STREAM_PREDICT)))
+          .addMethod(
+            getBatchPredictMethod(),
+            asyncUnaryCall(
+              new VertxMethodHandlers<
+                ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch,
+                ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>(
+                  this, METHODID_BATCH_PREDICT)))
           .build();
     }
   }
@@ -305,9 +470,36 @@ public final class InferenceGrpc {
       asyncUnaryCall(
           getChannel().newCall(getPredictMethod(), getCallOptions()), request, InferenceGrpc.toObserver(response));
     }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the stream, over a single call. Outputs are returned in input order
+     * </pre>
+     */
+    public void streamPredict(io.vertx.core.Handler<
+        io.vertx.grpc.GrpcBidiExchange<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>> handler) {
+      final io.vertx.grpc.GrpcReadStream<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> readStream =
+          io.vertx.grpc.GrpcReadStream.<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>create();
+
+      handler.handle(io.vertx.grpc.GrpcBidiExchange.create(readStream, asyncBidiStreamingCall(
+          getChannel().newCall(getStreamPredictMethod(), getCallOptions()), readStream.readObserver())));
+    }
+
+    /**
+     * <pre>
+     * predicts an output for each input of the batch
+     * </pre>
+     */
+    public void batchPredict(ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch request,
+        io.vertx.core.Handler<io.vertx.core.AsyncResult<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>> response) {
+      asyncUnaryCall(
+          getChannel().newCall(getBatchPredictMethod(), getCallOptions()), request, InferenceGrpc.toObserver(response));
+    }
   }
 
   private static final int METHODID_PREDICT = 0;
+  private static final int METHODID_BATCH_PREDICT = 1;
+  private static final int METHODID_STREAM_PREDICT = 2;
 
   private static final class MethodHandlers<Req, Resp> implements
       io.grpc.stub.ServerCalls.UnaryMethod<Req, Resp>,
@@ -330,6 +522,10 @@ public final class InferenceGrpc {
           serviceImpl.predict((ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme) request,
               (io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme>) responseObserver);
           break;
+        case METHODID_BATCH_PREDICT:
+          serviceImpl.batchPredict((ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch) request,
+              (io.grpc.stub.StreamObserver<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>) responseObserver);
+          break;
         default:
           throw new AssertionError();
       }
@@ -340,6 +536,9 @@ public final class InferenceGrpc {
     public io.grpc.stub.StreamObserver<Req> invoke(
         io.grpc.stub.StreamObserver<Resp> responseObserver) {
       switch (methodId) {
+        case METHODID_STREAM_PREDICT:
+          return (io.grpc.stub.StreamObserver<Req>) serviceImpl.streamPredict(
+              (io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>) responseObserver);
         default:
           throw new AssertionError();
       }
@@ -374,6 +573,17 @@ public final class InferenceGrpc {
                 }
               }));
           break;
+        case METHODID_BATCH_PREDICT:
+          serviceImpl.batchPredict((ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch) request,
+              (io.vertx.core.Promise<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>) io.vertx.core.Promise.<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>promise().future().setHandler(ar -> {
+                if (ar.succeeded()) {
+                  ((io.grpc.stub.StreamObserver<ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch>) responseObserver).onNext(ar.result());
+                  responseObserver.onCompleted();
+                } else {
+                  responseObserver.onError(ar.cause());
+                }
+              }));
+          break;
         default:
           throw new AssertionError();
       }
@@ -384,6 +594,13 @@ public final class InferenceGrpc {
     public io.grpc.stub.StreamObserver<Req> invoke(
         io.grpc.stub.StreamObserver<Resp> responseObserver) {
       switch (methodId) {
+        case METHODID_STREAM_PREDICT:
+          io.vertx.grpc.GrpcReadStream<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap> request1 = io.vertx.grpc.GrpcReadStream.<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>create();
+          serviceImpl.streamPredict(
+             io.vertx.grpc.GrpcBidiExchange.<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap, ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>create(
+               request1,
+               (io.grpc.stub.StreamObserver<ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap>) responseObserver));
+          return (io.grpc.stub.StreamObserver<Req>) request1.readObserver();
         default:
           throw new AssertionError();
       }
@@ -436,6 +653,8 @@ public final class InferenceGrpc {
           serviceDescriptor = result = io.grpc.ServiceDescriptor.newBuilder(SERVICE_NAME)
               .setSchemaDescriptor(new InferenceFileDescriptorSupplier())
               .addMethod(getPredictMethod())
+              .addMethod(getStreamPredictMethod())
+              .addMethod(getBatchPredictMethod())
               .build();
         }
       }
@@ -0,0 +1,179 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.grpc.api;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.ProtoData;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme;
+import ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch;
+import ai.konduit.serving.vertx.verticle.InferenceWorkerPool;
+import ai.konduit.serving.vertx.verticle.OrderedStreamProcessor;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.vertx.core.Vertx;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of the Inference gRPC service. Parsing, pipeline execution and serialization all happen on the worker
+ * pool, off the event loop.<br>
+ * - predict: a single input. The DataScheme message carries a serialized DataMap, for compatibility with existing clients<br>
+ * - batchPredict: multiple inputs in a single call, executed together via {@code PipelineExecutor.exec(Data...)}<br>
+ * - streamPredict: a bidirectional stream of inputs and outputs over a single call. At most {@code streamConcurrency}
+ * inputs are requested from the client (i.e., queued, executing or waiting to be written) at any time, and outputs
+ * are written in input order once the client is ready to receive them.<br>
+ * The batch and stream methods convert between DataMap messages and Data instances directly, without re-serializing.
+ */
+@Slf4j
+@AllArgsConstructor
+public class InferenceGrpcApi extends InferenceGrpc.InferenceImplBase {
+
+    protected final Vertx vertx;
+    protected final InferenceWorkerPool inferenceWorkerPool;
+    protected final int streamConcurrency;
+
+    @Override
+    public void predict(DataScheme request, StreamObserver<DataScheme> responseObserver) {
+        boolean accepted = inferenceWorkerPool.submit(() -> {
+                    Data output = exec(DataMap.parseFrom(request.toByteString()));
+                    return DataScheme.parseFrom(output.toProtoData().toProtoMessage().toByteString());
+                },
+                result -> {
+                    if(result.succeeded()) {
+                        responseObserver.onNext(result.result());
+                        responseObserver.onCompleted();
+                    } else {
+                        log.error("Failed to process the pipeline with the input data", result.cause());
+                        responseObserver.onError(result.cause());
+                    }
+                });
+
+        if(!accepted) {
+            responseObserver.onError(tooManyRequests());
+        }
+    }
+
+    @Override
+    public void batchPredict(DataMapBatch request, StreamObserver<DataMapBatch> responseObserver) {
+        boolean accepted = inferenceWorkerPool.submit(() -> {
+                    Data[] inputs = new Data[request.getItemsCount()];
+                    for(int i = 0; i < inputs.length; i++) {
+                        inputs[i] = ProtoData.fromProtoMessage(request.getItems(i));
+                    }
+
+                    Data[] outputs = inferenceWorkerPool.getPipelineExecutor().exec(inputs);
+                    DataMapBatch.Builder builder = DataMapBatch.newBuilder();
+                    for(Data output : outputs) {
+                        builder.addItems(output.toProtoData().toProtoMessage());
+                    }
+                    return builder.build();
+                },
+                result -> {
+                    if(result.succeeded()) {
+                        responseObserver.onNext(result.result());
+                        responseObserver.onCompleted();
+                    } else {
+                        log.error("Failed to process the pipeline with the input data", result.cause());
+                        responseObserver.onError(result.cause());
+                    }
+                });
+
+        if(!accepted) {
+            responseObserver.onError(tooManyRequests());
+        }
+    }
+
+    @Override
+    public StreamObserver<DataMap> streamPredict(StreamObserver<DataMap> responseObserver) {
+        return new PredictStream((ServerCallStreamObserver<DataMap>) responseObserver);
+    }
+
+    protected Data exec(DataMap input) {
+        return inferenceWorkerPool.getPipelineExecutor().exec(ProtoData.fromProtoMessage(input));
+    }
+
+    private static RuntimeException tooManyRequests() {
+        return Status.RESOURCE_EXHAUSTED
+                .withDescription("Maximum number of pending requests reached. Please retry later")
+                .asRuntimeException();
+    }
+
+    /**
+     * State for a single streamPredict call. Ordering and bounded concurrency are handled by
+     * {@link OrderedStreamProcessor}; this class handles gRPC flow control.
+     */
+    private class PredictStream implements StreamObserver<DataMap>, OrderedStreamProcessor.Sink<DataMap> {
+        private final ServerCallStreamObserver<DataMap> responseObserver;
+        private final OrderedStreamProcessor<DataMap,DataMap> processor;
+
+        private PredictStream(ServerCallStreamObserver<DataMap> responseObserver) {
+            this.responseObserver = responseObserver;
+            this.processor = new OrderedStreamProcessor<>(vertx, inferenceWorkerPool, streamConcurrency,
+                    input -> exec(input).toProtoData().toProtoMessage(), this);
+            responseObserver.disableAutoInboundFlowControl();
+            responseObserver.setOnReadyHandler(processor::drain);
+            responseObserver.setOnCancelHandler(processor::cancel);
+            responseObserver.request(streamConcurrency);
+        }
+
+        @Override
+        public void onNext(DataMap value) {
+            processor.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.debug("Client stream failed", t);
+            processor.cancel();
+        }
+
+        @Override
+        public void onCompleted() {
+            processor.endInput();
+        }
+
+        @Override
+        public boolean isReady() {
+            return responseObserver.isReady();
+        }
+
+        @Override
+        public void write(DataMap output) {
+            responseObserver.onNext(output);
+            //Each output written frees up space for one more input
+            responseObserver.request(1);
+        }
+
+        @Override
+        public void complete() {
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void fail(Throwable t) {
+            log.error("Failed to process the pipeline with the input data", t);
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription(String.valueOf(t.getMessage()))
+                    .withCause(t)
+                    .asRuntimeException());
+        }
+    }
+}
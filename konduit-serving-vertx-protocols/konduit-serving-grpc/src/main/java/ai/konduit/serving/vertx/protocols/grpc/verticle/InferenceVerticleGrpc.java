@@ -18,13 +18,9 @@
 
 package ai.konduit.serving.vertx.protocols.grpc.verticle;
 
-import ai.konduit.serving.pipeline.api.data.Data;
-import ai.konduit.serving.pipeline.impl.data.ProtoData;
-import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme;
-import ai.konduit.serving.vertx.protocols.grpc.api.InferenceGrpc;
+import ai.konduit.serving.vertx.protocols.grpc.api.InferenceGrpcApi;
 import ai.konduit.serving.vertx.settings.constants.EnvironmentConstants;
 import ai.konduit.serving.vertx.verticle.InferenceVerticle;
-import io.grpc.stub.StreamObserver;
 import io.vertx.core.Promise;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.json.JsonObject;
@@ -60,19 +56,7 @@ public class InferenceVerticleGrpc extends InferenceVerticle {
 
         VertxServer rpcServer = VertxServerBuilder
                 .forAddress(vertx, inferenceConfiguration.getHost(), inferenceConfiguration.getPort())
-                .addService(new InferenceGrpc.InferenceImplBase() {
-                    @Override
-                    public void predict(DataScheme request, StreamObserver<DataScheme> responseObserver) {
-                        try {
-                            Data output = pipelineExecutor.exec(ProtoData.fromBytes(request.toByteArray()));
-                            responseObserver.onNext(DataScheme.parseFrom(output.asBytes()));
-                            responseObserver.onCompleted();
-                        } catch (Throwable throwable) {
-                            log.error("Failed to process the pipeline with the input data", throwable);
-                            responseObserver.onError(throwable);
-                        }
-                    }
-                })
+                .addService(new InferenceGrpcApi(vertx, inferenceWorkerPool, inferenceConfiguration.getStreamConcurrency()))
                 .build();
 
         rpcServer.start(handler -> {
@@ -89,6 +73,7 @@ public class InferenceVerticleGrpc extends InferenceVerticle {
                     log.info("Inference gRPC server is listening on host: '{}'", inferenceConfiguration.getHost());
                     log.info("Inference gRPC server started on port {} with {} pipeline steps", actualPort, pipeline.size());
                     startPromise.complete();
+                    warmup();
                 } catch (Throwable throwable) {
                     startPromise.fail(throwable);
                 }
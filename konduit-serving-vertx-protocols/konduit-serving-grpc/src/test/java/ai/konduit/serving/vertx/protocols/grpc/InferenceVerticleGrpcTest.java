@@ -19,13 +19,17 @@
 package ai.konduit.serving.vertx.protocols.grpc;
 
 import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.data.ProtoData;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataMap;
 import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage.DataScheme;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
 import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
 import ai.konduit.serving.vertx.api.DeployKonduitServing;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
 import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.protocols.grpc.api.GrpcService.DataMapBatch;
 import ai.konduit.serving.vertx.protocols.grpc.api.InferenceGrpc;
 import ai.konduit.serving.vertx.protocols.grpc.test.FailureTestingPipelineStep;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -44,6 +48,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.event.Level;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @RunWith(VertxUnitRunner.class)
@@ -131,6 +137,74 @@ public class InferenceVerticleGrpcTest {
         });
     }
 
+    @Test
+    public void testGrpcBatchPredict(TestContext testContext) {
+        List<Data> inputs = new ArrayList<>();
+        DataMapBatch.Builder request = DataMapBatch.newBuilder();
+        for(int i = 0; i < 5; i++) {
+            Data d = JData.singleton("key", NDArray.create(new float[]{i, i + 1}));
+            inputs.add(d);
+            request.addItems(d.toProtoData().toProtoMessage());
+        }
+
+        Async async = testContext.async();
+
+        inferenceVertxStub.batchPredict(request.build(), ar -> {
+            if (ar.succeeded()) {
+                testContext.assertEquals(inputs.size(), ar.result().getItemsCount());
+                for(int i = 0; i < inputs.size(); i++) {
+                    testContext.assertEquals(inputs.get(i), ProtoData.fromProtoMessage(ar.result().getItems(i)));
+                }
+                async.complete();
+            } else {
+                testContext.fail(ar.cause());
+            }
+        });
+    }
+
+    @Test
+    public void testGrpcStreamPredict(TestContext testContext) {
+        int n = 100;
+        List<Data> inputs = new ArrayList<>();
+        for(int i = 0; i < n; i++) {
+            inputs.add(JData.singleton("key", (long) i));
+        }
+        List<Data> outputs = new ArrayList<>();
+
+        Async async = testContext.async();
+
+        inferenceVertxStub.streamPredict(exchange -> {
+            exchange.handler(output -> outputs.add(ProtoData.fromProtoMessage(output)))
+                    .exceptionHandler(testContext::fail)
+                    .endHandler(v -> {
+                        //Outputs must be in the same order as the inputs
+                        testContext.assertEquals(inputs, outputs);
+                        async.complete();
+                    });
+
+            for(Data d : inputs) {
+                exchange.write(d.toProtoData().toProtoMessage());
+            }
+            exchange.end();
+        });
+    }
+
+    @Test
+    public void testGrpcStreamPredictFail(TestContext testContext) {
+        causeFailure.set(true);
+
+        Async async = testContext.async();
+
+        inferenceVertxStub.streamPredict(exchange -> {
+            exchange.handler(output -> testContext.fail("This should fail due to 'causeFailure' being 'true'"))
+                    .exceptionHandler(t -> async.complete());
+
+            DataMap input = JData.singleton("key", "value").toProtoData().toProtoMessage();
+            exchange.write(input);
+            exchange.end();
+        });
+    }
+
     @AfterClass
     public static void tearDown(TestContext testContext) {
         channel.shutdownNow();
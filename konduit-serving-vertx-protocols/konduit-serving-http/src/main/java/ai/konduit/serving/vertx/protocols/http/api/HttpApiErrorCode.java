@@ -49,5 +49,10 @@ public enum HttpApiErrorCode {
     /**
      * If there's an error while processing the data through the {@link Pipeline}.
      */
-    PIPELINE_PROCESSING_ERROR
+    PIPELINE_PROCESSING_ERROR,
+
+    /**
+     * If the server has reached its maximum number of pending requests. Returned with a 429 (Too Many Requests) status.
+     */
+    TOO_MANY_REQUESTS
 }
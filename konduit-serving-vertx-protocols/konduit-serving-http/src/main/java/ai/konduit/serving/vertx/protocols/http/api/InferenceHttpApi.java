@@ -19,14 +19,24 @@
 package ai.konduit.serving.vertx.protocols.http.api;
 
 import ai.konduit.serving.pipeline.api.data.Data;
-import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.serde.DataFormat;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
+import ai.konduit.serving.pipeline.registry.DataFormatRegistry;
 import ai.konduit.serving.pipeline.util.ObjectMappers;
+import ai.konduit.serving.vertx.verticle.InferenceWorkerPool;
+import com.google.protobuf.CodedOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.web.RoutingContext;
 import lombok.AllArgsConstructor;
 import org.nd4j.shade.guava.base.Strings;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_JSON;
 import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_OCTET_STREAM;
@@ -36,23 +46,91 @@ import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
 @AllArgsConstructor
 public class InferenceHttpApi {
 
-    protected final PipelineExecutor pipelineExecutor;
+    protected final InferenceWorkerPool inferenceWorkerPool;
+
+    /**
+     * @return The content types accepted and produced by the predict endpoint: JSON, protobuf (octet-stream) and the
+     * content types of any {@link DataFormat} available on the classpath
+     */
+    public static Set<String> supportedContentTypes() {
+        Set<String> out = new LinkedHashSet<>();
+        out.add(APPLICATION_JSON.toString());
+        out.add(APPLICATION_OCTET_STREAM.toString());
+        out.addAll(DataFormatRegistry.contentTypes());
+        return out;
+    }
 
     private Data extractData(String contentType, RoutingContext ctx) {
         try {
             if (contentType.contains(APPLICATION_JSON.toString())) {
                 return Data.fromJson(ctx.getBodyAsString());
             } else if (contentType.contains(APPLICATION_OCTET_STREAM.toString())) {
-                return Data.fromBytes(ctx.getBody().getBytes());
+                //Parse directly from the request body: NDArray values are views of the body buffer, not copies
+                return Data.fromBuffer(ctx.getBody().getByteBuf().nioBuffer());
+            }
+
+            DataFormat format = DataFormatRegistry.getFormatFor(contentType);
+            if (format != null) {
+                return format.read(ctx.getBody().getByteBuf().nioBuffer());
             } else {
                 throw new KonduitServingHttpException(HttpApiErrorCode.INVALID_CONTENT_TYPE_HEADER,
-                        String.format("Invalid Content-Type header %s. Should be one of [application/json, application/octet-stream]", contentType));
+                        String.format("Invalid Content-Type header %s. Should be one of %s", contentType, supportedContentTypes()));
             }
         } catch (Exception exception) {
             throw new KonduitServingHttpException(HttpApiErrorCode.DATA_PARSING_ERROR, exception.toString());
         }
     }
 
+    /**
+     * Serialize the output directly into a pooled direct buffer of exactly the required size. The buffer must be
+     * released once the response has been written: Vert.x buffers never release their underlying Netty buffer.
+     */
+    private ByteBuf toPooledBuffer(Data output) throws IOException {
+        DataProtoMessage.DataMap message = output.toProtoData().toProtoMessage();
+        int size = message.getSerializedSize();
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.directBuffer(size, size);
+        try {
+            CodedOutputStream cos = CodedOutputStream.newInstance(byteBuf.nioBuffer(0, size));
+            message.writeTo(cos);
+            cos.flush();
+            byteBuf.writerIndex(size);
+            return byteBuf;
+        } catch (Throwable t) {
+            byteBuf.release();
+            throw t;
+        }
+    }
+
+    /**
+     * Stream the JSON representation of the output directly into a pooled direct buffer, without creating
+     * intermediate Strings. As with {@link #toPooledBuffer(Data)}, the buffer must be released after writing.
+     */
+    private ByteBuf toPooledJsonBuffer(Data output) throws IOException {
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try (OutputStream os = new ByteBufOutputStream(byteBuf)) {
+            ObjectMappers.json().writeValue(os, output);
+            return byteBuf;
+        } catch (Throwable t) {
+            byteBuf.release();
+            throw t;
+        }
+    }
+
+    /**
+     * Write the output in the specified {@link DataFormat} directly into a pooled direct buffer. As with
+     * {@link #toPooledBuffer(Data)}, the buffer must be released after writing.
+     */
+    private ByteBuf toPooledBuffer(Data output, DataFormat format) throws IOException {
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try (OutputStream os = new ByteBufOutputStream(byteBuf)) {
+            format.write(output, os);
+            return byteBuf;
+        } catch (Throwable t) {
+            byteBuf.release();
+            throw t;
+        }
+    }
+
     //TODO: add swagger related annotations to this method or update this class for better swagger annotations support
     public void predict(RoutingContext ctx) {
         String contentType = ctx.request().headers().get(CONTENT_TYPE);
@@ -60,36 +138,71 @@ public class InferenceHttpApi {
 
         if(Strings.isNullOrEmpty(contentType)) {
             throw new KonduitServingHttpException(HttpApiErrorCode.MISSING_OR_EMPTY_CONTENT_TYPE_HEADER,
-                    "Content-Type header should not be null. Possible values are: [application/json, application/octet-stream]");
+                    String.format("Content-Type header should not be null. Possible values are: %s", supportedContentTypes()));
         }
 
         if(Strings.isNullOrEmpty(accept)) {
             throw new KonduitServingHttpException(HttpApiErrorCode.MISSING_OR_EMPTY_ACCEPT_HEADER,
-                    "Accept header should not be null. Possible values are: [application/json, application/octet-stream]");
-        }
-
-        Data input = extractData(contentType, ctx);
-        Data output;
-
-        try {
-            output = pipelineExecutor.exec(input);
-        } catch (Exception exception) {
-            throw new KonduitServingHttpException(HttpApiErrorCode.PIPELINE_PROCESSING_ERROR, exception);
+                    String.format("Accept header should not be null. Possible values are: %s", supportedContentTypes()));
         }
 
+        boolean json;
+        DataFormat format;
+        String responseContentType;
         if(accept.contains(APPLICATION_JSON.toString())) {
-            ctx.response()
-                    .setStatusCode(200)
-                    .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
-                    .end(output.toJson(), StandardCharsets.UTF_8.name());
+            json = true;
+            format = null;
+            responseContentType = APPLICATION_JSON.toString();
         } else if(accept.contains(APPLICATION_OCTET_STREAM.toString())) {
-            ctx.response()
-                    .setStatusCode(200)
-                    .putHeader(CONTENT_TYPE, APPLICATION_OCTET_STREAM.toString())
-                    .end(Buffer.buffer(output.asBytes()));
+            json = false;
+            format = null;
+            responseContentType = APPLICATION_OCTET_STREAM.toString();
         } else {
-            throw new KonduitServingHttpException(HttpApiErrorCode.INVALID_ACCEPT_HEADER,
-                    String.format("Invalid Accept header %s. Should be one of [application/json, application/octet-stream]", accept));
+            json = false;
+            format = DataFormatRegistry.getFormatFor(accept);
+            if(format == null) {
+                throw new KonduitServingHttpException(HttpApiErrorCode.INVALID_ACCEPT_HEADER,
+                        String.format("Invalid Accept header %s. Should be one of %s", accept, supportedContentTypes()));
+            }
+            responseContentType = format.contentTypes().get(0);
+        }
+
+        //Parsing, pipeline execution and serialization all happen on the worker pool, off the event loop
+        boolean accepted = inferenceWorkerPool.submit(() -> {
+            Data input = extractData(contentType, ctx);
+            Data output;
+
+            try {
+                output = inferenceWorkerPool.getPipelineExecutor().exec(input);
+            } catch (Exception exception) {
+                throw new KonduitServingHttpException(HttpApiErrorCode.PIPELINE_PROCESSING_ERROR, exception);
+            }
+
+            if(format != null) {
+                return toPooledBuffer(output, format);
+            }
+            return json ? toPooledJsonBuffer(output) : toPooledBuffer(output);
+        }, result -> {
+            if(result.failed()) {
+                ctx.fail(result.cause());
+                return;
+            }
+
+            ByteBuf byteBuf = result.result();
+            try {
+                ctx.response()
+                        .setStatusCode(200)
+                        .putHeader(CONTENT_TYPE, responseContentType)
+                        .end(Buffer.buffer(byteBuf), written -> byteBuf.release());
+            } catch (Throwable t) {
+                byteBuf.release();
+                throw t;
+            }
+        });
+
+        if(!accepted) {
+            throw new KonduitServingHttpException(HttpApiErrorCode.TOO_MANY_REQUESTS,
+                    "Maximum number of pending requests reached. Please retry later");
         }
     }
 }
@@ -0,0 +1,234 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http.api;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
+import ai.konduit.serving.pipeline.util.ObjectMappers;
+import ai.konduit.serving.vertx.verticle.InferenceWorkerPool;
+import ai.konduit.serving.vertx.verticle.OrderedStreamProcessor;
+import com.google.protobuf.CodedOutputStream;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.shade.guava.base.Strings;
+import org.nd4j.shade.jackson.databind.ObjectWriter;
+import org.nd4j.shade.jackson.databind.SerializationFeature;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.netty.handler.codec.http.HttpHeaderValues.APPLICATION_OCTET_STREAM;
+import static io.vertx.core.http.HttpHeaders.ACCEPT;
+import static io.vertx.core.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Streaming inference over HTTP: the request body is a stream of {@link Data} records, which are read incrementally
+ * (without buffering the whole request body), executed with bounded concurrency and written back as a chunked
+ * response, in the same order as the inputs.<br>
+ * Two framings are supported, selected by the Content-Type header:<br>
+ * - application/x-ndjson: one JSON Data record per line<br>
+ * - application/octet-stream: protobuf DataMap records, each prefixed with its length as a varint (i.e., as written by
+ * {@code writeDelimitedTo})<br>
+ * The response uses the framing from the Accept header if it is one of these, or the request framing otherwise.<br>
+ * If a record fails before any output has been written, a regular error response is returned. Otherwise, the
+ * connection is closed without completing the chunked response, so that clients can detect the failure.
+ */
+@Slf4j
+@AllArgsConstructor
+public class InferenceHttpStreamApi {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final int DEFAULT_MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private static final ObjectWriter NDJSON_WRITER = ObjectMappers.json().writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    protected final InferenceWorkerPool inferenceWorkerPool;
+    protected final int streamConcurrency;
+
+    public void predictStream(RoutingContext ctx) {
+        String contentType = ctx.request().headers().get(CONTENT_TYPE);
+        String accept = ctx.request().headers().get(ACCEPT);
+
+        boolean ndjsonInput;
+        if(Strings.isNullOrEmpty(contentType)) {
+            throw new KonduitServingHttpException(HttpApiErrorCode.MISSING_OR_EMPTY_CONTENT_TYPE_HEADER,
+                    String.format("Content-Type header should not be null. Possible values are: [%s, %s]", APPLICATION_NDJSON, APPLICATION_OCTET_STREAM));
+        } else if(contentType.contains(APPLICATION_NDJSON)) {
+            ndjsonInput = true;
+        } else if(contentType.contains(APPLICATION_OCTET_STREAM.toString())) {
+            ndjsonInput = false;
+        } else {
+            throw new KonduitServingHttpException(HttpApiErrorCode.INVALID_CONTENT_TYPE_HEADER,
+                    String.format("Invalid Content-Type header %s. Should be one of [%s, %s]", contentType, APPLICATION_NDJSON, APPLICATION_OCTET_STREAM));
+        }
+
+        boolean ndjsonOutput = ndjsonInput;
+        if(!Strings.isNullOrEmpty(accept)) {
+            if(accept.contains(APPLICATION_NDJSON)) {
+                ndjsonOutput = true;
+            } else if(accept.contains(APPLICATION_OCTET_STREAM.toString())) {
+                ndjsonOutput = false;
+            }
+        }
+
+        new PredictStream(ctx, ndjsonInput, ndjsonOutput).start();
+    }
+
+    /**
+     * State for a single streaming request. Ordering and bounded concurrency are handled by
+     * {@link OrderedStreamProcessor}; this class handles framing and flow control on the HTTP connection.
+     */
+    private class PredictStream implements OrderedStreamProcessor.Sink<Buffer> {
+        private final RoutingContext ctx;
+        private final HttpServerRequest request;
+        private final HttpServerResponse response;
+        private final boolean ndjsonInput;
+        private final boolean ndjsonOutput;
+        private final StreamRecordParser parser;
+        private final OrderedStreamProcessor<Buffer,Buffer> processor;
+        private boolean inputEnded;
+
+        private PredictStream(RoutingContext ctx, boolean ndjsonInput, boolean ndjsonOutput) {
+            this.ctx = ctx;
+            this.request = ctx.request();
+            this.response = ctx.response();
+            this.ndjsonInput = ndjsonInput;
+            this.ndjsonOutput = ndjsonOutput;
+            this.processor = new OrderedStreamProcessor<>(ctx.vertx(), inferenceWorkerPool, streamConcurrency, this::process, this);
+            this.parser = ndjsonInput ? StreamRecordParser.newlineDelimited(DEFAULT_MAX_RECORD_SIZE, processor::add) :
+                    StreamRecordParser.lengthPrefixed(DEFAULT_MAX_RECORD_SIZE, processor::add);
+        }
+
+        private void start() {
+            response.setChunked(true)
+                    .setStatusCode(200)
+                    .putHeader(CONTENT_TYPE, ndjsonOutput ? APPLICATION_NDJSON : APPLICATION_OCTET_STREAM.toString());
+            response.closeHandler(v -> {
+                if(!processor.isDone()) {
+                    log.debug("Connection closed before streaming response was complete");
+                    processor.cancel();
+                }
+            });
+
+            request.handler(buffer -> {
+                if(processor.isDone())
+                    return;
+                try {
+                    parser.handle(buffer);
+                } catch (Throwable t) {
+                    onError(new KonduitServingHttpException(HttpApiErrorCode.DATA_PARSING_ERROR, t));
+                }
+            });
+            request.endHandler(v -> {
+                if(processor.isDone())
+                    return;
+                try {
+                    parser.end();
+                } catch (Throwable t) {
+                    onError(new KonduitServingHttpException(HttpApiErrorCode.DATA_PARSING_ERROR, t));
+                    return;
+                }
+                inputEnded = true;
+                processor.endInput();
+            });
+            request.exceptionHandler(this::onError);
+        }
+
+        @Override
+        public boolean isReady() {
+            return !response.writeQueueFull();
+        }
+
+        @Override
+        public void write(Buffer output) {
+            response.write(output);
+        }
+
+        @Override
+        public void complete() {
+            response.end();
+        }
+
+        /**
+         * Pause reading of the request while the processing window, the backlog or the response write queue is full,
+         * and resume otherwise
+         */
+        @Override
+        public void drained() {
+            if(processor.isWindowFull() || processor.backlogSize() >= streamConcurrency || response.writeQueueFull()) {
+                request.pause();
+                if(response.writeQueueFull()) {
+                    response.drainHandler(v -> processor.drain());
+                }
+            } else if(!inputEnded) {
+                request.resume();
+            }
+        }
+
+        private Buffer process(Buffer record) throws Exception {
+            Data input;
+            try {
+                input = ndjsonInput ? Data.fromJson(record.toString(StandardCharsets.UTF_8)) :
+                        Data.fromBuffer(record.getByteBuf().nioBuffer());
+            } catch (Exception exception) {
+                throw new KonduitServingHttpException(HttpApiErrorCode.DATA_PARSING_ERROR, exception);
+            }
+
+            Data output;
+            try {
+                output = inferenceWorkerPool.getPipelineExecutor().exec(input);
+            } catch (Exception exception) {
+                throw new KonduitServingHttpException(HttpApiErrorCode.PIPELINE_PROCESSING_ERROR, exception);
+            }
+
+            if(ndjsonOutput) {
+                return Buffer.buffer(NDJSON_WRITER.writeValueAsBytes(output)).appendByte((byte) '\n');
+            }
+
+            DataProtoMessage.DataMap message = output.toProtoData().toProtoMessage();
+            int size = message.getSerializedSize();
+            byte[] bytes = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+            CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+            cos.writeUInt32NoTag(size);
+            message.writeTo(cos);
+            cos.checkNoSpaceLeft();
+            return Buffer.buffer(bytes);
+        }
+
+        private void onError(Throwable t) {
+            if(processor.isDone())
+                return;
+            processor.cancel();
+            fail(t);
+        }
+
+        @Override
+        public void fail(Throwable t) {
+            if(!response.headWritten()) {
+                ctx.fail(t);
+            } else {
+                log.error("Streaming request failed after partial response was written; closing connection", t);
+                request.connection().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http.api;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import lombok.NonNull;
+
+/**
+ * Splits a stream of buffers into individual records, as they arrive. Two framings are supported:<br>
+ * - Newline delimited (for NDJSON): records are separated by '\n'. Empty lines are ignored, and a final record without
+ * a trailing newline is emitted by {@link #end()}<br>
+ * - Length prefixed (for protobuf): each record is preceded by its length as a varint, as written by protobuf's
+ * {@code writeDelimitedTo} methods
+ */
+public class StreamRecordParser implements Handler<Buffer> {
+
+    private static final byte NEWLINE = '\n';
+
+    private final boolean lengthPrefixed;
+    private final int maxRecordSize;
+    private final Handler<Buffer> recordHandler;
+    private Buffer pending = Buffer.buffer();
+    private int position;
+    private int scanned;        //Bytes of pending (from the start) already searched for a newline
+
+    protected StreamRecordParser(boolean lengthPrefixed, int maxRecordSize, @NonNull Handler<Buffer> recordHandler) {
+        this.lengthPrefixed = lengthPrefixed;
+        this.maxRecordSize = maxRecordSize;
+        this.recordHandler = recordHandler;
+    }
+
+    public static StreamRecordParser newlineDelimited(int maxRecordSize, @NonNull Handler<Buffer> recordHandler) {
+        return new StreamRecordParser(false, maxRecordSize, recordHandler);
+    }
+
+    public static StreamRecordParser lengthPrefixed(int maxRecordSize, @NonNull Handler<Buffer> recordHandler) {
+        return new StreamRecordParser(true, maxRecordSize, recordHandler);
+    }
+
+    @Override
+    public void handle(Buffer buffer) {
+        pending.appendBuffer(buffer);
+        if(lengthPrefixed) {
+            parseLengthPrefixed();
+        } else {
+            parseNewlineDelimited();
+        }
+
+        //Discard the records that have already been emitted
+        if(position > 0) {
+            pending = pending.getBuffer(position, pending.length());
+            scanned = Math.max(0, scanned - position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Signal the end of the stream. Throws an exception if the stream ends part way through a length prefixed record
+     */
+    public void end() {
+        if(lengthPrefixed) {
+            if(position < pending.length()) {
+                throw new IllegalStateException("Stream ended part way through a record: " + (pending.length() - position) +
+                        " bytes remaining");
+            }
+        } else if(position < pending.length()) {
+            emit(position, pending.length());
+            position = pending.length();
+        }
+    }
+
+    private void parseNewlineDelimited() {
+        //Don't search the part of a partial record that previous chunks have already searched: otherwise, a large
+        //record arriving in many small chunks would be searched O(n^2) times
+        int length = pending.length();
+        for(int i = Math.max(position, scanned); i < length; i++) {
+            if(pending.getByte(i) == NEWLINE) {
+                emit(position, i);
+                position = i + 1;
+            }
+        }
+        scanned = length;
+
+        if(length - position > maxRecordSize) {
+            throw new IllegalStateException("Record size exceeds maximum of " + maxRecordSize + " bytes");
+        }
+    }
+
+    private void parseLengthPrefixed() {
+        while(true) {
+            //Varint: 7 bits per byte, least significant group first, high bit set on all but the last byte
+            int size = 0;
+            int i = position;
+            boolean complete = false;
+            for(int shift = 0; i < pending.length(); shift += 7) {
+                if(shift >= 32) {
+                    throw new IllegalStateException("Invalid record length prefix: varint is too long");
+                }
+                byte b = pending.getByte(i++);
+                size |= (b & 0x7F) << shift;
+                if((b & 0x80) == 0) {
+                    complete = true;
+                    break;
+                }
+            }
+
+            if(!complete)
+                return;
+            if(size < 0 || size > maxRecordSize) {
+                throw new IllegalStateException("Record size " + (size & 0xFFFFFFFFL) + " exceeds maximum of " + maxRecordSize + " bytes");
+            }
+            if(pending.length() - i < size)
+                return;
+
+            recordHandler.handle(pending.getBuffer(i, i + size));
+            position = i + size;
+        }
+    }
+
+    private void emit(int start, int end) {
+        //Allow CRLF line endings, and skip blank lines
+        if(end > start && pending.getByte(end - 1) == '\r')
+            end--;
+        if(end > start) {
+            recordHandler.handle(pending.getBuffer(start, end));
+        }
+    }
+}
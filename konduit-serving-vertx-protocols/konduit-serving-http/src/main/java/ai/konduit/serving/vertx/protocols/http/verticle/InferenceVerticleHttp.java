@@ -24,6 +24,7 @@ import ai.konduit.serving.pipeline.util.ObjectMappers;
 import ai.konduit.serving.vertx.protocols.http.api.ErrorResponse;
 import ai.konduit.serving.vertx.protocols.http.api.HttpApiErrorCode;
 import ai.konduit.serving.vertx.protocols.http.api.InferenceHttpApi;
+import ai.konduit.serving.vertx.protocols.http.api.InferenceHttpStreamApi;
 import ai.konduit.serving.vertx.protocols.http.api.KonduitServingHttpException;
 import ai.konduit.serving.vertx.settings.DirectoryFetcher;
 import ai.konduit.serving.vertx.settings.constants.EnvironmentConstants;
@@ -34,6 +35,7 @@ import io.vertx.core.Promise;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.impl.ContextInternal;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
@@ -93,6 +95,7 @@ public class InferenceVerticleHttp extends InferenceVerticle {
                             log.info("Inference HTTP server is listening on host: '{}'", inferenceConfiguration.getHost());
                             log.info("Inference HTTP server started on port {} with {} pipeline steps", actualPort, pipeline.size());
                             startPromise.complete();
+                            warmup();
                         } catch (Throwable throwable) {
                             startPromise.fail(throwable);
                         }
@@ -101,7 +104,9 @@ public class InferenceVerticleHttp extends InferenceVerticle {
     }
 
     public Router createRouter() {
-        InferenceHttpApi inferenceHttpApi = new InferenceHttpApi(pipelineExecutor);
+        InferenceHttpApi inferenceHttpApi = new InferenceHttpApi(inferenceWorkerPool);
+        InferenceHttpStreamApi inferenceHttpStreamApi = new InferenceHttpStreamApi(inferenceWorkerPool,
+                inferenceConfiguration.getStreamConcurrency());
 
         Router inferenceRouter = Router.router(vertx);
         ServiceLoader<MetricsProvider> sl = ServiceLoader.load(MetricsProvider.class);
@@ -131,6 +136,19 @@ public class InferenceVerticleHttp extends InferenceVerticle {
                     });
         }
 
+        //Liveness and readiness probes: the server only reports itself as ready once the pipeline has been warmed up,
+        // so that load balancers don't route traffic to it before latency has reached steady state
+        inferenceRouter.get("/health/live").handler(ctx -> ctx.response().setStatusCode(200).end());
+        inferenceRouter.get("/health/ready").handler(ctx -> ctx.response()
+                .setStatusCode(isReady() ? 200 : 503)
+                .end());
+
+        //Registered before the body handler: the request body is read incrementally instead of being buffered
+        inferenceRouter.post("/predict/stream")
+                .consumes(InferenceHttpStreamApi.APPLICATION_NDJSON)
+                .consumes(APPLICATION_OCTET_STREAM.toString())
+                .handler(inferenceHttpStreamApi::predictStream);
+
         inferenceRouter.post().handler(BodyHandler.create()
                 .setUploadsDirectory(DirectoryFetcher.getFileUploadsDir().getAbsolutePath())
                 .setDeleteUploadedFilesOnEnd(true)
@@ -158,12 +176,11 @@ public class InferenceVerticleHttp extends InferenceVerticle {
                     }
                 });
 
-        inferenceRouter.post("/predict")
-                .consumes(APPLICATION_JSON.toString())
-                .consumes(APPLICATION_OCTET_STREAM.toString())
-                .produces(APPLICATION_JSON.toString())
-                .produces(APPLICATION_OCTET_STREAM.toString())
-                .handler(inferenceHttpApi::predict);
+        Route predictRoute = inferenceRouter.post("/predict");
+        for(String contentType : InferenceHttpApi.supportedContentTypes()) {
+            predictRoute.consumes(contentType).produces(contentType);
+        }
+        predictRoute.handler(inferenceHttpApi::predict);
 
         return inferenceRouter;
     }
@@ -174,7 +191,7 @@ public class InferenceVerticleHttp extends InferenceVerticle {
 
     private void sendErrorResponse(RoutingContext ctx, HttpApiErrorCode errorCode, String errorMessage) {
         ctx.response()
-                .setStatusCode(500)
+                .setStatusCode(errorCode == HttpApiErrorCode.TOO_MANY_REQUESTS ? 429 : 500)
                 .putHeader(CONTENT_TYPE, APPLICATION_JSON.toString())
                 .end(ObjectMappers.toJson(ErrorResponse.builder()
                         .errorCode(errorCode)
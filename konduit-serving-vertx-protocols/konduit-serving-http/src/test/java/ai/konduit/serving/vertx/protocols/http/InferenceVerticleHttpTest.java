@@ -19,7 +19,9 @@
 package ai.konduit.serving.vertx.protocols.http;
 
 import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.data.NDArray;
 import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.data.protobuf.DataProtoMessage;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
 import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
 import ai.konduit.serving.vertx.api.DeployKonduitServing;
@@ -27,6 +29,7 @@ import ai.konduit.serving.vertx.config.InferenceConfiguration;
 import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
 import ai.konduit.serving.vertx.config.ServerProtocol;
 import ai.konduit.serving.vertx.protocols.http.api.ErrorResponse;
+import ai.konduit.serving.vertx.protocols.http.api.InferenceHttpStreamApi;
 import ai.konduit.serving.vertx.protocols.http.test.FailureTestingPipelineStep;
 import com.jayway.restassured.http.ContentType;
 import com.jayway.restassured.response.Response;
@@ -43,6 +46,16 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.event.Level;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static ai.konduit.serving.vertx.protocols.http.api.HttpApiErrorCode.*;
@@ -52,11 +65,14 @@ import static com.jayway.restassured.RestAssured.given;
 public class InferenceVerticleHttpTest {
 
     public static final String PREDICT_ENDPOINT = "/predict";
+    public static final String PREDICT_STREAM_ENDPOINT = "/predict/stream";
 
     static InferenceConfiguration configuration;
     static Vertx vertx;
     static InferenceDeploymentResult inferenceDeploymentResult;
     public static AtomicBoolean causeFailure = new AtomicBoolean();
+    public static volatile CountDownLatch executing;
+    public static volatile CountDownLatch release;
 
     @BeforeClass
     public static void setUp(TestContext testContext) {
@@ -66,6 +82,8 @@ public class InferenceVerticleHttpTest {
                         .add(LoggingPipelineStep.builder().log(LoggingPipelineStep.Log.KEYS_AND_VALUES).logLevel(Level.ERROR).build())
                         .add(new FailureTestingPipelineStep())
                         .build())
+                .workers(2)
+                .maxPendingRequests(2)
                 .build();
 
         Async async = testContext.async();
@@ -152,6 +170,22 @@ public class InferenceVerticleHttpTest {
         testContext.assertEquals(input, Data.fromBytes(response.asByteArray()));
     }
 
+    @Test
+    public void inferenceVerticleHttpTestNDArrayBinaryToBinary(TestContext testContext) {
+        Data input = JData.singleton("key_ndarray", NDArray.create(new float[][]{{1, 2, 3}, {4, 5, 6}}));
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(ContentType.BINARY)
+                .accept(ContentType.BINARY)
+                .body(input.asBytes())
+                .post(PREDICT_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(ContentType.BINARY.toString(), response.contentType());
+        testContext.assertEquals(input, Data.fromBytes(response.asByteArray()));
+    }
+
     @Test
     public void testEmptyOrNullContentTypeHeader(TestContext testContext) {
         Data input = JData.singleton("key_null_or_empty_content_type_header", false);
@@ -253,6 +287,119 @@ public class InferenceVerticleHttpTest {
         testContext.assertEquals(PIPELINE_PROCESSING_ERROR.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
     }
 
+    @Test
+    public void testTooManyRequests(TestContext testContext) throws Exception {
+        executing = new CountDownLatch(2);
+        release = new CountDownLatch(1);
+        Data input = JData.singleton("key_too_many_requests", false);
+
+        ExecutorService es = Executors.newFixedThreadPool(2);
+        try {
+            //Block both workers, so that the pending request limit is reached
+            List<Future<Response>> blocked = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                blocked.add(es.submit(() -> given().port(inferenceDeploymentResult.getActualPort())
+                        .contentType(ContentType.JSON)
+                        .accept(ContentType.JSON)
+                        .body(input.toJson())
+                        .post(PREDICT_ENDPOINT)
+                        .andReturn()));
+            }
+            testContext.assertTrue(executing.await(30, TimeUnit.SECONDS));
+
+            Response response = given().port(inferenceDeploymentResult.getActualPort())
+                    .contentType(ContentType.JSON)
+                    .accept(ContentType.JSON)
+                    .body(input.toJson())
+                    .post(PREDICT_ENDPOINT)
+                    .andReturn();
+
+            testContext.assertEquals(429, response.statusCode());
+            testContext.assertEquals(ContentType.JSON.toString(), response.contentType());
+            testContext.assertEquals(TOO_MANY_REQUESTS.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+
+            release.countDown();
+            for (Future<Response> f : blocked) {
+                Response r = f.get(30, TimeUnit.SECONDS);
+                testContext.assertEquals(200, r.statusCode());
+                testContext.assertEquals(input, Data.fromJson(r.asString()));
+            }
+        } finally {
+            release.countDown();
+            release = null;
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStreamNdjson(TestContext testContext) {
+        int n = 50;
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < n; i++) {
+            sb.append(JData.singleton("key_stream_ndjson", (long) i).toJson().replace("\n", "")).append("\n");
+        }
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(InferenceHttpStreamApi.APPLICATION_NDJSON)
+                .body(sb.toString().getBytes(StandardCharsets.UTF_8))
+                .post(PREDICT_STREAM_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(InferenceHttpStreamApi.APPLICATION_NDJSON, response.contentType());
+        String[] lines = response.asString().split("\n");
+        testContext.assertEquals(n, lines.length);
+        for(int i = 0; i < n; i++) {
+            //Outputs must be in the same order as the inputs
+            testContext.assertEquals(JData.singleton("key_stream_ndjson", (long) i), Data.fromJson(lines[i]));
+        }
+    }
+
+    @Test
+    public void testStreamLengthPrefixed(TestContext testContext) throws Exception {
+        int n = 50;
+        List<Data> inputs = new ArrayList<>();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for(int i = 0; i < n; i++) {
+            Data d = JData.singleton("key_stream_binary", NDArray.create(new float[]{i, i + 1, i + 2}));
+            inputs.add(d);
+            d.toProtoData().toProtoMessage().writeDelimitedTo(baos);
+        }
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(ContentType.BINARY)
+                .accept(ContentType.BINARY)
+                .body(baos.toByteArray())
+                .post(PREDICT_STREAM_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(200, response.statusCode());
+        testContext.assertEquals(ContentType.BINARY.toString(), response.contentType());
+        ByteArrayInputStream bais = new ByteArrayInputStream(response.asByteArray());
+        for(int i = 0; i < n; i++) {
+            DataProtoMessage.DataMap m = DataProtoMessage.DataMap.parseDelimitedFrom(bais);
+            testContext.assertNotNull(m);
+            testContext.assertEquals(inputs.get(i), Data.fromBytes(m.toByteArray()));
+        }
+        testContext.assertEquals(0, bais.available());
+    }
+
+    @Test
+    public void testStreamFailedPipeline(TestContext testContext) {
+        causeFailure.set(true);
+        Data input = JData.singleton("key_stream_failure", false);
+
+        Response response = given().port(inferenceDeploymentResult.getActualPort())
+                .contentType(InferenceHttpStreamApi.APPLICATION_NDJSON)
+                .body((input.toJson().replace("\n", "") + "\n").getBytes(StandardCharsets.UTF_8))
+                .post(PREDICT_STREAM_ENDPOINT)
+                .andReturn();
+
+        testContext.assertEquals(500, response.statusCode());
+        testContext.assertEquals(ContentType.JSON.toString(), response.contentType());
+        testContext.assertEquals(PIPELINE_PROCESSING_ERROR.name(), ErrorResponse.fromJson(response.asString()).getErrorCode().name());
+    }
+
     @AfterClass
     public static void tearDown(TestContext testContext) {
         vertx.close(testContext.asyncAssertSuccess());
@@ -0,0 +1,105 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.verticle.SharedPipelineExecutors;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.response.Response;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jayway.restassured.RestAssured.given;
+
+@RunWith(VertxUnitRunner.class)
+public class SharedExecutorHttpTest {
+
+    public static final int INSTANCES = 3;
+
+    @Test
+    public void testSharedExecutor(TestContext testContext) {
+        InferenceConfiguration configuration = InferenceConfiguration.builder()
+                .protocol(ServerProtocol.HTTP)
+                .pipeline(SequencePipeline.builder()
+                        .add(LoggingPipelineStep.builder().log(LoggingPipelineStep.Log.KEYS).logLevel(Level.TRACE).build())
+                        .build())
+                .sharedExecutor(true)
+                .build();
+
+        Async async = testContext.async();
+        AtomicInteger port = new AtomicInteger();
+        Vertx vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                new DeploymentOptions().setInstances(INSTANCES),
+                configuration,
+                handler -> {
+                    if(handler.succeeded()) {
+                        port.set(handler.result().getActualPort());
+                        async.complete();
+                    } else {
+                        testContext.fail(handler.cause());
+                    }
+                });
+        async.await();
+
+        //All verticle instances use the same executor: acquiring it again returns that executor
+        PipelineExecutor executor = SharedPipelineExecutors.acquire(configuration);
+        testContext.assertEquals(INSTANCES + 1, SharedPipelineExecutors.refCount(executor));
+        SharedPipelineExecutors.release(executor);
+        testContext.assertEquals(INSTANCES, SharedPipelineExecutors.refCount(executor));
+
+        Data input = JData.singleton("key", "value");
+        for( int i=0; i<2*INSTANCES; i++ ){
+            Response response = given().port(port.get())
+                    .contentType(ContentType.JSON)
+                    .accept(ContentType.JSON)
+                    .body(input.toJson())
+                    .post("/predict")
+                    .andReturn();
+
+            testContext.assertEquals(200, response.statusCode());
+            testContext.assertEquals(input, Data.fromJson(response.asString()));
+        }
+
+        Async closed = testContext.async();
+        vertx.close(testContext.asyncAssertSuccess(v -> closed.complete()));
+        closed.await();
+
+        //Closed once released by all verticle instances
+        testContext.assertEquals(0, SharedPipelineExecutors.refCount(executor));
+        PipelineExecutor newExecutor = SharedPipelineExecutors.acquire(configuration);
+        testContext.assertNotEquals(executor, newExecutor);
+        SharedPipelineExecutors.release(newExecutor);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.vertx.protocols.http.api.StreamRecordParser;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamRecordParserTest {
+
+    @Test
+    public void testNewlineDelimitedChunks() {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 100_000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        String large = sb.toString();
+        String stream = "{\"a\":1}\r\n\n" + large + "\n{\"b\":2}";
+
+        //Split into chunks of various sizes, including chunks that end in the middle of a CRLF
+        for(int chunkSize : new int[]{1, 8, 1000, stream.length()}) {
+            List<String> records = new ArrayList<>();
+            StreamRecordParser p = StreamRecordParser.newlineDelimited(1 << 20, b -> records.add(b.toString(StandardCharsets.UTF_8)));
+            byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+            for(int i = 0; i < bytes.length; i += chunkSize) {
+                p.handle(Buffer.buffer(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunkSize))));
+            }
+            p.end();
+            assertEquals(Arrays.asList("{\"a\":1}", large, "{\"b\":2}"), records);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.protocols.http;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
+import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
+import ai.konduit.serving.vertx.api.DeployKonduitServing;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.ServerProtocol;
+import ai.konduit.serving.vertx.config.WarmupConfiguration;
+import ai.konduit.serving.vertx.protocols.http.test.FailureTestingPipelineStep;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jayway.restassured.RestAssured.given;
+
+@RunWith(VertxUnitRunner.class)
+public class WarmupHttpTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testReadiness(TestContext testContext) throws Exception {
+        Data input = JData.singleton("key", "value");
+        File inputFile = testDir.newFile("warmup.json");
+        FileUtils.writeStringToFile(inputFile, input.toJson(), StandardCharsets.UTF_8);
+
+        InferenceConfiguration configuration = InferenceConfiguration.builder()
+                .protocol(ServerProtocol.HTTP)
+                .pipeline(SequencePipeline.builder()
+                        .add(new FailureTestingPipelineStep())
+                        .build())
+                .warmup(WarmupConfiguration.builder()
+                        .iterations(3)
+                        .inputFile(inputFile.getAbsolutePath())
+                        .build())
+                .build();
+
+        //Block the warm-up until the readiness route has been checked
+        InferenceVerticleHttpTest.executing = new CountDownLatch(1);
+        InferenceVerticleHttpTest.release = new CountDownLatch(1);
+        Vertx vertx = null;
+        try {
+            Async async = testContext.async();
+            AtomicInteger port = new AtomicInteger();
+            vertx = DeployKonduitServing.deploy(new VertxOptions(),
+                    new DeploymentOptions(),
+                    configuration,
+                    handler -> {
+                        if (handler.succeeded()) {
+                            port.set(handler.result().getActualPort());
+                            async.complete();
+                        } else {
+                            testContext.fail(handler.cause());
+                        }
+                    });
+            async.await();
+
+            testContext.assertTrue(InferenceVerticleHttpTest.executing.await(30, TimeUnit.SECONDS));
+            testContext.assertEquals(200, given().port(port.get()).get("/health/live").statusCode());
+            testContext.assertEquals(503, given().port(port.get()).get("/health/ready").statusCode());
+
+            InferenceVerticleHttpTest.release.countDown();
+            InferenceVerticleHttpTest.release = null;
+
+            int status = 503;
+            for (int i = 0; i < 100 && status != 200; i++) {
+                status = given().port(port.get()).get("/health/ready").statusCode();
+                if (status != 200)
+                    Thread.sleep(100);
+            }
+            testContext.assertEquals(200, status);
+        } finally {
+            if (InferenceVerticleHttpTest.release != null) {
+                InferenceVerticleHttpTest.release.countDown();
+                InferenceVerticleHttpTest.release = null;
+            }
+
+            if (vertx != null) {
+                Async closed = testContext.async();
+                vertx.close(testContext.asyncAssertSuccess(v -> closed.complete()));
+                closed.await();
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import ai.konduit.serving.vertx.protocols.http.InferenceVerticleHttpTest;
 import lombok.AllArgsConstructor;
 
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 
 @AllArgsConstructor
 public class FailureTestingPipelineStep implements PipelineStep {
@@ -67,6 +68,16 @@ public class FailureTestingPipelineStep implements PipelineStep {
         public Data exec(Context ctx, Data data) {
             if(InferenceVerticleHttpTest.causeFailure.get())
                 throw new IllegalStateException("Intentionally causing a pipeline execution failure!");
+
+            CountDownLatch release = InferenceVerticleHttpTest.release;
+            if(release != null) {
+                InferenceVerticleHttpTest.executing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
             return data;
         }
     }
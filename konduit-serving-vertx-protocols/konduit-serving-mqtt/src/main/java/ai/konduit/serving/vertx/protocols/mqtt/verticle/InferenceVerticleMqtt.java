@@ -18,13 +18,399 @@
 
 package ai.konduit.serving.vertx.protocols.mqtt.verticle;
 
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.vertx.config.MqttConfiguration;
+import ai.konduit.serving.vertx.settings.constants.EnvironmentConstants;
 import ai.konduit.serving.vertx.verticle.InferenceVerticle;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mqtt.MqttEndpoint;
+import io.vertx.mqtt.MqttServer;
+import io.vertx.mqtt.MqttServerOptions;
+import io.vertx.mqtt.MqttTopicSubscription;
+import io.vertx.mqtt.messages.MqttPublishMessage;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * An MQTT server for inference: clients connect to this verticle directly (i.e., it acts as the MQTT broker), publish
+ * {@link Data} instances (protobuf or JSON encoded - see {@link MqttConfiguration#getPayloadFormat()}) to the input topic, and subscribe to the output topic for the
+ * results. See {@link MqttConfiguration} for the topics and batching settings.<br>
+ * Messages that arrive within the configured window are decoded, executed and encoded together as a single task on the
+ * worker pool (via {@code PipelineExecutor.exec(Data...)}; configure batching on the inference configuration to also
+ * combine them into a single pipeline execution). Results are published in the same encoding as the input.<br>
+ * Back-pressure depends on the QoS of the input messages: QoS 1 and 2 messages are only acknowledged once their results
+ * have been published, so each client's in-flight window limits the number of messages queued on its behalf. QoS 0
+ * messages are dropped once the queue limit has been reached.<br>
+ * Results are distributed via the local event bus, so that subscribers connected to any verticle instance sharing the
+ * port receive them.
+ */
+@Slf4j
 public class InferenceVerticleMqtt extends InferenceVerticle {
 
+    public static final String PUBLISH_ADDRESS = "konduit-serving.mqtt.publish";
+    private static final String TOPIC_HEADER = "topic";
+    private static final long RETRY_DELAY_MS = 10;
+
+    private MqttConfiguration mqttConfiguration;
+    private final Map<MqttEndpoint, Map<String, MqttQoS>> subscriptions = new LinkedHashMap<>();
+    private final Deque<InputMessage> queue = new ArrayDeque<>();
+    private int executing;
+    private long timerId = -1;
+    private MessageConsumer<Buffer> publishConsumer;
+
     @Override
     public void start(Promise<Void> startPromise) {
-        // todo: implement the mqtt server start here.
+        int port;
+
+        String portEnvValue = System.getenv(EnvironmentConstants.KONDUIT_SERVING_PORT);
+        if (portEnvValue != null) {
+            try {
+                port = Integer.parseInt(portEnvValue);
+            } catch (NumberFormatException exception) {
+                log.error("Environment variable \"{}={}\" isn't a valid port number.",
+                        EnvironmentConstants.KONDUIT_SERVING_PORT, portEnvValue);
+                startPromise.fail(exception);
+                return;
+            }
+        } else {
+            port = inferenceConfiguration.getPort();
+        }
+
+        if (port < 0 || port > 0xFFFF) {
+            startPromise.fail(new Exception("Valid port range is 0 <= port <= 65535. The given port was " + port));
+            return;
+        }
+
+        mqttConfiguration = inferenceConfiguration.getMqtt() != null ? inferenceConfiguration.getMqtt() :
+                MqttConfiguration.builder().build();
+
+        publishConsumer = vertx.eventBus().localConsumer(PUBLISH_ADDRESS,
+                message -> deliver(message.headers().get(TOPIC_HEADER), message.body()));
+
+        MqttServer mqttServer = MqttServer.create(vertx, new MqttServerOptions()
+                .setHost(inferenceConfiguration.getHost())
+                .setPort(port));
+
+        mqttServer.endpointHandler(this::handleEndpoint)
+                .exceptionHandler(throwable -> log.error("MQTT server error", throwable))
+                .listen(handler -> {
+                    if (handler.failed()) {
+                        startPromise.fail(handler.cause());
+                    } else {
+                        int actualPort = handler.result().actualPort();
+                        inferenceConfiguration.setPort(actualPort);
+
+                        try {
+                            ((ContextInternal) context).getDeployment()
+                                    .deploymentOptions()
+                                    .setConfig(new JsonObject(inferenceConfiguration.toJson()));
+
+                            log.info("Inference MQTT server is listening on host: '{}'", inferenceConfiguration.getHost());
+                            log.info("Inference MQTT server started on port {} with {} pipeline steps", actualPort, pipeline.size());
+                            startPromise.complete();
+                            warmup();
+                        } catch (Throwable throwable) {
+                            startPromise.fail(throwable);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        if(publishConsumer != null) {
+            publishConsumer.unregister();
+        }
+        super.stop(stopPromise);
+    }
+
+    protected void handleEndpoint(MqttEndpoint endpoint) {
+        log.debug("MQTT client connected: {}", endpoint.clientIdentifier());
+        subscriptions.put(endpoint, new LinkedHashMap<>());
+
+        endpoint.subscribeHandler(subscribe -> {
+            List<MqttQoS> granted = new ArrayList<>();
+            for(MqttTopicSubscription s : subscribe.topicSubscriptions()) {
+                //Exactly once delivery of results isn't supported: the results aren't persisted
+                MqttQoS qos = s.qualityOfService() == MqttQoS.EXACTLY_ONCE ? MqttQoS.AT_LEAST_ONCE : s.qualityOfService();
+                subscriptions.get(endpoint).put(s.topicName(), qos);
+                granted.add(qos);
+            }
+            endpoint.subscribeAcknowledge(subscribe.messageId(), granted);
+        });
+
+        endpoint.unsubscribeHandler(unsubscribe -> {
+            for(String topic : unsubscribe.topics()) {
+                subscriptions.get(endpoint).remove(topic);
+            }
+            endpoint.unsubscribeAcknowledge(unsubscribe.messageId());
+        });
+
+        endpoint.publishHandler(message -> onPublish(endpoint, message));
+        endpoint.publishReleaseHandler(endpoint::publishComplete);
+        endpoint.publishReceivedHandler(endpoint::publishRelease);
+        endpoint.disconnectHandler(v -> subscriptions.remove(endpoint));
+        endpoint.closeHandler(v -> subscriptions.remove(endpoint));
+        endpoint.exceptionHandler(t -> log.warn("MQTT client {} error", endpoint.clientIdentifier(), t));
+
+        endpoint.accept(false);
+    }
+
+    protected void onPublish(MqttEndpoint endpoint, MqttPublishMessage message) {
+        String topic = message.topicName();
+        if(!isInputTopic(topic)) {
+            log.warn("Ignoring message published to topic \"{}\": not an input topic (\"{}\" or a sub-topic of it)",
+                    topic, mqttConfiguration.getInputTopic());
+            acknowledge(endpoint, message);
+            return;
+        }
+
+        if(message.qosLevel() == MqttQoS.AT_MOST_ONCE && queue.size() + executing >= mqttConfiguration.getMaxQueuedMessages()) {
+            log.warn("Dropping QoS 0 message published to topic \"{}\": maximum number of queued messages ({}) reached",
+                    topic, mqttConfiguration.getMaxQueuedMessages());
+            return;
+        }
+
+        queue.add(new InputMessage(endpoint, message, payloadFormat()));
+        if(queue.size() >= mqttConfiguration.getMaxBatchSize() || mqttConfiguration.getMaxWaitTimeMs() <= 0) {
+            flush();
+        } else if(timerId < 0) {
+            timerId = vertx.setTimer(mqttConfiguration.getMaxWaitTimeMs(), id -> {
+                timerId = -1;
+                flush();
+            });
+        }
+    }
+
+    protected void flush() {
+        if(timerId >= 0) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+
+        while(!queue.isEmpty()) {
+            List<InputMessage> batch = new ArrayList<>();
+            while(!queue.isEmpty() && batch.size() < mqttConfiguration.getMaxBatchSize()) {
+                batch.add(queue.poll());
+            }
+
+            boolean accepted = inferenceWorkerPool.submit(() -> execBatch(batch), result -> onBatchResult(batch, result));
+            if(!accepted) {
+                //Worker pool is saturated: retry shortly
+                for(int i = batch.size() - 1; i >= 0; i--) {
+                    queue.addFirst(batch.get(i));
+                }
+                timerId = vertx.setTimer(RETRY_DELAY_MS, id -> {
+                    timerId = -1;
+                    flush();
+                });
+                return;
+            }
+            executing += batch.size();
+        }
+    }
+
+    /**
+     * Decode, execute and encode a batch of messages. Executed on the worker pool
+     */
+    protected List<OutputMessage> execBatch(List<InputMessage> batch) {
+        List<Data> inputs = new ArrayList<>(batch.size());
+        Map<Integer, OutputMessage> out = new HashMap<>();
+        for(int i = 0; i < batch.size(); i++) {
+            InputMessage m = batch.get(i);
+            try {
+                inputs.add(decode(m));
+            } catch (Throwable t) {
+                log.error("Failed to decode message published to topic \"{}\"", m.topic, t);
+                out.put(i, error(m, "Failed to decode message: " + t.getMessage()));
+            }
+        }
+
+        Data[] outputs = null;
+        Throwable execFailure = null;
+        if(!inputs.isEmpty()) {
+            try {
+                outputs = pipelineExecutor.exec(inputs.toArray(new Data[0]));
+            } catch (Throwable t) {
+                log.error("Failed to process the pipeline with the input data", t);
+                execFailure = t;
+            }
+        }
+
+        List<OutputMessage> results = new ArrayList<>(batch.size());
+        int j = 0;
+        for(int i = 0; i < batch.size(); i++) {
+            InputMessage m = batch.get(i);
+            if(out.containsKey(i)) {
+                results.add(out.get(i));
+            } else if(execFailure != null) {
+                results.add(error(m, "Failed to process the pipeline with the input data: " + execFailure.getMessage()));
+            } else {
+                results.add(new OutputMessage(replyTopic(m.topic, mqttConfiguration.getOutputTopic()), encode(outputs[j++], m.json)));
+            }
+        }
+        return results;
+    }
+
+    protected void onBatchResult(List<InputMessage> batch, AsyncResult<List<OutputMessage>> result) {
+        executing -= batch.size();
+        for(int i = 0; i < batch.size(); i++) {
+            InputMessage m = batch.get(i);
+            OutputMessage out = result.succeeded() ? result.result().get(i) :
+                    error(m, "Failed to process the pipeline with the input data: " + result.cause().getMessage());
+            vertx.eventBus().publish(PUBLISH_ADDRESS, out.payload, new DeliveryOptions().addHeader(TOPIC_HEADER, out.topic));
+            acknowledge(m.endpoint, m.message);
+        }
+    }
+
+    /**
+     * Publish the payload to all local clients with a matching subscription
+     */
+    protected void deliver(String topic, Buffer payload) {
+        for(Map.Entry<MqttEndpoint, Map<String, MqttQoS>> e : subscriptions.entrySet()) {
+            MqttEndpoint endpoint = e.getKey();
+            if(!endpoint.isConnected())
+                continue;
+
+            //Deliver once per client, with the highest QoS of any matching subscription
+            MqttQoS qos = null;
+            for(Map.Entry<String, MqttQoS> s : e.getValue().entrySet()) {
+                if(topicMatches(s.getKey(), topic) && (qos == null || s.getValue().value() > qos.value())) {
+                    qos = s.getValue();
+                }
+            }
+            if(qos != null) {
+                endpoint.publish(topic, payload, qos, false, false);
+            }
+        }
+    }
+
+    protected void acknowledge(MqttEndpoint endpoint, MqttPublishMessage message) {
+        if(!endpoint.isConnected())
+            return;
+        if(message.qosLevel() == MqttQoS.AT_LEAST_ONCE) {
+            endpoint.publishAcknowledge(message.messageId());
+        } else if(message.qosLevel() == MqttQoS.EXACTLY_ONCE) {
+            endpoint.publishReceived(message.messageId());
+        }
+    }
+
+    protected boolean isInputTopic(String topic) {
+        return isTopicOrSubTopic(topic, mqttConfiguration.getInputTopic()) &&
+                !isTopicOrSubTopic(topic, mqttConfiguration.getOutputTopic()) &&
+                !isTopicOrSubTopic(topic, mqttConfiguration.getErrorTopic());
+    }
+
+    protected String replyTopic(String inputTopic, String replyTopic) {
+        return replyTopic + inputTopic.substring(mqttConfiguration.getInputTopic().length());
+    }
+
+    private OutputMessage error(InputMessage m, String errorMessage) {
+        return new OutputMessage(replyTopic(m.topic, mqttConfiguration.getErrorTopic()),
+                encode(Data.singleton("error", errorMessage), m.json));
+    }
+
+    /**
+     * Decode the message payload according to the configured {@link MqttConfiguration.PayloadFormat}. For AUTO, messages
+     * that may be protobuf encoded are decoded as protobuf first, and as JSON if that fails.
+     */
+    protected Data decode(InputMessage m) {
+        if(m.json)
+            return Data.fromJson(m.payload.toString(StandardCharsets.UTF_8));
+        try {
+            return Data.fromBuffer(m.payload.getByteBuf().nioBuffer());
+        } catch (RuntimeException e) {
+            if(payloadFormat() != MqttConfiguration.PayloadFormat.AUTO)
+                throw e;
+            Data d = Data.fromJson(m.payload.toString(StandardCharsets.UTF_8));
+            m.json = true;      //Reply in the same encoding
+            return d;
+        }
+    }
+
+    protected MqttConfiguration.PayloadFormat payloadFormat() {
+        MqttConfiguration.PayloadFormat f = mqttConfiguration.getPayloadFormat();
+        return f == null ? MqttConfiguration.PayloadFormat.AUTO : f;
+    }
+
+    private static Buffer encode(Data data, boolean json) {
+        if(json) {
+            return Buffer.buffer(data.toJson(), StandardCharsets.UTF_8.name());
+        }
+        return Buffer.buffer(data.asBytes());
+    }
+
+    private static boolean isTopicOrSubTopic(String topic, String parent) {
+        return topic.equals(parent) || topic.startsWith(parent + "/");
+    }
+
+    /**
+     * Determine whether the topic matches the subscription topic filter, which may contain the MQTT single level ("+")
+     * and multi level ("#") wildcards
+     */
+    public static boolean topicMatches(String filter, String topic) {
+        String[] f = filter.split("/", -1);
+        String[] t = topic.split("/", -1);
+        for(int i = 0; i < f.length; i++) {
+            if(f[i].equals("#"))
+                return true;
+            if(i >= t.length)
+                return false;
+            if(!f[i].equals("+") && !f[i].equals(t[i]))
+                return false;
+        }
+        return f.length == t.length;
+    }
+
+    /**
+     * Determine whether the payload should be decoded as JSON (true) or protobuf (false, possibly with JSON fallback -
+     * see {@link #decode(InputMessage)})
+     */
+    private static boolean isJson(Buffer payload, MqttConfiguration.PayloadFormat format) {
+        switch (format) {
+            case JSON:
+                return true;
+            case PROTOBUF:
+                return false;
+            default:
+                //Protobuf DataMap messages are either empty, or start with the tag of field 1 (mapItems: 0x0A) or
+                //field 2 (metaData: 0x12). JSON can start with 0x0A too ('\n'), hence the fallback when decoding
+                if(payload.length() == 0)
+                    return false;
+                byte b = payload.getByte(0);
+                return b != 0x0A && b != 0x12;
+        }
+    }
+
+    protected static class InputMessage {
+        private final MqttEndpoint endpoint;
+        private final MqttPublishMessage message;
+        private final String topic;
+        private final Buffer payload;
+        private boolean json;
+
+        protected InputMessage(MqttEndpoint endpoint, MqttPublishMessage message, MqttConfiguration.PayloadFormat format) {
+            this.endpoint = endpoint;
+            this.message = message;
+            this.topic = message.topicName();
+            this.payload = message.payload();
+            this.json = isJson(payload, format);
+        }
+    }
+
+    @AllArgsConstructor
+    protected static class OutputMessage {
+        private final String topic;
+        private final Buffer payload;
     }
 }
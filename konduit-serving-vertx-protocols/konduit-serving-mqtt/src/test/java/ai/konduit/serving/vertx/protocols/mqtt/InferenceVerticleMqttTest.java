@@ -18,28 +18,36 @@
 
 package ai.konduit.serving.vertx.protocols.mqtt;
 
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.impl.data.JData;
 import ai.konduit.serving.pipeline.impl.pipeline.SequencePipeline;
 import ai.konduit.serving.pipeline.impl.step.logging.LoggingPipelineStep;
 import ai.konduit.serving.vertx.api.DeployKonduitServing;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
 import ai.konduit.serving.vertx.config.InferenceDeploymentResult;
 import ai.konduit.serving.vertx.config.ServerProtocol;
-import com.google.protobuf.InvalidProtocolBufferException;
+import ai.konduit.serving.vertx.protocols.mqtt.verticle.InferenceVerticleMqtt;
+import io.netty.handler.codec.mqtt.MqttQoS;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.mqtt.MqttClient;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
-import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.event.Level;
 
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 @RunWith(VertxUnitRunner.class)
-@Ignore("Remove this ignore statement after implementing the mqtt module.") // todo
 public class InferenceVerticleMqttTest {
     static InferenceConfiguration configuration;
     static Vertx vertx;
@@ -70,8 +78,82 @@ public class InferenceVerticleMqttTest {
     }
 
     @Test
-    public void testMqttServer(TestContext testContext) throws InvalidProtocolBufferException {
-        // todo: write a basic test for mqtt
+    public void testMqttServer(TestContext testContext) {
+        Data protoInput = JData.singleton("key", "value");
+        Data jsonInput = JData.singleton("key", 2L);
+
+        Async async = testContext.async(2);
+        MqttClient client = MqttClient.create(vertx);
+        client.publishHandler(message -> {
+            testContext.assertEquals("konduit/predict/result/test", message.topicName());
+            Buffer payload = message.payload();
+            if(payload.getByte(0) == '{') {
+                testContext.assertEquals(jsonInput, Data.fromJson(payload.toString(StandardCharsets.UTF_8)));
+            } else {
+                testContext.assertEquals(protoInput, Data.fromBytes(payload.getBytes()));
+            }
+            async.countDown();
+        });
+
+        client.connect(inferenceDeploymentResult.getActualPort(), "localhost", connected -> {
+            testContext.assertTrue(connected.succeeded());
+            client.subscribe("konduit/predict/result/+", MqttQoS.AT_LEAST_ONCE.value(), subscribed -> {
+                client.publish("konduit/predict/test", Buffer.buffer(protoInput.asBytes()), MqttQoS.AT_LEAST_ONCE, false, false);
+                client.publish("konduit/predict/test", Buffer.buffer(jsonInput.toJson()), MqttQoS.AT_MOST_ONCE, false, false);
+            });
+        });
+    }
+
+    @Test
+    public void testAmbiguousPayloads(TestContext testContext) {
+        //Protobuf message where the first map entry has length 123 - i.e., the second byte is '{'
+        Data protoInput = null;
+        for(int i = 0; i < 200; i++) {
+            Data d = JData.singleton("key", new String(new char[i]).replace('\0', 'x'));
+            byte[] b = d.asBytes();
+            if(b[0] == 0x0A && b[1] == '{') {
+                protoInput = d;
+                break;
+            }
+        }
+        testContext.assertNotNull(protoInput);
+        Data protoIn = protoInput;
+
+        //JSON starting with a newline - the same first byte as a protobuf DataMap message
+        Data jsonInput = JData.singleton("key", 3L);
+
+        Async async = testContext.async(2);
+        MqttClient client = MqttClient.create(vertx);
+        client.publishHandler(message -> {
+            testContext.assertEquals("konduit/predict/result/ambiguous/test", message.topicName());
+            Buffer payload = message.payload();
+            if(payload.getByte(0) == '{') {
+                testContext.assertEquals(jsonInput, Data.fromJson(payload.toString(StandardCharsets.UTF_8)));
+            } else {
+                testContext.assertEquals(protoIn, Data.fromBytes(payload.getBytes()));
+            }
+            async.countDown();
+        });
+
+        client.connect(inferenceDeploymentResult.getActualPort(), "localhost", connected -> {
+            testContext.assertTrue(connected.succeeded());
+            client.subscribe("konduit/predict/result/ambiguous/test", MqttQoS.AT_LEAST_ONCE.value(), subscribed -> {
+                client.publish("konduit/predict/ambiguous/test", Buffer.buffer(protoIn.asBytes()), MqttQoS.AT_LEAST_ONCE, false, false);
+                client.publish("konduit/predict/ambiguous/test", Buffer.buffer("\n" + jsonInput.toJson()), MqttQoS.AT_LEAST_ONCE, false, false);
+            });
+        });
+    }
+
+    @Test
+    public void testTopicMatches() {
+        assertTrue(InferenceVerticleMqtt.topicMatches("a/b", "a/b"));
+        assertTrue(InferenceVerticleMqtt.topicMatches("a/+", "a/b"));
+        assertTrue(InferenceVerticleMqtt.topicMatches("a/#", "a/b/c"));
+        assertTrue(InferenceVerticleMqtt.topicMatches("a/#", "a"));
+        assertTrue(InferenceVerticleMqtt.topicMatches("+/b/+", "a/b/c"));
+        assertFalse(InferenceVerticleMqtt.topicMatches("a/+", "a/b/c"));
+        assertFalse(InferenceVerticleMqtt.topicMatches("a/b", "a/c"));
+        assertFalse(InferenceVerticleMqtt.topicMatches("a/b/c", "a/b"));
     }
 
     @AfterClass
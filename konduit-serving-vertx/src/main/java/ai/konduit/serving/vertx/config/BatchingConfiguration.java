@@ -0,0 +1,47 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import ai.konduit.serving.pipeline.impl.pipeline.BatchingPipelineExecutor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for combining concurrent inference requests into batches.
+ * See {@link BatchingPipelineExecutor} for details.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchingConfiguration implements Serializable {
+
+    @Builder.Default
+    private int maxBatchSize = BatchingPipelineExecutor.DEFAULT_MAX_BATCH_SIZE;
+    @Builder.Default
+    private long maxWaitTimeMs = BatchingPipelineExecutor.DEFAULT_MAX_WAIT_TIME_MS;
+    @Builder.Default
+    private int queueLimit = BatchingPipelineExecutor.DEFAULT_QUEUE_LIMIT;
+    @Builder.Default
+    private int workers = BatchingPipelineExecutor.DEFAULT_WORKERS;
+}
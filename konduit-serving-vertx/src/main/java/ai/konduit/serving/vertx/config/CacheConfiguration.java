@@ -0,0 +1,45 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import ai.konduit.serving.pipeline.impl.pipeline.CachingPipelineExecutor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for caching pipeline outputs, keyed by the content of the input.
+ * See {@link CachingPipelineExecutor} for details.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheConfiguration implements Serializable {
+
+    @Builder.Default
+    private int maxEntries = CachingPipelineExecutor.DEFAULT_MAX_ENTRIES;
+    @Builder.Default
+    private long maxBytes = CachingPipelineExecutor.DEFAULT_MAX_BYTES;
+    @Builder.Default
+    private long ttlMs = CachingPipelineExecutor.DEFAULT_TTL_MS;
+}
@@ -21,6 +21,8 @@ package ai.konduit.serving.vertx.config;
 import ai.konduit.serving.pipeline.api.TextConfig;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.util.ObjectMappers;
+import ai.konduit.serving.vertx.verticle.InferenceWorkerPool;
+import ai.konduit.serving.vertx.verticle.SharedPipelineExecutors;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -34,6 +36,8 @@ import java.io.Serializable;
 @AllArgsConstructor
 public class InferenceConfiguration implements Serializable, TextConfig {
 
+    public static final int DEFAULT_STREAM_CONCURRENCY = 16;
+
     @Builder.Default
     private String host = "localhost";
     @Builder.Default
@@ -43,6 +47,57 @@ public class InferenceConfiguration implements Serializable, TextConfig {
 
     private Pipeline pipeline;
 
+    /**
+     * If set, concurrent requests are combined into batches before executing the pipeline
+     */
+    private BatchingConfiguration batching;
+
+    /**
+     * If set, pipeline outputs are cached, and repeated requests with identical inputs are served from the cache.
+     * Only use this for deterministic pipelines
+     */
+    private CacheConfiguration cache;
+
+    /**
+     * Configuration for the MQTT server. Only used with {@link ServerProtocol#MQTT}; defaults are used if not set
+     */
+    private MqttConfiguration mqtt;
+
+    /**
+     * If set, the pipeline is warmed up once the server has started, and the server only reports itself as ready
+     * (for example, via the HTTP "/health/ready" route) once the warm-up has completed
+     */
+    private WarmupConfiguration warmup;
+
+    /**
+     * Number of worker threads (per verticle) used to execute the pipeline, off the event loop. Values greater than 1
+     * require the pipeline to be thread safe, and are usually needed for {@link #batching} to combine requests.
+     * If 0, the pipeline is executed directly on the event loop.
+     */
+    @Builder.Default
+    private int workers = InferenceWorkerPool.DEFAULT_WORKERS;
+
+    /**
+     * Maximum number of requests (per verticle) that may be queued or executing at the same time. Further requests
+     * are rejected (HTTP 429 / gRPC RESOURCE_EXHAUSTED) until the pending requests complete.
+     */
+    @Builder.Default
+    private int maxPendingRequests = InferenceWorkerPool.DEFAULT_MAX_PENDING_REQUESTS;
+
+    /**
+     * Maximum number of records of a single streaming request (for example, HTTP /predict/stream) that may be queued
+     * or executing at the same time. Reading of the request is paused until earlier records complete.
+     */
+    @Builder.Default
+    private int streamConcurrency = DEFAULT_STREAM_CONCURRENCY;
+
+    /**
+     * If true, a single pipeline executor (and hence a single copy of each model) is shared between all verticle
+     * instances in the JVM that serve the same pipeline, instead of one per verticle instance. This requires the
+     * pipeline to be thread safe. See {@link SharedPipelineExecutors}
+     */
+    private boolean sharedExecutor;
+
     public static InferenceConfiguration fromJson(String json){
         return ObjectMappers.fromJson(json, InferenceConfiguration.class);
     }
@@ -0,0 +1,84 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the MQTT inference server ({@link ServerProtocol#MQTT}).<br>
+ * Messages published to {@link #inputTopic} (or any sub-topic of it) are executed, and the results are published to
+ * {@link #outputTopic} with the same sub-topic: for example, the result for a message published to
+ * "konduit/predict/device1" is published to "konduit/predict/result/device1". If a message can't be processed, an
+ * error message is published to {@link #errorTopic} (with the same sub-topic) instead.<br>
+ * Messages that arrive within {@link #maxWaitTimeMs} of each other are executed together, up to
+ * {@link #maxBatchSize} messages at a time.<br>
+ * Messages may be protobuf or JSON encoded Data instances - see {@link #payloadFormat}. Results are published in the
+ * same encoding as the input.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MqttConfiguration implements Serializable {
+
+    public static final String DEFAULT_INPUT_TOPIC = "konduit/predict";
+    public static final String DEFAULT_OUTPUT_TOPIC = "konduit/predict/result";
+    public static final String DEFAULT_ERROR_TOPIC = "konduit/predict/error";
+    public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    public static final long DEFAULT_MAX_WAIT_TIME_MS = 5;
+    public static final int DEFAULT_MAX_QUEUED_MESSAGES = 1024;
+
+    @Builder.Default
+    private String inputTopic = DEFAULT_INPUT_TOPIC;
+    @Builder.Default
+    private String outputTopic = DEFAULT_OUTPUT_TOPIC;
+    @Builder.Default
+    private String errorTopic = DEFAULT_ERROR_TOPIC;
+    @Builder.Default
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    @Builder.Default
+    private long maxWaitTimeMs = DEFAULT_MAX_WAIT_TIME_MS;
+
+    /**
+     * Maximum number of messages waiting to be executed. Once reached, further QoS 0 (at most once) messages are
+     * dropped. QoS 1 and 2 messages are always accepted: they are only acknowledged once they have been executed,
+     * which limits the number of messages each client can have in flight
+     */
+    @Builder.Default
+    private int maxQueuedMessages = DEFAULT_MAX_QUEUED_MESSAGES;
+
+    /**
+     * Encoding of the messages published to the input topic. Default: {@link PayloadFormat#AUTO}
+     */
+    @Builder.Default
+    private PayloadFormat payloadFormat = PayloadFormat.AUTO;
+
+    /**
+     * Encoding of the input messages.<br>
+     * AUTO: Messages are decoded as protobuf if they start with the tag of a protobuf DataMap field, falling back to
+     * JSON if protobuf decoding fails (JSON that starts with a newline has the same first byte). All other messages
+     * are decoded as JSON. Set JSON or PROTOBUF if all clients use the same encoding, to avoid any ambiguity.
+     */
+    public enum PayloadFormat {AUTO, JSON, PROTOBUF}
+}
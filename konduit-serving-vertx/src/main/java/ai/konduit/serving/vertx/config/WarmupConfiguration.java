@@ -0,0 +1,55 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.config;
+
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.api.step.PipelineStepRunner;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for warming up the pipeline after the server has started, before it reports itself as ready.<br>
+ * By default, each model is executed on a synthetic input derived from its declared input shapes (see
+ * {@link PipelineStepRunner#warmupInput()} and {@link PipelineExecutor#warmup(int)}). Alternatively, a representative
+ * request can be provided via {@link #inputFile}, in which case the whole pipeline is executed on it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarmupConfiguration implements Serializable {
+
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    /**
+     * Number of times to execute each model (or the whole pipeline, if {@link #inputFile} is set)
+     */
+    @Builder.Default
+    private int iterations = DEFAULT_ITERATIONS;
+
+    /**
+     * Optional path to a Data instance (JSON, or protobuf binary format) to execute the whole pipeline on, instead of
+     * using synthetic inputs for each model
+     */
+    private String inputFile;
+}
@@ -18,22 +18,37 @@
 
 package ai.konduit.serving.vertx.verticle;
 
+import ai.konduit.serving.pipeline.api.data.Data;
 import ai.konduit.serving.pipeline.api.pipeline.Pipeline;
 import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
 import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import ai.konduit.serving.vertx.config.WarmupConfiguration;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Context;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 @Slf4j
 public abstract class InferenceVerticle extends AbstractVerticle {
 
+    //Executors that have been warmed up: shared executors only need to be warmed up by one verticle
+    private static final Set<PipelineExecutor> WARMED_UP = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
     protected ai.konduit.serving.pipeline.api.context.Context pipelineContext;
     protected InferenceConfiguration inferenceConfiguration;
     protected Pipeline pipeline;
     protected PipelineExecutor pipelineExecutor;
+    protected InferenceWorkerPool inferenceWorkerPool;
+    protected volatile boolean ready;
 
     @Override
     public void init(Vertx vertx, Context context) {
@@ -41,11 +56,86 @@ public abstract class InferenceVerticle extends AbstractVerticle {
 
         inferenceConfiguration = InferenceConfiguration.fromJson(context.config().encode());
         pipeline = inferenceConfiguration.getPipeline();
-        pipelineExecutor = pipeline.executor();
+        if(inferenceConfiguration.isSharedExecutor()) {
+            pipelineExecutor = SharedPipelineExecutors.acquire(inferenceConfiguration);
+        } else {
+            pipelineExecutor = SharedPipelineExecutors.createExecutor(inferenceConfiguration);
+        }
+
+        inferenceWorkerPool = new InferenceWorkerPool(vertx, pipelineExecutor,
+                inferenceConfiguration.getWorkers(), inferenceConfiguration.getMaxPendingRequests());
+    }
+
+    /**
+     * Whether this verticle is ready to serve requests at steady state latency: i.e., the pipeline has been loaded and
+     * the warm-up (if configured) has completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Start warming up the pipeline on a worker thread, as configured by {@link InferenceConfiguration#getWarmup()}.
+     * The verticle is marked as ready once warm-up has completed (immediately if no warm-up is configured).
+     * Should be called by subclasses once the server has started.
+     */
+    protected void warmup() {
+        WarmupConfiguration w = inferenceConfiguration.getWarmup();
+        if(w == null || w.getIterations() <= 0) {
+            ready = true;
+            return;
+        }
+
+        PipelineExecutor executor = pipelineExecutor;
+        vertx.executeBlocking(promise -> {
+            try {
+                synchronized (executor) {
+                    if (!WARMED_UP.contains(executor)) {
+                        long start = System.currentTimeMillis();
+                        if (w.getInputFile() != null) {
+                            executor.warmup(readWarmupInput(new File(w.getInputFile())), w.getIterations());
+                        } else {
+                            executor.warmup(w.getIterations());
+                        }
+                        WARMED_UP.add(executor);
+                        log.info("Pipeline warm-up completed in {} ms", System.currentTimeMillis() - start);
+                    }
+                }
+                promise.complete();
+            } catch (Throwable t) {
+                promise.fail(t);
+            }
+        }, false, result -> {
+            if(result.failed()) {
+                //The pipeline may still be able to serve requests - just not at steady state latency initially
+                log.warn("Pipeline warm-up failed - marking server as ready without warm-up", result.cause());
+            }
+            ready = true;
+        });
+    }
+
+    protected static Data readWarmupInput(File f) throws IOException {
+        if(f.getName().toLowerCase().endsWith(".json")) {
+            return Data.fromJson(FileUtils.readFileToString(f, StandardCharsets.UTF_8));
+        }
+        return Data.fromFile(f);
     }
 
     @Override
     public void stop(Promise<Void> stopPromise) {
+        if(inferenceWorkerPool != null) {
+            inferenceWorkerPool.close();
+        }
+
+        if(pipelineExecutor != null) {
+            if(inferenceConfiguration.isSharedExecutor()) {
+                SharedPipelineExecutors.release(pipelineExecutor);
+            } else {
+                pipelineExecutor.close();
+            }
+            pipelineExecutor = null;
+        }
+
         if (vertx != null) {
             vertx.close(handler -> {
                 if(handler.succeeded()) {
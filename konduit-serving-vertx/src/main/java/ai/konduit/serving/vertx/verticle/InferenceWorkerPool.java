@@ -0,0 +1,133 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.verticle;
+
+import ai.konduit.serving.pipeline.api.data.Data;
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes inference requests for a single verticle on a dedicated, bounded pool of worker threads, so that slow
+ * pipelines don't block the event loop (and hence I/O for all other connections handled by it).<br>
+ * At most {@code maxPendingRequests} requests may be queued or executing at any time; further requests are rejected
+ * immediately, so that protocol implementations can signal back-pressure to the client (for example, with an
+ * HTTP 429 or gRPC RESOURCE_EXHAUSTED response) instead of queueing unbounded amounts of work.<br>
+ * If the number of workers is 0, requests are executed directly on the calling (event loop) thread.
+ */
+public class InferenceWorkerPool {
+
+    public static final int DEFAULT_WORKERS = 1;
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 256;
+
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    @Getter
+    private final PipelineExecutor pipelineExecutor;
+    private final int maxPendingRequests;
+    private final WorkerExecutor workerExecutor;
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+
+    /**
+     * @param vertx              Vert.x instance to create the worker threads with
+     * @param pipelineExecutor   Executor for the pipeline being served
+     * @param workers            Number of worker threads. Note that values greater than 1 require the pipeline
+     *                           (all of its steps) to be thread safe. If 0: execute on the calling thread
+     * @param maxPendingRequests Maximum number of requests that may be queued or executing at the same time
+     */
+    public InferenceWorkerPool(@NonNull Vertx vertx, @NonNull PipelineExecutor pipelineExecutor, int workers, int maxPendingRequests) {
+        if(workers < 0)
+            throw new IllegalStateException("Workers should be non-negative value");
+        if(maxPendingRequests < 1)
+            throw new IllegalStateException("Max pending requests should be positive value");
+
+        this.pipelineExecutor = pipelineExecutor;
+        this.maxPendingRequests = maxPendingRequests;
+        this.workerExecutor = workers == 0 ? null :
+                vertx.createSharedWorkerExecutor("konduit-inference-worker-" + POOL_COUNTER.getAndIncrement(), workers);
+    }
+
+    /**
+     * Execute the pipeline on the specified input.
+     *
+     * @see #submit(Callable, Handler)
+     */
+    public boolean exec(@NonNull Data input, @NonNull Handler<AsyncResult<Data>> resultHandler) {
+        return submit(() -> pipelineExecutor.exec(input), resultHandler);
+    }
+
+    /**
+     * Submit a task - usually parsing the request, executing the pipeline and serializing the response - for execution
+     * on the worker pool. The result handler is called on the calling Vert.x context once the task completes.
+     *
+     * @param task          Task to execute
+     * @param resultHandler Handler for the result of the task
+     * @return False if the request was rejected (without calling the result handler) because the maximum number of
+     * pending requests has been reached; true otherwise
+     */
+    public <T> boolean submit(@NonNull Callable<T> task, @NonNull Handler<AsyncResult<T>> resultHandler) {
+        if(pendingRequests.incrementAndGet() > maxPendingRequests) {
+            pendingRequests.decrementAndGet();
+            return false;
+        }
+
+        if(workerExecutor == null) {
+            AsyncResult<T> result;
+            try {
+                result = Future.succeededFuture(task.call());
+            } catch (Throwable t) {
+                result = Future.failedFuture(t);
+            } finally {
+                pendingRequests.decrementAndGet();
+            }
+            resultHandler.handle(result);
+        } else {
+            workerExecutor.<T>executeBlocking(promise -> {
+                try {
+                    promise.complete(task.call());
+                } catch (Throwable t) {
+                    promise.fail(t);
+                } finally {
+                    pendingRequests.decrementAndGet();
+                }
+            }, false, resultHandler);
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of requests currently queued or executing
+     */
+    public int pendingRequests() {
+        return pendingRequests.get();
+    }
+
+    public void close() {
+        if(workerExecutor != null)
+            workerExecutor.close();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.verticle;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Processes a stream of inputs on an {@link InferenceWorkerPool} with bounded concurrency, and passes the outputs to a
+ * {@link Sink} in the same order as the inputs. Used by the streaming endpoints of the protocol implementations, which
+ * are responsible only for framing and flow control towards the client.<br>
+ * At most {@code maxInFlight} inputs are executing or waiting to be written at any time: outputs that complete out of
+ * order, or while the sink is not ready, count towards this limit. If the worker pool rejects an input (because it is
+ * saturated, possibly by other requests), the input is retried shortly after. Outputs are only passed to the sink
+ * while it is ready; {@link #drain()} should be called once it becomes ready again.<br>
+ * All methods are thread safe; sink methods are called while holding this instance's lock.
+ *
+ * @param <I> Type of the inputs
+ * @param <O> Type of the outputs
+ */
+public class OrderedStreamProcessor<I, O> {
+
+    private static final long RETRY_DELAY_MS = 10;
+
+    /**
+     * Processes a single input. Called on the worker pool.
+     */
+    public interface Processor<I, O> {
+        O process(I input) throws Exception;
+    }
+
+    /**
+     * Receiver of the outputs, in input order
+     */
+    public interface Sink<O> {
+
+        /**
+         * @return True if the sink can accept another output now
+         */
+        boolean isReady();
+
+        void write(O output);
+
+        /**
+         * Called once, after all outputs have been written and the input has ended
+         */
+        void complete();
+
+        /**
+         * Called once, if processing any of the inputs failed. No further outputs are written.
+         */
+        void fail(Throwable t);
+
+        /**
+         * Called at the end of each {@link #drain()} call that did not complete or fail the stream - for example, to
+         * pause or resume reading further inputs based on {@link #backlogSize()} and {@link #isWindowFull()}
+         */
+        default void drained() { }
+    }
+
+    private final Vertx vertx;
+    private final InferenceWorkerPool workerPool;
+    private final int maxInFlight;
+    private final Processor<I, O> processor;
+    private final Sink<O> sink;
+
+    private final Deque<I> backlog = new ArrayDeque<>();
+    private final Map<Long, O> completed = new HashMap<>();
+    private long nextSubmit;
+    private long nextWrite;
+    private int inFlight;
+    private boolean draining;
+    private boolean retryScheduled;
+    private boolean inputEnded;
+    private boolean done;
+
+    /**
+     * @param vertx       Vert.x instance, used to schedule retries when the worker pool is saturated
+     * @param workerPool  Worker pool to process the inputs on
+     * @param maxInFlight Maximum number of inputs executing or waiting to be written at the same time
+     * @param processor   Processor for each input
+     * @param sink        Receiver of the outputs
+     */
+    public OrderedStreamProcessor(@NonNull Vertx vertx, @NonNull InferenceWorkerPool workerPool, int maxInFlight,
+                                  @NonNull Processor<I, O> processor, @NonNull Sink<O> sink) {
+        if(maxInFlight < 1)
+            throw new IllegalStateException("Max in flight should be positive value");
+
+        this.vertx = vertx;
+        this.workerPool = workerPool;
+        this.maxInFlight = maxInFlight;
+        this.processor = processor;
+        this.sink = sink;
+    }
+
+    /**
+     * Add an input to the end of the stream
+     */
+    public synchronized void add(@NonNull I input) {
+        if(done)
+            return;
+        backlog.add(input);
+        drain();
+    }
+
+    /**
+     * Signal that no further inputs will be added. The sink is completed once all outputs have been written.
+     */
+    public synchronized void endInput() {
+        inputEnded = true;
+        drain();
+    }
+
+    /**
+     * Stop processing without completing or failing the sink - for example, when the client has disconnected.
+     * Inputs that are already executing are allowed to finish, but their outputs are discarded.
+     */
+    public synchronized void cancel() {
+        done = true;
+        backlog.clear();
+        completed.clear();
+    }
+
+    /**
+     * @return True if the stream has been completed, failed or cancelled
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return The number of inputs that have been added but not yet submitted to the worker pool
+     */
+    public synchronized int backlogSize() {
+        return backlog.size();
+    }
+
+    /**
+     * @return True if maxInFlight inputs are executing or waiting to be written, in which case no further inputs are
+     * submitted until the next output has been written
+     */
+    public synchronized boolean isWindowFull() {
+        return nextSubmit - nextWrite >= maxInFlight;
+    }
+
+    /**
+     * Submit inputs from the backlog while fewer than maxInFlight are executing or waiting to be written, and write
+     * completed outputs in order while the sink is ready
+     */
+    public synchronized void drain() {
+        if(draining || done)
+            return;
+        draining = true;
+        try {
+            //Loop, as results may be delivered synchronously (i.e., during submit) when the pool has no workers
+            boolean progress = true;
+            while(progress && !done) {
+                progress = false;
+                while(!done && !backlog.isEmpty() && nextSubmit - nextWrite < maxInFlight) {
+                    I input = backlog.poll();
+                    long seq = nextSubmit++;
+                    inFlight++;
+                    boolean accepted = workerPool.submit(() -> processor.process(input), result -> onResult(seq, result));
+                    if(!accepted) {
+                        inFlight--;
+                        nextSubmit--;
+                        backlog.addFirst(input);
+                        scheduleRetry();
+                        break;
+                    }
+                }
+
+                while(!done && sink.isReady() && completed.containsKey(nextWrite)) {
+                    sink.write(completed.remove(nextWrite++));
+                    progress = true;
+                }
+            }
+        } finally {
+            draining = false;
+        }
+
+        if(done)
+            return;
+
+        if(inputEnded && backlog.isEmpty() && inFlight == 0 && completed.isEmpty()) {
+            done = true;
+            sink.complete();
+        } else {
+            sink.drained();
+        }
+    }
+
+    private void scheduleRetry() {
+        if(retryScheduled)
+            return;
+        retryScheduled = true;
+        vertx.setTimer(RETRY_DELAY_MS, id -> {
+            synchronized (this) {
+                retryScheduled = false;
+                drain();
+            }
+        });
+    }
+
+    private synchronized void onResult(long seq, AsyncResult<O> result) {
+        inFlight--;
+        if(done)
+            return;
+        if(result.failed()) {
+            cancel();
+            sink.fail(result.cause());
+            return;
+        }
+        completed.put(seq, result.result());
+        drain();
+    }
+}
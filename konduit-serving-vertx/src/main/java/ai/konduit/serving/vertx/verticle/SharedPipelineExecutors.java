@@ -0,0 +1,138 @@
+/*
+ *  ******************************************************************************
+ *  * Copyright (c) 2020 Konduit K.K.
+ *  *
+ *  * This program and the accompanying materials are made available under the
+ *  * terms of the Apache License, Version 2.0 which is available at
+ *  * https://www.apache.org/licenses/LICENSE-2.0.
+ *  *
+ *  * Unless required by applicable law or agreed to in writing, software
+ *  * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ *  * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ *  * License for the specific language governing permissions and limitations
+ *  * under the License.
+ *  *
+ *  * SPDX-License-Identifier: Apache-2.0
+ *  *****************************************************************************
+ */
+
+package ai.konduit.serving.vertx.verticle;
+
+import ai.konduit.serving.pipeline.api.pipeline.PipelineExecutor;
+import ai.konduit.serving.pipeline.impl.pipeline.BatchingPipelineExecutor;
+import ai.konduit.serving.pipeline.impl.pipeline.CachingPipelineExecutor;
+import ai.konduit.serving.vertx.config.BatchingConfiguration;
+import ai.konduit.serving.vertx.config.CacheConfiguration;
+import ai.konduit.serving.vertx.config.InferenceConfiguration;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Pipeline executors shared between all verticle instances in the JVM that serve the same pipeline (with the same
+ * batching and cache configuration). This avoids loading a separate copy of every model for each verticle instance when scaling
+ * the number of instances (event loops) to the number of cores.<br>
+ * Executors are reference counted: they are created by the first call to {@link #acquire(InferenceConfiguration)} and
+ * closed when the last verticle using them calls {@link #release(PipelineExecutor)}.<br>
+ * Note that shared executors are called concurrently by all verticles' workers, and hence the pipeline must be thread
+ * safe.
+ */
+@Slf4j
+public class SharedPipelineExecutors {
+
+    private static final Map<Key, Entry> EXECUTORS = new HashMap<>();
+    private static final Map<PipelineExecutor, Key> KEYS = new IdentityHashMap<>();
+
+    private SharedPipelineExecutors(){ }
+
+    /**
+     * Get the shared executor for the pipeline, batching and cache configuration of the specified inference configuration,
+     * creating it if necessary. Each call must be matched by a call to {@link #release(PipelineExecutor)}.
+     */
+    public static synchronized PipelineExecutor acquire(@NonNull InferenceConfiguration configuration){
+        Key key = new Key(configuration.getPipeline().toJson(), configuration.getBatching(), configuration.getCache());
+        Entry e = EXECUTORS.get(key);
+        if(e == null){
+            e = new Entry(createExecutor(configuration), 0);
+            EXECUTORS.put(key, e);
+            KEYS.put(e.executor, key);
+            log.info("Created shared pipeline executor");
+        }
+        e.refCount++;
+        return e.executor;
+    }
+
+    /**
+     * Release a shared executor obtained from {@link #acquire(InferenceConfiguration)}. The executor is closed once
+     * it has been released by all verticles that acquired it.
+     */
+    public static synchronized void release(@NonNull PipelineExecutor executor){
+        Key key = KEYS.get(executor);
+        if(key == null)
+            throw new IllegalStateException("Pipeline executor is not a shared executor, or has already been closed");
+
+        Entry e = EXECUTORS.get(key);
+        if(--e.refCount == 0){
+            EXECUTORS.remove(key);
+            KEYS.remove(executor);
+            log.info("Closing shared pipeline executor: released by all verticles");
+            executor.close();
+        }
+    }
+
+    /**
+     * @return Number of verticles currently using the specified shared executor, or 0 if it is not a (live) shared
+     * executor
+     */
+    public static synchronized int refCount(@NonNull PipelineExecutor executor){
+        Key key = KEYS.get(executor);
+        return key == null ? 0 : EXECUTORS.get(key).refCount;
+    }
+
+    /**
+     * Create a new (unshared) pipeline executor for the specified configuration, with batching and caching if enabled.
+     * The cache is checked before batching, so that cache hits don't wait for a batch
+     */
+    public static PipelineExecutor createExecutor(@NonNull InferenceConfiguration configuration){
+        PipelineExecutor pipelineExecutor = configuration.getPipeline().executor();
+
+        BatchingConfiguration batching = configuration.getBatching();
+        if(batching != null && batching.getMaxBatchSize() > 1) {
+            pipelineExecutor = BatchingPipelineExecutor.builder(pipelineExecutor)
+                    .maxBatchSize(batching.getMaxBatchSize())
+                    .maxWaitTimeMs(batching.getMaxWaitTimeMs())
+                    .queueLimit(batching.getQueueLimit())
+                    .workers(batching.getWorkers())
+                    .build();
+        }
+
+        CacheConfiguration cache = configuration.getCache();
+        if(cache != null) {
+            pipelineExecutor = CachingPipelineExecutor.builder(pipelineExecutor)
+                    .maxEntries(cache.getMaxEntries())
+                    .maxBytes(cache.getMaxBytes())
+                    .ttlMs(cache.getTtlMs())
+                    .build();
+        }
+        return pipelineExecutor;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class Key {
+        private final String pipelineJson;
+        private final BatchingConfiguration batching;
+        private final CacheConfiguration cache;
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final PipelineExecutor executor;
+        private int refCount;
+    }
+}